@@ -0,0 +1,374 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.interestrate;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Mutable accumulator for the sensitivity of a value to a family of yield curves, holding the (time, sensitivity) pairs of each curve in
+ * primitive arrays. It is intended for aggregating the sensitivities of many instruments, where the copy-on-write operations of
+ * {@link InterestRateCurveSensitivity} allocate a new map and lists for every instrument.
+ * <p>
+ * Curves are referred to by name or, more cheaply, by the index returned from {@link #getCurveIndex}. Sensitivities are appended to the
+ * arrays of their curve in any order and are sorted by time, with the values at equal times summed, when the curve is {@link #compact
+ * compacted}. Compaction is done by a merge sort that sums as it merges, so that the arrays never hold more than one entry per time
+ * once compacted; the accessors for the buckets of a curve compact it first.
+ * <p>
+ * This class is not thread-safe.
+ */
+public class ArrayInterestRateCurveSensitivity {
+
+  private static final int INITIAL_CAPACITY = 16;
+
+  private final List<String> _curveNames = new ArrayList<String>();
+  private final List<Buckets> _buckets = new ArrayList<Buckets>();
+  private double[] _scratchTimes = new double[INITIAL_CAPACITY];
+  private double[] _scratchValues = new double[INITIAL_CAPACITY];
+
+  /**
+   * Creates an empty sensitivity.
+   */
+  public ArrayInterestRateCurveSensitivity() {
+  }
+
+  /**
+   * Creates a sensitivity holding the data of an {@link InterestRateCurveSensitivity}.
+   * @param sensitivity The sensitivity, not null
+   */
+  public ArrayInterestRateCurveSensitivity(final InterestRateCurveSensitivity sensitivity) {
+    Validate.notNull(sensitivity, "sensitivity");
+    add(sensitivity.getSensitivities(), 1.0);
+  }
+
+  /**
+   * Returns the index of a curve, adding the curve if it is not already present.
+   * @param curveName The curve name, not null
+   * @return The curve index
+   */
+  public int getCurveIndex(final String curveName) {
+    Validate.notNull(curveName, "curve name");
+    final int index = indexOf(curveName);
+    if (index >= 0) {
+      return index;
+    }
+    _curveNames.add(curveName);
+    _buckets.add(new Buckets());
+    return _curveNames.size() - 1;
+  }
+
+  /**
+   * Returns the index of a curve.
+   * @param curveName The curve name
+   * @return The curve index, or -1 if there is no sensitivity to the curve
+   */
+  public int indexOf(final String curveName) {
+    // There are only ever a handful of curves, so this is faster than a hash lookup
+    for (int i = 0; i < _curveNames.size(); i++) {
+      if (_curveNames.get(i).equals(curveName)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /**
+   * Returns the names of the curves, in index order.
+   * @return The curve names, not null
+   */
+  public List<String> getCurveNames() {
+    return Collections.unmodifiableList(_curveNames);
+  }
+
+  /**
+   * Adds the sensitivity to a curve at a time.
+   * @param curveIndex The curve index
+   * @param time The time
+   * @param sensitivity The sensitivity
+   */
+  public void add(final int curveIndex, final double time, final double sensitivity) {
+    _buckets.get(curveIndex).add(time, sensitivity);
+  }
+
+  /**
+   * Adds the sensitivity to a curve at a time.
+   * @param curveName The curve name, not null
+   * @param time The time
+   * @param sensitivity The sensitivity
+   */
+  public void add(final String curveName, final double time, final double sensitivity) {
+    add(getCurveIndex(curveName), time, sensitivity);
+  }
+
+  /**
+   * Adds a list of sensitivities to a curve, multiplied by a common factor.
+   * @param curveName The curve name, not null
+   * @param sensitivities The (time, sensitivity) pairs, not null
+   * @param factor The multiplicative factor
+   */
+  public void add(final String curveName, final List<DoublesPair> sensitivities, final double factor) {
+    Validate.notNull(sensitivities, "sensitivities");
+    final Buckets buckets = _buckets.get(getCurveIndex(curveName));
+    buckets.ensureCapacity(buckets._size + sensitivities.size());
+    for (final DoublesPair pair : sensitivities) {
+      buckets.add(pair.first, factor * pair.second);
+    }
+  }
+
+  /**
+   * Adds the sensitivities in the form returned by the curve sensitivity calculators, multiplied by a common factor.
+   * @param sensitivities The map from curve name to (time, sensitivity) pairs, not null
+   * @param factor The multiplicative factor
+   */
+  public void add(final Map<String, List<DoublesPair>> sensitivities, final double factor) {
+    Validate.notNull(sensitivities, "sensitivities");
+    for (final Map.Entry<String, List<DoublesPair>> entry : sensitivities.entrySet()) {
+      add(entry.getKey(), entry.getValue(), factor);
+    }
+  }
+
+  /**
+   * Adds another sensitivity, multiplied by a common factor.
+   * @param other The sensitivity to add, not null
+   * @param factor The multiplicative factor
+   */
+  public void add(final ArrayInterestRateCurveSensitivity other, final double factor) {
+    Validate.notNull(other, "other");
+    for (int i = 0; i < other._curveNames.size(); i++) {
+      final Buckets from = other._buckets.get(i);
+      final Buckets to = _buckets.get(getCurveIndex(other._curveNames.get(i)));
+      to.ensureCapacity(to._size + from._size);
+      for (int j = 0; j < from._size; j++) {
+        to.add(from._times[j], factor * from._values[j]);
+      }
+    }
+  }
+
+  /**
+   * Multiplies all of the sensitivities by a common factor.
+   * @param factor The multiplicative factor
+   */
+  public void multiplyBy(final double factor) {
+    for (final Buckets buckets : _buckets) {
+      for (int j = 0; j < buckets._size; j++) {
+        buckets._values[j] *= factor;
+      }
+    }
+  }
+
+  /**
+   * Sorts the sensitivities to each curve by time and sums those at equal times.
+   */
+  public void compact() {
+    for (final Buckets buckets : _buckets) {
+      compact(buckets);
+    }
+  }
+
+  /**
+   * Compacts the sensitivities to a curve and returns the number of distinct times.
+   * @param curveIndex The curve index
+   * @return The number of times
+   */
+  public int getSize(final int curveIndex) {
+    final Buckets buckets = _buckets.get(curveIndex);
+    compact(buckets);
+    return buckets._size;
+  }
+
+  /**
+   * Returns a time from the compacted sensitivities to a curve.
+   * @param curveIndex The curve index
+   * @param bucket The index of the time, less than {@link #getSize}
+   * @return The time
+   */
+  public double getTime(final int curveIndex, final int bucket) {
+    final Buckets buckets = _buckets.get(curveIndex);
+    Validate.isTrue(buckets._sorted == buckets._size && bucket < buckets._size, "bucket out of range or curve not compacted");
+    return buckets._times[bucket];
+  }
+
+  /**
+   * Returns a sensitivity from the compacted sensitivities to a curve.
+   * @param curveIndex The curve index
+   * @param bucket The index of the time, less than {@link #getSize}
+   * @return The sensitivity
+   */
+  public double getSensitivity(final int curveIndex, final int bucket) {
+    final Buckets buckets = _buckets.get(curveIndex);
+    Validate.isTrue(buckets._sorted == buckets._size && bucket < buckets._size, "bucket out of range or curve not compacted");
+    return buckets._values[bucket];
+  }
+
+  /**
+   * Returns the compacted times for a curve.
+   * @param curveName The curve name, not null
+   * @return A copy of the times in ascending order, empty if there is no sensitivity to the curve
+   */
+  public double[] getTimes(final String curveName) {
+    final int index = indexOf(curveName);
+    if (index < 0) {
+      return new double[0];
+    }
+    return Arrays.copyOf(_buckets.get(index)._times, getSize(index));
+  }
+
+  /**
+   * Returns the compacted sensitivities for a curve.
+   * @param curveName The curve name, not null
+   * @return A copy of the sensitivities in the order of {@link #getTimes}, empty if there is no sensitivity to the curve
+   */
+  public double[] getSensitivities(final String curveName) {
+    final int index = indexOf(curveName);
+    if (index < 0) {
+      return new double[0];
+    }
+    return Arrays.copyOf(_buckets.get(index)._values, getSize(index));
+  }
+
+  /**
+   * Converts the compacted sensitivities to the list form.
+   * @return The sensitivity, not null
+   */
+  public InterestRateCurveSensitivity toInterestRateCurveSensitivity() {
+    final Map<String, List<DoublesPair>> result = new HashMap<String, List<DoublesPair>>();
+    for (int i = 0; i < _curveNames.size(); i++) {
+      final int n = getSize(i);
+      final Buckets buckets = _buckets.get(i);
+      final List<DoublesPair> list = new ArrayList<DoublesPair>(n);
+      for (int j = 0; j < n; j++) {
+        list.add(new DoublesPair(buckets._times[j], buckets._values[j]));
+      }
+      result.put(_curveNames.get(i), list);
+    }
+    return new InterestRateCurveSensitivity(result);
+  }
+
+  //-------------------------------------------------------------------------
+  private void compact(final Buckets buckets) {
+    if (buckets._sorted == buckets._size) {
+      return;
+    }
+    ensureScratchCapacity(buckets._size);
+    final int tail = mergeSort(buckets, buckets._sorted, buckets._size);
+    buckets._size = merge(buckets, 0, buckets._sorted, buckets._sorted, tail);
+    buckets._sorted = buckets._size;
+  }
+
+  /**
+   * Sorts and sums the entries in [from, to), leaving the result at from.
+   * @return The number of entries left
+   */
+  private int mergeSort(final Buckets buckets, final int from, final int to) {
+    final int n = to - from;
+    if (n <= 1) {
+      return n;
+    }
+    final int mid = (from + to) >>> 1;
+    final int n1 = mergeSort(buckets, from, mid);
+    final int n2 = mergeSort(buckets, mid, to);
+    return merge(buckets, from, n1, mid, n2);
+  }
+
+  /**
+   * Merges the sorted runs of n1 entries at from1 and n2 entries at from2 > from1, summing the values at equal times, leaving the result at
+   * from1.
+   * @return The number of entries left
+   */
+  private int merge(final Buckets buckets, final int from1, final int n1, final int from2, final int n2) {
+    final double[] times = buckets._times;
+    final double[] values = buckets._values;
+    final double[] mergedTimes = _scratchTimes;
+    final double[] mergedValues = _scratchValues;
+    final int end1 = from1 + n1;
+    final int end2 = from2 + n2;
+    int i = from1;
+    int j = from2;
+    int k = 0;
+    while (i < end1 || j < end2) {
+      final double time;
+      final double value;
+      if (j == end2 || (i < end1 && times[i] < times[j])) {
+        time = times[i];
+        value = values[i++];
+      } else {
+        time = times[j];
+        value = values[j++];
+      }
+      if (k > 0 && mergedTimes[k - 1] == time) {
+        mergedValues[k - 1] += value;
+      } else {
+        mergedTimes[k] = time;
+        mergedValues[k++] = value;
+      }
+    }
+    System.arraycopy(mergedTimes, 0, times, from1, k);
+    System.arraycopy(mergedValues, 0, values, from1, k);
+    return k;
+  }
+
+  private void ensureScratchCapacity(final int capacity) {
+    if (_scratchTimes.length < capacity) {
+      final int newCapacity = Math.max(capacity, 2 * _scratchTimes.length);
+      _scratchTimes = new double[newCapacity];
+      _scratchValues = new double[newCapacity];
+    }
+  }
+
+  @Override
+  public String toString() {
+    return toInterestRateCurveSensitivity().toString();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * The (time, sensitivity) pairs for one curve. The first _sorted entries are compacted; any after that have been added since.
+   */
+  private static final class Buckets {
+    double[] _times = new double[INITIAL_CAPACITY];
+    double[] _values = new double[INITIAL_CAPACITY];
+    int _size;
+    int _sorted;
+
+    void add(final double time, final double value) {
+      if (_sorted == _size && _size > 0) {
+        // Still compacted, as when the times of a single instrument are added in sequence
+        final double last = _times[_size - 1];
+        if (time == last) {
+          _values[_size - 1] += value;
+          return;
+        }
+        if (time > last) {
+          _sorted++;
+        }
+      } else if (_size == 0) {
+        _sorted++;
+      }
+      if (_size == _times.length) {
+        ensureCapacity(_size + 1);
+      }
+      _times[_size] = time;
+      _values[_size++] = value;
+    }
+
+    void ensureCapacity(final int capacity) {
+      if (_times.length < capacity) {
+        final int newCapacity = Math.max(capacity, 2 * _times.length);
+        _times = Arrays.copyOf(_times, newCapacity);
+        _values = Arrays.copyOf(_values, newCapacity);
+      }
+    }
+  }
+
+}
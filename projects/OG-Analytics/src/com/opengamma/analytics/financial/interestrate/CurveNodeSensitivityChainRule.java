@@ -0,0 +1,82 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.interestrate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import com.opengamma.analytics.math.curve.Curve;
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
+import com.opengamma.analytics.math.interpolation.Interpolator1D;
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Computes the rows of the Jacobian of a multiple curve finder by the chain rule, combining the sensitivities of an instrument to the curves
+ * at a set of times (from one pass of an analytic curve sensitivity calculator) with the sensitivities of the curves at those times to their
+ * nodes. The instruments of a calibration share most of their payment and fixing times, so the node sensitivities for each curve and time
+ * are computed once per set of curves and reused for every instrument.
+ */
+class CurveNodeSensitivityChainRule {
+  private final MultipleYieldCurveFinderDataBundle _data;
+  private final YieldCurveBundle _curves;
+  private final Map<String, Map<Double, double[]>> _nodeSensitivities = new HashMap<String, Map<Double, double[]>>();
+
+  /**
+   * @param data The curve finder data
+   * @param curves The curves at the point where the Jacobian is evaluated
+   */
+  CurveNodeSensitivityChainRule(final MultipleYieldCurveFinderDataBundle data, final YieldCurveBundle curves) {
+    _data = data;
+    _curves = curves;
+  }
+
+  /**
+   * Computes a row of the Jacobian.
+   * @param sensitivities The sensitivities of an instrument to the curves, by curve name
+   * @param row The row, which must be zero on entry
+   */
+  void computeRow(final Map<String, List<DoublesPair>> sensitivities, final double[] row) {
+    int offset = 0;
+    for (final String name : _data.getCurveNames()) { // loop over all curves (by name)
+      final List<DoublesPair> senseList = sensitivities.get(name);
+      if (senseList != null) {
+        final Map<Double, double[]> nodeSensitivities = getNodeSensitivities(name);
+        for (final DoublesPair timeAndDF : senseList) {
+          final Double time = timeAndDF.getFirst();
+          double[] nodeSensitivity = nodeSensitivities.get(time);
+          if (nodeSensitivity == null) {
+            final InterpolatedDoublesCurve curve = (InterpolatedDoublesCurve) _curves.getCurve(name).getCurve();
+            final Interpolator1D interpolator = _data.getInterpolatorForCurve(name);
+            final Interpolator1DDataBundle data = curve.getDataBundle();
+            nodeSensitivity = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.first, _data.useFiniteDifferenceForNodeSensitivities());
+            nodeSensitivities.put(time, nodeSensitivity);
+          }
+          final double sensitivity = timeAndDF.second;
+          for (int j = 0; j < nodeSensitivity.length; j++) {
+            row[offset + j] += sensitivity * nodeSensitivity[j];
+          }
+        }
+      }
+      offset += _data.getCurveNodePointsForCurve(name).length;
+    }
+  }
+
+  private Map<Double, double[]> getNodeSensitivities(final String name) {
+    Map<Double, double[]> nodeSensitivities = _nodeSensitivities.get(name);
+    if (nodeSensitivities == null) {
+      final Curve<Double, Double> curve = _curves.getCurve(name).getCurve();
+      if (!(curve instanceof InterpolatedDoublesCurve)) {
+        throw new IllegalArgumentException("Can only handle InterpolatedDoublesCurve");
+      }
+      nodeSensitivities = new HashMap<Double, double[]>();
+      _nodeSensitivities.put(name, nodeSensitivities);
+    }
+    return nodeSensitivities;
+  }
+
+}
@@ -5,19 +5,11 @@
  */
 package com.opengamma.analytics.financial.interestrate;
 
-import java.util.List;
-import java.util.Map;
-
 import org.apache.commons.lang.Validate;
 
-import com.opengamma.analytics.math.curve.Curve;
-import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
 import com.opengamma.analytics.math.function.Function1D;
-import com.opengamma.analytics.math.interpolation.Interpolator1D;
-import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
-import com.opengamma.util.tuple.DoublesPair;
 
 /**
  * Jacobian matrix builder for multi-curves construction when the calculator returns an InterestRateCurveSensitivity object.
@@ -54,41 +46,11 @@ public class MultipleYieldCurveFinderIRSJacobian extends Function1D<DoubleMatrix
     }
 
     final int totalNodes = _data.getTotalNodes();
-    final List<String> curveNames = _data.getCurveNames();
-
+    final CurveNodeSensitivityChainRule chainRule = new CurveNodeSensitivityChainRule(_data, curves);
     final double[][] res = new double[_data.getNumInstruments()][totalNodes];
     for (int i = 0; i < _data.getNumInstruments(); i++) { // loop over all instruments
-      InstrumentDerivative deriv = _data.getDerivative(i);
-      final Map<String, List<DoublesPair>> senseMap = _calculator.visit(deriv, curves).getSensitivities();
-      int offset = 0;
-      for (final String name : curveNames) { // loop over all curves (by name)
-        if (senseMap.containsKey(name)) {
-          final Curve<Double, Double> curve = curves.getCurve(name).getCurve();
-          if (!(curve instanceof InterpolatedDoublesCurve)) {
-            throw new IllegalArgumentException("Can only handle InterpolatedDoublesCurve");
-          }
-          final InterpolatedDoublesCurve interpolatedCurve = (InterpolatedDoublesCurve) curve;
-          final Interpolator1DDataBundle data = interpolatedCurve.getDataBundle();
-          final Interpolator1D sensitivityCalculator = _data.getInterpolatorForCurve(name);
-          final List<DoublesPair> senseList = senseMap.get(name);
-          if (senseList.size() != 0) {
-            final double[][] sensitivity = new double[senseList.size()][];
-            int k = 0;
-            for (final DoublesPair timeAndDF : senseList) {
-              sensitivity[k++] = sensitivityCalculator.getNodeSensitivitiesForValue(data, timeAndDF.getFirst(), _data.useFiniteDifferenceForNodeSensitivities());
-            }
-            for (int j = 0; j < sensitivity[0].length; j++) {
-              double temp = 0.0;
-              k = 0;
-              for (final DoublesPair timeAndDF : senseList) {
-                temp += timeAndDF.getSecond() * sensitivity[k++][j];
-              }
-              res[i][j + offset] = temp;
-            }
-          }
-        }
-        offset += _data.getCurveNodePointsForCurve(name).length;
-      }
+      final InstrumentDerivative deriv = _data.getDerivative(i);
+      chainRule.computeRow(_calculator.visit(deriv, curves).getSensitivities(), res[i]);
     }
     return new DoubleMatrix2D(res);
   }
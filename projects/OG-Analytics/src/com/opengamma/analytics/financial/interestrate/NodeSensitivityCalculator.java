@@ -62,7 +62,7 @@ public abstract class NodeSensitivityCalculator {
         final double[][] sensitivity = new double[sensitivityList.size()][];
         int k = 0;
         for (final DoublesPair timeAndDF : sensitivityList) {
-          sensitivity[k++] = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.getFirst());
+          sensitivity[k++] = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.first);
         }
         for (int j = 0; j < sensitivity[0].length; j++) {
           double temp = 0.0;
@@ -91,6 +91,50 @@ public abstract class NodeSensitivityCalculator {
     return curveToNodeSensitivities(curveSensitivities.getSensitivities(), interpolatedCurves);
   }
 
+  /**
+   * Computes the node sensitivity from an ArrayInterestRateCurveSensitivity object and the corresponding yield curve bundle. The sensitivity
+   * to each curve is compacted, and the node sensitivities of each time are accumulated directly into the result.
+   * @param curveSensitivities The sensitivities.
+   * @param interpolatedCurves The curve bundle.
+   * @return The node sensitivities.
+   */
+  public DoubleMatrix1D curveToNodeSensitivities(final ArrayInterestRateCurveSensitivity curveSensitivities, final YieldCurveBundle interpolatedCurves) {
+    Validate.notNull(curveSensitivities, "curve sensitivities");
+    Validate.notNull(interpolatedCurves, "interpolated curves");
+    final List<InterpolatedDoublesCurve> curves = new ArrayList<InterpolatedDoublesCurve>();
+    int totalNodes = 0;
+    for (final String name : interpolatedCurves.getAllNames()) {
+      final YieldAndDiscountCurve curve = interpolatedCurves.getCurve(name);
+      if (!(curve.getCurve() instanceof InterpolatedDoublesCurve)) {
+        throw new IllegalArgumentException("Can only handle interpolated curves at the moment");
+      }
+      final InterpolatedDoublesCurve interpolatedCurve = (InterpolatedDoublesCurve) curve.getCurve();
+      curves.add(interpolatedCurve);
+      totalNodes += interpolatedCurve.size();
+    }
+    final double[] result = new double[totalNodes];
+    int offset = 0;
+    int i = 0;
+    for (final String name : interpolatedCurves.getAllNames()) {
+      final InterpolatedDoublesCurve interpolatedCurve = curves.get(i++);
+      final int curveIndex = curveSensitivities.indexOf(name);
+      if (curveIndex >= 0) {
+        final Interpolator1D interpolator = interpolatedCurve.getInterpolator();
+        final Interpolator1DDataBundle data = interpolatedCurve.getDataBundle();
+        final int n = curveSensitivities.getSize(curveIndex);
+        for (int k = 0; k < n; k++) {
+          final double sensitivity = curveSensitivities.getSensitivity(curveIndex, k);
+          final double[] nodeSensitivity = interpolator.getNodeSensitivitiesForValue(data, curveSensitivities.getTime(curveIndex, k));
+          for (int j = 0; j < nodeSensitivity.length; j++) {
+            result[offset + j] += sensitivity * nodeSensitivity[j];
+          }
+        }
+      }
+      offset += interpolatedCurve.size();
+    }
+    return new DoubleMatrix1D(result);
+  }
+
   // TODO: add a method using InterestRateSensitivity.
 
   public DoubleMatrix1D curveToNodeSensitivities(final List<DoublesPair> curveSensitivities, final YieldAndDiscountCurve yieldCurve) {
@@ -109,7 +153,7 @@ public abstract class NodeSensitivityCalculator {
       final double[][] sensitivity = new double[curveSensitivities.size()][];
       int k = 0;
       for (final DoublesPair timeAndDF : curveSensitivities) {
-        sensitivity[k++] = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.getFirst());
+        sensitivity[k++] = interpolator.getNodeSensitivitiesForValue(data, timeAndDF.first);
       }
       for (int j = 0; j < sensitivity[0].length; j++) {
         double temp = 0.0;
@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.financial.interestrate;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,20 +38,34 @@ public class PresentValueHullWhiteMonteCarloCalculator extends PresentValueCalcu
    * The number of paths used in the simulation.
    */
   private final int _nbPath;
+  /**
+   * The executor on which the blocks of paths are evaluated. If null, they are evaluated on the calling thread.
+   */
+  private final ExecutorService _executor;
 
   /**
    * Calculator constructor using the default number of paths.
    */
   public PresentValueHullWhiteMonteCarloCalculator() {
-    _nbPath = DEFAULT_NB_PATH;
+    this(DEFAULT_NB_PATH);
   }
 
   /**
-   * Constructor with a given number of simulation paths.
+   * Constructor with a given number of simulation paths. The paths are evaluated on the calling thread.
    * @param nbPath The number of paths.
    */
   public PresentValueHullWhiteMonteCarloCalculator(final int nbPath) {
+    this(nbPath, null);
+  }
+
+  /**
+   * Constructor with a given number of simulation paths, evaluated on an executor. The results are identical to the ones on the calling thread.
+   * @param nbPath The number of paths.
+   * @param executor The executor on which the blocks of paths are evaluated, null to evaluate them on the calling thread. The executor is not shut down by the calculator.
+   */
+  public PresentValueHullWhiteMonteCarloCalculator(final int nbPath, final ExecutorService executor) {
     _nbPath = nbPath;
+    _executor = executor;
   }
 
   @Override
@@ -64,7 +80,7 @@ public class PresentValueHullWhiteMonteCarloCalculator extends PresentValueCalcu
     if (!(curves instanceof HullWhiteOneFactorPiecewiseConstantDataBundle)) {
       throw new UnsupportedOperationException("The PresentValueHullWhiteMonteCarloCalculator visitor visitSwaptionPhysicalFixedIbor requires a HullWhiteOneFactorPiecewiseConstantDataBundle as data.");
     }
-    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), _nbPath);
+    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), _nbPath, _executor);
     CurrencyAmount pvMC = methodMC
         .presentValue(swaption, swaption.getCurrency(), swaption.getUnderlyingSwap().getFirstLeg().getDiscountCurve(), (HullWhiteOneFactorPiecewiseConstantDataBundle) curves);
     return pvMC.getAmount();
@@ -77,7 +93,7 @@ public class PresentValueHullWhiteMonteCarloCalculator extends PresentValueCalcu
     if (!(curves instanceof HullWhiteOneFactorPiecewiseConstantDataBundle)) {
       throw new UnsupportedOperationException("The PresentValueHullWhiteMonteCarloCalculator visitor visitSwaptionPhysicalFixedIbor requires a HullWhiteOneFactorPiecewiseConstantDataBundle as data.");
     }
-    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), _nbPath);
+    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), _nbPath, _executor);
     CurrencyAmount pvMC = methodMC.presentValue(annuity, annuity.getCurrency(), annuity.getDiscountCurve(), (HullWhiteOneFactorPiecewiseConstantDataBundle) curves);
     return pvMC.getAmount();
   }
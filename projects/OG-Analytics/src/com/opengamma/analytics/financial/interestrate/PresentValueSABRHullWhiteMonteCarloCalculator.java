@@ -5,6 +5,8 @@
  */
 package com.opengamma.analytics.financial.interestrate;
 
+import java.util.concurrent.ExecutorService;
+
 import org.apache.commons.lang.Validate;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -55,7 +57,7 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
   private static final CapFloorIborSABRMethod METHOD_CAP_SABR = CapFloorIborSABRMethod.getInstance();
 
   /**
-   * The calculator unique instance.
+   * The calculator unique instance, evaluating the paths on the calling thread.
    */
   private static final PresentValueSABRHullWhiteMonteCarloCalculator INSTANCE = new PresentValueSABRHullWhiteMonteCarloCalculator();
 
@@ -63,7 +65,21 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
     return INSTANCE;
   }
 
+  /**
+   * The executor on which the blocks of paths are evaluated. If null, they are evaluated on the calling thread.
+   */
+  private final ExecutorService _executor;
+
   PresentValueSABRHullWhiteMonteCarloCalculator() {
+    this(null);
+  }
+
+  /**
+   * Constructor for a calculator evaluating the paths on an executor. The results are identical to the ones of the {@link #getInstance() instance}.
+   * @param executor The executor on which the blocks of paths are evaluated, null to evaluate them on the calling thread. The executor is not shut down by the calculator.
+   */
+  public PresentValueSABRHullWhiteMonteCarloCalculator(final ExecutorService executor) {
+    _executor = executor;
   }
 
   @Override
@@ -87,7 +103,7 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
     calibrationEngine.calibrate(curves);
     HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = new HullWhiteOneFactorPiecewiseConstantDataBundle(hwParameters, curves);
     // Pricing
-    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH);
+    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH, _executor);
     CurrencyAmount pvMC = methodMC.presentValue(swaption, swaption.getCurrency(), swaption.getUnderlyingSwap().getFirstLeg().getDiscountCurve(), hwBundle);
     return pvMC.getAmount();
   }
@@ -110,7 +126,7 @@ public class PresentValueSABRHullWhiteMonteCarloCalculator extends PresentValueC
     calibrationEngine.calibrate(curves);
     HullWhiteOneFactorPiecewiseConstantDataBundle hwBundle = new HullWhiteOneFactorPiecewiseConstantDataBundle(hwParameters, curves);
     // Pricing
-    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH);
+    HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), DEFAULT_NB_PATH, _executor);
     CurrencyAmount pvMC = methodMC.presentValue(annuity, annuity.getCurrency(), annuity.getDiscountCurve(), hwBundle);
     return pvMC.getAmount();
   }
@@ -10,9 +10,7 @@ import java.util.Arrays;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.linearalgebra.Decomposition;
-import com.opengamma.analytics.math.linearalgebra.DecompositionResult;
 import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
-import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.surface.Surface;
 
 /**
@@ -62,7 +60,7 @@ public class CoupledFiniteDifference {
     final int tNodes = grid.getNumTimeNodes();
     final int xNodes = grid.getNumSpaceNodes();
 
-    double[] f = new double[2 * xNodes];
+    final double[] f = new double[2 * xNodes];
     double[][] full1 = null;
     double[][] full2 = null;
     if (_showFullResults) {
@@ -71,6 +69,7 @@ public class CoupledFiniteDifference {
     }
     final double[] q = new double[2 * xNodes];
     final double[][] m = new double[2 * xNodes][2 * xNodes];
+    final CoupledMatrixSolver solver = new CoupledMatrixSolver(xNodes);
 
     double[][] rho1 = new double[2][xNodes - 2];
     final double[][] rho2 = new double[2][xNodes - 2];
@@ -116,9 +115,6 @@ public class CoupledFiniteDifference {
       rho1[1][i] = getFittingParameter(grid, a1[1][i], b1[1][i], i + 1);
     }
 
-    final boolean first = true;
-    DecompositionResult decompRes = null;
-
     for (int n = 1; n < tNodes; n++) {
 
       t1 = grid.getTimeNode(n - 1);
@@ -232,14 +228,8 @@ public class CoupledFiniteDifference {
       //      }
       //      oldCount = count;
 
-      if (first) {
-        final DoubleMatrix2D mM = new DoubleMatrix2D(m);
-        decompRes = DCOMP.evaluate(mM);
-
-        // first = false;
-      }
-
-      f = decompRes.solve(q);
+      solver.decompose(m);
+      solver.solve(q, f);
 
       a1 = a2;
       b1 = b2;
@@ -0,0 +1,79 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.model.finitedifference;
+
+import com.opengamma.analytics.math.linearalgebra.BandedLUSolver;
+
+/**
+ * Solves the matrix system for a time step of a pair of coupled 1D PDEs. The system is held as a dense 2n by 2n matrix with the first n rows and columns
+ * for the first PDE and the rest for the second; each row has at most three points (five for a boundary condition) from its own PDE and a coupling
+ * term on the diagonal of the other. Interleaving the unknowns of the two PDEs makes this a band matrix, with four sub- and super-diagonals, which is
+ * solved in O(n) operations. Any other elements of the dense matrix are ignored.
+ */
+class CoupledMatrixSolver {
+
+  private static final int BANDWIDTH = 4;
+
+  private final int _xNodes;
+  private final BandedLUSolver _solver;
+  private final double[] _work;
+
+  /**
+   * @param xNodes The number of space nodes in each PDE
+   */
+  CoupledMatrixSolver(final int xNodes) {
+    _xNodes = xNodes;
+    _solver = new BandedLUSolver(2 * xNodes, BANDWIDTH, BANDWIDTH);
+    _work = new double[2 * xNodes];
+  }
+
+  /**
+   * Decomposes the matrix for the time step.
+   * @param m The dense matrix
+   */
+  void decompose(final double[][] m) {
+    final int n = _xNodes;
+    _solver.clear();
+    for (int c = 0; c < 2; c++) {
+      final int offset = c * n;
+      final int otherOffset = (1 - c) * n;
+      for (int k = 0; k < n; k++) {
+        final double[] row = m[offset + k];
+        final int r = 2 * k + c;
+        for (int j = Math.max(0, k - 2); j <= Math.min(n - 1, k + 2); j++) {
+          final double value = row[offset + j];
+          if (value != 0.0) {
+            _solver.setEntry(r, 2 * j + c, value);
+          }
+        }
+        final double coupling = row[otherOffset + k];
+        if (coupling != 0.0) {
+          _solver.setEntry(r, 2 * k + 1 - c, coupling);
+        }
+      }
+    }
+    _solver.decompose();
+  }
+
+  /**
+   * Solves the decomposed system.
+   * @param q The right hand side
+   * @param f Receives the solution
+   */
+  void solve(final double[] q, final double[] f) {
+    final int n = _xNodes;
+    for (int i = 0; i < n; i++) {
+      _work[2 * i] = q[i];
+      _work[2 * i + 1] = q[n + i];
+    }
+    _solver.solve(_work, _work);
+    for (int i = 0; i < n; i++) {
+      f[i] = _work[2 * i];
+      f[n + i] = _work[2 * i + 1];
+    }
+  }
+
+}
@@ -9,9 +9,6 @@ import java.util.Arrays;
 
 import org.apache.commons.lang.Validate;
 
-import com.opengamma.analytics.math.linearalgebra.Decomposition;
-import com.opengamma.analytics.math.linearalgebra.DecompositionResult;
-import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.surface.Surface;
 
 /**
@@ -35,14 +32,14 @@ public class ExtendedCoupledFiniteDifference extends CoupledFiniteDifference {
     final int tNodes = grid.getNumTimeNodes();
     final int xNodes = grid.getNumSpaceNodes();
     final double theta = getTheta();
-    final Decomposition<?> dcomp = getDecomposition();
 
-    double[] f = new double[2 * xNodes];
+    final double[] f = new double[2 * xNodes];
     final double[][] full1 = new double[tNodes][xNodes];
     final double[][] full2 = new double[tNodes][xNodes];
 
     final double[] q = new double[2 * xNodes];
     final double[][] m = new double[2 * xNodes][2 * xNodes];
+    final CoupledMatrixSolver solver = new CoupledMatrixSolver(xNodes);
 
     final double[][] a1 = new double[2][xNodes - 2];
     final double[][] a2 = new double[2][xNodes - 2];
@@ -93,9 +90,6 @@ public class ExtendedCoupledFiniteDifference extends CoupledFiniteDifference {
       beta1[1][i] = pdeData2.getBeta(0, x);
     }
 
-    final boolean first = true;
-    DecompositionResult decompRes = null;
-
     for (int n = 1; n < tNodes; n++) {
 
       t1 = grid.getTimeNode(n - 1);
@@ -214,12 +208,8 @@ public class ExtendedCoupledFiniteDifference extends CoupledFiniteDifference {
       //      }
       //      oldCount = count;
 
-      if (first) {
-        final DoubleMatrix2D mM = new DoubleMatrix2D(m);
-        decompRes = dcomp.evaluate(mM);
-        // first = false;
-      }
-      f = decompRes.solve(q);
+      solver.decompose(m);
+      solver.solve(q, f);
 
       a1[0] = Arrays.copyOf(a2[0], xNodes - 2);
       b1[0] = Arrays.copyOf(b2[0], xNodes - 2);
@@ -13,15 +13,20 @@ import com.opengamma.analytics.math.function.Function1D;
 import com.opengamma.analytics.math.linearalgebra.Decomposition;
 import com.opengamma.analytics.math.linearalgebra.DecompositionResult;
 import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
+import com.opengamma.analytics.math.linearalgebra.TridiagonalSolver;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.surface.Surface;
 
 /**
- * A theta (i.e. weighted between explicit and implicit time stepping) scheme using SOR algorithm to solve the matrix system at each time step
+ * A theta (i.e. weighted between explicit and implicit time stepping) scheme. The tridiagonal matrix system at each time step is solved by the Thomas
+ * algorithm or, when there is a free boundary, by the Brennan-Schwartz algorithm (falling back to projected SOR if the free boundary is not monotonic).
  * This uses the exponentially fitted scheme of duffy
  */
 public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver {
   private static final Decomposition<?> DCOMP = new LUDecompositionCommons();
+  private static final double SOR_OMEGA = 1.0;
+  private static final double SOR_TOLERANCE = 1e-18;
+  private static final int SOR_MAX_ITERATIONS = 10000;
   private final double _theta;
   private final boolean _showFullResults;
 
@@ -176,6 +181,12 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     private final double[] _q;
     private final double[][] _m;
 
+    private final TridiagonalSolver _solver;
+    private final double[] _lower;
+    private final double[] _diagonal;
+    private final double[] _upper;
+    private final double[] _bound;
+
     private final double[] _rho;
     private final double[] _a;
     private final double[] _b;
@@ -203,6 +214,11 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
 
       _q = new double[xNodes];
       _m = new double[xNodes][xNodes];
+      _solver = new TridiagonalSolver(xNodes);
+      _lower = new double[xNodes];
+      _diagonal = new double[xNodes];
+      _upper = new double[xNodes];
+      _bound = (freeBoundary != null) ? new double[xNodes] : null;
       _rho = new double[xNodes - 2];
       _a = new double[xNodes - 2];
       _b = new double[xNodes - 2];
@@ -335,25 +351,78 @@ public class ThetaMethodFiniteDifference implements ConvectionDiffusionPDESolver
     }
 
     private void solveMatrixSystem() {
-      final double omega = 1.0;
-      //   @SuppressWarnings("unused")
-      //NOTE get this working again with dynamic omega
-      //final int count = solveBySOR(omega);
-      solveByLU();
-      //      if (oldCount > 0) {
-      //        if ((omegaIncrease && count > oldCount) || (!omegaIncrease && count < oldCount)) {
-      //          omega = Math.max(1.0, omega * 0.9);
-      //          omegaIncrease = false;
-      //        } else {
-      //          omega = 1.1 * omega;
-      //          omegaIncrease = true;
-      //        }
-      //      }
-      //      oldCount = count;
-
-    }
-
-    @SuppressWarnings({"unused", "synthetic-access" })
+      if (!loadTridiagonal()) {
+        // The boundary rows can't be reduced to tridiagonal form, e.g. for a fully explicit scheme with a three point boundary condition
+        if (_freeBoundary == null) {
+          solveByLU();
+        } else {
+          solveBySOR(SOR_OMEGA);
+        }
+        return;
+      }
+      if (_freeBoundary == null) {
+        _solver.solve(_lower, _diagonal, _upper, _q, _f);
+        return;
+      }
+      final int xNodes = getGrid().getNumSpaceNodes();
+      boolean nonIncreasing = true;
+      boolean nonDecreasing = true;
+      for (int i = 0; i < xNodes; i++) {
+        _bound[i] = _freeBoundary.getZValue(getT2(), getGrid().getSpaceNode(i));
+        if (i > 0) {
+          nonIncreasing &= _bound[i] <= _bound[i - 1];
+          nonDecreasing &= _bound[i] >= _bound[i - 1];
+        }
+      }
+      if (nonIncreasing || nonDecreasing) {
+        // e.g. an American put (or call), whose exercise region is a single run of nodes from the lower (or upper) end of the grid
+        _solver.solveWithLowerBound(_lower, _diagonal, _upper, _q, _bound, _f, nonIncreasing);
+      } else {
+        for (int i = 0; i < xNodes; i++) {
+          _f[i] = Math.max(_f[i], _bound[i]);
+        }
+        _solver.solveWithLowerBoundBySOR(_lower, _diagonal, _upper, _q, _bound, _f, SOR_OMEGA, SOR_TOLERANCE, SOR_MAX_ITERATIONS);
+      }
+    }
+
+    /**
+     * Copies the bands of the matrix system into the tridiagonal work arrays. A boundary condition can use three points, putting a third element in
+     * the first or last row; this is eliminated using the adjacent interior row.
+     * @return false if a boundary row can't be eliminated, in which case the system is unchanged
+     */
+    private boolean loadTridiagonal() {
+      final int xNodes = getGrid().getNumSpaceNodes();
+      final double lowerExtra = _m[0][2];
+      final double upperExtra = _m[xNodes - 1][xNodes - 3];
+      if ((lowerExtra != 0.0 && _m[1][2] == 0.0) || (upperExtra != 0.0 && _m[xNodes - 2][xNodes - 3] == 0.0)) {
+        return false;
+      }
+      for (int i = 1; i < xNodes - 1; i++) {
+        _lower[i] = _m[i][i - 1];
+        _diagonal[i] = _m[i][i];
+        _upper[i] = _m[i][i + 1];
+      }
+      _diagonal[0] = _m[0][0];
+      _upper[0] = _m[0][1];
+      _lower[xNodes - 1] = _m[xNodes - 1][xNodes - 2];
+      _diagonal[xNodes - 1] = _m[xNodes - 1][xNodes - 1];
+      // The boundary elements of q are recalculated at every step, so can be changed in place
+      if (lowerExtra != 0.0) {
+        final double w = lowerExtra / _upper[1];
+        _diagonal[0] -= w * _lower[1];
+        _upper[0] -= w * _diagonal[1];
+        _q[0] -= w * _q[1];
+      }
+      if (upperExtra != 0.0) {
+        final double w = upperExtra / _lower[xNodes - 2];
+        _lower[xNodes - 1] -= w * _diagonal[xNodes - 2];
+        _diagonal[xNodes - 1] -= w * _upper[xNodes - 2];
+        _q[xNodes - 1] -= w * _q[xNodes - 2];
+      }
+      return true;
+    }
+
+    @SuppressWarnings("synthetic-access")
     private void solveByLU() {
       DoubleMatrix2D temp = new DoubleMatrix2D(_m);
       DecompositionResult res = DCOMP.evaluate(temp);
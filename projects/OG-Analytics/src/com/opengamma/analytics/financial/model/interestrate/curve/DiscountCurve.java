@@ -23,7 +23,7 @@ public class DiscountCurve extends YieldAndDiscountCurve {
 
   @Override
   public double getDiscountFactor(final Double t) {
-    return getCurve().getYValue(t);
+    return getCurveValue(t);
   }
 
 }
@@ -11,6 +11,7 @@ import org.apache.commons.lang.Validate;
 import com.opengamma.analytics.financial.model.interestrate.InterestRateModel;
 import com.opengamma.analytics.math.curve.Curve;
 import com.opengamma.analytics.math.curve.CurveShiftFunctionFactory;
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
 
 /**
  * A DiscountCurve contains discount factors <i>e<sup>-r(t)t</sup></i> (where
@@ -20,10 +21,12 @@ import com.opengamma.analytics.math.curve.CurveShiftFunctionFactory;
 
 public abstract class YieldAndDiscountCurve  implements InterestRateModel<Double> {
   private final Curve<Double, Double> _curve;
+  private final InterpolatedDoublesCurve _interpolatedCurve;
 
   public YieldAndDiscountCurve(final Curve<Double, Double> curve) {
     Validate.notNull(curve, "curve");
     _curve = curve;
+    _interpolatedCurve = (curve instanceof InterpolatedDoublesCurve) ? (InterpolatedDoublesCurve) curve : null;
   }
 
   /**
@@ -47,6 +50,19 @@ public abstract class YieldAndDiscountCurve  implements InterestRateModel<Double
     return _curve;
   }
 
+  /**
+   * Gets the value of the underlying curve, without boxing if it is interpolated.
+   * @param t The time
+   * @return The curve value at time <i>t</i>
+   */
+  protected double getCurveValue(final Double t) {
+    if (_interpolatedCurve != null) {
+      Validate.notNull(t, "t");
+      return _interpolatedCurve.getYValue(t.doubleValue());
+    }
+    return _curve.getYValue(t);
+  }
+
   public YieldAndDiscountCurve withParallelShift(final double shift) {
     return new YieldCurve(CurveShiftFunctionFactory.getShiftedCurve(_curve, shift));
   }
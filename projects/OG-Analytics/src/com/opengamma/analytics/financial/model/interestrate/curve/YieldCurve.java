@@ -21,7 +21,7 @@ public class YieldCurve extends YieldAndDiscountCurve {
 
   @Override
   public double getInterestRate(final Double t) {
-    return getCurve().getYValue(t);
+    return getCurveValue(t);
   }
 
   @Override
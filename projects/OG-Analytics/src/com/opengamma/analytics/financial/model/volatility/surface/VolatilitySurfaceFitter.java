@@ -15,7 +15,6 @@ import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.financial.model.volatility.smile.function.SmileModelData;
 import com.opengamma.analytics.financial.model.volatility.smile.function.VolatilityFunctionProvider;
-import com.opengamma.analytics.math.curve.Curve;
 import com.opengamma.analytics.math.curve.InterpolatedCurveBuildingFunction;
 import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
 import com.opengamma.analytics.math.function.Function1D;
@@ -160,13 +159,15 @@ public abstract class VolatilitySurfaceFitter<T extends SmileModelData> {
         final double[] res = new double[_nOptions];
         int index = 0;
 
+        final double[][] curveValues = new double[_nSmileModelParameters][];
+        int q = 0;
+        for (final String name : _parameterNames) {
+          curveValues[q++] = curves.get(name).getYValues(_expiries);
+        }
         for (int i = 0; i < _nExpiries; i++) {
-          final double t = _expiries[i];
           final double[] theta = new double[_nSmileModelParameters];
-          int p = 0;
-          for (final String name : _parameterNames) {
-            final Curve<Double, Double> curve = curves.get(name);
-            theta[p++] = curve.getYValue(t);
+          for (int p = 0; p < _nSmileModelParameters; p++) {
+            theta[p] = curveValues[p][i];
           }
           final T data = toSmileModelData(theta);
           final double[] temp = _volFuncs.get(i).evaluate(data);
@@ -9,6 +9,7 @@ import java.util.ArrayList;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.ExecutorService;
 
 import org.apache.commons.lang.Validate;
 
@@ -18,6 +19,7 @@ import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
 import com.opengamma.analytics.financial.model.interestrate.HullWhiteOneFactorPiecewiseConstantInterestRateModel;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
 import com.opengamma.analytics.financial.model.interestrate.definition.HullWhiteOneFactorPiecewiseConstantDataBundle;
+import com.opengamma.analytics.math.function.Function1D;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionCommons;
 import com.opengamma.analytics.math.linearalgebra.CholeskyDecompositionResult;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
@@ -65,27 +67,37 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     super(numberGenerator, nbPath);
   }
 
+  /**
+   * @param numberGenerator The random number generator.
+   * @param nbPath The number of paths.
+   * @param executor The executor on which the blocks of paths are evaluated.
+   */
+  public HullWhiteMonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath, ExecutorService executor) {
+    super(numberGenerator, nbPath, executor);
+  }
+
   /**
    * Computes the present value in the Hull-White one factor model by Monte-Carlo.
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
-   * block price is the total price. 
+   * block price is the total price. The blocks are evaluated on the executor, if there is one.
    * @param instrument The swaption.
    * @param ccy The currency
    * @param dscName The discounting curve name.
    * @param hwData The Hull-White data (curves and Hull-White parameters).
    * @return The present value.
    */
+  @SuppressWarnings("synthetic-access")
   public CurrencyAmount presentValue(final InstrumentDerivative instrument, Currency ccy, final String dscName, final HullWhiteOneFactorPiecewiseConstantDataBundle hwData) {
     // TODO: remove currency and dsc curve name (should be available from the instrument)
     YieldAndDiscountCurve dsc = hwData.getCurve(dscName);
     DecisionSchedule decision = DC.visit(instrument, hwData);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -93,7 +105,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
       }
     }
-    double[] gamma = new double[nbJump];
+    final double[] gamma = new double[nbJump];
     double[][] cov = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       gamma[loopjump] = MODEL.beta(hwData.getHullWhiteParameter(), 0.0, decisionTime[loopjump]);
@@ -104,8 +116,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         cov[loopjump][j] = gamma[loopjump];
       }
     }
-    double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
-    double[][] h2 = new double[nbJump][];
+    final double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
+    final double[][] h2 = new double[nbJump][];
     for (int i = 0; i < nbJump; i++) {
       h2[i] = new double[h[i].length];
       for (int j = 0; j < h[i].length; j++) {
@@ -126,32 +138,24 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr2 = cd.evaluate(new DoubleMatrix2D(cov2));
     double[][] covCD2 = cdr2.getL().toArray();
-    double[][] covCD = new double[nbJump][nbJump];
+    final double[][] covCD = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump - nbZero; loopjump++) {
       for (int loopjump2 = 0; loopjump2 < nbJump - nbZero; loopjump2++) {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
+    final double[][] impactAmount = decision.getImpactAmount();
+    List<Double> pvBlock = evaluateBlocks(nbJump, BLOCK_SIZE, new Function1D<double[][], Double>() {
+      @Override
+      public Double evaluate(final double[][] x) {
+        double[][] y = correlate(x, covCD); // jump/path
+        double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        return MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * x[0].length;
       }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      pv += MCC.visit(instrument, new MonteCarloDiscountFactorDataBundle(pD, impactAmount)) * nbPath2[loopblock];
+    });
+    double pv = 0;
+    for (int loopblock = 0; loopblock < pvBlock.size(); loopblock++) {
+      pv += pvBlock.get(loopblock);
     }
     pv *= pDN / getNbPath(); // Multiply by the numeraire.
     return CurrencyAmount.of(ccy, pv);
@@ -160,12 +164,13 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   /**
    * Computes the present value curve sensitivity in the Hull-White one factor model by Monte-Carlo. The sensitivity is computed by Adjoint Algorithmic Differentiation. 
    * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The Monte Carlo is run on each block and the average of each
-   * block price is the total price. 
+   * block price is the total price. The blocks are evaluated on the executor, if there is one.
    * @param instrument The swaption.
    * @param dscName The discounting curve name.
    * @param hwData The Hull-White data (curves and Hull-White parameters).
    * @return The curve sensitivity.
    */
+  @SuppressWarnings("synthetic-access")
   public InterestRateCurveSensitivity presentValueCurveSensitivity(final InstrumentDerivative instrument, final String dscName, final HullWhiteOneFactorPiecewiseConstantDataBundle hwData) {
     YieldAndDiscountCurve dsc = hwData.getCurve(dscName);
     // TODO: remove dsc curve name
@@ -173,11 +178,11 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     DecisionScheduleDerivative decision = DDC.visit(instrument, hwData);
     double[] decisionTime = decision.getDecisionTime();
     double[][] impactTime = decision.getImpactTime();
-    int nbJump = decisionTime.length;
+    final int nbJump = decisionTime.length;
     double numeraireTime = decisionTime[nbJump - 1];
     double pDN = dsc.getDiscountFactor(numeraireTime);
     // Discount factor to numeraire date for rebasing.
-    double[][] pDI = new double[nbJump][];
+    final double[][] pDI = new double[nbJump][];
     // Initial discount factors to each impact date.
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       pDI[loopjump] = new double[impactTime[loopjump].length];
@@ -185,7 +190,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         pDI[loopjump][i] = dsc.getDiscountFactor(impactTime[loopjump][i]) / pDN;
       }
     }
-    double[] gamma = new double[nbJump];
+    final double[] gamma = new double[nbJump];
     double[][] cov = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       gamma[loopjump] = MODEL.beta(hwData.getHullWhiteParameter(), 0.0, decisionTime[loopjump]);
@@ -196,8 +201,8 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         cov[loopjump][j] = gamma[loopjump];
       }
     }
-    double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
-    double[][] h2 = new double[nbJump][];
+    final double[][] h = MODEL.volatilityMaturityPart(hwData.getHullWhiteParameter(), numeraireTime, impactTime); // jump/cf
+    final double[][] h2 = new double[nbJump][];
     for (int i = 0; i < nbJump; i++) {
       h2[i] = new double[h[i].length];
       for (int j = 0; j < h[i].length; j++) {
@@ -218,69 +223,59 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     CholeskyDecompositionCommons cd = new CholeskyDecompositionCommons();
     CholeskyDecompositionResult cdr2 = cd.evaluate(new DoubleMatrix2D(cov2));
     double[][] covCD2 = cdr2.getL().toArray();
-    double[][] covCD = new double[nbJump][nbJump];
+    final double[][] covCD = new double[nbJump][nbJump];
     for (int loopjump = 0; loopjump < nbJump - nbZero; loopjump++) {
       for (int loopjump2 = 0; loopjump2 < nbJump - nbZero; loopjump2++) {
         covCD[loopjump + nbZero][loopjump2 + nbZero] = covCD2[loopjump][loopjump2];
       }
     }
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
-    }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-    double[][] impactAmount = decision.getImpactAmount();
-    double pv = 0;
-    double[] pvBlock = new double[nbBlock];
+    final double[][] impactAmount = decision.getImpactAmount();
     // Backward sweep (init)
     double pvBar = 1.0;
-    double[] pvBlockBar = new double[nbBlock];
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      pvBlockBar[loopblock] = pDN / getNbPath() * pvBar;
-    }
-    double[][] impactAmountBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
-    }
-    // Forward sweep (end) and backward sweep (main)
-    double[][] pDIBar = new double[nbJump][];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      pDIBar[loopjump] = new double[impactAmount[loopjump].length];
-    }
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] x = getNormalArray(nbJump, nbPath2[loopblock]);
-      double[][] y = new double[nbJump][nbPath2[loopblock]]; // jump/path
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-        for (int i = 0; i < nbJump; i++) {
-          for (int j = 0; j < nbJump; j++) {
-            y[i][looppath] += x[j][looppath] * covCD[i][j];
-          }
-        }
-      }
-      Double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
-      MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
-      pvBlock[loopblock] = MCDC.visit(instrument, mcdDB) * nbPath2[loopblock];
-      pv += pvBlock[loopblock];
-      // Backward sweep (in block loop)
-      for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-        for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-          impactAmountBar[loopjump][loopimp] += mcdDB.getImpactAmountDerivative()[loopjump][loopimp] * nbPath2[loopblock] * pvBlockBar[loopblock];
-        }
-      }
-      Double[][][] pDBar = new Double[nbPath2[loopblock]][nbJump][];
-      for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
+    final double pvBlockBar = pDN / getNbPath() * pvBar;
+    List<BlockSensitivity> blocks = evaluateBlocks(nbJump, BLOCK_SIZE, new Function1D<double[][], BlockSensitivity>() {
+      @Override
+      public BlockSensitivity evaluate(final double[][] x) {
+        int nbPathBlock = x[0].length;
+        double[][] y = correlate(x, covCD); // jump/path
+        double[][][] pD = pathGeneratorDiscount(pDI, y, h, h2, gamma);
+        MonteCarloDiscountFactorDerivativeDataBundle mcdDB = new MonteCarloDiscountFactorDerivativeDataBundle(pD, impactAmount);
+        double pvBlock = MCDC.visit(instrument, mcdDB) * nbPathBlock;
+        // Backward sweep (in block)
+        double[][] impactAmountBar = new double[nbJump][];
         for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-          pDBar[looppath][loopjump] = new Double[impactAmount[loopjump].length];
+          impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
           for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-            pDBar[looppath][loopjump][loopimp] = mcdDB.getPathDiscountingFactorDerivative()[looppath][loopjump][loopimp] * nbPath2[loopblock] * pvBlockBar[loopblock];
+            impactAmountBar[loopjump][loopimp] = mcdDB.getImpactAmountDerivative()[loopjump][loopimp] * nbPathBlock * pvBlockBar;
+          }
+        }
+        double[][][] pDBar = new double[nbPathBlock][nbJump][];
+        for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+          for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+            pDBar[looppath][loopjump] = new double[impactAmount[loopjump].length];
+            for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
+              pDBar[looppath][loopjump][loopimp] = mcdDB.getPathDiscountingFactorDerivative()[looppath][loopjump][loopimp] * nbPathBlock * pvBlockBar;
+            }
           }
         }
+        return new BlockSensitivity(pvBlock, impactAmountBar, pathGeneratorDiscountAdjointIDF(pDI, y, h, h2, gamma, pDBar));
       }
-      double[][] pDIBarTemp = pathGeneratorDiscountAdjointIDF(pDI, y, h, h2, gamma, pDBar);
+    });
+    // Forward sweep (end) and backward sweep (main)
+    double pv = 0;
+    double[][] impactAmountBar = new double[nbJump][];
+    double[][] pDIBar = new double[nbJump][];
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      impactAmountBar[loopjump] = new double[impactAmount[loopjump].length];
+      pDIBar[loopjump] = new double[impactAmount[loopjump].length];
+    }
+    for (int loopblock = 0; loopblock < blocks.size(); loopblock++) {
+      BlockSensitivity block = blocks.get(loopblock);
+      pv += block.getPv();
       for (int loopjump = 0; loopjump < nbJump; loopjump++) {
         for (int loopimp = 0; loopimp < impactAmount[loopjump].length; loopimp++) {
-          pDIBar[loopjump][loopimp] += pDIBarTemp[loopjump][loopimp];
+          impactAmountBar[loopjump][loopimp] += block.getImpactAmountBar()[loopjump][loopimp];
+          pDIBar[loopjump][loopimp] += block.getInitDiscountFactorBar()[loopjump][loopimp];
         }
       }
     }
@@ -317,17 +312,24 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   * Computes the correlated random variables from the independent ones.
+   * @param x The independent random variables (jump/path).
+   * @param covCD The Cholesky decomposition (lower triangular) of the covariance matrix.
+   * @return The correlated random variables (jump/path).
    */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
-    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+  private double[][] correlate(double[][] x, double[][] covCD) {
+    int nbJump = x.length;
+    int nbPath = x[0].length;
+    double[][] y = new double[nbJump][nbPath];
+    for (int i = 0; i < nbJump; i++) {
+      for (int j = 0; j <= i; j++) {
+        double c = covCD[i][j];
+        for (int looppath = 0; looppath < nbPath; looppath++) {
+          y[i][looppath] += x[j][looppath] * c;
+        }
+      }
     }
-    return result;
+    return y;
   }
 
   /**
@@ -339,10 +341,10 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
    * @param gamma The gamma parameters.
    * @return The discount factor paths (path/jump/cf).
    */
-  private Double[][][] pathGeneratorDiscount(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma) {
+  private double[][][] pathGeneratorDiscount(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma) {
     int nbJump = y.length;
     int nbPath = y[0].length;
-    Double[][][] pD = new Double[nbPath][nbJump][];
+    double[][][] pD = new double[nbPath][nbJump][];
     double[] h2gamma;
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       int nbCF = h[loopjump].length;
@@ -351,7 +353,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
         h2gamma[loopcf] = h2[loopjump][loopcf] * gamma[loopjump];
       }
       for (int looppath = 0; looppath < nbPath; looppath++) {
-        pD[looppath][loopjump] = new Double[nbCF];
+        pD[looppath][loopjump] = new double[nbCF];
         for (int loopcf = 0; loopcf < nbCF; loopcf++) {
           pD[looppath][loopjump][loopcf] = initDiscountFactor[loopjump][loopcf] * Math.exp(-h[loopjump][loopcf] * y[loopjump][looppath] - h2gamma[loopcf]);
         }
@@ -370,7 +372,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
    * @param pDBar The simulated discount factor adjoints (path/jump/cf).
    * @return The initial discount factor adjoints (jump/cf).
    */
-  private double[][] pathGeneratorDiscountAdjointIDF(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, Double[][][] pDBar) {
+  private double[][] pathGeneratorDiscountAdjointIDF(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, double[][][] pDBar) {
     int nbJump = y.length;
     int nbPath = y[0].length;
     double[] h2gamma;
@@ -402,7 +404,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   //   * @param pDBar The simulated discount factor adjoints (path/jump/cf).
   //   * @return The y adjoints (jump/path).
   //   */
-  //  private double[][] pathGeneratorDiscountAdjointY(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, Double[][][] pDBar) {
+  //  private double[][] pathGeneratorDiscountAdjointY(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, double[][][] pDBar) {
   //    int nbJump = y.length;
   //    int nbPath = y[0].length;
   //    double[] h2gamma;
@@ -434,7 +436,7 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
   //   * @param pDBar The simulated discount factor adjoints (path/jump/cf).
   //   * @return The y adjoints (jump/path).
   //   */
-  //  private double[] pathGeneratorDiscountAdjointGamma(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, Double[][][] pDBar) {
+  //  private double[] pathGeneratorDiscountAdjointGamma(double[][] initDiscountFactor, double[][] y, double[][] h, double[][] h2, double[] gamma, double[][][] pDBar) {
   //    int nbJump = y.length;
   //    int nbPath = y[0].length;
   //    double[] h2gamma;
@@ -467,4 +469,31 @@ public class HullWhiteMonteCarloMethod extends MonteCarloMethod {
     return null;
   }
 
+  /**
+   * The contributions of one block of paths to the present value and to the adjoints of the reference amounts and initial discount factors.
+   */
+  private static final class BlockSensitivity {
+    private final double _pv;
+    private final double[][] _impactAmountBar;
+    private final double[][] _initDiscountFactorBar;
+
+    private BlockSensitivity(double pv, double[][] impactAmountBar, double[][] initDiscountFactorBar) {
+      _pv = pv;
+      _impactAmountBar = impactAmountBar;
+      _initDiscountFactorBar = initDiscountFactorBar;
+    }
+
+    private double getPv() {
+      return _pv;
+    }
+
+    private double[][] getImpactAmountBar() {
+      return _impactAmountBar;
+    }
+
+    private double[][] getInitDiscountFactorBar() {
+      return _initDiscountFactorBar;
+    }
+  }
+
 }
@@ -6,12 +6,15 @@
 package com.opengamma.analytics.financial.montecarlo;
 
 import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
 
 import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
 import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
 import com.opengamma.analytics.financial.model.interestrate.curve.YieldAndDiscountCurve;
 import com.opengamma.analytics.financial.model.interestrate.definition.LiborMarketModelDisplacedDiffusionDataBundle;
 import com.opengamma.analytics.financial.model.interestrate.definition.LiborMarketModelDisplacedDiffusionParameters;
+import com.opengamma.analytics.math.function.Function1D;
 import com.opengamma.analytics.math.matrix.CommonsMatrixAlgebra;
 import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
 import com.opengamma.analytics.math.matrix.MatrixAlgebra;
@@ -67,14 +70,36 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
     _maxJump = maxJump;
   }
 
+  /**
+   * Constructor.
+   * @param numberGenerator The random number generator. Generate Normally distributed numbers.
+   * @param nbPath The number of paths.
+   * @param maxJump The maximum length of a jump in the path generation.
+   * @param executor The executor on which the blocks of paths are evaluated.
+   */
+  public LiborMarketModelMonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath, double maxJump, ExecutorService executor) {
+    super(numberGenerator, nbPath, executor);
+    _maxJump = maxJump;
+  }
+
+  /**
+   * Computes the present value in the Libor Market Model by Monte-Carlo.
+   * Implementation note: The total number of paths is divided in blocks of maximum size BLOCK_SIZE=1000. The blocks are evaluated on the executor, if there is one.
+   * @param instrument The instrument.
+   * @param ccy The currency.
+   * @param dsc The discounting curve.
+   * @param lmmData The LMM data (curves and LMM parameters).
+   * @return The present value.
+   */
+  @SuppressWarnings("synthetic-access")
   public CurrencyAmount presentValue(final InstrumentDerivative instrument, Currency ccy, YieldAndDiscountCurve dsc, final LiborMarketModelDisplacedDiffusionDataBundle lmmData) {
     // The numeraire is the last time in the LMM description.
-    DecisionSchedule decision = DC.visit(instrument, lmmData);
-    int[][] impactIndex = index(decision.getImpactTime(), lmmData.getLmmParameter());
+    final DecisionSchedule decision = DC.visit(instrument, lmmData);
+    final int[][] impactIndex = index(decision.getImpactTime(), lmmData.getLmmParameter());
 
-    int nbPeriodLMM = lmmData.getLmmParameter().getNbPeriod();
-    double[] initL = new double[nbPeriodLMM];
-    double[] deltaLMM = lmmData.getLmmParameter().getAccrualFactor();
+    final int nbPeriodLMM = lmmData.getLmmParameter().getNbPeriod();
+    final double[] initL = new double[nbPeriodLMM];
+    final double[] deltaLMM = lmmData.getLmmParameter().getAccrualFactor();
     double[] dfL = new double[nbPeriodLMM + 1];
     for (int loopper = 0; loopper < nbPeriodLMM + 1; loopper++) {
       dfL[loopper] = dsc.getDiscountFactor(lmmData.getLmmParameter().getIborTime()[loopper]);
@@ -83,23 +108,32 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       initL[loopper] = (dfL[loopper] / dfL[loopper + 1] - 1.0) / deltaLMM[loopper];
     }
 
-    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) BLOCK_SIZE)));
-    int[] nbPath2 = new int[nbBlock];
-    for (int i = 0; i < nbBlock - 1; i++) {
-      nbPath2[i] = BLOCK_SIZE;
+    final double[][] jumpTime = jumpTime(decision.getDecisionTime());
+    int nbStep = 0;
+    for (int loopjump = 0; loopjump < jumpTime.length; loopjump++) {
+      nbStep += jumpTime[loopjump].length - 1;
     }
-    nbPath2[nbBlock - 1] = getNbPath() - (nbBlock - 1) * BLOCK_SIZE;
-
-    double price = 0.0;
-    for (int loopblock = 0; loopblock < nbBlock; loopblock++) {
-      double[][] initLPath = new double[nbPeriodLMM][nbPath2[loopblock]];
-      for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
-        for (int looppath = 0; looppath < nbPath2[loopblock]; looppath++) {
-          initLPath[loopper][looppath] = initL[loopper];
+    final LiborMarketModelDisplacedDiffusionParameters lmm = lmmData.getLmmParameter();
+    DoubleMatrix2D gammaLMM = new DoubleMatrix2D(lmm.getVolatility());
+    MatrixAlgebra algebra = new CommonsMatrixAlgebra();
+    final DoubleMatrix2D s = (DoubleMatrix2D) algebra.multiply(gammaLMM, algebra.getTranspose(gammaLMM));
+    List<Double> priceBlock = evaluateBlocks(nbStep * lmm.getNbFactor(), BLOCK_SIZE, new Function1D<double[][], Double>() {
+      @Override
+      public Double evaluate(final double[][] dw) {
+        int nbPathBlock = dw[0].length;
+        double[][] initLPath = new double[nbPeriodLMM][nbPathBlock];
+        for (int loopper = 0; loopper < nbPeriodLMM; loopper++) {
+          for (int looppath = 0; looppath < nbPathBlock; looppath++) {
+            initLPath[loopper][looppath] = initL[loopper];
+          }
         }
+        double[][][] pathIbor = pathgeneratorlibor(jumpTime, initLPath, lmm, s, dw);
+        return MCC.visit(instrument, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
       }
-      double[][][] pathIbor = pathgeneratorlibor(decision.getDecisionTime(), initLPath, lmmData.getLmmParameter());
-      price += MCC.visit(instrument, new MonteCarloIborRateDataBundle(pathIbor, deltaLMM, decision.getImpactAmount(), impactIndex));
+    });
+    double price = 0.0;
+    for (int loopblock = 0; loopblock < priceBlock.size(); loopblock++) {
+      price += priceBlock.get(loopblock);
     }
     price *= dsc.getDiscountFactor(lmmData.getLmmParameter().getIborTime()[lmmData.getLmmParameter().getIborTime().length - 1]) / getNbPath();
     return CurrencyAmount.of(ccy, price);
@@ -125,16 +159,18 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
    * Create one step in the LMM diffusion. The step is done through several jump times. The diffusion is approximated with a predictor-corrector approach.
    * @param jumpTime The jump times.
    * @param initIbor Rate at the start of the period. Size: nbPeriodLMM x nbPath.
+   * @param lmm The LMM parameters.
+   * @param s The product of the volatility matrix by its transpose.
+   * @param dw The normally distributed random variables. Size: (number of jumps x nbFactorLMM) x nbPath.
+   * @param dwIndex The index in dw of the random variables for the first jump.
    * @return The Ibor rates at the end of the jump period. Size: nbPeriodLMM x nbPath.
    */
-  private double[][] stepPC(double[] jumpTime, double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
+  private double[][] stepPC(double[] jumpTime, double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm, final DoubleMatrix2D s, final double[][] dw, int dwIndex) {
     double amr = lmm.getMeanReversion();
     double[] iborTime = lmm.getIborTime();
     double[] almm = lmm.getDisplacement();
     double[] deltalmm = lmm.getAccrualFactor();
-    DoubleMatrix2D gammaLMM = new DoubleMatrix2D(lmm.getVolatility());
-    MatrixAlgebra algebra = new CommonsMatrixAlgebra();
-    DoubleMatrix2D s = (DoubleMatrix2D) algebra.multiply(gammaLMM, algebra.getTranspose(gammaLMM));
+    double[][] gammaLMM = lmm.getVolatility();
     int nbJump = jumpTime.length - 1;
     int nbPath = initIbor[0].length;
     int nbPeriodLMM = lmm.getNbPeriod();
@@ -158,46 +194,52 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
       for (int loopn = 0; loopn < nI; loopn++) {
         dI[loopn] = 1.0 / deltalmm[index + loopn];
       }
-      double[][] salpha2Array = new double[nI][nI];
+      double[][] salpha2 = new double[nI][nI];
       for (int loopn1 = 0; loopn1 < nI; loopn1++) {
         for (int loopn2 = 0; loopn2 < nI; loopn2++) {
-          salpha2Array[loopn1][loopn2] = s.getEntry(index + loopn1, index + loopn2) * alpha2[loopjump];
+          salpha2[loopn1][loopn2] = s.getEntry(index + loopn1, index + loopn2) * alpha2[loopjump];
         }
       }
-      DoubleMatrix2D salpha2 = new DoubleMatrix2D(salpha2Array);
       // Random seed
-      double[][] dw = getNormalArray(nbFactorLMM, nbPath);
+      int dwJump = dwIndex + loopjump * nbFactorLMM;
       // Common figures
       double[] dr1 = new double[nI];
       for (int loopn = 0; loopn < nI; loopn++) {
-        dr1[loopn] = -salpha2.getEntry(loopn, loopn) * dt[loopjump] / 2.0;
+        dr1[loopn] = -salpha2[loopn][loopn] * dt[loopjump] / 2.0;
       }
       double[][] cc = new double[nI][nbPath];
       for (int loopn = 0; loopn < nI; loopn++) {
-        for (int looppath = 0; looppath < nbPath; looppath++) {
-          for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
-            cc[loopn][looppath] += gammaLMM.getEntry(index + loopn, loopfact) * dw[loopfact][looppath] * sqrtDt * alpha[loopjump];
+        for (int loopfact = 0; loopfact < nbFactorLMM; loopfact++) {
+          double gamma = gammaLMM[index + loopn][loopfact];
+          double[] dwFact = dw[dwJump + loopfact];
+          for (int looppath = 0; looppath < nbPath; looppath++) {
+            cc[loopn][looppath] += gamma * dwFact[looppath] * sqrtDt * alpha[loopjump];
           }
+        }
+        for (int looppath = 0; looppath < nbPath; looppath++) {
           cc[loopn][looppath] += dr1[loopn];
         }
       }
       // Unique step: predictor and corrector
       double[][] mP = new double[nI][nbPath];
       double[][] mC = new double[nI][nbPath];
-      double[][] coefP = new double[nbPath][nI - 1];
+      double[][] coefP = new double[nI - 1][nbPath];
       double[][] coefC = new double[nI][nbPath];
-      for (int looppath = 0; looppath < nbPath; looppath++) {
-        for (int loopn = 0; loopn < nI - 1; loopn++) {
-          coefP[looppath][loopn] = (f[index + loopn + 1][looppath] + almm[index + loopn + 1]) / (f[index + loopn + 1][looppath] + dI[loopn + 1]);
+      for (int loopn = 0; loopn < nI - 1; loopn++) {
+        for (int looppath = 0; looppath < nbPath; looppath++) {
+          coefP[loopn][looppath] = (f[index + loopn + 1][looppath] + almm[index + loopn + 1]) / (f[index + loopn + 1][looppath] + dI[loopn + 1]);
         }
       }
       for (int loopdrift = nI - 1; loopdrift >= 0; loopdrift--) {
         if (loopdrift < nI - 1) {
           for (int looppath = 0; looppath < nbPath; looppath++) {
             coefC[loopdrift + 1][looppath] = (f[index + loopdrift + 1][looppath] + almm[index + loopdrift + 1]) / (f[index + loopdrift + 1][looppath] + dI[loopdrift + 1]);
-            for (int loop = loopdrift + 1; loop < nI; loop++) {
-              mP[loopdrift][looppath] += salpha2.getEntry(loop, loopdrift) * coefP[looppath][loop - 1];
-              mC[loopdrift][looppath] += salpha2.getEntry(loop, loopdrift) * coefC[loop][looppath];
+          }
+          for (int loop = loopdrift + 1; loop < nI; loop++) {
+            double salpha2Drift = salpha2[loop][loopdrift];
+            for (int looppath = 0; looppath < nbPath; looppath++) {
+              mP[loopdrift][looppath] += salpha2Drift * coefP[loop - 1][looppath];
+              mC[loopdrift][looppath] += salpha2Drift * coefC[loop][looppath];
             }
           }
           for (int looppath = 0; looppath < nbPath; looppath++) {
@@ -215,57 +257,59 @@ public class LiborMarketModelMonteCarloMethod extends MonteCarloMethod {
   }
 
   /**
-   * 
-   * @param jumpTime The time of the mandatory jumps.
-   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
-   * @param lmm The LMM parameters.
-   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
+   * Computes the jump times of the path generation: the decision times, with intermediary jumps such that no jump is longer than the maximum jump.
+   * @param decisionTime The decision times.
+   * @return For each decision time, the jump times from the previous decision time (or 0) to the decision time.
    */
-  private double[][][] pathgeneratorlibor(double[] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm) {
-    int nbPeriod = initIbor.length;
-    int nbPath = initIbor[0].length;
-    int nbJump = jumpTime.length;
-    double[][] initTmp = new double[nbPeriod][nbPath];
-    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
-    }
+  private double[][] jumpTime(double[] decisionTime) {
+    int nbJump = decisionTime.length;
     double[] jumpTimeA = new double[nbJump + 1];
     jumpTimeA[0] = 0;
-    System.arraycopy(jumpTime, 0, jumpTimeA, 1, nbJump);
-    double[][][] result = new double[nbJump][nbPeriod][nbPath];
-    // TODO: add intermediary jump dates if necessary
+    System.arraycopy(decisionTime, 0, jumpTimeA, 1, nbJump);
+    double[][] result = new double[nbJump][];
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
       // Intermediary jumps
-      double[] jumpIn;
       if (jumpTimeA[loopjump + 1] - jumpTimeA[loopjump] < _maxJump) {
-        jumpIn = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
+        result[loopjump] = new double[] {jumpTimeA[loopjump], jumpTimeA[loopjump + 1]};
       } else {
         double jump = jumpTimeA[loopjump + 1] - jumpTimeA[loopjump];
         int nbJumpIn = (int) Math.ceil(jump / _maxJump);
-        jumpIn = new double[nbJumpIn + 1];
-        jumpIn[0] = jumpTimeA[loopjump];
+        result[loopjump] = new double[nbJumpIn + 1];
+        result[loopjump][0] = jumpTimeA[loopjump];
         for (int loopJumpIn = 1; loopJumpIn <= nbJumpIn; loopJumpIn++) {
-          jumpIn[loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
+          result[loopjump][loopJumpIn] = jumpTimeA[loopjump] + loopJumpIn * jump / nbJumpIn;
         }
       }
-      initTmp = stepPC(jumpIn, initTmp, lmm);
-      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
-        System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
-      }
     }
     return result;
   }
 
   /**
-   * Gets a 2D-array of independent normally distributed variables.
-   * @param nbJump The number of jumps.
-   * @param nbPath The number of paths.
-   * @return The array of variables.
+   * 
+   * @param jumpTime The jump times from each mandatory jump to the next, see {@link #jumpTime(double[])}.
+   * @param initIbor The Ibor rates at the start. nbPeriodLMM x nbPath
+   * @param lmm The LMM parameters.
+   * @param s The product of the volatility matrix by its transpose.
+   * @param dw The normally distributed random variables. Size: (total number of jumps x nbFactorLMM) x nbPath.
+   * @return The paths. Size: nbJump x nbPeriodLMM x nbPath
    */
-  private double[][] getNormalArray(int nbJump, int nbPath) {
-    double[][] result = new double[nbJump][nbPath];
+  private double[][][] pathgeneratorlibor(double[][] jumpTime, final double[][] initIbor, final LiborMarketModelDisplacedDiffusionParameters lmm, final DoubleMatrix2D s,
+      final double[][] dw) {
+    int nbPeriod = initIbor.length;
+    int nbPath = initIbor[0].length;
+    int nbJump = jumpTime.length;
+    double[][] initTmp = new double[nbPeriod][nbPath];
+    for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+      System.arraycopy(initIbor[loop1], 0, initTmp[loop1], 0, nbPath);
+    }
+    double[][][] result = new double[nbJump][nbPeriod][nbPath];
+    int dwIndex = 0;
     for (int loopjump = 0; loopjump < nbJump; loopjump++) {
-      result[loopjump] = getNumberGenerator().getVector(nbPath);
+      initTmp = stepPC(jumpTime[loopjump], initTmp, lmm, s, dw, dwIndex);
+      dwIndex += (jumpTime[loopjump].length - 1) * lmm.getNbFactor();
+      for (int loop1 = 0; loop1 < nbPeriod; loop1++) {
+        System.arraycopy(initTmp[loop1], 0, result[loopjump][loop1], 0, nbPath);
+      }
     }
     return result;
   }
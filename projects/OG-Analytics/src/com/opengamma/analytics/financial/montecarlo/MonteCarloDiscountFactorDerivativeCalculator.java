@@ -49,7 +49,7 @@ public class MonteCarloDiscountFactorDerivativeCalculator extends AbstractInstru
   @Override
   public Double visitSwaptionPhysicalFixedIbor(final SwaptionPhysicalFixedIbor swaption, final MonteCarloDiscountFactorDerivativeDataBundle mcResults) {
     // Forward sweep
-    Double[][][] pathDiscountFactors = mcResults.getPathDiscountingFactor();
+    double[][][] pathDiscountFactors = mcResults.getPathDiscountingFactor();
     double[][] impactAmount = mcResults.getImpactAmount();
     Validate.isTrue(pathDiscountFactors[0].length == 1, "Only one decision date for swaptions.");
     double price = 0;
@@ -74,9 +74,9 @@ public class MonteCarloDiscountFactorDerivativeCalculator extends AbstractInstru
         impactAmountBar[0][loopcf] += pathDiscountFactors[looppath][0][loopcf] * swapPathValueBar[looppath];
       }
     }
-    Double[][][] pathDiscountFactorsBar = new Double[nbPath][1][];
+    double[][][] pathDiscountFactorsBar = new double[nbPath][1][];
     for (int looppath = 0; looppath < nbPath; looppath++) {
-      pathDiscountFactorsBar[looppath][0] = new Double[impactAmount[0].length];
+      pathDiscountFactorsBar[looppath][0] = new double[impactAmount[0].length];
       for (int loopcf = 0; loopcf < impactAmount[0].length; loopcf++) {
         pathDiscountFactorsBar[looppath][0][loopcf] = impactAmount[0][loopcf] * swapPathValueBar[looppath];
       }
@@ -88,7 +88,7 @@ public class MonteCarloDiscountFactorDerivativeCalculator extends AbstractInstru
 
   @Override
   public Double visitAnnuityCouponIborRatchet(final AnnuityCouponIborRatchet annuity, final MonteCarloDiscountFactorDerivativeDataBundle mcResults) {
-    Double[][][] pathDiscountFactors = mcResults.getPathDiscountingFactor();
+    double[][][] pathDiscountFactors = mcResults.getPathDiscountingFactor();
     double[][] impactAmount = mcResults.getImpactAmount();
     double price = 0.0;
     int nbPath = pathDiscountFactors.length;
@@ -144,11 +144,11 @@ public class MonteCarloDiscountFactorDerivativeCalculator extends AbstractInstru
     double[][] cpnMainBar = new double[nbCpn][nbPath];
     double[][] cpnFloorBar = new double[nbCpn][nbPath];
     double[][] cpnCapBar = new double[nbCpn][nbPath];
-    Double[][][] pathDiscountFactorsBar = new Double[nbPath][nbCpn][];
+    double[][][] pathDiscountFactorsBar = new double[nbPath][nbCpn][];
     for (int loopcpn = nbCpn - 1; loopcpn >= 0; loopcpn--) {
       impactAmountBar[loopcpn] = new double[impactAmount[loopcpn].length];
       for (int looppath = 0; looppath < nbPath; looppath++) {
-        pathDiscountFactorsBar[looppath][loopcpn] = new Double[impactAmount[loopcpn].length];
+        pathDiscountFactorsBar[looppath][loopcpn] = new double[impactAmount[loopcpn].length];
       }
       if (annuity.isFixed()[loopcpn]) { // Coupon already fixed: only one cash flow
         for (int looppath = 0; looppath < nbPath; looppath++) {
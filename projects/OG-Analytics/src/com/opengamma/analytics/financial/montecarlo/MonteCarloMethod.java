@@ -5,7 +5,21 @@
  */
 package com.opengamma.analytics.financial.montecarlo;
 
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadPoolExecutor;
+
+import org.apache.commons.lang.Validate;
+
 import com.opengamma.analytics.financial.interestrate.method.PricingMethod;
+import com.opengamma.analytics.math.MathException;
+import com.opengamma.analytics.math.function.Function1D;
 import com.opengamma.analytics.math.random.RandomNumberGenerator;
 
 /**
@@ -21,6 +35,10 @@ public abstract class MonteCarloMethod implements PricingMethod {
    * The number of paths.
    */
   private final int _nbPath;
+  /**
+   * The executor on which the blocks of paths are evaluated. If null, they are evaluated on the calling thread.
+   */
+  private final ExecutorService _executor;
 
   /**
    * Constructor.
@@ -28,8 +46,22 @@ public abstract class MonteCarloMethod implements PricingMethod {
    * @param nbPath The number of paths.
    */
   public MonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath) {
+    this(numberGenerator, nbPath, null);
+  }
+
+  /**
+   * Constructor for a method evaluating the blocks of paths in parallel. The random numbers of each block are still drawn from the generator on the
+   * calling thread and in block order, and the block results are added in block order, so the results are identical to the ones on a single thread,
+   * whatever the number of threads of the executor. Each block is drawn just before it is submitted, and at most about twice the number of threads
+   * of the executor are in flight at once.
+   * @param numberGenerator The random number generator.
+   * @param nbPath The number of paths.
+   * @param executor The executor on which the blocks are evaluated, null to evaluate them on the calling thread.
+   */
+  public MonteCarloMethod(RandomNumberGenerator numberGenerator, int nbPath, ExecutorService executor) {
     _numberGenerator = numberGenerator;
     _nbPath = nbPath;
+    _executor = executor;
   }
 
   /**
@@ -48,4 +80,110 @@ public abstract class MonteCarloMethod implements PricingMethod {
     return _nbPath;
   }
 
+  /**
+   * Gets the _executor field.
+   * @return the _executor
+   */
+  public ExecutorService getExecutor() {
+    return _executor;
+  }
+
+  /**
+   * Divides the paths in blocks.
+   * @param blockSize The maximum number of paths in one block.
+   * @return The number of paths in each block.
+   */
+  protected int[] getBlockSizes(int blockSize) {
+    int nbBlock = (int) Math.round(Math.ceil(getNbPath() / ((double) blockSize)));
+    int[] nbPathBlock = new int[nbBlock];
+    for (int i = 0; i < nbBlock - 1; i++) {
+      nbPathBlock[i] = blockSize;
+    }
+    nbPathBlock[nbBlock - 1] = getNbPath() - (nbBlock - 1) * blockSize;
+    return nbPathBlock;
+  }
+
+  /**
+   * Evaluates a function on each block of paths, on the executor if there is one.
+   * @param <T> The type of the block results.
+   * @param nbRandom The number of random variables for each path.
+   * @param blockSize The maximum number of paths in one block.
+   * @param blockFunction The function computing the result of a block from its random variables (dimensions: variable/path).
+   * @return The block results, in block order.
+   */
+  protected <T> List<T> evaluateBlocks(int nbRandom, int blockSize, final Function1D<double[][], T> blockFunction) {
+    Validate.isTrue(nbRandom > 0, "Number of random variables must be positive");
+    Validate.notNull(blockFunction, "block function");
+    int[] nbPathBlock = getBlockSizes(blockSize);
+    List<T> result = new ArrayList<T>(nbPathBlock.length);
+    if (_executor == null) {
+      for (int loopblock = 0; loopblock < nbPathBlock.length; loopblock++) {
+        result.add(blockFunction.evaluate(getNormalArray(nbRandom, nbPathBlock[loopblock])));
+      }
+      return result;
+    }
+    final int maxInFlight = getMaxBlocksInFlight();
+    final Queue<Future<T>> futures = new ArrayDeque<Future<T>>(maxInFlight);
+    try {
+      for (int loopblock = 0; loopblock < nbPathBlock.length; loopblock++) {
+        if (futures.size() >= maxInFlight) {
+          result.add(futures.remove().get());
+        }
+        final double[][] x = getNormalArray(nbRandom, nbPathBlock[loopblock]);
+        futures.add(_executor.submit(new Callable<T>() {
+          @Override
+          public T call() {
+            return blockFunction.evaluate(x);
+          }
+        }));
+      }
+      while (!futures.isEmpty()) {
+        result.add(futures.remove().get());
+      }
+      return result;
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+      throw new MathException("Interrupted while evaluating the Monte Carlo paths", e);
+    } catch (ExecutionException e) {
+      if (e.getCause() instanceof RuntimeException) {
+        throw (RuntimeException) e.getCause();
+      }
+      throw new MathException("Could not evaluate the Monte Carlo paths", e.getCause());
+    } finally {
+      for (Future<T> future : futures) {
+        future.cancel(true);
+      }
+    }
+  }
+
+  /**
+   * Gets the maximum number of blocks submitted to the executor and not yet collected. Each block holds its random variables until it is evaluated,
+   * so this bounds the memory used by the blocks waiting to be evaluated.
+   * @return The maximum number of blocks in flight.
+   */
+  private int getMaxBlocksInFlight() {
+    int threads = Runtime.getRuntime().availableProcessors();
+    if (_executor instanceof ThreadPoolExecutor) {
+      final int poolSize = ((ThreadPoolExecutor) _executor).getMaximumPoolSize();
+      if (poolSize < threads) {
+        threads = poolSize;
+      }
+    }
+    return 2 * threads;
+  }
+
+  /**
+   * Gets a 2D-array of independent normally distributed variables.
+   * @param nbJump The number of jumps.
+   * @param nbPath The number of paths.
+   * @return The array of variables.
+   */
+  protected double[][] getNormalArray(int nbJump, int nbPath) {
+    double[][] result = new double[nbJump][nbPath];
+    for (int loopjump = 0; loopjump < nbJump; loopjump++) {
+      result[loopjump] = getNumberGenerator().getVector(nbPath);
+    }
+    return result;
+  }
+
 }
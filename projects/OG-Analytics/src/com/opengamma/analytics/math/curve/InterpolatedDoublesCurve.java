@@ -509,9 +509,30 @@ public class InterpolatedDoublesCurve extends DoublesCurve {
   @Override
   public Double getYValue(final Double x) {
     Validate.notNull(x, "x");
+    return getYValue(x.doubleValue());
+  }
+
+  /**
+   * Gets the <i>y</i> value for an <i>x</i> value without boxing either.
+   * @param x The <i>x</i> value
+   * @return The interpolated <i>y</i> value
+   */
+  public double getYValue(final double x) {
     return _interpolator.interpolate(_dataBundle, x);
   }
 
+  /**
+   * Gets the <i>y</i> values for a number of <i>x</i> values. The <i>x</i> values need not be sorted, but the lookup is fastest when they are increasing.
+   * @param x The <i>x</i> values, not null
+   * @return The interpolated <i>y</i> values
+   */
+  public double[] getYValues(final double[] x) {
+    Validate.notNull(x, "x");
+    final double[] y = new double[x.length];
+    _interpolator.interpolate(_dataBundle, x, y);
+    return y;
+  }
+
   public Interpolator1D getInterpolator() {
     return _interpolator;
   }
@@ -82,9 +82,59 @@ public class CombinedInterpolatorExtrapolator extends Interpolator1D {
   }
 
   @Override
-  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
+    final double[] keys = data.getKeys();
+    final Interpolator1D extrapolator = getExtrapolator(keys[0], keys[keys.length - 1], value);
+    if (extrapolator != null) {
+      return extrapolator.interpolate(data, value);
+    }
+    return _interpolator.interpolate(data, value);
+  }
+
+  /**
+   * {@inheritDoc}
+   * Runs of values that are not extrapolated are passed to the interpolator together.
+   */
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] values, final int fromIndex, final int toIndex, final double[] results) {
+    final double[] keys = data.getKeys();
+    final double first = keys[0];
+    final double last = keys[keys.length - 1];
+    int start = fromIndex;
+    for (int i = fromIndex; i < toIndex; i++) {
+      final Interpolator1D extrapolator = getExtrapolator(first, last, values[i]);
+      if (extrapolator != null) {
+        if (start < i) {
+          _interpolator.interpolate(data, values, start, i, results);
+        }
+        results[i] = extrapolator.interpolate(data, values[i]);
+        start = i + 1;
+      }
+    }
+    if (start < toIndex) {
+      _interpolator.interpolate(data, values, start, toIndex, results);
+    }
+  }
+
+  private Interpolator1D getExtrapolator(final double firstKey, final double lastKey, final double value) {
+    if (value < firstKey) {
+      return _leftExtrapolator;
+    } else if (value > lastKey) {
+      return _rightExtrapolator;
+    }
+    return null;
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
     if (value < data.firstKey()) {
       if (_leftExtrapolator != null) {
         return _leftExtrapolator.getNodeSensitivitiesForValue(data, value);
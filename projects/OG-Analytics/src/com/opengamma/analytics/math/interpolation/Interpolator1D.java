@@ -25,7 +25,98 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
   @Override
   public abstract Double interpolate(Interpolator1DDataBundle data, Double value);
 
+  /**
+   * Computes the interpolated value without boxing the argument or the result. Interpolators that are used for curve lookups override this;
+   * the default delegates to {@link #interpolate(Interpolator1DDataBundle, Double)}.
+   * @param data The interpolation data.
+   * @param value The value for which the interpolation is computed.
+   * @return The interpolated value.
+   */
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
+    return interpolate(data, Double.valueOf(value));
+  }
+
+  /**
+   * Computes the interpolated values at a number of points. The points need not be sorted, but are fastest in increasing order, as interpolators
+   * that override {@link #interpolate(Interpolator1DDataBundle, double[], int, int, double[])} can then search for each point's interval from the
+   * interval of the previous one.
+   * @param data The interpolation data.
+   * @param values The values for which the interpolation is computed.
+   * @param results Receives the interpolated values, at least as long as values.
+   */
+  public void interpolate(final Interpolator1DDataBundle data, final double[] values, final double[] results) {
+    Validate.notNull(data, "data");
+    Validate.notNull(values, "values");
+    Validate.notNull(results, "results");
+    Validate.isTrue(results.length >= values.length, "results array is shorter than values array");
+    interpolate(data, values, 0, values.length, results);
+  }
+
+  /**
+   * Computes the interpolated values for the elements of values from fromIndex (inclusive) to toIndex (exclusive), writing them to the same
+   * positions of results.
+   * @param data The interpolation data.
+   * @param values The values for which the interpolation is computed.
+   * @param fromIndex The first index.
+   * @param toIndex One more than the last index.
+   * @param results Receives the interpolated values.
+   */
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] values, final int fromIndex, final int toIndex, final double[] results) {
+    for (int i = fromIndex; i < toIndex; i++) {
+      results[i] = interpolate(data, values[i]);
+    }
+  }
+
+  /**
+   * Finds the index of the largest key that is less than or equal to a value. The search gallops forward from a previous result if the value is
+   * not below that key, so that a sequence of increasing values is located in amortised constant time, and is a binary search otherwise.
+   * @param keys The sorted keys.
+   * @param value The value, which must lie between the first and last keys.
+   * @param previousIndex The result for a previous value, or any index if there is none.
+   * @return The lower bound index.
+   */
+  protected static int getLowerBoundIndex(final double[] keys, final double value, final int previousIndex) {
+    final int n = keys.length;
+    if (!(value >= keys[0] && value <= keys[n - 1])) {
+      throw new IllegalArgumentException("Could not get lower bound index for " + value + ": x-values are between " + keys[0] + " and " + keys[n - 1]);
+    }
+    int low = 0;
+    int high = n;
+    if (previousIndex >= 0 && previousIndex < n && keys[previousIndex] <= value) {
+      low = previousIndex;
+      int step = 1;
+      high = low + 1;
+      while (high < n && keys[high] <= value) {
+        low = high;
+        step <<= 1;
+        high = low + step;
+      }
+      high = Math.min(high, n);
+    }
+    while (high - low > 1) {
+      final int mid = (low + high) >>> 1;
+      if (keys[mid] <= value) {
+        low = mid;
+      } else {
+        high = mid;
+      }
+    }
+    return low;
+  }
+
   public double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value, boolean useFiniteDifferenceSensitivities) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue(), useFiniteDifferenceSensitivities);
+  }
+
+  /**
+   * Computes the sensitivities of the interpolated value to the input data y, without boxing the argument.
+   * @param data The interpolation data.
+   * @param value The value for which the interpolation is computed.
+   * @param useFiniteDifferenceSensitivities True to use finite differences rather than the analytic sensitivities.
+   * @return The sensitivity.
+   */
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value, final boolean useFiniteDifferenceSensitivities) {
     return useFiniteDifferenceSensitivities ? getFiniteDifferenceSensitivities(data, value) : getNodeSensitivitiesForValue(data, value);
   }
 
@@ -37,7 +128,18 @@ public abstract class Interpolator1D implements Interpolator<Interpolator1DDataB
    */
   public abstract double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value);
 
-  protected double[] getFiniteDifferenceSensitivities(Interpolator1DDataBundle data, Double value) {
+  /**
+   * Computes the sensitivities of the interpolated value to the input data y, without boxing the argument. Interpolators that are used for
+   * curve construction override this; the default delegates to {@link #getNodeSensitivitiesForValue(Interpolator1DDataBundle, Double)}.
+   * @param data The interpolation data.
+   * @param value The value for which the interpolation is computed.
+   * @return The sensitivity.
+   */
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    return getNodeSensitivitiesForValue(data, Double.valueOf(value));
+  }
+
+  protected double[] getFiniteDifferenceSensitivities(Interpolator1DDataBundle data, double value) {
     Validate.notNull(data, "data");
     final double[] x = data.getKeys();
     final double[] y = data.getValues();
@@ -8,7 +8,6 @@ package com.opengamma.analytics.math.interpolation;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
-import com.opengamma.analytics.math.interpolation.data.InterpolationBoundedValues;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
@@ -24,36 +23,55 @@ public class LinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "Value to be interpolated must not be null");
+    return interpolate(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "Data bundle must not be null");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    return interpolate(model.getKeys(), model.getValues(), model.getLowerBoundIndex(value), value);
+  }
+
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] values, final int fromIndex, final int toIndex, final double[] results) {
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    int index = 0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      results[i] = interpolate(x, y, index, values[i]);
+    }
+  }
+
+  private static double interpolate(final double[] x, final double[] y, final int index, final double value) {
+    final double y1 = y[index];
+    if (index == x.length - 1) {
       return y1;
     }
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double y2 = boundedValues.getHigherBoundValue();
-    return y1 + (value - x1) / (x2 - x1) * (y2 - y1);
+    final double x1 = x[index];
+    return y1 + (value - x1) / (x[index + 1] - x1) * (y[index + 1] - y1);
   }
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
-    final int n = data.size();
+    final double[] x = data.getKeys();
+    final int n = x.length;
     final double[] result = new double[n];
-    final InterpolationBoundedValues boundedValues = data.getBoundedValues(value);
-    if (boundedValues.getHigherBoundKey() == null) {
+    final int index = data.getLowerBoundIndex(value);
+    if (index == n - 1) {
       result[n - 1] = 1.0;
       return result;
     }
-    final int index = data.getLowerBoundIndex(value);
-    final double x1 = boundedValues.getLowerBoundKey();
-    final double x2 = boundedValues.getHigherBoundKey();
-    final double dx = x2 - x1;
-    final double a = (x2 - value) / dx;
-    final double b = 1 - a;
+    final double a = (x[index + 1] - value) / (x[index + 1] - x[index]);
     result[index] = a;
-    result[index + 1] = b;
+    result[index + 1] = 1 - a;
     return result;
   }
 
@@ -8,7 +8,6 @@ package com.opengamma.analytics.math.interpolation;
 import org.apache.commons.lang.Validate;
 
 import com.opengamma.analytics.math.interpolation.data.ArrayInterpolator1DDataBundle;
-import com.opengamma.analytics.math.interpolation.data.InterpolationBoundedValues;
 import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
 
 /**
@@ -28,16 +27,33 @@ public class LogLinearInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle model, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(model, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle model, final double value) {
     Validate.notNull(model, "data bundle");
-    final InterpolationBoundedValues boundedValues = model.getBoundedValues(value);
-    final Double x1 = boundedValues.getLowerBoundKey();
-    final Double y1 = boundedValues.getLowerBoundValue();
-    if (model.getLowerBoundIndex(value) == model.size() - 1) {
+    return interpolate(model.getKeys(), model.getValues(), model.getLowerBoundIndex(value), value);
+  }
+
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] values, final int fromIndex, final int toIndex, final double[] results) {
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    int index = 0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      index = getLowerBoundIndex(x, values[i], index);
+      results[i] = interpolate(x, y, index, values[i]);
+    }
+  }
+
+  private static double interpolate(final double[] x, final double[] y, final int index, final double value) {
+    final double y1 = y[index];
+    if (index == x.length - 1) {
       return y1;
     }
-    final Double x2 = boundedValues.getHigherBoundKey();
-    final Double y2 = boundedValues.getHigherBoundValue();
-    return Math.pow(y2 / y1, (value - x1) / (x2 - x1)) * y1;
+    final double x1 = x[index];
+    return Math.pow(y[index + 1] / y1, (value - x1) / (x[index + 1] - x1)) * y1;
   }
 
   @Override
@@ -51,7 +67,27 @@ public class LogLinearInterpolator1D extends Interpolator1D {
   }
 
   @Override
-  public double[] getNodeSensitivitiesForValue(Interpolator1DDataBundle data, Double value) {
-    return getFiniteDifferenceSensitivities(data, value);
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
+    Validate.notNull(data, "data");
+    final double[] x = data.getKeys();
+    final double[] y = data.getValues();
+    final int n = x.length;
+    final double[] result = new double[n];
+    final int index = data.getLowerBoundIndex(value);
+    if (index == n - 1) {
+      result[n - 1] = 1.0;
+      return result;
+    }
+    final double w = (value - x[index]) / (x[index + 1] - x[index]);
+    final double interpolated = interpolate(x, y, index, value);
+    result[index] = (1 - w) * interpolated / y[index];
+    result[index + 1] = w * interpolated / y[index + 1];
+    return result;
   }
 }
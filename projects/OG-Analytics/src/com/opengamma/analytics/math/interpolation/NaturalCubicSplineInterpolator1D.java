@@ -30,29 +30,53 @@ public class NaturalCubicSplineInterpolator1D extends Interpolator1D {
   @Override
   public Double interpolate(final Interpolator1DDataBundle data, final Double value) {
     Validate.notNull(value, "value");
+    return interpolate(data, value.doubleValue());
+  }
+
+  @Override
+  public double interpolate(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data bundle");
     Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
-    Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
-    final int low = data.getLowerBoundIndex(value);
-    final int high = low + 1;
-    final int n = data.size() - 1;
+    final Interpolator1DCubicSplineDataBundle splineData = (Interpolator1DCubicSplineDataBundle) data;
+    return interpolate(data.getKeys(), data.getValues(), splineData.getSecondDerivatives(), data.getLowerBoundIndex(value), value);
+  }
+
+  @Override
+  protected void interpolate(final Interpolator1DDataBundle data, final double[] values, final int fromIndex, final int toIndex, final double[] results) {
+    Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
     final double[] xData = data.getKeys();
     final double[] yData = data.getValues();
-    if (data.getLowerBoundIndex(value) == n) {
+    final double[] y2 = ((Interpolator1DCubicSplineDataBundle) data).getSecondDerivatives();
+    int low = 0;
+    for (int i = fromIndex; i < toIndex; i++) {
+      low = getLowerBoundIndex(xData, values[i], low);
+      results[i] = interpolate(xData, yData, y2, low, values[i]);
+    }
+  }
+
+  private double interpolate(final double[] xData, final double[] yData, final double[] y2, final int low, final double value) {
+    final int n = xData.length - 1;
+    if (low == n) {
       return yData[n];
     }
+    final int high = low + 1;
     final double delta = xData[high] - xData[low];
     if (Math.abs(delta) < _eps) {
       throw new MathException("x data points were not distinct");
     }
     final double a = (xData[high] - value) / delta;
     final double b = (value - xData[low]) / delta;
-    final double[] y2 = splineData.getSecondDerivatives();
     return a * yData[low] + b * yData[high] + (a * (a * a - 1) * y2[low] + b * (b * b - 1) * y2[high]) * delta * delta / 6.;
   }
 
   @Override
   public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final Double value) {
+    Validate.notNull(value, "value");
+    return getNodeSensitivitiesForValue(data, value.doubleValue());
+  }
+
+  @Override
+  public double[] getNodeSensitivitiesForValue(final Interpolator1DDataBundle data, final double value) {
     Validate.notNull(data, "data");
     Validate.isTrue(data instanceof Interpolator1DCubicSplineDataBundle);
     Interpolator1DCubicSplineDataBundle cubicData = (Interpolator1DCubicSplineDataBundle) data;
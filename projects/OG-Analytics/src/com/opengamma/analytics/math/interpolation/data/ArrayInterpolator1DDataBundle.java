@@ -103,7 +103,7 @@ public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle {
   }
 
   @Override
-  public Double get(final Double key) {
+  public Double get(final double key) {
     final int index = Arrays.binarySearch(_keys, key);
     if (index < 0) {
       return null;
@@ -126,7 +126,7 @@ public class ArrayInterpolator1DDataBundle implements Interpolator1DDataBundle {
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     if (value < _keys[0]) {
       throw new IllegalArgumentException("Could not get lower bound index for " + value + ": lowest x-value is "
           + _keys[0]);
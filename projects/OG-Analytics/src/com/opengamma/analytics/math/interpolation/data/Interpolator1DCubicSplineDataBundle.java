@@ -66,7 +66,7 @@ public class Interpolator1DCubicSplineDataBundle implements Interpolator1DDataBu
   }
 
   @Override
-  public Double get(final Double key) {
+  public Double get(final double key) {
     return _underlyingData.get(key);
   }
 
@@ -81,7 +81,7 @@ public class Interpolator1DCubicSplineDataBundle implements Interpolator1DDataBu
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     return _underlyingData.getLowerBoundIndex(value);
   }
 
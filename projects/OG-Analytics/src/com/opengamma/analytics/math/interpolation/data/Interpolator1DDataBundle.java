@@ -16,9 +16,9 @@ public interface Interpolator1DDataBundle {
 
   Double getLowerBoundKey(Double value);
 
-  int getLowerBoundIndex(Double value);
+  int getLowerBoundIndex(double value);
 
-  Double get(Double key);
+  Double get(double key);
 
   Double firstKey();
 
@@ -84,7 +84,7 @@ public class Interpolator1DMonotonicIncreasingDataBundle implements Interpolator
   }
 
   @Override
-  public Double get(final Double key) {
+  public Double get(final double key) {
     return _underlyingData.get(key);
   }
 
@@ -99,7 +99,7 @@ public class Interpolator1DMonotonicIncreasingDataBundle implements Interpolator
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     final double[] keys = _underlyingData.getKeys();
     final int n = _underlyingData.size();
     if (value < keys[0]) {
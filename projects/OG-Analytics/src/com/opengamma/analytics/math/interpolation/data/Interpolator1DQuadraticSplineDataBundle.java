@@ -64,7 +64,7 @@ public class Interpolator1DQuadraticSplineDataBundle implements Interpolator1DDa
   }
 
   @Override
-  public Double get(final Double key) {
+  public Double get(final double key) {
     return _underlyingData.get(key);
   }
 
@@ -79,7 +79,7 @@ public class Interpolator1DQuadraticSplineDataBundle implements Interpolator1DDa
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     final double[] keys = _underlyingData.getKeys();
     final int n = _underlyingData.size();
     if (value < keys[0]) {
@@ -39,7 +39,7 @@ public class NavigableMapInterpolator1DDataBundle implements Interpolator1DDataB
   }
 
   @Override
-  public int getLowerBoundIndex(final Double value) {
+  public int getLowerBoundIndex(final double value) {
     final Double lower = getLowerBoundKey(value);
     int i = 0;
     final Iterator<Double> iter = _backingMap.keySet().iterator();
@@ -52,7 +52,7 @@ public class NavigableMapInterpolator1DDataBundle implements Interpolator1DDataB
   }
 
   @Override
-  public Double get(final Double key) {
+  public Double get(final double key) {
     return _backingMap.get(key);
   }
 
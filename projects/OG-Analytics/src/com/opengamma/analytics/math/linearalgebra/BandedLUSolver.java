@@ -0,0 +1,185 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.MathException;
+
+/**
+ * Solves banded systems of a fixed size and bandwidth by LU decomposition with partial pivoting, as in the LAPACK routines DGBTRF and DGBTRS. The
+ * decomposition takes O(n kl (kl + ku)) operations, rather than O(n<sup>3</sup>) for a dense matrix, and the band storage is reused between
+ * decompositions so that it can be used at every step of a finite difference scheme without allocating.
+ * <p>
+ * The matrix is set up with {@link #clear} and {@link #setEntry}, then decomposed in place with {@link #decompose}, after which any number of
+ * right hand sides can be solved. Instances are not thread-safe.
+ */
+public class BandedLUSolver {
+
+  private final int _size;
+  private final int _lowerBandwidth;
+  private final int _upperBandwidth;
+  /**
+   * Band storage by column: element (i, j) is at [j][kl + ku + i - j]. The first kl rows of each column hold the fill-in from pivoting.
+   */
+  private final double[][] _band;
+  private final int[] _pivot;
+
+  /**
+   * @param size The number of unknowns, at least one
+   * @param lowerBandwidth The number of non-zero sub-diagonals (kl), not negative
+   * @param upperBandwidth The number of non-zero super-diagonals (ku), not negative
+   */
+  public BandedLUSolver(final int size, final int lowerBandwidth, final int upperBandwidth) {
+    Validate.isTrue(size > 0, "size must be positive");
+    Validate.isTrue(lowerBandwidth >= 0, "lowerBandwidth must not be negative");
+    Validate.isTrue(upperBandwidth >= 0, "upperBandwidth must not be negative");
+    _size = size;
+    _lowerBandwidth = lowerBandwidth;
+    _upperBandwidth = upperBandwidth;
+    _band = new double[size][2 * lowerBandwidth + upperBandwidth + 1];
+    _pivot = new int[size];
+  }
+
+  /**
+   * @return The number of unknowns
+   */
+  public int getSize() {
+    return _size;
+  }
+
+  /**
+   * @return The number of sub-diagonals
+   */
+  public int getLowerBandwidth() {
+    return _lowerBandwidth;
+  }
+
+  /**
+   * @return The number of super-diagonals
+   */
+  public int getUpperBandwidth() {
+    return _upperBandwidth;
+  }
+
+  /**
+   * Sets every element of the matrix to zero, discarding any previous decomposition.
+   */
+  public void clear() {
+    for (final double[] column : _band) {
+      Arrays.fill(column, 0.0);
+    }
+  }
+
+  /**
+   * Sets an element of the matrix.
+   * @param i The row
+   * @param j The column, within the band of row i
+   * @param value The value
+   */
+  public void setEntry(final int i, final int j, final double value) {
+    Validate.isTrue(i - j <= _lowerBandwidth && j - i <= _upperBandwidth, "element outside band");
+    _band[j][_lowerBandwidth + _upperBandwidth + i - j] = value;
+  }
+
+  /**
+   * Decomposes the matrix in place.
+   * @throws MathException if the matrix is singular
+   */
+  public void decompose() {
+    final int n = _size;
+    final int kl = _lowerBandwidth;
+    final int kv = _lowerBandwidth + _upperBandwidth;
+    int ju = 0;
+    for (int j = 0; j < n; j++) {
+      final double[] column = _band[j];
+      final int km = Math.min(kl, n - 1 - j);
+      int jp = 0;
+      double max = Math.abs(column[kv]);
+      for (int t = 1; t <= km; t++) {
+        final double value = Math.abs(column[kv + t]);
+        if (value > max) {
+          max = value;
+          jp = t;
+        }
+      }
+      _pivot[j] = j + jp;
+      if (max == 0.0) {
+        throw new MathException("Matrix is singular");
+      }
+      ju = Math.max(ju, Math.min(j + _upperBandwidth + jp, n - 1));
+      if (jp != 0) {
+        for (int c = j; c <= ju; c++) {
+          final double[] col = _band[c];
+          final double temp = col[kv + j - c];
+          col[kv + j - c] = col[kv + j + jp - c];
+          col[kv + j + jp - c] = temp;
+        }
+      }
+      if (km > 0) {
+        final double pivot = column[kv];
+        for (int t = 1; t <= km; t++) {
+          column[kv + t] /= pivot;
+        }
+        for (int c = j + 1; c <= ju; c++) {
+          final double[] col = _band[c];
+          final double u = col[kv + j - c];
+          if (u != 0.0) {
+            for (int t = 1; t <= km; t++) {
+              col[kv + j + t - c] -= column[kv + t] * u;
+            }
+          }
+        }
+      }
+    }
+  }
+
+  /**
+   * Solves the decomposed system.
+   * @param rhs The right hand side, not null
+   * @param x Receives the solution, not null. This may be the same array as rhs
+   */
+  public void solve(final double[] rhs, final double[] x) {
+    Validate.notNull(rhs, "rhs");
+    Validate.notNull(x, "x");
+    final int n = _size;
+    Validate.isTrue(rhs.length >= n && x.length >= n, "vectors too short");
+    final int kl = _lowerBandwidth;
+    final int kv = _lowerBandwidth + _upperBandwidth;
+    if (x != rhs) {
+      System.arraycopy(rhs, 0, x, 0, n);
+    }
+    for (int j = 0; j < n - 1; j++) {
+      final int p = _pivot[j];
+      if (p != j) {
+        final double temp = x[p];
+        x[p] = x[j];
+        x[j] = temp;
+      }
+      final double xj = x[j];
+      if (xj != 0.0) {
+        final double[] column = _band[j];
+        final int km = Math.min(kl, n - 1 - j);
+        for (int t = 1; t <= km; t++) {
+          x[j + t] -= column[kv + t] * xj;
+        }
+      }
+    }
+    for (int j = n - 1; j >= 0; j--) {
+      final double[] column = _band[j];
+      x[j] /= column[kv];
+      final double xj = x[j];
+      if (xj != 0.0) {
+        for (int i = Math.max(0, j - kv); i < j; i++) {
+          x[i] -= column[kv + i - j] * xj;
+        }
+      }
+    }
+  }
+
+}
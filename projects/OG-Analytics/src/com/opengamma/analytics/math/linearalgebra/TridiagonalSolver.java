@@ -0,0 +1,193 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.MathException;
+
+/**
+ * Solves tridiagonal systems of a fixed size in O(n) operations, reusing its work arrays between calls so that it can be used at every step of a
+ * finite difference scheme without allocating. As well as the plain Thomas algorithm, the linear complementarity problem
+ * $$
+ * \begin{align*}
+ * Ax &\geq r \\
+ * x &\geq g \\
+ * (Ax - r)^T (x - g) &= 0
+ * \end{align*}
+ * $$
+ * that arises from early exercise can be solved directly by the Brennan-Schwartz algorithm, or iteratively by projected SOR.
+ * <p>
+ * The matrix is given as three arrays of length n: {@code lower[i]} is the element at (i, i - 1) and {@code upper[i]} the element at (i, i + 1), with
+ * {@code lower[0]} and {@code upper[n - 1]} ignored. No pivoting is done, so the matrix should be diagonally dominant or otherwise known to be stable
+ * under Gaussian elimination, as are those from the usual finite difference schemes. Instances are not thread-safe.
+ */
+public class TridiagonalSolver {
+
+  private final int _size;
+  private final double[] _diagonal;
+  private final double[] _rhs;
+
+  /**
+   * @param size The number of unknowns, at least one
+   */
+  public TridiagonalSolver(final int size) {
+    Validate.isTrue(size > 0, "size must be positive");
+    _size = size;
+    _diagonal = new double[size];
+    _rhs = new double[size];
+  }
+
+  /**
+   * @return The number of unknowns
+   */
+  public int getSize() {
+    return _size;
+  }
+
+  /**
+   * Solves the system by the Thomas algorithm.
+   * @param lower The lower sub-diagonal, not null
+   * @param diagonal The diagonal, not null
+   * @param upper The upper sub-diagonal, not null
+   * @param rhs The right hand side, not null
+   * @param x Receives the solution, not null. This may be the same array as rhs
+   */
+  public void solve(final double[] lower, final double[] diagonal, final double[] upper, final double[] rhs, final double[] x) {
+    validate(lower, diagonal, upper, rhs, x);
+    eliminateDown(lower, diagonal, upper, rhs);
+    final int n = _size;
+    x[n - 1] = _rhs[n - 1] / _diagonal[n - 1];
+    for (int i = n - 2; i >= 0; i--) {
+      x[i] = (_rhs[i] - upper[i] * x[i + 1]) / _diagonal[i];
+    }
+  }
+
+  /**
+   * Solves the linear complementarity problem with the lower bound g by the Brennan-Schwartz algorithm. The elimination runs away from the end of the
+   * grid at which the bound is active, and the substitution, with the bound applied at each node, runs back towards it. The result is exact when the
+   * nodes at which the bound is active form a single run starting at that end, as is the case for the early exercise region of an American put
+   * (lower end) or call (upper end).
+   * @param lower The lower sub-diagonal, not null
+   * @param diagonal The diagonal, not null
+   * @param upper The upper sub-diagonal, not null
+   * @param rhs The right hand side, not null
+   * @param bound The lower bound on the solution, not null
+   * @param x Receives the solution, not null. This may be the same array as rhs
+   * @param activeAtLowerEnd True if the bound is active from the first node, false if it is active from the last
+   */
+  public void solveWithLowerBound(final double[] lower, final double[] diagonal, final double[] upper, final double[] rhs, final double[] bound, final double[] x,
+      final boolean activeAtLowerEnd) {
+    validate(lower, diagonal, upper, rhs, x);
+    Validate.isTrue(bound.length >= _size, "bound too short");
+    final int n = _size;
+    if (activeAtLowerEnd) {
+      eliminateUp(lower, diagonal, upper, rhs);
+      x[0] = Math.max(_rhs[0] / _diagonal[0], bound[0]);
+      for (int i = 1; i < n; i++) {
+        x[i] = Math.max((_rhs[i] - lower[i] * x[i - 1]) / _diagonal[i], bound[i]);
+      }
+    } else {
+      eliminateDown(lower, diagonal, upper, rhs);
+      x[n - 1] = Math.max(_rhs[n - 1] / _diagonal[n - 1], bound[n - 1]);
+      for (int i = n - 2; i >= 0; i--) {
+        x[i] = Math.max((_rhs[i] - upper[i] * x[i + 1]) / _diagonal[i], bound[i]);
+      }
+    }
+  }
+
+  /**
+   * Solves the linear complementarity problem with the lower bound g by projected successive over-relaxation. This does not depend on the shape of
+   * the region where the bound is active, but needs several sweeps over the nodes.
+   * @param lower The lower sub-diagonal, not null
+   * @param diagonal The diagonal, not null
+   * @param upper The upper sub-diagonal, not null
+   * @param rhs The right hand side, not null
+   * @param bound The lower bound on the solution, not null
+   * @param x On entry the starting point for the iteration, which should satisfy the bound; on exit the solution. Not null
+   * @param omega The relaxation parameter, between 0 and 2
+   * @param tolerance The iteration stops when the squared size of the last correction relative to the squared size of the solution is less than this
+   * @param maxIterations The maximum number of sweeps
+   * @return The number of sweeps made
+   */
+  public int solveWithLowerBoundBySOR(final double[] lower, final double[] diagonal, final double[] upper, final double[] rhs, final double[] bound, final double[] x,
+      final double omega, final double tolerance, final int maxIterations) {
+    validate(lower, diagonal, upper, rhs, x);
+    Validate.isTrue(bound.length >= _size, "bound too short");
+    Validate.isTrue(omega > 0 && omega < 2, "omega must be between 0 and 2");
+    final int n = _size;
+    int count = 0;
+    double errorSqr;
+    double scale;
+    do {
+      if (count == maxIterations) {
+        throw new MathException("Projected SOR failed to converge in " + maxIterations + " iterations");
+      }
+      errorSqr = 0;
+      scale = 0;
+      for (int i = 0; i < n; i++) {
+        double sum = diagonal[i] * x[i];
+        if (i > 0) {
+          sum += lower[i] * x[i - 1];
+        }
+        if (i < n - 1) {
+          sum += upper[i] * x[i + 1];
+        }
+        final double correction = Math.max(omega * (rhs[i] - sum) / diagonal[i], bound[i] - x[i]);
+        x[i] += correction;
+        errorSqr += correction * correction;
+        scale += x[i] * x[i];
+      }
+      count++;
+    } while (errorSqr > tolerance * (scale + 1e-10));
+    return count;
+  }
+
+  private void validate(final double[] lower, final double[] diagonal, final double[] upper, final double[] rhs, final double[] x) {
+    Validate.notNull(lower, "lower");
+    Validate.notNull(diagonal, "diagonal");
+    Validate.notNull(upper, "upper");
+    Validate.notNull(rhs, "rhs");
+    Validate.notNull(x, "x");
+    Validate.isTrue(lower.length >= _size && diagonal.length >= _size && upper.length >= _size, "matrix too small");
+    Validate.isTrue(rhs.length >= _size && x.length >= _size, "vectors too short");
+  }
+
+  /**
+   * Forward elimination of the lower sub-diagonal, leaving an upper bidiagonal system in the work arrays and upper.
+   */
+  private void eliminateDown(final double[] lower, final double[] diagonal, final double[] upper, final double[] rhs) {
+    _diagonal[0] = checkPivot(diagonal[0]);
+    _rhs[0] = rhs[0];
+    for (int i = 1; i < _size; i++) {
+      final double w = lower[i] / _diagonal[i - 1];
+      _diagonal[i] = checkPivot(diagonal[i] - w * upper[i - 1]);
+      _rhs[i] = rhs[i] - w * _rhs[i - 1];
+    }
+  }
+
+  /**
+   * Backward elimination of the upper sub-diagonal, leaving a lower bidiagonal system in the work arrays and lower.
+   */
+  private void eliminateUp(final double[] lower, final double[] diagonal, final double[] upper, final double[] rhs) {
+    final int n = _size;
+    _diagonal[n - 1] = checkPivot(diagonal[n - 1]);
+    _rhs[n - 1] = rhs[n - 1];
+    for (int i = n - 2; i >= 0; i--) {
+      final double w = upper[i] / _diagonal[i + 1];
+      _diagonal[i] = checkPivot(diagonal[i] - w * lower[i + 1]);
+      _rhs[i] = rhs[i] - w * _rhs[i + 1];
+    }
+  }
+
+  private static double checkPivot(final double pivot) {
+    if (pivot == 0.0) {
+      throw new MathException("Zero pivot in tridiagonal system");
+    }
+    return pivot;
+  }
+
+}
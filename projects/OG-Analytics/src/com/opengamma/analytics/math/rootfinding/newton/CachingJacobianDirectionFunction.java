@@ -0,0 +1,76 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import java.util.Arrays;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.linearalgebra.Decomposition;
+import com.opengamma.analytics.math.linearalgebra.DecompositionResult;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * Computes the Newton direction by decomposing the Jacobian estimate, keeping the decomposition while the estimate is unchanged so that update
+ * functions that return the same matrix for several steps (e.g. {@link ModifiedNewtonUpdateFunction}) only pay for one decomposition. The
+ * estimate is compared by content, as the matrix may have been modified in place. The decomposition must be discarded with {@link #clear()}
+ * at the end of each solve. Instances are not thread-safe.
+ */
+/* package */final class CachingJacobianDirectionFunction implements NewtonRootFinderDirectionFunction {
+  private final Decomposition<?> _decomposition;
+  private CachedDecomposition _cache;
+
+  public CachingJacobianDirectionFunction(final Decomposition<?> decomposition) {
+    Validate.notNull(decomposition);
+    _decomposition = decomposition;
+  }
+
+  @Override
+  public DoubleMatrix1D getDirection(final DoubleMatrix2D estimate, final DoubleMatrix1D y) {
+    Validate.notNull(estimate);
+    Validate.notNull(y);
+    if (_cache == null || !_cache.isFor(estimate)) {
+      _cache = new CachedDecomposition(estimate.toArray(), _decomposition.evaluate(estimate));
+    }
+    return _cache.getResult().solve(y);
+  }
+
+  /**
+   * Discards the cached decomposition.
+   */
+  public void clear() {
+    _cache = null;
+  }
+
+  private static final class CachedDecomposition {
+    private final double[][] _data;
+    private final DecompositionResult _result;
+
+    private CachedDecomposition(final double[][] data, final DecompositionResult result) {
+      _data = data;
+      _result = result;
+    }
+
+    private boolean isFor(final DoubleMatrix2D matrix) {
+      final double[][] data = matrix.getData();
+      if (data.length != _data.length) {
+        return false;
+      }
+      for (int i = 0; i < data.length; i++) {
+        if (!Arrays.equals(data[i], _data[i])) {
+          return false;
+        }
+      }
+      return true;
+    }
+
+    private DecompositionResult getResult() {
+      return _result;
+    }
+  }
+
+}
@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import static com.opengamma.analytics.math.matrix.MatrixAlgebraFactory.OG_ALGEBRA;
+
+import org.apache.commons.lang.Validate;
+
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * Keeps the current Jacobian while it still predicts the change in the function over the last step, i.e. while
+ * |deltaY - J * deltaX| <= tolerance * |deltaY|, and evaluates the Jacobian at the new position otherwise. While the matrix is unchanged,
+ * {@link ModifiedNewtonVectorRootFinder} reuses its decomposition.
+ */
+public class ModifiedNewtonUpdateFunction implements NewtonRootFinderMatrixUpdateFunction {
+  private final double _tolerance;
+
+  /**
+   * @param tolerance The relative tolerance on the prediction of the change in the function, not negative
+   */
+  public ModifiedNewtonUpdateFunction(final double tolerance) {
+    Validate.isTrue(tolerance >= 0, "tolerance must not be negative");
+    _tolerance = tolerance;
+  }
+
+  @Override
+  public DoubleMatrix2D getUpdatedMatrix(final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction, final DoubleMatrix1D x, final DoubleMatrix1D deltaX,
+      final DoubleMatrix1D deltaY, final DoubleMatrix2D matrix) {
+    Validate.notNull(jacobianFunction);
+    Validate.notNull(x);
+    Validate.notNull(deltaX);
+    Validate.notNull(deltaY);
+    Validate.notNull(matrix);
+    final DoubleMatrix1D error = (DoubleMatrix1D) OG_ALGEBRA.subtract(deltaY, OG_ALGEBRA.multiply(matrix, deltaX));
+    if (OG_ALGEBRA.getNorm2(error) <= _tolerance * OG_ALGEBRA.getNorm2(deltaY)) {
+      return matrix;
+    }
+    return jacobianFunction.evaluate(x);
+  }
+
+}
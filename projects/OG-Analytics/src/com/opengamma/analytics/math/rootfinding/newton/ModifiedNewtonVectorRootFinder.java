@@ -0,0 +1,57 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.Decomposition;
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * A Newton root finder that keeps the Jacobian, and so its decomposition, for as long as it predicts the change in the function to within a
+ * tolerance (see {@link ModifiedNewtonUpdateFunction}). This suits problems where the Jacobian is expensive to compute, such as multi-curve
+ * construction. The decomposition is only kept for the duration of each solve, so an instance must not be shared between threads.
+ */
+public class ModifiedNewtonVectorRootFinder extends NewtonVectorRootFinder {
+  private static final double DEF_TOL = 1e-7;
+  private static final int MAX_STEPS = 100;
+  private static final double DEF_UPDATE_TOL = 0.1;
+  private final CachingJacobianDirectionFunction _directionFunction;
+
+  public ModifiedNewtonVectorRootFinder() {
+    this(DEF_TOL, DEF_TOL, MAX_STEPS);
+  }
+
+  public ModifiedNewtonVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps) {
+    this(absoluteTol, relativeTol, maxSteps, new LUDecompositionCommons());
+  }
+
+  public ModifiedNewtonVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps, final Decomposition<?> decomp) {
+    this(absoluteTol, relativeTol, maxSteps, decomp, DEF_UPDATE_TOL);
+  }
+
+  public ModifiedNewtonVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps, final Decomposition<?> decomp, final double updateTol) {
+    this(absoluteTol, relativeTol, maxSteps, new CachingJacobianDirectionFunction(decomp), updateTol);
+  }
+
+  private ModifiedNewtonVectorRootFinder(final double absoluteTol, final double relativeTol, final int maxSteps, final CachingJacobianDirectionFunction directionFunction,
+      final double updateTol) {
+    super(absoluteTol, relativeTol, maxSteps, directionFunction, new JacobianEstimateInitializationFunction(), new ModifiedNewtonUpdateFunction(updateTol));
+    _directionFunction = directionFunction;
+  }
+
+  @Override
+  public DoubleMatrix1D getRoot(final Function1D<DoubleMatrix1D, DoubleMatrix1D> function, final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobianFunction,
+      final DoubleMatrix1D startPosition) {
+    try {
+      return super.getRoot(function, jacobianFunction, startPosition);
+    } finally {
+      _directionFunction.clear();
+    }
+  }
+
+}
@@ -0,0 +1,110 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.financial.interestrate;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+import static org.testng.internal.junit.ArrayAsserts.assertArrayEquals;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.util.tuple.DoublesPair;
+
+/**
+ * Tests the array-backed curve sensitivity against {@link InterestRateCurveSensitivity}.
+ */
+public class ArrayInterestRateCurveSensitivityTest {
+
+  private static final List<DoublesPair> SENSI_DATA_1 = Arrays.asList(new DoublesPair[] {new DoublesPair(1, 10), new DoublesPair(2, 20), new DoublesPair(3, 30), new DoublesPair(4, 40)});
+  private static final List<DoublesPair> SENSI_DATA_2 = Arrays.asList(new DoublesPair[] {new DoublesPair(4, 40), new DoublesPair(2, 30), new DoublesPair(2.5, 20), new DoublesPair(1, 10)});
+  private static final String CURVE_NAME_1 = "A";
+  private static final String CURVE_NAME_2 = "B";
+  private static final double TOLERANCE = 1e-12;
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullSensitivity() {
+    new ArrayInterestRateCurveSensitivity((InterestRateCurveSensitivity) null);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullCurveName() {
+    new ArrayInterestRateCurveSensitivity().add((String) null, 1, 1);
+  }
+
+  @Test
+  public void testCurves() {
+    final ArrayInterestRateCurveSensitivity sensitivity = new ArrayInterestRateCurveSensitivity();
+    assertEquals(-1, sensitivity.indexOf(CURVE_NAME_1));
+    assertEquals(0, sensitivity.getCurveIndex(CURVE_NAME_1));
+    assertEquals(1, sensitivity.getCurveIndex(CURVE_NAME_2));
+    assertEquals(0, sensitivity.getCurveIndex(CURVE_NAME_1));
+    assertEquals(Arrays.asList(CURVE_NAME_1, CURVE_NAME_2), sensitivity.getCurveNames());
+    assertEquals(0, sensitivity.getSize(1));
+    assertEquals(0, sensitivity.getTimes("C").length);
+  }
+
+  @Test
+  public void testCompact() {
+    final ArrayInterestRateCurveSensitivity sensitivity = new ArrayInterestRateCurveSensitivity();
+    sensitivity.add(CURVE_NAME_1, SENSI_DATA_1, 1);
+    sensitivity.add(CURVE_NAME_1, SENSI_DATA_2, 0.5);
+    sensitivity.add(CURVE_NAME_2, SENSI_DATA_2, 2);
+    assertArrayEquals(new double[] {1, 2, 2.5, 3, 4}, sensitivity.getTimes(CURVE_NAME_1), 0);
+    assertArrayEquals(new double[] {15, 35, 10, 30, 60}, sensitivity.getSensitivities(CURVE_NAME_1), TOLERANCE);
+    assertArrayEquals(new double[] {1, 2, 2.5, 4}, sensitivity.getTimes(CURVE_NAME_2), 0);
+    assertArrayEquals(new double[] {20, 60, 40, 80}, sensitivity.getSensitivities(CURVE_NAME_2), TOLERANCE);
+    sensitivity.add(CURVE_NAME_1, 0.5, 1);
+    sensitivity.add(CURVE_NAME_1, 2.5, 1);
+    sensitivity.multiplyBy(2);
+    final int index = sensitivity.indexOf(CURVE_NAME_1);
+    assertEquals(6, sensitivity.getSize(index));
+    assertEquals(0.5, sensitivity.getTime(index, 0), 0);
+    assertEquals(2, sensitivity.getSensitivity(index, 0), TOLERANCE);
+    assertEquals(2.5, sensitivity.getTime(index, 3), 0);
+    assertEquals(22, sensitivity.getSensitivity(index, 3), TOLERANCE);
+  }
+
+  @Test
+  public void testAgainstListSensitivity() {
+    final Random random = new Random(12345);
+    InterestRateCurveSensitivity expected = new InterestRateCurveSensitivity();
+    final ArrayInterestRateCurveSensitivity sensitivity = new ArrayInterestRateCurveSensitivity();
+    final ArrayInterestRateCurveSensitivity other = new ArrayInterestRateCurveSensitivity();
+    for (int i = 0; i < 200; i++) {
+      final Map<String, List<DoublesPair>> map = new HashMap<String, List<DoublesPair>>();
+      for (final String name : new String[] {CURVE_NAME_1, CURVE_NAME_2}) {
+        final List<DoublesPair> list = new ArrayList<DoublesPair>();
+        final int n = random.nextInt(20);
+        for (int j = 0; j < n; j++) {
+          list.add(new DoublesPair(random.nextInt(40) / 4., random.nextDouble() - 0.5));
+        }
+        map.put(name, list);
+      }
+      final double factor = random.nextDouble();
+      expected = expected.plus(new InterestRateCurveSensitivity(map).multiply(factor));
+      if (i % 2 == 0) {
+        sensitivity.add(map, factor);
+      } else {
+        other.add(map, factor);
+      }
+      if (i % 50 == 0) {
+        sensitivity.compact();
+      }
+    }
+    sensitivity.add(other, 1);
+    expected = expected.cleaned();
+    assertTrue(InterestRateCurveSensitivity.compare(expected, sensitivity.toInterestRateCurveSensitivity(), TOLERANCE));
+    assertTrue(InterestRateCurveSensitivity.compare(expected, new ArrayInterestRateCurveSensitivity(expected).toInterestRateCurveSensitivity(), TOLERANCE));
+  }
+
+}
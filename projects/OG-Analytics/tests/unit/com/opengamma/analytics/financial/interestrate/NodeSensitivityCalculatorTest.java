@@ -129,6 +129,16 @@ public abstract class NodeSensitivityCalculatorTest {
     assertArrayEquals(fdResult.getData(), result.getData(), 1e-8);
   }
 
+  @Test
+  public void testArraySensitivity() {
+    final Map<String, List<DoublesPair>> sensitivities = getSensitivityCalculator().visit(IRD, INTERPOLATED_CURVES);
+    final DoubleMatrix1D expected = getCalculator().curveToNodeSensitivities(sensitivities, INTERPOLATED_CURVES);
+    final ArrayInterestRateCurveSensitivity arraySensitivities = new ArrayInterestRateCurveSensitivity();
+    arraySensitivities.add(sensitivities, 0.25);
+    arraySensitivities.add(sensitivities, 0.75);
+    assertArrayEquals(expected.getData(), getCalculator().curveToNodeSensitivities(arraySensitivities, INTERPOLATED_CURVES).getData(), 1e-12);
+  }
+
   // TODO: make this a method generally available?
   protected DoubleMatrix1D finiteDiffNodeSensitivities(final InstrumentDerivative ird, final InstrumentDerivativeVisitor<YieldCurveBundle, Double> valueCalculator, final YieldCurveBundle fixedCurves,
       final YieldCurveBundle interpolatedCurves) {
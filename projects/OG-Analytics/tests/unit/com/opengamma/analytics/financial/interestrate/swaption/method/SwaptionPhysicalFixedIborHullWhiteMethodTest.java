@@ -10,6 +10,8 @@ import static org.testng.AssertJUnit.assertEquals;
 import it.unimi.dsi.fastutil.doubles.DoubleAVLTreeSet;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.time.calendar.Period;
 import javax.time.calendar.ZonedDateTime;
@@ -250,6 +252,27 @@ public class SwaptionPhysicalFixedIborHullWhiteMethodTest {
     assertEquals("Swaption physical - Hull-White - Monte Carlo - payer/receiver/swap parity", pvReceiverLongMC.getAmount() + pvPayerShortMC.getAmount(), pvSwap, 1.0E+5);
   }
 
+  @Test
+  /**
+   * Tests that the Monte Carlo present value and curve sensitivity computed on several threads are the same as on one thread.
+   */
+  public void presentValueMonteCarloParallel() {
+    int nbPath = 12500;
+    ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      HullWhiteMonteCarloMethod methodMC = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), nbPath);
+      HullWhiteMonteCarloMethod methodMCParallel = new HullWhiteMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), nbPath, executor);
+      CurrencyAmount pvMC = methodMC.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+      CurrencyAmount pvMCParallel = methodMCParallel.presentValue(SWAPTION_PAYER_LONG, CUR, FUNDING_CURVE_NAME, BUNDLE_HW);
+      assertEquals("Swaption physical - Hull-White - Monte Carlo - parallel", pvMC.getAmount(), pvMCParallel.getAmount(), 0.0);
+      InterestRateCurveSensitivity pvcsMC = methodMC.presentValueCurveSensitivity(SWAPTION_PAYER_LONG, FUNDING_CURVE_NAME, BUNDLE_HW);
+      InterestRateCurveSensitivity pvcsMCParallel = methodMCParallel.presentValueCurveSensitivity(SWAPTION_PAYER_LONG, FUNDING_CURVE_NAME, BUNDLE_HW);
+      assertEquals("Swaption physical - Hull-White - Monte Carlo - parallel", pvcsMC, pvcsMCParallel);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   /**
    * Tests the Hull-White parameters sensitivity for the explicit formula.
@@ -9,6 +9,8 @@ import static org.testng.AssertJUnit.assertEquals;
 import it.unimi.dsi.fastutil.doubles.DoubleAVLTreeSet;
 
 import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 import javax.time.calendar.Period;
 import javax.time.calendar.ZonedDateTime;
@@ -150,6 +152,25 @@ public class SwaptionPhysicalFixedIborLMMDDMethodTest {
     assertEquals("Swaption physical - LMM - present value Approximation/Monte Carlo", impliedVolMC, impliedVolApprox, 2.0E-3);
   }
 
+  @Test
+  /**
+   * Tests that the Monte Carlo present value computed on several threads is the same as on one thread.
+   */
+  public void presentValueMCParallel() {
+    final YieldAndDiscountCurve dsc = CURVES.getCurve(CURVES_NAME[0]);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final LiborMarketModelMonteCarloMethod methodLmmMc = new LiborMarketModelMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), NB_PATH);
+      final LiborMarketModelMonteCarloMethod methodLmmMcParallel = new LiborMarketModelMonteCarloMethod(new NormalRandomNumberGenerator(0.0, 1.0, new MersenneTwister()), NB_PATH, 1.0,
+          executor);
+      final CurrencyAmount pvMC = methodLmmMc.presentValue(SWAPTION_PAYER_LONG, CUR, dsc, BUNDLE_LMM);
+      final CurrencyAmount pvMCParallel = methodLmmMcParallel.presentValue(SWAPTION_PAYER_LONG, CUR, dsc, BUNDLE_LMM);
+      assertEquals("Swaption physical - LMM - present value Monte Carlo - parallel", pvMC.getAmount(), pvMCParallel.getAmount(), 0.0);
+    } finally {
+      executor.shutdown();
+    }
+  }
+
   @Test
   /**
    * Tests long/short parity.
@@ -406,7 +406,11 @@ public class ConvectionDiffusionPDESolverTestCase {
     }
   }
 
-  public void testAmericanPrice(final ConvectionDiffusionPDESolver solver, final int timeSteps, final int priceSteps, final double lowerMoneyness, final double upperMoneyness, final boolean print) {
+  /**
+   * Tests the price of an American put against the Bjerksund-Stensland approximation
+   */
+  public void testAmericanPrice(final ConvectionDiffusionPDESolver solver, final int timeSteps, final int priceSteps, final double lowerMoneyness, final double upperMoneyness,
+      final double priceTol, final boolean print) {
 
     final AmericanVanillaOptionDefinition option = new AmericanVanillaOptionDefinition(FORWARD, new Expiry(DateUtils.getDateOffsetWithYearFraction(DATE, T)), false);
     final AnalyticOptionModel<AmericanVanillaOptionDefinition, StandardOptionDataBundle> model = new BjerksundStenslandModel();
@@ -429,7 +433,7 @@ public class ConvectionDiffusionPDESolverTestCase {
         System.out.println(spot + "\t" + anal_price + "\t" + price + "\t" + delta + "\t" + gamma);
       } else {
         if (moneyness >= lowerMoneyness && moneyness <= upperMoneyness) {
-          assertEquals(price, res.getFunctionValue(i), price * 1e-1);
+          assertEquals(anal_price, price, priceTol * (anal_price + 1e-8));
         }
       }
     }
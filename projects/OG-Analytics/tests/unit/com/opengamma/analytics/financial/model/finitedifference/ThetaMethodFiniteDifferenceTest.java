@@ -110,8 +110,10 @@ public class ThetaMethodFiniteDifferenceTest {
     int priceSteps = 100;
     double lowerMoneyness = 0.4;
     double upperMoneyness = 3.0;
+    // The coarse grid is within about 2% of the approximation over this range
+    double priceTol = 5e-2;
     boolean print = false; // set to false before pushing
-    TESTER.testAmericanPrice(SOLVER, timeSteps, priceSteps, lowerMoneyness, upperMoneyness, print);
+    TESTER.testAmericanPrice(SOLVER, timeSteps, priceSteps, lowerMoneyness, upperMoneyness, priceTol, print);
   }
 
 }
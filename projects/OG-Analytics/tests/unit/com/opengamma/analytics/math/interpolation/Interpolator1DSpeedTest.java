@@ -0,0 +1,177 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.interpolation;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
+import com.opengamma.analytics.math.interpolation.data.Interpolator1DDataBundle;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ * Compares the boxed, primitive and batch interpolation paths.
+ */
+public class Interpolator1DSpeedTest {
+  private static Logger s_logger = LoggerFactory.getLogger(Interpolator1DSpeedTest.class);
+  private static int WARMUP_CYCLES = 0;
+  private static int BENCHMARK_CYCLES = 1;
+
+  private static final double[] X = new double[] {0.25, 0.5, 1, 2, 3, 5, 7, 10, 15, 20, 30};
+  private static final double[] Y = new double[] {0.010, 0.012, 0.015, 0.019, 0.022, 0.027, 0.030, 0.033, 0.035, 0.036, 0.037};
+  private static final int N_POINTS = 1000;
+  private static final double[] POINTS = new double[N_POINTS];
+  private static final double EPS = 1e-15;
+
+  static {
+    for (int i = 0; i < N_POINTS; i++) {
+      POINTS[i] = 0.1 + 35. * i / (N_POINTS - 1);
+    }
+  }
+
+  private static final Interpolator1D[] INTERPOLATORS = new Interpolator1D[] {
+    new CombinedInterpolatorExtrapolator(new LinearInterpolator1D(), new FlatExtrapolator1D()),
+    new CombinedInterpolatorExtrapolator(new LogLinearInterpolator1D(), new FlatExtrapolator1D()),
+    new CombinedInterpolatorExtrapolator(new NaturalCubicSplineInterpolator1D(), new FlatExtrapolator1D())};
+
+  @Test
+  public void testEquals() {
+    final double[] unsorted = new double[N_POINTS];
+    for (int i = 0; i < N_POINTS; i++) {
+      unsorted[i] = POINTS[(i * 7919) % N_POINTS];
+    }
+    final double[] batch = new double[N_POINTS];
+    final double[] unsortedBatch = new double[N_POINTS];
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1DDataBundle data = interpolator.getDataBundleFromSortedArrays(X, Y);
+      interpolator.interpolate(data, POINTS, batch);
+      interpolator.interpolate(data, unsorted, unsortedBatch);
+      for (int i = 0; i < N_POINTS; i++) {
+        final double boxed = interpolator.interpolate(data, Double.valueOf(POINTS[i]));
+        assertEquals(boxed, interpolator.interpolate(data, POINTS[i]), EPS);
+        assertEquals(boxed, batch[i], EPS);
+        assertEquals(interpolator.interpolate(data, Double.valueOf(unsorted[i])), unsortedBatch[i], EPS);
+      }
+      for (int i = 0; i < X.length; i++) {
+        assertEquals(Y[i], interpolator.interpolate(data, X[i]), EPS);
+      }
+    }
+  }
+
+  @Test
+  public void testCurveEquals() {
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final InterpolatedDoublesCurve curve = InterpolatedDoublesCurve.fromSorted(X, Y, interpolator);
+      final double[] batch = curve.getYValues(POINTS);
+      for (int i = 0; i < N_POINTS; i++) {
+        final double boxed = curve.getYValue(Double.valueOf(POINTS[i]));
+        assertEquals(boxed, curve.getYValue(POINTS[i]), EPS);
+        assertEquals(boxed, batch[i], EPS);
+      }
+    }
+  }
+
+  @Test
+  public void testNodeSensitivitiesEquals() {
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1DDataBundle data = interpolator.getDataBundleFromSortedArrays(X, Y);
+      for (int i = 0; i < N_POINTS; i += 7) {
+        final double[] boxed = interpolator.getNodeSensitivitiesForValue(data, Double.valueOf(POINTS[i]));
+        final double[] primitive = interpolator.getNodeSensitivitiesForValue(data, POINTS[i]);
+        final double[] fd = interpolator.getNodeSensitivitiesForValue(data, POINTS[i], true);
+        assertEquals(X.length, primitive.length);
+        for (int j = 0; j < X.length; j++) {
+          assertEquals(boxed[j], primitive[j], EPS);
+          assertEquals(fd[j], primitive[j], 1e-6);
+        }
+      }
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testShortResults() {
+    final Interpolator1D interpolator = new LinearInterpolator1D();
+    interpolator.interpolate(interpolator.getDataBundleFromSortedArrays(X, Y), POINTS, new double[N_POINTS - 1]);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testOutOfRange() {
+    final Interpolator1D interpolator = new LinearInterpolator1D();
+    interpolator.interpolate(interpolator.getDataBundleFromSortedArrays(X, Y), POINTS, new double[N_POINTS]);
+  }
+
+  @Test
+  public void testBoxed() {
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1DDataBundle data = interpolator.getDataBundleFromSortedArrays(X, Y);
+      for (int i = 0; i < WARMUP_CYCLES; i++) {
+        interpolateBoxed(interpolator, data);
+      }
+      if (BENCHMARK_CYCLES > 0) {
+        final OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles on boxed {}", BENCHMARK_CYCLES, interpolator);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          interpolateBoxed(interpolator, data);
+        }
+        timer.finished();
+      }
+    }
+  }
+
+  @Test
+  public void testPrimitive() {
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1DDataBundle data = interpolator.getDataBundleFromSortedArrays(X, Y);
+      for (int i = 0; i < WARMUP_CYCLES; i++) {
+        interpolatePrimitive(interpolator, data);
+      }
+      if (BENCHMARK_CYCLES > 0) {
+        final OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles on primitive {}", BENCHMARK_CYCLES, interpolator);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          interpolatePrimitive(interpolator, data);
+        }
+        timer.finished();
+      }
+    }
+  }
+
+  @Test
+  public void testBatch() {
+    final double[] results = new double[N_POINTS];
+    for (final Interpolator1D interpolator : INTERPOLATORS) {
+      final Interpolator1DDataBundle data = interpolator.getDataBundleFromSortedArrays(X, Y);
+      for (int i = 0; i < WARMUP_CYCLES; i++) {
+        interpolator.interpolate(data, POINTS, results);
+      }
+      if (BENCHMARK_CYCLES > 0) {
+        final OperationTimer timer = new OperationTimer(s_logger, "processing {} cycles on batch {}", BENCHMARK_CYCLES, interpolator);
+        for (int i = 0; i < BENCHMARK_CYCLES; i++) {
+          interpolator.interpolate(data, POINTS, results);
+        }
+        timer.finished();
+      }
+    }
+  }
+
+  private static double interpolateBoxed(final Interpolator1D interpolator, final Interpolator1DDataBundle data) {
+    double sum = 0;
+    for (int i = 0; i < N_POINTS; i++) {
+      sum += interpolator.interpolate(data, Double.valueOf(POINTS[i]));
+    }
+    return sum;
+  }
+
+  private static double interpolatePrimitive(final Interpolator1D interpolator, final Interpolator1DDataBundle data) {
+    double sum = 0;
+    for (int i = 0; i < N_POINTS; i++) {
+      sum += interpolator.interpolate(data, POINTS[i]);
+    }
+    return sum;
+  }
+
+}
@@ -82,4 +82,17 @@ public class LogLinearInterpolator1DTest {
   public void test() {
     assertEquals(Math.log(INTERPOLATOR.interpolate(MODEL, 3.4)), LINEAR.interpolate(TRANSFORMED_MODEL, 3.4), EPS);
   }
+
+  @Test
+  public void testNodeSensitivities() {
+    final LogLinearInterpolator1D interpolator = new LogLinearInterpolator1D();
+    for (final double x : new double[] {0, 0.5, 3.4, 7, 8.9, 9}) {
+      final double[] analytic = interpolator.getNodeSensitivitiesForValue(MODEL, x);
+      final double[] fd = interpolator.getFiniteDifferenceSensitivities(MODEL, x);
+      assertEquals(fd.length, analytic.length);
+      for (int i = 0; i < fd.length; i++) {
+        assertEquals(fd[i], analytic[i], 1e-8);
+      }
+    }
+  }
 }
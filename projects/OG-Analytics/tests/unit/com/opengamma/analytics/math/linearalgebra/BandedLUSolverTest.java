@@ -0,0 +1,94 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.MathException;
+
+/**
+ * Tests {@link BandedLUSolver}.
+ */
+public class BandedLUSolverTest {
+  private static final double EPS = 1e-11;
+
+  private static double[][] randomBandMatrix(final int n, final int kl, final int ku, final long seed) {
+    final Random random = new Random(seed);
+    final double[][] m = new double[n][n];
+    for (int i = 0; i < n; i++) {
+      for (int j = Math.max(0, i - kl); j <= Math.min(n - 1, i + ku); j++) {
+        // small diagonal, so that rows must be swapped
+        m[i][j] = (i == j ? 0.01 : 1.0) * (random.nextDouble() - 0.5);
+      }
+    }
+    return m;
+  }
+
+  private static void assertSolves(final double[][] m, final double[] rhs, final double[] x) {
+    for (int i = 0; i < m.length; i++) {
+      double sum = 0;
+      for (int j = 0; j < m.length; j++) {
+        sum += m[i][j] * x[j];
+      }
+      assertEquals(rhs[i], sum, EPS);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testOutsideBand() {
+    new BandedLUSolver(10, 1, 2).setEntry(0, 3, 1.0);
+  }
+
+  @Test(expectedExceptions = MathException.class)
+  public void testSingular() {
+    final BandedLUSolver solver = new BandedLUSolver(3, 1, 1);
+    solver.setEntry(0, 0, 1.0);
+    solver.setEntry(1, 1, 1.0);
+    solver.decompose();
+  }
+
+  @Test
+  public void testSolve() {
+    final int[][] bandwidths = new int[][] { {0, 0 }, {1, 1 }, {2, 3 }, {4, 1 }, {4, 4 } };
+    final int n = 30;
+    for (final int[] bandwidth : bandwidths) {
+      final BandedLUSolver solver = new BandedLUSolver(n, bandwidth[0], bandwidth[1]);
+      for (int seed = 0; seed < 3; seed++) {
+        final double[][] m = randomBandMatrix(n, bandwidth[0], bandwidth[1], seed);
+        if (bandwidth[0] == 0 && bandwidth[1] == 0) {
+          for (int i = 0; i < n; i++) {
+            m[i][i] = 1.0 + i;
+          }
+        }
+        // the solver is reused, so must not depend on the previous decomposition
+        solver.clear();
+        for (int i = 0; i < n; i++) {
+          for (int j = Math.max(0, i - bandwidth[0]); j <= Math.min(n - 1, i + bandwidth[1]); j++) {
+            solver.setEntry(i, j, m[i][j]);
+          }
+        }
+        solver.decompose();
+        final double[] rhs = new double[n];
+        for (int i = 0; i < n; i++) {
+          rhs[i] = Math.sin(i + seed);
+        }
+        final double[] x = new double[n];
+        solver.solve(rhs, x);
+        assertSolves(m, rhs, x);
+        final double[] y = rhs.clone();
+        solver.solve(y, y);
+        for (int i = 0; i < n; i++) {
+          assertEquals(x[i], y[i], 0.0);
+        }
+      }
+    }
+  }
+
+}
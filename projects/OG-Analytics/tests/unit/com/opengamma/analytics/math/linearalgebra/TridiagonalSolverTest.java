@@ -0,0 +1,174 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.linearalgebra;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.MathException;
+
+/**
+ * Tests {@link TridiagonalSolver}.
+ */
+public class TridiagonalSolverTest {
+  private static final int N = 50;
+  private static final double EPS = 1e-12;
+
+  private static double[][] randomSystem(final long seed) {
+    final Random random = new Random(seed);
+    final double[] lower = new double[N];
+    final double[] diagonal = new double[N];
+    final double[] upper = new double[N];
+    final double[] rhs = new double[N];
+    for (int i = 0; i < N; i++) {
+      lower[i] = random.nextDouble() - 0.5;
+      upper[i] = random.nextDouble() - 0.5;
+      diagonal[i] = 1.0 + random.nextDouble();
+      rhs[i] = random.nextDouble() - 0.5;
+    }
+    return new double[][] {lower, diagonal, upper, rhs };
+  }
+
+  /**
+   * Finite difference matrix for an implicit step of the heat equation, with Dirichlet rows at each end.
+   */
+  private static double[][] heatSystem(final double[] bound) {
+    final double lambda = 5.0;
+    final double[] lower = new double[N];
+    final double[] diagonal = new double[N];
+    final double[] upper = new double[N];
+    final double[] rhs = new double[N];
+    for (int i = 1; i < N - 1; i++) {
+      lower[i] = -lambda;
+      diagonal[i] = 1 + 2 * lambda;
+      upper[i] = -lambda;
+      rhs[i] = 0.9 * bound[i] + 0.02;
+    }
+    diagonal[0] = 1.0;
+    rhs[0] = bound[0];
+    diagonal[N - 1] = 1.0;
+    rhs[N - 1] = bound[N - 1];
+    return new double[][] {lower, diagonal, upper, rhs };
+  }
+
+  private static double[] multiply(final double[][] system, final double[] x) {
+    final double[] res = new double[N];
+    for (int i = 0; i < N; i++) {
+      res[i] = system[1][i] * x[i];
+      if (i > 0) {
+        res[i] += system[0][i] * x[i - 1];
+      }
+      if (i < N - 1) {
+        res[i] += system[2][i] * x[i + 1];
+      }
+    }
+    return res;
+  }
+
+  private static void assertComplementarity(final double[][] system, final double[] bound, final double[] x, final double tol) {
+    final double[] ax = multiply(system, x);
+    for (int i = 0; i < N; i++) {
+      assertTrue(x[i] >= bound[i] - tol);
+      assertTrue(ax[i] >= system[3][i] - tol);
+      assertEquals(0.0, (ax[i] - system[3][i]) * (x[i] - bound[i]), tol);
+    }
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongSize() {
+    final double[][] system = randomSystem(0);
+    new TridiagonalSolver(N + 1).solve(system[0], system[1], system[2], system[3], new double[N + 1]);
+  }
+
+  @Test(expectedExceptions = MathException.class)
+  public void testZeroPivot() {
+    final double[][] system = randomSystem(0);
+    system[1][0] = 0.0;
+    new TridiagonalSolver(N).solve(system[0], system[1], system[2], system[3], new double[N]);
+  }
+
+  @Test
+  public void testSolve() {
+    final TridiagonalSolver solver = new TridiagonalSolver(N);
+    for (int seed = 0; seed < 5; seed++) {
+      final double[][] system = randomSystem(seed);
+      final double[] x = new double[N];
+      solver.solve(system[0], system[1], system[2], system[3], x);
+      final double[] ax = multiply(system, x);
+      for (int i = 0; i < N; i++) {
+        assertEquals(system[3][i], ax[i], EPS);
+      }
+      // solving in place
+      final double[] y = system[3].clone();
+      solver.solve(system[0], system[1], system[2], y, y);
+      for (int i = 0; i < N; i++) {
+        assertEquals(x[i], y[i], 0.0);
+      }
+    }
+  }
+
+  @Test
+  public void testUnconstrained() {
+    final TridiagonalSolver solver = new TridiagonalSolver(N);
+    final double[][] system = randomSystem(1);
+    final double[] bound = new double[N];
+    final double[] expected = new double[N];
+    solver.solve(system[0], system[1], system[2], system[3], expected);
+    Arrays.fill(bound, Double.NEGATIVE_INFINITY);
+    final double[] x = new double[N];
+    solver.solveWithLowerBound(system[0], system[1], system[2], system[3], bound, x, true);
+    for (int i = 0; i < N; i++) {
+      assertEquals(expected[i], x[i], EPS);
+    }
+    solver.solveWithLowerBound(system[0], system[1], system[2], system[3], bound, x, false);
+    for (int i = 0; i < N; i++) {
+      assertEquals(expected[i], x[i], EPS);
+    }
+  }
+
+  @Test
+  public void testBrennanSchwartz() {
+    final TridiagonalSolver solver = new TridiagonalSolver(N);
+    final double[] put = new double[N];
+    final double[] call = new double[N];
+    for (int i = 0; i < N; i++) {
+      put[i] = Math.max(0.5 - (double) i / (N - 1), 0);
+      call[i] = put[N - 1 - i];
+    }
+    final double[][] putSystem = heatSystem(put);
+    final double[] x = new double[N];
+    solver.solveWithLowerBound(putSystem[0], putSystem[1], putSystem[2], putSystem[3], put, x, true);
+    assertComplementarity(putSystem, put, x, 1e-10);
+    final double[] y = put.clone();
+    final int count = solver.solveWithLowerBoundBySOR(putSystem[0], putSystem[1], putSystem[2], putSystem[3], put, y, 1.5, 1e-24, 10000);
+    assertTrue(count > 1);
+    for (int i = 0; i < N; i++) {
+      assertEquals(x[i], y[i], 1e-9);
+    }
+    final double[][] callSystem = heatSystem(call);
+    solver.solveWithLowerBound(callSystem[0], callSystem[1], callSystem[2], callSystem[3], call, x, false);
+    assertComplementarity(callSystem, call, x, 1e-10);
+  }
+
+  @Test
+  public void testProjectedSOR() {
+    final TridiagonalSolver solver = new TridiagonalSolver(N);
+    final double[] straddle = new double[N];
+    for (int i = 0; i < N; i++) {
+      straddle[i] = Math.abs(0.5 - (double) i / (N - 1));
+    }
+    final double[][] system = heatSystem(straddle);
+    final double[] x = straddle.clone();
+    solver.solveWithLowerBoundBySOR(system[0], system[1], system[2], system[3], straddle, x, 1.2, 1e-24, 10000);
+    assertComplementarity(system, straddle, x, 1e-10);
+  }
+
+}
@@ -0,0 +1,91 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.analytics.math.rootfinding.newton;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
+import static org.testng.AssertJUnit.assertSame;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionCommons;
+import com.opengamma.analytics.math.linearalgebra.LUDecompositionResult;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+
+/**
+ * 
+ */
+public class ModifiedNewtonVectorRootFinderTest extends VectorRootFinderTest {
+  private static final NewtonVectorRootFinder DEFAULT = new ModifiedNewtonVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS);
+  private static final NewtonVectorRootFinder EXACT = new ModifiedNewtonVectorRootFinder(TOLERANCE, TOLERANCE, MAXSTEPS, new LUDecompositionCommons(), 0);
+  private static final ModifiedNewtonUpdateFunction UPDATE = new ModifiedNewtonUpdateFunction(0.1);
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNegativeTolerance() {
+    new ModifiedNewtonUpdateFunction(-0.1);
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testNullMatrix() {
+    UPDATE.getUpdatedMatrix(JACOBIAN2D, new DoubleMatrix1D(new double[] {1, 1}), new DoubleMatrix1D(new double[] {1, 1}), new DoubleMatrix1D(new double[] {1, 1}), null);
+  }
+
+  @Test
+  public void testUpdate() {
+    final DoubleMatrix2D matrix = new DoubleMatrix2D(new double[][] {new double[] {1, 1}, new double[] {2, -1}});
+    final Function1D<DoubleMatrix1D, DoubleMatrix2D> jacobian = new Function1D<DoubleMatrix1D, DoubleMatrix2D>() {
+
+      @Override
+      public DoubleMatrix2D evaluate(final DoubleMatrix1D x) {
+        return new DoubleMatrix2D(new double[][] {new double[] {1, 1}, new double[] {2, -1}});
+      }
+    };
+    final DoubleMatrix1D x = new DoubleMatrix1D(new double[] {1, 1});
+    final DoubleMatrix1D deltaX = new DoubleMatrix1D(new double[] {0.5, 0.25});
+    assertSame(matrix, UPDATE.getUpdatedMatrix(jacobian, x, deltaX, new DoubleMatrix1D(new double[] {0.75, 0.75}), matrix));
+    assertNotSame(matrix, UPDATE.getUpdatedMatrix(jacobian, x, deltaX, new DoubleMatrix1D(new double[] {1, 1}), matrix));
+  }
+
+  @Test
+  public void test() {
+    assertLinear(DEFAULT, EPS);
+    assertFunction3D(DEFAULT, EPS);
+    assertFunction3D(EXACT, EPS);
+    assertYieldCurveBootstrap(DEFAULT, EPS);
+    assertYieldCurveBootstrap(EXACT, EPS);
+  }
+
+  @Test
+  public void testDecompositionCache() {
+    final int[] evaluations = new int[1];
+    final LUDecompositionCommons lu = new LUDecompositionCommons() {
+      @Override
+      public LUDecompositionResult evaluate(final DoubleMatrix2D x) {
+        evaluations[0]++;
+        return super.evaluate(x);
+      }
+    };
+    final CachingJacobianDirectionFunction direction = new CachingJacobianDirectionFunction(lu);
+    final double[][] data = new double[][] {new double[] {2, 0}, new double[] {0, 4}};
+    final DoubleMatrix2D matrix = new DoubleMatrix2D(data);
+    final DoubleMatrix1D y = new DoubleMatrix1D(new double[] {2, 4});
+    assertEquals(1, direction.getDirection(matrix, y).getEntry(0), EPS);
+    assertEquals(1, evaluations[0]);
+    // Same content, different instance
+    assertEquals(1, direction.getDirection(new DoubleMatrix2D(data), y).getEntry(1), EPS);
+    assertEquals(1, evaluations[0]);
+    // Modified in place
+    matrix.getData()[0][0] = 1;
+    assertEquals(2, direction.getDirection(matrix, y).getEntry(0), EPS);
+    assertEquals(2, evaluations[0]);
+    direction.clear();
+    assertEquals(2, direction.getDirection(matrix, y).getEntry(0), EPS);
+    assertEquals(3, evaluations[0]);
+    direction.clear();
+  }
+}
@@ -0,0 +1,130 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.component.factory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import javax.management.MBeanServer;
+
+import org.joda.beans.BeanBuilder;
+import org.joda.beans.BeanDefinition;
+import org.joda.beans.JodaBeanUtils;
+import org.joda.beans.MetaProperty;
+import org.joda.beans.impl.direct.DirectBeanBuilder;
+import org.joda.beans.impl.direct.DirectMetaPropertyMap;
+
+import com.opengamma.component.ComponentRepository;
+import com.opengamma.component.rest.DataMetricsResource;
+import com.opengamma.util.monitor.MetricRegistry;
+
+/**
+ * Component factory for publishing the metrics gathered by the components in this server.
+ * <p>
+ * The metrics are published over JMX, if an MBean server is available, and as plain text over REST.
+ */
+@BeanDefinition
+public class MetricsComponentFactory extends AbstractComponentFactory {
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void init(ComponentRepository repo, LinkedHashMap<String, String> configuration) {
+    MetricRegistry metrics = MetricRegistry.getDefault();
+    MBeanServer jmx = repo.findInstance(MBeanServer.class);
+    if (jmx != null) {
+      metrics.registerMBeans(jmx);
+    }
+    repo.getRestComponents().publishResource(new DataMetricsResource(metrics));
+  }
+
+  //------------------------- AUTOGENERATED START -------------------------
+  ///CLOVER:OFF
+  /**
+   * The meta-bean for {@code MetricsComponentFactory}.
+   * @return the meta-bean, not null
+   */
+  public static MetricsComponentFactory.Meta meta() {
+    return MetricsComponentFactory.Meta.INSTANCE;
+  }
+  static {
+    JodaBeanUtils.registerMetaBean(MetricsComponentFactory.Meta.INSTANCE);
+  }
+
+  @Override
+  public MetricsComponentFactory.Meta metaBean() {
+    return MetricsComponentFactory.Meta.INSTANCE;
+  }
+
+  @Override
+  protected Object propertyGet(String propertyName, boolean quiet) {
+    return super.propertyGet(propertyName, quiet);
+  }
+
+  @Override
+  protected void propertySet(String propertyName, Object newValue, boolean quiet) {
+    super.propertySet(propertyName, newValue, quiet);
+  }
+
+  @Override
+  public boolean equals(Object obj) {
+    if (obj == this) {
+      return true;
+    }
+    if (obj != null && obj.getClass() == this.getClass()) {
+      return super.equals(obj);
+    }
+    return false;
+  }
+
+  @Override
+  public int hashCode() {
+    int hash = 7;
+    return hash ^ super.hashCode();
+  }
+
+  //-----------------------------------------------------------------------
+  /**
+   * The meta-bean for {@code MetricsComponentFactory}.
+   */
+  public static class Meta extends AbstractComponentFactory.Meta {
+    /**
+     * The singleton instance of the meta-bean.
+     */
+    static final Meta INSTANCE = new Meta();
+
+    /**
+     * The meta-properties.
+     */
+    private final Map<String, MetaProperty<?>> _metaPropertyMap$ = new DirectMetaPropertyMap(
+      this, (DirectMetaPropertyMap) super.metaPropertyMap());
+
+    /**
+     * Restricted constructor.
+     */
+    protected Meta() {
+    }
+
+    @Override
+    public BeanBuilder<? extends MetricsComponentFactory> builder() {
+      return new DirectBeanBuilder<MetricsComponentFactory>(new MetricsComponentFactory());
+    }
+
+    @Override
+    public Class<? extends MetricsComponentFactory> beanType() {
+      return MetricsComponentFactory.class;
+    }
+
+    @Override
+    public Map<String, MetaProperty<?>> metaPropertyMap() {
+      return _metaPropertyMap$;
+    }
+
+    //-----------------------------------------------------------------------
+  }
+
+  ///CLOVER:ON
+  //-------------------------- AUTOGENERATED END --------------------------
+}
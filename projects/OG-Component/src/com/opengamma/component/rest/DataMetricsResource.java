@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.component.rest;
+
+import javax.ws.rs.GET;
+import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
+import javax.ws.rs.core.Response;
+
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.rest.AbstractDataResource;
+
+/**
+ * RESTful resource for scraping the metrics of the components in this server.
+ * <p>
+ * The metrics are returned as plain text, one "name value" pair per line.
+ */
+@Path("metrics")
+public class DataMetricsResource extends AbstractDataResource {
+
+  /**
+   * The metrics.
+   */
+  private final MetricRegistry _metrics;
+
+  /**
+   * Creates the resource.
+   * 
+   * @param metrics  the metrics, not null
+   */
+  public DataMetricsResource(final MetricRegistry metrics) {
+    ArgumentChecker.notNull(metrics, "metrics");
+    _metrics = metrics;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the metrics.
+   * 
+   * @return the metrics, not null
+   */
+  public MetricRegistry getMetrics() {
+    return _metrics;
+  }
+
+  //-------------------------------------------------------------------------
+  @GET
+  @Produces(MediaType.TEXT_PLAIN)
+  public Response get() {
+    return responseOk(getMetrics().toText());
+  }
+
+}
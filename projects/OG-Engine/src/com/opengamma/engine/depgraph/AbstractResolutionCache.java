@@ -0,0 +1,126 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.io.Serializable;
+
+import org.apache.commons.lang.ObjectUtils;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Partial implementation of {@link ResolutionCache} which stores the entries under a key that includes the function
+ * initialization identifier and version, so an entry is never returned for a different repository or market data source.
+ * <p>
+ * Entries for an old function initialization identifier can never be returned again, so the content is discarded when
+ * a different identifier is used to keep the cache from filling with them.
+ */
+public abstract class AbstractResolutionCache implements ResolutionCache {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(AbstractResolutionCache.class);
+
+  /**
+   * The key an entry is stored under.
+   */
+  protected static final class Key implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final long _functionInitId;
+    private final Serializable _version;
+    private final ValueRequirement _requirement;
+
+    public Key(final long functionInitId, final Serializable version, final ValueRequirement requirement) {
+      ArgumentChecker.notNull(version, "version");
+      ArgumentChecker.notNull(requirement, "requirement");
+      _functionInitId = functionInitId;
+      _version = version;
+      _requirement = requirement;
+    }
+
+    public long getFunctionInitId() {
+      return _functionInitId;
+    }
+
+    public Serializable getVersion() {
+      return _version;
+    }
+
+    public ValueRequirement getRequirement() {
+      return _requirement;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof Key)) {
+        return false;
+      }
+      final Key other = (Key) o;
+      return (_functionInitId == other._functionInitId) && ObjectUtils.equals(_version, other._version) && _requirement.equals(other._requirement);
+    }
+
+    @Override
+    public int hashCode() {
+      int hc = (int) (_functionInitId ^ (_functionInitId >>> 32));
+      hc = hc * 31 + _version.hashCode();
+      return hc * 31 + _requirement.hashCode();
+    }
+
+    @Override
+    public String toString() {
+      return "Key[" + _functionInitId + ", " + _version + ", " + _requirement + "]";
+    }
+
+  }
+
+  private volatile long _functionInitId;
+  private volatile boolean _functionInitIdKnown;
+
+  private void checkFunctionInitId(final long functionInitId) {
+    if (_functionInitIdKnown && (_functionInitId == functionInitId)) {
+      return;
+    }
+    synchronized (this) {
+      if (_functionInitIdKnown && (_functionInitId != functionInitId)) {
+        s_logger.info("Discarding cached resolutions for function init ID {}; now {}", _functionInitId, functionInitId);
+        clear();
+      }
+      _functionInitId = functionInitId;
+      _functionInitIdKnown = true;
+    }
+  }
+
+  @Override
+  public Pair<String, ValueSpecification> getResolution(final long functionInitId, final Serializable version, final ValueRequirement requirement) {
+    checkFunctionInitId(functionInitId);
+    return get(new Key(functionInitId, version, requirement));
+  }
+
+  @Override
+  public void putResolution(final long functionInitId, final Serializable version, final ValueRequirement requirement, final String functionId,
+      final ValueSpecification valueSpecification) {
+    checkFunctionInitId(functionInitId);
+    put(new Key(functionInitId, version, requirement), Pair.of(functionId, valueSpecification));
+  }
+
+  protected abstract Pair<String, ValueSpecification> get(Key key);
+
+  protected abstract void put(Key key, Pair<String, ValueSpecification> resolution);
+
+  /**
+   * Discards all cached resolutions.
+   */
+  protected abstract void clear();
+
+}
@@ -9,6 +9,7 @@ import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.io.PrintStream;
+import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.HashMap;
@@ -64,6 +65,8 @@ public final class DependencyGraphBuilder implements Cancelable {
   private final GraphBuildingContext _context = new GraphBuildingContext(this);
   private final AtomicLong _completedSteps = new AtomicLong();
   private final AtomicLong _scheduledSteps = new AtomicLong();
+  private final AtomicInteger _busy = new AtomicInteger();
+  private final AtomicLong _loopCheckSteps = new AtomicLong(-1);
   private final GetTerminalValuesCallback _getTerminalValuesCallback = new GetTerminalValuesCallback(DEBUG_DUMP_FAILURE_INFO ? new ResolutionFailurePrinter(openDebugStream("resolutionFailure"))
       : ResolutionFailureVisitor.DEFAULT_INSTANCE, _context);
   private final Executor _executor;
@@ -74,6 +77,9 @@ public final class DependencyGraphBuilder implements Cancelable {
   private CompiledFunctionResolver _functionResolver;
   private FunctionCompilationContext _compilationContext;
   private FunctionExclusionGroups _functionExclusionGroups;
+  private ResolutionCache _resolutionCache;
+  private Serializable _marketDataAvailabilityVersion;
+  private volatile ResolutionCacheLookup _resolutionCacheLookup;
 
   // The resolve task is ref-counted once for the map (it is being used as a set)
   private final ConcurrentMap<ValueRequirement, Map<ResolveTask, ResolveTask>> _requirements = new ConcurrentHashMap<ValueRequirement, Map<ResolveTask, ResolveTask>>();
@@ -93,7 +99,7 @@ public final class DependencyGraphBuilder implements Cancelable {
   /**
    * Flag to indicate when the build has been canceled.
    */
-  private boolean _cancelled;
+  private volatile boolean _cancelled;
 
   /**
    * Flag to indicate whether resolution failure information should be reported. Use in conjunction with the failure visitor registered with the terminal value callback to extract feedback. If there
@@ -101,6 +107,12 @@ public final class DependencyGraphBuilder implements Cancelable {
    */
   private boolean _disableFailureReporting;
 
+  /**
+   * Flag to indicate whether completion is detected from the count of busy jobs and callers rather than by holding the build complete lock. This avoids serializing
+   * the job threads as they stop and callers as they add targets, at the cost of possibly checking for loops when it is not necessary.
+   */
+  private boolean _lockFreeCompletion;
+
   // TODO: We should use an external execution framework rather than the one here; there are far better (and probably more accurate) implementations of
   // the algorithm in other projects I've worked on.
 
@@ -204,6 +216,66 @@ public final class DependencyGraphBuilder implements Cancelable {
     return _functionExclusionGroups;
   }
 
+  /**
+   * Sets the cache of previous resolutions to consult, and update, while building the graph.
+   * 
+   * @param resolutionCache the resolution cache, or null to not use one
+   */
+  public void setResolutionCache(final ResolutionCache resolutionCache) {
+    _resolutionCache = resolutionCache;
+  }
+
+  /**
+   * Returns the cache of previous resolutions.
+   * 
+   * @return the resolution cache or null if none is being used
+   */
+  public ResolutionCache getResolutionCache() {
+    return _resolutionCache;
+  }
+
+  /**
+   * Sets the version of the market data availability, identifying it to the resolution cache. The resolution cache is only
+   * used if this is set.
+   * 
+   * @param marketDataAvailabilityVersion the version, for example the market data specification, or null if there isn't one
+   */
+  public void setMarketDataAvailabilityVersion(final Serializable marketDataAvailabilityVersion) {
+    _marketDataAvailabilityVersion = marketDataAvailabilityVersion;
+  }
+
+  /**
+   * Returns the version of the market data availability.
+   * 
+   * @return the version or null if there isn't one
+   */
+  public Serializable getMarketDataAvailabilityVersion() {
+    return _marketDataAvailabilityVersion;
+  }
+
+  /**
+   * Returns the lookup of candidate functions through the resolution cache.
+   * 
+   * @return the lookup, or null if the resolution cache is not being used
+   */
+  /* package */ResolutionCacheLookup getResolutionCacheLookup() {
+    final ResolutionCache cache = getResolutionCache();
+    final Serializable availabilityVersion = getMarketDataAvailabilityVersion();
+    if ((cache == null) || (availabilityVersion == null) || (getCompilationContext() == null)) {
+      return null;
+    }
+    final Long functionInitId = getCompilationContext().getFunctionInitId();
+    if (functionInitId == null) {
+      return null;
+    }
+    ResolutionCacheLookup lookup = _resolutionCacheLookup;
+    if ((lookup == null) || !lookup.isValidFor(cache, getFunctionResolver(), functionInitId, availabilityVersion)) {
+      lookup = new ResolutionCacheLookup(cache, getFunctionResolver(), getCompilationContext(), functionInitId, availabilityVersion);
+      _resolutionCacheLookup = lookup;
+    }
+    return lookup;
+  }
+
   /**
    * Sets whether to disable extended failure reporting when values can't be resolved.
    * 
@@ -222,6 +294,26 @@ public final class DependencyGraphBuilder implements Cancelable {
     return _disableFailureReporting;
   }
 
+  /**
+   * Sets whether to detect completion of the graph without holding the build complete lock. When set, job threads stopping and callers adding targets are tracked
+   * by a counter rather than serialized on a common monitor. This may reduce contention when there are many background threads, especially with a
+   * {@link RunQueueFactory#getWorkStealing} run queue. This must be set before any targets are added.
+   * 
+   * @param lockFreeCompletion true to use the counter, false to use the build complete lock
+   */
+  public void setLockFreeCompletion(final boolean lockFreeCompletion) {
+    _lockFreeCompletion = lockFreeCompletion;
+  }
+
+  /**
+   * Tests whether completion is detected without holding the build complete lock.
+   * 
+   * @return true if a counter is used, false if the build complete lock is used
+   */
+  public boolean isLockFreeCompletion() {
+    return _lockFreeCompletion;
+  }
+
   public int getMaxAdditionalThreads() {
     return _maxAdditionalThreads;
   }
@@ -305,6 +397,25 @@ public final class DependencyGraphBuilder implements Cancelable {
     ArgumentChecker.notNullInjected(getCalculationConfigurationName(), "calculationConfigurationName");
   }
 
+  /**
+   * Initializes the builder with an existing graph, for example the surviving part of a previously compiled graph. The productions of the nodes are
+   * declared so that requirements resolving to them will use the existing nodes without repeating the function resolution. This must be called before
+   * any targets are added. The nodes of the graph will be updated by the build so it must not be in use elsewhere.
+   * 
+   * @param graph the existing graph, not null
+   */
+  public void addExistingGraph(final DependencyGraph graph) {
+    ArgumentChecker.notNull(graph, "graph");
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      final Set<ValueSpecification> inputs = new HashSet<ValueSpecification>(node.getInputValues());
+      final Set<ValueSpecification> outputs = new HashSet<ValueSpecification>(node.getOutputValues());
+      for (ValueSpecification output : outputs) {
+        addResolvedValue(new ResolvedValue(output, node.getFunction(), inputs, outputs));
+      }
+    }
+    getTerminalValuesCallback().addExistingGraph(graph);
+  }
+
   /**
    * Adds resolution of the given requirement to the run queue. Resolution will start as soon as possible and be available as pending for any tasks already running that require resolution of the
    * requirement.
@@ -327,9 +438,19 @@ public final class DependencyGraphBuilder implements Cancelable {
   public void addTarget(final ValueRequirement requirement) {
     ArgumentChecker.notNull(requirement, "requirement");
     checkInjectedInputs();
-    // Hold the build complete lock so that housekeeping thread cannot observe a "built" state within this atomic block of work
-    synchronized (_buildCompleteLock) {
-      addTargetImpl(requirement);
+    if (isLockFreeCompletion()) {
+      // Count as busy so that a housekeeping thread cannot observe a "built" state within this atomic block of work
+      _busy.incrementAndGet();
+      try {
+        addTargetImpl(requirement);
+      } finally {
+        releaseBusy();
+      }
+    } else {
+      // Hold the build complete lock so that housekeeping thread cannot observe a "built" state within this atomic block of work
+      synchronized (_buildCompleteLock) {
+        addTargetImpl(requirement);
+      }
     }
     // If the run-queue was empty, we won't have started a thread, so double check 
     startBackgroundConstructionJob();
@@ -344,10 +465,22 @@ public final class DependencyGraphBuilder implements Cancelable {
   public void addTarget(Set<ValueRequirement> requirements) {
     ArgumentChecker.noNulls(requirements, "requirements");
     checkInjectedInputs();
-    // Hold the build complete lock so that housekeeping thread cannot observe a "built" state within this atomic block of work
-    synchronized (_buildCompleteLock) {
-      for (ValueRequirement requirement : requirements) {
-        addTargetImpl(requirement);
+    if (isLockFreeCompletion()) {
+      // Count as busy so that a housekeeping thread cannot observe a "built" state within this atomic block of work
+      _busy.incrementAndGet();
+      try {
+        for (ValueRequirement requirement : requirements) {
+          addTargetImpl(requirement);
+        }
+      } finally {
+        releaseBusy();
+      }
+    } else {
+      // Hold the build complete lock so that housekeeping thread cannot observe a "built" state within this atomic block of work
+      synchronized (_buildCompleteLock) {
+        for (ValueRequirement requirement : requirements) {
+          addTargetImpl(requirement);
+        }
       }
     }
     // If the run-queue was empty, we may not have started enough threads, so double check 
@@ -373,6 +506,9 @@ public final class DependencyGraphBuilder implements Cancelable {
         synchronized (_activeJobs) {
           final Job job = createConstructionJob();
           _activeJobs.add(job);
+          if (isLockFreeCompletion()) {
+            _busy.incrementAndGet();
+          }
           _executor.execute(job);
         }
         return true;
@@ -412,6 +548,29 @@ public final class DependencyGraphBuilder implements Cancelable {
     }
   }
 
+  /**
+   * Releases a busy count taken by a job or a caller adding targets when {@link #isLockFreeCompletion} is set. If this is the last busy party, the run queue is
+   * empty and steps have been completed since the previous check then any loops are aborted before the count is released. The count is held while checking so
+   * that the graph cannot be observed as "built" until the check is complete.
+   */
+  private void releaseBusy() {
+    boolean checked = false;
+    do {
+      final int busy = _busy.get();
+      if ((busy == 1) && !checked && _runQueue.isEmpty()) {
+        checked = true;
+        final long steps = _completedSteps.get();
+        if (_loopCheckSteps.getAndSet(steps) != steps) {
+          abortLoops();
+        }
+        continue;
+      }
+      if (_busy.compareAndSet(busy, busy - 1)) {
+        return;
+      }
+    } while (true);
+  }
+
   /**
    * Job running thread.
    */
@@ -429,38 +588,55 @@ public final class DependencyGraphBuilder implements Cancelable {
       _contextCleaner.start();
       boolean jobsLeftToRun;
       int completed = 0;
-      do {
-        // Create a new context for each logical block so that an exception from the build won't leave us with
-        // an inconsistent context.
-        final GraphBuildingContext context = new GraphBuildingContext(DependencyGraphBuilder.this);
+      try {
         do {
-          try {
-            jobsLeftToRun = buildGraph(context);
-            completed++;
-          } catch (Throwable t) {
-            s_logger.warn("Graph builder exception", t);
-            _context.exception(t);
-            jobsLeftToRun = false;
+          // Create a new context for each logical block so that an exception from the build won't leave us with
+          // an inconsistent context.
+          final GraphBuildingContext context = new GraphBuildingContext(DependencyGraphBuilder.this);
+          do {
+            try {
+              jobsLeftToRun = buildGraph(context);
+              completed++;
+            } catch (Throwable t) {
+              s_logger.warn("Graph builder exception", t);
+              _context.exception(t);
+              jobsLeftToRun = false;
+            }
+          } while (!_poison && jobsLeftToRun);
+          s_logger.debug("Merging thread context");
+          getContext().mergeThreadContext(context);
+          s_logger.debug("Building job stopping");
+          int activeJobs = _activeJobCount.decrementAndGet();
+          // Watch for late arrivals in the run queue; they might have seen the old value
+          // of activeJobs and not started anything.
+          while (!_runQueue.isEmpty() && (activeJobs < getMaxAdditionalThreads()) && !_poison) {
+            if (_activeJobCount.compareAndSet(activeJobs, activeJobs + 1)) {
+              s_logger.debug("Building job resuming");
+              // Note the log messages may go from "resuming" to stopped if the poison arrives between
+              // the check above and the check below. This might look odd, but what the hey - they're
+              // only DEBUG level messages.
+              jobsLeftToRun = true;
+              break;
+            }
+            activeJobs = _activeJobCount.get();
           }
         } while (!_poison && jobsLeftToRun);
-        s_logger.debug("Merging thread context");
-        getContext().mergeThreadContext(context);
-        s_logger.debug("Building job stopping");
-        int activeJobs = _activeJobCount.decrementAndGet();
-        // Watch for late arrivals in the run queue; they might have seen the old value
-        // of activeJobs and not started anything.
-        while (!_runQueue.isEmpty() && (activeJobs < getMaxAdditionalThreads()) && !_poison) {
-          if (_activeJobCount.compareAndSet(activeJobs, activeJobs + 1)) {
-            s_logger.debug("Building job resuming");
-            // Note the log messages may go from "resuming" to stopped if the poison arrives between
-            // the check above and the check below. This might look odd, but what the hey - they're
-            // only DEBUG level messages.
-            jobsLeftToRun = true;
-            break;
+      } finally {
+        // The executor's threads outlive this builder so must not keep hold of its run queue state
+        _runQueue.detach();
+        if (isLockFreeCompletion()) {
+          synchronized (_activeJobs) {
+            _activeJobs.remove(this);
           }
-          activeJobs = _activeJobCount.get();
+          releaseBusy();
+        } else {
+          stopped();
         }
-      } while (!_poison && jobsLeftToRun);
+      }
+      s_logger.debug("Building job {} stopped after {} operations", _objectId, completed);
+    }
+
+    private void stopped() {
       synchronized (_buildCompleteLock) {
         final boolean abortLoops;
         synchronized (_activeJobs) {
@@ -476,7 +652,6 @@ public final class DependencyGraphBuilder implements Cancelable {
           // started. We are officially "dead"; another worker thread may become active
         }
       }
-      s_logger.debug("Building job {} stopped after {} operations", _objectId, completed);
     }
 
     @Override
@@ -514,6 +689,12 @@ public final class DependencyGraphBuilder implements Cancelable {
    * @return true if the graph has been built, false if it is outstanding
    */
   public boolean isGraphBuilt() {
+    if (isLockFreeCompletion()) {
+      if (_cancelled) {
+        throw new CancellationException();
+      }
+      return (_busy.get() == 0) && _runQueue.isEmpty();
+    }
     synchronized (_buildCompleteLock) {
       synchronized (_activeJobs) {
         if (_cancelled) {
@@ -624,6 +805,9 @@ public final class DependencyGraphBuilder implements Cancelable {
           if (!_cancelled) {
             _activeJobs.add(job);
           }
+          if (isLockFreeCompletion()) {
+            _busy.incrementAndGet();
+          }
         }
         job.run();
         synchronized (_activeJobs) {
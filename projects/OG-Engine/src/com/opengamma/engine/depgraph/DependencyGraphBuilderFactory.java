@@ -51,6 +51,8 @@ public class DependencyGraphBuilderFactory {
   private boolean _enableFailureReporting;
   private RunQueueFactory _runQueue = DependencyGraphBuilder.getDefaultRunQueueFactory();
   private FunctionExclusionGroups _functionExclusionGroups;
+  private ResolutionCache _resolutionCache;
+  private boolean _lockFreeCompletion;
   private final Executor _executor = createExecutor();
 
   public DependencyGraphBuilderFactory() {
@@ -96,6 +98,32 @@ public class DependencyGraphBuilderFactory {
     return _functionExclusionGroups;
   }
 
+  /**
+   * Sets the resolution cache to be shared by all builders created by this factory.
+   * 
+   * @param resolutionCache the resolution cache, or null to not use one
+   */
+  public void setResolutionCache(final ResolutionCache resolutionCache) {
+    _resolutionCache = resolutionCache;
+  }
+
+  public ResolutionCache getResolutionCache() {
+    return _resolutionCache;
+  }
+
+  /**
+   * Sets whether builders created by this factory detect completion without holding a common lock. See {@link DependencyGraphBuilder#setLockFreeCompletion}.
+   * 
+   * @param lockFreeCompletion true to detect completion from a counter, false to use a lock
+   */
+  public void setLockFreeCompletion(final boolean lockFreeCompletion) {
+    _lockFreeCompletion = lockFreeCompletion;
+  }
+
+  public boolean isLockFreeCompletion() {
+    return _lockFreeCompletion;
+  }
+
   public DependencyGraphBuilder newInstance() {
     final DependencyGraphBuilder builder = new DependencyGraphBuilder(getExecutor(), getRunQueueFactory());
     configureBuilder(builder);
@@ -106,6 +134,8 @@ public class DependencyGraphBuilderFactory {
     builder.setMaxAdditionalThreads(getMaxAdditionalThreadsPerBuilder());
     builder.setDisableFailureReporting(!isEnableFailureReporting());
     builder.setFunctionExclusionGroups(getFunctionExclusionGroups());
+    builder.setResolutionCache(getResolutionCache());
+    builder.setLockFreeCompletion(isLockFreeCompletion());
   }
 
   protected Executor createExecutor() {
@@ -0,0 +1,95 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import net.sf.ehcache.Cache;
+import net.sf.ehcache.CacheManager;
+import net.sf.ehcache.Element;
+import net.sf.ehcache.store.MemoryStoreEvictionPolicy;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * An implementation of {@link ResolutionCache} backed by an EHCache instance that overflows to, and persists on, disk.
+ * Resolutions recorded by one process are available to the next so that a cold start can rebuild its dependency graphs
+ * from the previous decisions rather than searching the full function repository.
+ * <p>
+ * Entries are keyed by the function initialization identifier, so they are only used after a restart if the functions
+ * are initialized with the same identifier, for example by passing a configuration version to
+ * {@link com.opengamma.engine.function.CompiledFunctionService#initialize(long)} rather than using the clock.
+ * <p>
+ * The cache is written to disk when the cache manager is shut down, or when {@link #flush} is called.
+ */
+public class EHCacheResolutionCache extends AbstractResolutionCache {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(EHCacheResolutionCache.class);
+
+  private static final String CACHE_NAME = "resolutionCache";
+
+  /**
+   * Default number of resolutions held in memory before overflowing to disk.
+   */
+  public static final int DEFAULT_MAX_ELEMENTS_IN_MEMORY = 100000;
+
+  private final Cache _cache;
+
+  public EHCacheResolutionCache(final CacheManager manager, final String diskStorePath) {
+    this(manager, DEFAULT_MAX_ELEMENTS_IN_MEMORY, diskStorePath);
+  }
+
+  /**
+   * Creates a new cache.
+   * 
+   * @param manager the cache manager, not null
+   * @param maxElementsInMemory the number of resolutions to hold in memory before overflowing to disk
+   * @param diskStorePath the path to persist the cache to, not null
+   */
+  public EHCacheResolutionCache(final CacheManager manager, final int maxElementsInMemory, final String diskStorePath) {
+    ArgumentChecker.notNull(manager, "manager");
+    ArgumentChecker.notNull(diskStorePath, "diskStorePath");
+    EHCacheUtils.addCache(manager, CACHE_NAME, maxElementsInMemory, MemoryStoreEvictionPolicy.LRU, true, diskStorePath, true, 0, 0, true, 120, null);
+    _cache = EHCacheUtils.getCacheFromManager(manager, CACHE_NAME);
+    s_logger.info("Loaded {} cached resolutions from {}", _cache.getSize(), diskStorePath);
+  }
+
+  protected Cache getCache() {
+    return _cache;
+  }
+
+  /**
+   * Writes the cached resolutions to disk.
+   */
+  public void flush() {
+    getCache().flush();
+  }
+
+  @SuppressWarnings("unchecked")
+  @Override
+  protected Pair<String, ValueSpecification> get(final Key key) {
+    final Element element = getCache().get(key);
+    if (element == null) {
+      return null;
+    }
+    return (Pair<String, ValueSpecification>) element.getObjectValue();
+  }
+
+  @Override
+  protected void put(final Key key, final Pair<String, ValueSpecification> resolution) {
+    getCache().put(new Element(key, resolution));
+  }
+
+  @Override
+  protected void clear() {
+    getCache().removeAll();
+  }
+
+}
@@ -44,7 +44,7 @@ import com.opengamma.util.tuple.Triple;
       case NOT_AVAILABLE:
         final ComputationTarget target = getComputationTarget(context);
         if (target != null) {
-          final Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> itr = context.getFunctionResolver().resolveFunction(getValueRequirement(), target);
+          final Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> itr = context.resolveFunction(getValueRequirement(), target);
           if (itr.hasNext()) {
             s_logger.debug("Found functions for {}", getValueRequirement());
             setRunnableTaskState(new NextFunctionStep(getTask(), itr), context);
@@ -309,6 +309,29 @@ import com.opengamma.util.tuple.Pair;
     return new HashMap<ValueRequirement, ValueSpecification>(_resolvedValues);
   }
 
+  /**
+   * Populates the graph set with the nodes of an existing graph. Requirements resolved to values produced by these nodes will reuse them rather than
+   * creating new ones. This must be called before any resolutions are reported.
+   * 
+   * @param graph the existing graph, not null
+   */
+  public synchronized void addExistingGraph(final DependencyGraph graph) {
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      for (ValueSpecification output : node.getOutputValues()) {
+        _spec2Node.put(output, node);
+      }
+      getOrCreateNodes(node.getFunction(), node.getComputationTarget()).add(node);
+      _graphNodes.add(node);
+    }
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : graph.getTerminalOutputs().entrySet()) {
+      if (terminalOutput.getValue() != null) {
+        for (ValueRequirement requirement : terminalOutput.getValue()) {
+          _resolvedValues.put(requirement, terminalOutput.getKey());
+        }
+      }
+    }
+  }
+
   protected synchronized void discardIntermediateState() {
     s_logger.debug("Discarding func2target2nodes state");
     _func2target2nodes.clear();
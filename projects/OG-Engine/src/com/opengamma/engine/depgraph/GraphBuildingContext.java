@@ -5,14 +5,17 @@
  */
 package com.opengamma.engine.depgraph;
 
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
 import java.util.Set;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.opengamma.engine.ComputationTarget;
 import com.opengamma.engine.MemoryUtils;
 import com.opengamma.engine.function.FunctionCompilationContext;
 import com.opengamma.engine.function.ParameterizedFunction;
@@ -23,6 +26,7 @@ import com.opengamma.engine.marketdata.availability.MarketDataAvailabilityProvid
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Triple;
 
 /**
  * Algorithm state. A context object is used by a single job thread. The root context is not used by any builder thread. The synchronization on the collation methods only is therefore sufficient.
@@ -63,6 +67,23 @@ import com.opengamma.util.tuple.Pair;
     return getBuilder().getFunctionExclusionGroups();
   }
 
+  /**
+   * Returns the candidate functions for a requirement, in priority order. The resolution cache is used, if there is one, to
+   * avoid searching the resolution rules.
+   * 
+   * @param requirement the requirement to resolve, not null
+   * @param target the computation target, not null
+   * @return the candidate functions, not null
+   */
+  public Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> resolveFunction(final ValueRequirement requirement, final ComputationTarget target) {
+    final ResolutionCacheLookup lookup = getBuilder().getResolutionCacheLookup();
+    if (lookup != null) {
+      return lookup.resolveFunction(requirement, target);
+    } else {
+      return getFunctionResolver().resolveFunction(requirement, target);
+    }
+  }
+
   // Operations
 
   /**
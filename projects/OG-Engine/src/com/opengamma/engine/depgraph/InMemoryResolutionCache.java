@@ -0,0 +1,41 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * An implementation of {@link ResolutionCache} which is held entirely in memory. Resolutions are retained for the
+ * life of the process, until the functions are re-initialized.
+ */
+public class InMemoryResolutionCache extends AbstractResolutionCache {
+
+  private final ConcurrentMap<Key, Pair<String, ValueSpecification>> _resolutions = new ConcurrentHashMap<Key, Pair<String, ValueSpecification>>();
+
+  @Override
+  protected Pair<String, ValueSpecification> get(final Key key) {
+    return _resolutions.get(key);
+  }
+
+  @Override
+  protected void put(final Key key, final Pair<String, ValueSpecification> resolution) {
+    _resolutions.put(key, resolution);
+  }
+
+  @Override
+  protected void clear() {
+    _resolutions.clear();
+  }
+
+  public int getSize() {
+    return _resolutions.size();
+  }
+
+}
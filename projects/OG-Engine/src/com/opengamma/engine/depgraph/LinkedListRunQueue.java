@@ -77,4 +77,9 @@ import java.util.LinkedList;
   public synchronized ContextRunnable take() {
     return getList().pollFirst();
   }
+
+  @Override
+  public void detach() {
+    // No per-thread state
+  }
 }
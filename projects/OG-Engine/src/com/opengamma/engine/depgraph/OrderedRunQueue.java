@@ -144,6 +144,11 @@ import com.opengamma.id.UniqueId;
     return runnable;
   }
 
+  @Override
+  public void detach() {
+    // No per-thread state
+  }
+
   private static int compareUID(final ComputationTargetSpecification cts1, final ComputationTargetSpecification cts2) {
     final UniqueId uid1 = cts1.getUniqueId();
     final UniqueId uid2 = cts2.getUniqueId();
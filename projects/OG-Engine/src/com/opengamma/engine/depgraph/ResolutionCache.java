@@ -0,0 +1,47 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.io.Serializable;
+
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Records the outcome of previous function searches so that a subsequent graph build can skip the search for a requirement. The
+ * entry for a requirement is the highest priority candidate the function resolver produced for it; the dependency graph builder
+ * tries that candidate without searching the other rules, and only searches (continuing in the normal priority order) if it
+ * cannot be used.
+ * <p>
+ * An entry is only valid for the function repository, and the source of market data, that produced it. These are identified by
+ * the function initialization identifier and a version object. Implementations must only return an entry for the exact
+ * identifier and version it was stored with.
+ */
+public interface ResolutionCache {
+
+  /**
+   * Returns the previous search result for a requirement.
+   *
+   * @param functionInitId the function initialization identifier of the current compiled function repository
+   * @param version the version of the resolution rules and market data availability, not null
+   * @param requirement the requirement to look up, not null
+   * @return the unique identifier of the function definition and the value specification it produced, or null if there is no cached entry
+   */
+  Pair<String, ValueSpecification> getResolution(long functionInitId, Serializable version, ValueRequirement requirement);
+
+  /**
+   * Records the search result for a requirement, replacing any previous entry.
+   *
+   * @param functionInitId the function initialization identifier of the current compiled function repository
+   * @param version the version of the resolution rules and market data availability, not null
+   * @param requirement the requirement that was searched for, not null
+   * @param functionId the unique identifier of the highest priority function definition found, not null
+   * @param valueSpecification the value specification that function produces for the requirement, not null
+   */
+  void putResolution(long functionInitId, Serializable version, ValueRequirement requirement, String functionId, ValueSpecification valueSpecification);
+
+}
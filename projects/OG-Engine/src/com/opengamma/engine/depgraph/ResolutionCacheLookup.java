@@ -0,0 +1,254 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.google.common.collect.Iterators;
+import com.google.common.collect.PeekingIterator;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.MemoryUtils;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.ParameterizedFunction;
+import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
+import com.opengamma.engine.function.resolver.ResolutionRule;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Triple;
+
+/**
+ * Produces the candidate functions for a requirement, using a {@link ResolutionCache} to skip the search of the resolution rules.
+ * <p>
+ * The cache holds the first candidate the function resolver produces for each requirement. On a hit only the rule for that
+ * function is evaluated against the target; the remaining candidates are searched for only if the first one is rejected, and
+ * are then produced in the resolver's order after it. The candidates are therefore the same, and in the same order, as from
+ * the function resolver. On a miss, the function resolver is used directly and its first candidate recorded.
+ * <p>
+ * The cache is keyed by the function initialization identifier, a fingerprint of the resolution rules (these differ between
+ * calculation configurations and valuation times) and the version of the market data availability.
+ */
+/* package */final class ResolutionCacheLookup {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(ResolutionCacheLookup.class);
+
+  private final ResolutionCache _cache;
+  private final CompiledFunctionResolver _resolver;
+  private final FunctionCompilationContext _context;
+  private final long _functionInitId;
+  private final Serializable _availabilityVersion;
+  private final Serializable _version;
+  private final Map<String, Collection<ResolutionRule>> _rules = new HashMap<String, Collection<ResolutionRule>>();
+
+  public ResolutionCacheLookup(final ResolutionCache cache, final CompiledFunctionResolver resolver, final FunctionCompilationContext context, final long functionInitId,
+      final Serializable availabilityVersion) {
+    _cache = cache;
+    _resolver = resolver;
+    _context = context;
+    _functionInitId = functionInitId;
+    _availabilityVersion = availabilityVersion;
+    long fingerprint = 0;
+    for (ResolutionRule rule : resolver.getAllResolutionRules()) {
+      final String functionId = rule.getParameterizedFunction().getFunction().getFunctionDefinition().getUniqueId();
+      Collection<ResolutionRule> rules = _rules.get(functionId);
+      if (rules == null) {
+        rules = new ArrayList<ResolutionRule>(1);
+        _rules.put(functionId, rules);
+      }
+      rules.add(rule);
+      // Order independent as the rules are not returned in a fixed order
+      fingerprint += fingerprint(functionId, rule);
+    }
+    _version = Pair.of(fingerprint, availabilityVersion);
+  }
+
+  private static long fingerprint(final String functionId, final ResolutionRule rule) {
+    long hc = functionId.hashCode();
+    hc = hc * 31 + rule.getParameterizedFunction().getParameters().hashCode();
+    hc = hc * 31 + rule.getPriority();
+    hc = hc * 31 + rule.getComputationTargetFilter().getClass().getName().hashCode();
+    hc *= 0x9E3779B97F4A7C15L;
+    return hc ^ (hc >>> 29);
+  }
+
+  /**
+   * Tests whether this lookup is for the given state of the graph builder.
+   *
+   * @param cache the resolution cache
+   * @param resolver the function resolver
+   * @param functionInitId the function initialization identifier
+   * @param availabilityVersion the market data availability version
+   * @return true if this lookup can be used, false if a new one must be created
+   */
+  public boolean isValidFor(final ResolutionCache cache, final CompiledFunctionResolver resolver, final long functionInitId, final Serializable availabilityVersion) {
+    return (_cache == cache) && (_resolver == resolver) && (_functionInitId == functionInitId) && _availabilityVersion.equals(availabilityVersion);
+  }
+
+  /**
+   * Returns the candidate functions for a requirement, in the order produced by the function resolver.
+   *
+   * @param requirement the requirement to resolve, not null
+   * @param target the computation target, not null
+   * @return the candidate functions, not null
+   */
+  public Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> resolveFunction(final ValueRequirement requirement, final ComputationTarget target) {
+    final Pair<String, ValueSpecification> cached = _cache.getResolution(_functionInitId, _version, requirement);
+    if (cached != null) {
+      final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> candidate = getCandidate(requirement, target, cached);
+      if (candidate != null) {
+        s_logger.debug("Using cached resolution {} for {}", cached, requirement);
+        return new CachedCandidateIterator(requirement, target, candidate);
+      }
+      s_logger.debug("Cached resolution {} not valid for {}", cached, requirement);
+    }
+    final PeekingIterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> itr = Iterators.peekingIterator(_resolver.resolveFunction(requirement, target));
+    if (itr.hasNext()) {
+      final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> first = itr.peek();
+      _cache.putResolution(_functionInitId, _version, requirement, first.getFirst().getFunction().getFunctionDefinition().getUniqueId(), first.getSecond());
+    }
+    return itr;
+  }
+
+  /**
+   * Evaluates just the rule(s) for the cached function against the target.
+   */
+  private Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> getCandidate(final ValueRequirement requirement, final ComputationTarget target,
+      final Pair<String, ValueSpecification> cached) {
+    final Collection<ResolutionRule> rules = _rules.get(cached.getFirst());
+    if (rules == null) {
+      return null;
+    }
+    Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> candidate = null;
+    for (ResolutionRule rule : rules) {
+      final Set<ValueSpecification> results = rule.getResults(target, _context);
+      if ((results == null) || results.isEmpty()) {
+        continue;
+      }
+      final ValueSpecification result = rule.getResult(requirement, target, results);
+      if (cached.getSecond().equals(result)) {
+        if (candidate != null) {
+          // Can't tell which of the parameterizations was the one found before
+          return null;
+        }
+        candidate = Triple.<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>of(rule.getParameterizedFunction(), MemoryUtils.instance(result), results);
+      }
+    }
+    return candidate;
+  }
+
+  private static boolean isSameCandidate(final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> a,
+      final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> b) {
+    return (a.getFirst() == b.getFirst()) && a.getSecond().equals(b.getSecond());
+  }
+
+  /**
+   * Produces the cached candidate, followed by the candidates after it from the function resolver if it is rejected.
+   */
+  private final class CachedCandidateIterator implements Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> {
+
+    private final ValueRequirement _requirement;
+    private final ComputationTarget _target;
+    private Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> _first;
+    private final Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> _rest;
+
+    public CachedCandidateIterator(final ValueRequirement requirement, final ComputationTarget target,
+        final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> first) {
+      _requirement = requirement;
+      _target = target;
+      _first = first;
+      _rest = new LazyIterator(first);
+    }
+
+    private Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> getRest(
+        final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> cached) {
+      final Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> itr = _resolver.resolveFunction(_requirement, _target);
+      final List<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> skipped =
+          new LinkedList<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>>();
+      while (itr.hasNext()) {
+        final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> candidate = itr.next();
+        if (isSameCandidate(candidate, cached)) {
+          if (skipped.isEmpty()) {
+            return itr;
+          }
+          break;
+        }
+        skipped.add(candidate);
+      }
+      // Shouldn't happen; the cache key includes everything the function resolver's order depends on
+      s_logger.warn("Cached resolution {} was not the first candidate for {}", cached, _requirement);
+      return Iterators.concat(skipped.iterator(), itr);
+    }
+
+    @Override
+    public boolean hasNext() {
+      return (_first != null) || _rest.hasNext();
+    }
+
+    @Override
+    public Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> next() {
+      if (_first != null) {
+        final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> first = _first;
+        _first = null;
+        return first;
+      }
+      return _rest.next();
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Defers the search until the candidates after the cached one are needed.
+     */
+    private final class LazyIterator implements Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> {
+
+      private final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> _cached;
+      private Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> _underlying;
+
+      public LazyIterator(final Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> cached) {
+        _cached = cached;
+      }
+
+      private Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> getUnderlying() {
+        if (_underlying == null) {
+          _underlying = getRest(_cached);
+        }
+        return _underlying;
+      }
+
+      @Override
+      public boolean hasNext() {
+        return getUnderlying().hasNext();
+      }
+
+      @Override
+      public Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>> next() {
+        return getUnderlying().next();
+      }
+
+      @Override
+      public void remove() {
+        throw new UnsupportedOperationException();
+      }
+
+    }
+
+  }
+
+}
@@ -47,4 +47,9 @@ import java.util.Iterator;
    */
   ContextRunnable take();
 
+  /**
+   * Notifies the queue that the calling thread will not take any more tasks for now. Any state held for the thread can be released.
+   */
+  void detach();
+
 }
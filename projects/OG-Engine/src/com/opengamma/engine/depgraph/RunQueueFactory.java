@@ -89,4 +89,19 @@ public abstract class RunQueueFactory {
     };
   }
 
+  /**
+   * Creates work-stealing queues with a deque for each thread. A thread takes the tasks it has added in LIFO order and only steals tasks added by other
+   * threads when its own deque is empty. This avoids contention on a single shared structure when many threads are used for graph building.
+   * 
+   * @return the factory instance
+   */
+  public static RunQueueFactory getWorkStealing() {
+    return new RunQueueFactory() {
+      @Override
+      protected RunQueue createRunQueue() {
+        return new WorkStealingRunQueue();
+      }
+    };
+  }
+
 }
@@ -103,4 +103,9 @@ import java.util.concurrent.atomic.AtomicReference;
     _free.compareAndSet(e._next, e);
     return runnable;
   }
+
+  @Override
+  public void detach() {
+    // No per-thread state
+  }
 }
@@ -0,0 +1,190 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Run queue implementation based on per-thread deques. Each thread adds tasks to, and takes tasks from, the head of its
+ * own deque giving LIFO ordering for the work it generates. A thread with an empty deque steals from the tail of the
+ * other deques. Threads therefore only contend with each other when stealing, rather than on every task as with a
+ * single shared queue.
+ */
+/* package */final class WorkStealingRunQueue implements RunQueue {
+
+  private static final int INITIAL_CAPACITY = 64;
+
+  /**
+   * Array based deque. The owning thread works at the head; other threads steal from the tail. The size is volatile so
+   * that emptiness can be tested without taking the monitor.
+   */
+  private static final class Deque {
+
+    private ContextRunnable[] _buffer = new ContextRunnable[INITIAL_CAPACITY];
+    private int _head;
+    private volatile int _size;
+    private volatile boolean _detached;
+
+    public synchronized void push(final ContextRunnable runnable) {
+      final int size = _size;
+      if (size == _buffer.length) {
+        final ContextRunnable[] buffer = new ContextRunnable[size << 1];
+        for (int i = 0; i < size; i++) {
+          buffer[i] = _buffer[(_head + i) % size];
+        }
+        _buffer = buffer;
+        _head = 0;
+      }
+      _head = (_head + _buffer.length - 1) % _buffer.length;
+      _buffer[_head] = runnable;
+      _size = size + 1;
+    }
+
+    public synchronized ContextRunnable pop() {
+      final int size = _size;
+      if (size == 0) {
+        return null;
+      }
+      final ContextRunnable runnable = _buffer[_head];
+      _buffer[_head] = null;
+      _head = (_head + 1) % _buffer.length;
+      _size = size - 1;
+      return runnable;
+    }
+
+    public synchronized ContextRunnable steal() {
+      final int size = _size;
+      if (size == 0) {
+        return null;
+      }
+      final int tail = (_head + size - 1) % _buffer.length;
+      final ContextRunnable runnable = _buffer[tail];
+      _buffer[tail] = null;
+      _size = size - 1;
+      return runnable;
+    }
+
+    public boolean isEmpty() {
+      return _size == 0;
+    }
+
+    public int size() {
+      return _size;
+    }
+
+    public synchronized void copyTo(final List<ContextRunnable> list) {
+      for (int i = 0; i < _size; i++) {
+        list.add(_buffer[(_head + i) % _buffer.length]);
+      }
+    }
+
+  }
+
+  private final ThreadLocal<Deque> _local = new ThreadLocal<Deque>();
+
+  /**
+   * All of the deques. This is replaced, never updated in place, when a thread starts or stops using the queue.
+   */
+  private volatile Deque[] _deques = new Deque[0];
+
+  private Deque getLocal() {
+    Deque deque = _local.get();
+    if (deque == null) {
+      deque = new Deque();
+      synchronized (this) {
+        final Deque[] deques = new Deque[_deques.length + 1];
+        System.arraycopy(_deques, 0, deques, 0, _deques.length);
+        deques[_deques.length] = deque;
+        _deques = deques;
+      }
+      _local.set(deque);
+    }
+    return deque;
+  }
+
+  @Override
+  public boolean isEmpty() {
+    for (Deque deque : _deques) {
+      if (!deque.isEmpty()) {
+        return false;
+      }
+    }
+    return true;
+  }
+
+  @Override
+  public int size() {
+    int size = 0;
+    for (Deque deque : _deques) {
+      size += deque.size();
+    }
+    return size;
+  }
+
+  @Override
+  public Iterator<ContextRunnable> iterator() {
+    final List<ContextRunnable> list = new ArrayList<ContextRunnable>();
+    for (Deque deque : _deques) {
+      deque.copyTo(list);
+    }
+    return list.iterator();
+  }
+
+  @Override
+  public void add(final ContextRunnable runnable) {
+    getLocal().push(runnable);
+  }
+
+  @Override
+  public ContextRunnable take() {
+    final Deque local = getLocal();
+    ContextRunnable runnable = local.pop();
+    if (runnable != null) {
+      return runnable;
+    }
+    final Deque[] deques = _deques;
+    // Start stealing from a different point for each thread to spread the contention
+    final int start = (System.identityHashCode(local) & Integer.MAX_VALUE) % deques.length;
+    for (int i = 0; i < deques.length; i++) {
+      final Deque victim = deques[(start + i) % deques.length];
+      if ((victim != local) && !victim.isEmpty()) {
+        runnable = victim.steal();
+        if (runnable != null) {
+          return runnable;
+        }
+      }
+    }
+    return null;
+  }
+
+  /**
+   * Detaches the calling thread's deque. The deque is removed once it is empty; any tasks left in it are stolen by the other threads.
+   */
+  @Override
+  public void detach() {
+    final Deque local = _local.get();
+    if (local == null) {
+      return;
+    }
+    _local.remove();
+    local._detached = true;
+    synchronized (this) {
+      final List<Deque> remaining = new ArrayList<Deque>(_deques.length);
+      for (Deque deque : _deques) {
+        // A detached deque has no owner to push to it so will not become non-empty again
+        if (!deque._detached || !deque.isEmpty()) {
+          remaining.add(deque);
+        }
+      }
+      if (remaining.size() < _deques.length) {
+        _deques = remaining.toArray(new Deque[remaining.size()]);
+      }
+    }
+  }
+
+}
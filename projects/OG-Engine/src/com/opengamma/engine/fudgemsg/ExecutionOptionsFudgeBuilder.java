@@ -40,6 +40,8 @@ public class ExecutionOptionsFudgeBuilder implements FudgeBuilder<ExecutionOptio
   private static final String DEFAULT_EXECUTION_OPTIONS_FIELD = "defaultExecutionOptions";
   private static final String VERSION_CORRECTION_FIELD = "versionCorrection";
   private static final String BATCH_FIELD = "batch";
+  private static final String INCREMENTAL_CYCLES_FIELD = "incrementalCycles";
+  private static final String SHARE_RESULTS_FIELD = "shareResults";
 
   @Override
   public MutableFudgeMsg buildMessage(FudgeSerializer serializer, ExecutionOptions object) {
@@ -52,6 +54,8 @@ public class ExecutionOptionsFudgeBuilder implements FudgeBuilder<ExecutionOptio
     msg.add(COMPILE_ONLY_FIELD, object.getFlags().contains(ViewExecutionFlags.COMPILE_ONLY));
     msg.add(WAIT_FOR_INITIAL_TRIGGER_FIELD, object.getFlags().contains(ViewExecutionFlags.WAIT_FOR_INITIAL_TRIGGER));
     msg.add(BATCH_FIELD, object.getFlags().contains(ViewExecutionFlags.BATCH));
+    msg.add(INCREMENTAL_CYCLES_FIELD, object.getFlags().contains(ViewExecutionFlags.INCREMENTAL_CYCLES));
+    msg.add(SHARE_RESULTS_FIELD, object.getFlags().contains(ViewExecutionFlags.SHARE_RESULTS));
     if (object.getMaxSuccessiveDeltaCycles() != null) {
       msg.add(MAX_SUCCESSIVE_DELTA_CYCLES_FIELD, object.getMaxSuccessiveDeltaCycles());
     }
@@ -85,6 +89,12 @@ public class ExecutionOptionsFudgeBuilder implements FudgeBuilder<ExecutionOptio
     if (BooleanUtils.isTrue(message.getBoolean(BATCH_FIELD))) {
       flags.add(ViewExecutionFlags.BATCH);
     }
+    if (BooleanUtils.isTrue(message.getBoolean(INCREMENTAL_CYCLES_FIELD))) {
+      flags.add(ViewExecutionFlags.INCREMENTAL_CYCLES);
+    }
+    if (BooleanUtils.isTrue(message.getBoolean(SHARE_RESULTS_FIELD))) {
+      flags.add(ViewExecutionFlags.SHARE_RESULTS);
+    }
     Integer maxSuccessiveDeltaCycles = null;
     if (message.hasField(MAX_SUCCESSIVE_DELTA_CYCLES_FIELD)) {
       maxSuccessiveDeltaCycles = message.getInt(MAX_SUCCESSIVE_DELTA_CYCLES_FIELD);
@@ -5,7 +5,12 @@
  */
 package com.opengamma.engine.fudgemsg;
 
+import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
+import it.unimi.dsi.fastutil.ints.IntArrayList;
+
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 
@@ -17,14 +22,19 @@ import org.fudgemsg.mapping.FudgeDeserializer;
 import org.fudgemsg.mapping.FudgeSerializer;
 import org.fudgemsg.mapping.GenericFudgeBuilderFor;
 
+import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
 import com.opengamma.engine.view.InMemoryViewComputationResultModel;
 import com.opengamma.engine.view.InMemoryViewResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 
 /**
+ * Fudge message builder for {@link ViewComputationResultModel}. A {@link ColumnarViewComputationResultModel} is written in its columnar form,
+ * with the doubles of each column as a single primitive array, and is read back as a columnar model.
  */
 @GenericFudgeBuilderFor(ViewComputationResultModel.class)
 public class ViewComputationResultModelFudgeBuilder extends ViewResultModelFudgeBuilder implements FudgeBuilder<ViewComputationResultModel> {
@@ -33,10 +43,27 @@ public class ViewComputationResultModelFudgeBuilder extends ViewResultModelFudge
   private static final String FIELD_SPECIFICATION_MAPPING = "specMapping";
   private static final String FIELD_SPECIFICATION = "specification";
   private static final String FIELD_REQUIREMENT = "requirement";
+  private static final String FIELD_COLUMNAR = "columnar";
+  private static final String FIELD_TARGET = "target";
+  private static final String FIELD_COLUMN = "column";
+  private static final String FIELD_CALC_CONFIG = "calcConfig";
+  private static final String FIELD_VALUE_NAME = "valueName";
+  private static final String FIELD_PROPERTIES = "properties";
+  private static final String FIELD_DOUBLE_ROWS = "doubleRows";
+  private static final String FIELD_DOUBLES = "doubles";
+  private static final String FIELD_OBJECT_ROWS = "objectRows";
+  private static final String FIELD_DETAILED_ROWS = "detailedRows";
+  private static final String FIELD_OBJECT = "object";
 
   @Override
   public MutableFudgeMsg buildMessage(FudgeSerializer serializer, ViewComputationResultModel resultModel) {
-    final MutableFudgeMsg message = ViewResultModelFudgeBuilder.createResultModelMessage(serializer, resultModel);
+    final MutableFudgeMsg message;
+    if (resultModel instanceof ColumnarViewComputationResultModel) {
+      message = ViewResultModelFudgeBuilder.createResultModelHeaderMessage(serializer, resultModel);
+      message.add(FIELD_COLUMNAR, buildColumnarMessage(serializer, (ColumnarViewComputationResultModel) resultModel));
+    } else {
+      message = ViewResultModelFudgeBuilder.createResultModelMessage(serializer, resultModel);
+    }
     
     // Prevent subclass headers from being added to the message later, ensuring that this builder will be used for deserialization
     FudgeSerializer.addClassHeader(message, ViewComputationResultModel.class);
@@ -61,7 +88,16 @@ public class ViewComputationResultModelFudgeBuilder extends ViewResultModelFudge
 
   @Override
   public ViewComputationResultModel buildObject(FudgeDeserializer deserializer, FudgeMsg message) {
-    InMemoryViewComputationResultModel resultModel = (InMemoryViewComputationResultModel) bootstrapCommonDataFromMessage(deserializer, message);
+    final FudgeField columnarField = message.getByName(FIELD_COLUMNAR);
+    final InMemoryViewComputationResultModel resultModel;
+    if (columnarField != null) {
+      final ColumnarViewComputationResultModel columnarModel = new ColumnarViewComputationResultModel();
+      buildColumnarObject(deserializer, message.getFieldValue(FudgeMsg.class, columnarField), columnarModel);
+      setHeaderDataFromMessage(deserializer, message, columnarModel);
+      resultModel = columnarModel;
+    } else {
+      resultModel = (InMemoryViewComputationResultModel) bootstrapCommonDataFromMessage(deserializer, message);
+    }
     
     for (FudgeField field : message.getFieldValue(FudgeMsg.class, message.getByName(FIELD_LIVEDATA))) {
       ComputedValue liveData = deserializer.fieldValueToObject(ComputedValue.class, field);
@@ -79,6 +115,91 @@ public class ViewComputationResultModelFudgeBuilder extends ViewResultModelFudge
     return resultModel;
   }
 
+  private static MutableFudgeMsg buildColumnarMessage(final FudgeSerializer serializer, final ColumnarViewComputationResultModel resultModel) {
+    final MutableFudgeMsg message = serializer.newMessage();
+    final List<ComputationTargetSpecification> targets = resultModel.getTargetRows();
+    for (ComputationTargetSpecification target : targets) {
+      serializer.addToMessage(message, FIELD_TARGET, null, target);
+    }
+    for (ColumnarViewComputationResultModel.Column column : resultModel.getColumns()) {
+      final MutableFudgeMsg columnMsg = serializer.newMessage();
+      columnMsg.add(FIELD_CALC_CONFIG, column.getCalculationConfigurationName());
+      columnMsg.add(FIELD_VALUE_NAME, column.getValueName());
+      serializer.addToMessage(columnMsg, FIELD_PROPERTIES, null, column.getProperties());
+      final IntArrayList doubleRows = new IntArrayList();
+      final DoubleArrayList doubles = new DoubleArrayList();
+      final IntArrayList objectRows = new IntArrayList();
+      final IntArrayList detailedRows = new IntArrayList();
+      final List<Object> objects = new ArrayList<Object>();
+      for (int row = 0; row < targets.size(); row++) {
+        if (column.isDouble(row)) {
+          doubleRows.add(row);
+          doubles.add(column.getDouble(row));
+        } else if (column.isPresent(row)) {
+          if (column.isDetailed(row)) {
+            detailedRows.add(row);
+          }
+          objectRows.add(row);
+          objects.add(column.getObject(row));
+        }
+      }
+      if (!doubleRows.isEmpty()) {
+        columnMsg.add(FIELD_DOUBLE_ROWS, doubleRows.toIntArray());
+        columnMsg.add(FIELD_DOUBLES, doubles.toDoubleArray());
+      }
+      if (!objectRows.isEmpty()) {
+        columnMsg.add(FIELD_OBJECT_ROWS, objectRows.toIntArray());
+        if (!detailedRows.isEmpty()) {
+          columnMsg.add(FIELD_DETAILED_ROWS, detailedRows.toIntArray());
+        }
+        for (Object object : objects) {
+          serializer.addToMessageWithClassHeaders(columnMsg, FIELD_OBJECT, null, object);
+        }
+      }
+      message.add(FIELD_COLUMN, columnMsg);
+    }
+    return message;
+  }
+
+  private static void buildColumnarObject(final FudgeDeserializer deserializer, final FudgeMsg message, final ColumnarViewComputationResultModel resultModel) {
+    final List<ComputationTargetSpecification> targets = new ArrayList<ComputationTargetSpecification>();
+    for (FudgeField targetField : message.getAllByName(FIELD_TARGET)) {
+      targets.add(deserializer.fieldValueToObject(ComputationTargetSpecification.class, targetField));
+    }
+    for (FudgeField columnField : message.getAllByName(FIELD_COLUMN)) {
+      final FudgeMsg columnMsg = message.getFieldValue(FudgeMsg.class, columnField);
+      final String calcConfig = columnMsg.getString(FIELD_CALC_CONFIG);
+      final String valueName = columnMsg.getString(FIELD_VALUE_NAME);
+      final ValueProperties properties = deserializer.fieldValueToObject(ValueProperties.class, columnMsg.getByName(FIELD_PROPERTIES));
+      final FudgeField doubleRowsField = columnMsg.getByName(FIELD_DOUBLE_ROWS);
+      if (doubleRowsField != null) {
+        final int[] rows = deserializer.fieldValueToObject(int[].class, doubleRowsField);
+        final double[] doubles = deserializer.fieldValueToObject(double[].class, columnMsg.getByName(FIELD_DOUBLES));
+        for (int i = 0; i < rows.length; i++) {
+          resultModel.addValue(calcConfig, targets.get(rows[i]), valueName, properties, doubles[i]);
+        }
+      }
+      final FudgeField objectRowsField = columnMsg.getByName(FIELD_OBJECT_ROWS);
+      if (objectRowsField != null) {
+        final int[] rows = deserializer.fieldValueToObject(int[].class, objectRowsField);
+        final FudgeField detailedRowsField = columnMsg.getByName(FIELD_DETAILED_ROWS);
+        final int[] detailedRows = (detailedRowsField != null) ? deserializer.fieldValueToObject(int[].class, detailedRowsField) : new int[0];
+        int detailed = 0;
+        int i = 0;
+        for (FudgeField objectField : columnMsg.getAllByName(FIELD_OBJECT)) {
+          final Object object = deserializer.fieldValueToObject(objectField);
+          final int row = rows[i++];
+          if ((detailed < detailedRows.length) && (detailedRows[detailed] == row)) {
+            detailed++;
+            resultModel.addValue(calcConfig, (ComputedValue) object);
+          } else {
+            resultModel.addValue(calcConfig, new ComputedValue(new ValueSpecification(valueName, targets.get(row), properties), object));
+          }
+        }
+      }
+    }
+  }
+
   @Override
   protected InMemoryViewResultModel constructImpl() {
     return new InMemoryViewComputationResultModel();
@@ -41,13 +41,7 @@ public abstract class ViewResultModelFudgeBuilder {
   private static final String FIELD_RESULTS = "results";
 
   protected static MutableFudgeMsg createResultModelMessage(final FudgeSerializer serializer, final ViewResultModel resultModel) {
-    final MutableFudgeMsg message = serializer.newMessage();
-    message.add(FIELD_VIEWPROCESSID, resultModel.getViewProcessId());
-    message.add(FIELD_VIEWCYCLEID, resultModel.getViewCycleId());
-    message.add(FIELD_VALUATION_TIME, resultModel.getValuationTime());
-    message.add(FIELD_CALCULATION_TIME, resultModel.getCalculationTime());
-    serializer.addToMessage(message, FIELD_CALCULATION_DURATION, null, resultModel.getCalculationDuration());
-    serializer.addToMessage(message, FIELD_VERSION_CORRECTION, null, resultModel.getVersionCorrection());
+    final MutableFudgeMsg message = createResultModelHeaderMessage(serializer, resultModel);
     final Collection<String> calculationConfigurations = resultModel.getCalculationConfigurationNames();
     final MutableFudgeMsg resultMsg = serializer.newMessage();
     for (String calculationConfiguration : calculationConfigurations) {
@@ -58,14 +52,18 @@ public abstract class ViewResultModelFudgeBuilder {
     return message;
   }
 
+  protected static MutableFudgeMsg createResultModelHeaderMessage(final FudgeSerializer serializer, final ViewResultModel resultModel) {
+    final MutableFudgeMsg message = serializer.newMessage();
+    message.add(FIELD_VIEWPROCESSID, resultModel.getViewProcessId());
+    message.add(FIELD_VIEWCYCLEID, resultModel.getViewCycleId());
+    message.add(FIELD_VALUATION_TIME, resultModel.getValuationTime());
+    message.add(FIELD_CALCULATION_TIME, resultModel.getCalculationTime());
+    serializer.addToMessage(message, FIELD_CALCULATION_DURATION, null, resultModel.getCalculationDuration());
+    serializer.addToMessage(message, FIELD_VERSION_CORRECTION, null, resultModel.getVersionCorrection());
+    return message;
+  }
+
   protected InMemoryViewResultModel bootstrapCommonDataFromMessage(final FudgeDeserializer deserializer, final FudgeMsg message) {
-    final UniqueId viewProcessId = message.getValue(UniqueId.class, FIELD_VIEWPROCESSID);
-    final UniqueId viewCycleId = message.getValue(UniqueId.class, FIELD_VIEWCYCLEID);
-    final Instant valuationTime = message.getFieldValue(Instant.class, message.getByName(FIELD_VALUATION_TIME));
-    final Instant calculationTime = message.getFieldValue(Instant.class, message.getByName(FIELD_CALCULATION_TIME));
-    FudgeField durationField = message.getByName(FIELD_CALCULATION_DURATION);
-    final Duration calculationDuration = durationField != null ? deserializer.fieldValueToObject(Duration.class, durationField) : null;
-    final VersionCorrection versionCorrection = deserializer.fieldValueToObject(VersionCorrection.class, message.getByName(FIELD_VERSION_CORRECTION));
     final Map<String, ViewCalculationResultModel> configurationMap = new HashMap<String, ViewCalculationResultModel>();
     final Queue<String> keys = new LinkedList<String>();
     final Queue<ViewCalculationResultModel> values = new LinkedList<ViewCalculationResultModel>();
@@ -95,15 +93,24 @@ public abstract class ViewResultModelFudgeBuilder {
         }
       }
     }
-    
+    setHeaderDataFromMessage(deserializer, message, resultModel);
+    return resultModel;
+  }
+
+  protected static void setHeaderDataFromMessage(final FudgeDeserializer deserializer, final FudgeMsg message, final InMemoryViewResultModel resultModel) {
+    final UniqueId viewProcessId = message.getValue(UniqueId.class, FIELD_VIEWPROCESSID);
+    final UniqueId viewCycleId = message.getValue(UniqueId.class, FIELD_VIEWCYCLEID);
+    final Instant valuationTime = message.getFieldValue(Instant.class, message.getByName(FIELD_VALUATION_TIME));
+    final Instant calculationTime = message.getFieldValue(Instant.class, message.getByName(FIELD_CALCULATION_TIME));
+    FudgeField durationField = message.getByName(FIELD_CALCULATION_DURATION);
+    final Duration calculationDuration = durationField != null ? deserializer.fieldValueToObject(Duration.class, durationField) : null;
+    final VersionCorrection versionCorrection = deserializer.fieldValueToObject(VersionCorrection.class, message.getByName(FIELD_VERSION_CORRECTION));
     resultModel.setViewProcessId(viewProcessId);
     resultModel.setViewCycleId(viewCycleId);
     resultModel.setValuationTime(valuationTime);
     resultModel.setCalculationTime(calculationTime);
     resultModel.setCalculationDuration(calculationDuration);
     resultModel.setVersionCorrection(versionCorrection);
-    
-    return resultModel;
   }
   
   protected abstract InMemoryViewResultModel constructImpl();
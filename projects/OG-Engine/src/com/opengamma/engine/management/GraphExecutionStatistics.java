@@ -147,6 +147,30 @@ public class GraphExecutionStatistics implements GraphExecutionStatisticsMBean {
     return graphExecutionStatistics != null ? graphExecutionStatistics.getProcessedJobDataCost() : null;
   }
 
+  @Override
+  public Long getIdealTime() {
+    com.opengamma.engine.view.calc.stats.GraphExecutionStatistics graphExecutionStatistics = getGraphExecutionStatistics();
+    return graphExecutionStatistics != null ? graphExecutionStatistics.getIdealTime() : null;
+  }
+
+  @Override
+  public Long getMakespan() {
+    com.opengamma.engine.view.calc.stats.GraphExecutionStatistics graphExecutionStatistics = getGraphExecutionStatistics();
+    return graphExecutionStatistics != null ? graphExecutionStatistics.getMakespan() : null;
+  }
+
+  @Override
+  public Long getLastIdealTime() {
+    com.opengamma.engine.view.calc.stats.GraphExecutionStatistics graphExecutionStatistics = getGraphExecutionStatistics();
+    return graphExecutionStatistics != null ? graphExecutionStatistics.getLastIdealTime() : null;
+  }
+
+  @Override
+  public Long getLastMakespan() {
+    com.opengamma.engine.view.calc.stats.GraphExecutionStatistics graphExecutionStatistics = getGraphExecutionStatistics();
+    return graphExecutionStatistics != null ? graphExecutionStatistics.getLastMakespan() : null;
+  }
+
   @Override
   public String getLastProcessedTime() {
     com.opengamma.engine.view.calc.stats.GraphExecutionStatistics graphExecutionStatistics = getGraphExecutionStatistics();
@@ -38,6 +38,14 @@ public interface GraphExecutionStatisticsMBean {
 
   Long getProcessedJobDataCost();
 
+  Long getIdealTime();
+
+  Long getMakespan();
+
+  Long getLastIdealTime();
+
+  Long getLastMakespan();
+
   String getLastProcessedTime();
 
   String getLastExecutedTime();
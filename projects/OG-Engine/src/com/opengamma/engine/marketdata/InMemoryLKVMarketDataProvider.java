@@ -6,10 +6,9 @@
 package com.opengamma.engine.marketdata;
 
 import java.util.Collections;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Set;
-import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -29,12 +28,16 @@ import com.opengamma.util.ArgumentChecker;
 
 /**
  * An implementation of {@link MarketDataProvider} which maintains an LKV cache of externally-provided values.
+ * <p>
+ * The values are held in a {@link PersistentValueMap} which is replaced on each change. A snapshot holds the map current at the time it
+ * was taken, so snapshots are taken in constant time and none of the values are copied.
  */
 public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider implements MarketDataInjector, MarketDataAvailabilityProvider {
   
   private static final Logger s_logger = LoggerFactory.getLogger(InMemoryLKVMarketDataProvider.class);
   
-  private final Map<ValueRequirement, Object> _lastKnownValues = new ConcurrentHashMap<ValueRequirement, Object>();
+  private final AtomicReference<PersistentValueMap<ValueRequirement, Object>> _lastKnownValues =
+      new AtomicReference<PersistentValueMap<ValueRequirement, Object>>(PersistentValueMap.<ValueRequirement, Object>empty());
   private final SecuritySource _securitySource;
   private final MarketDataPermissionProvider _permissionProvider;
 
@@ -102,16 +105,40 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
   //-------------------------------------------------------------------------
   @Override
   public MarketDataAvailability getAvailability(ValueRequirement requirement) {
-    return _lastKnownValues.containsKey(requirement) ? MarketDataAvailability.AVAILABLE : MarketDataAvailability.NOT_AVAILABLE;
+    return _lastKnownValues.get().containsKey(requirement) ? MarketDataAvailability.AVAILABLE : MarketDataAvailability.NOT_AVAILABLE;
   }
 
   //-------------------------------------------------------------------------
   @Override
   public void addValue(ValueRequirement requirement, Object value) {
-    _lastKnownValues.put(requirement, value);
+    ArgumentChecker.notNull(requirement, "requirement");
+    ArgumentChecker.notNull(value, "value");
+    PersistentValueMap<ValueRequirement, Object> values;
+    do {
+      values = _lastKnownValues.get();
+    } while (!_lastKnownValues.compareAndSet(values, values.with(requirement, value)));
     valueChanged(requirement);
   }
   
+  /**
+   * Adds a number of values as a single change, so a snapshot sees either all of them or none.
+   *
+   * @param values  the values to add, not null
+   */
+  public void addValues(Map<ValueRequirement, ?> values) {
+    ArgumentChecker.notNull(values, "values");
+    PersistentValueMap<ValueRequirement, Object> previous;
+    PersistentValueMap<ValueRequirement, Object> next;
+    do {
+      previous = _lastKnownValues.get();
+      next = previous;
+      for (Map.Entry<ValueRequirement, ?> value : values.entrySet()) {
+        next = next.with(value.getKey(), value.getValue());
+      }
+    } while (!_lastKnownValues.compareAndSet(previous, next));
+    valuesChanged(values.keySet());
+  }
+
   @Override
   public void addValue(ExternalId identifier, String valueName, Object value) {
     ValueRequirement valueRequirement = resolveRequirement(identifier, valueName);
@@ -120,7 +147,10 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
 
   @Override
   public void removeValue(final ValueRequirement valueRequirement) {
-    _lastKnownValues.remove(valueRequirement);
+    PersistentValueMap<ValueRequirement, Object> values;
+    do {
+      values = _lastKnownValues.get();
+    } while (!_lastKnownValues.compareAndSet(values, values.without(valueRequirement)));
     valueChanged(valueRequirement);
   }
   
@@ -132,16 +162,16 @@ public class InMemoryLKVMarketDataProvider extends AbstractMarketDataProvider im
   
   //-------------------------------------------------------------------------
   public Set<ValueRequirement> getAllValueKeys() {
-    return Collections.unmodifiableSet(_lastKnownValues.keySet());
+    return _lastKnownValues.get().keySet();
   }
 
   public Object getCurrentValue(ValueRequirement valueRequirement) {
-    return _lastKnownValues.get(valueRequirement);
+    return _lastKnownValues.get().get(valueRequirement);
   }
   
   //-------------------------------------------------------------------------
-  /*package*/ Map<ValueRequirement, Object> doSnapshot() {
-    return new HashMap<ValueRequirement, Object>(_lastKnownValues);
+  /*package*/ PersistentValueMap<ValueRequirement, Object> doSnapshot() {
+    return _lastKnownValues.get();
   }
   
   private ValueRequirement resolveRequirement(ExternalId identifier, String valueName) {
@@ -5,8 +5,6 @@
  */
 package com.opengamma.engine.marketdata;
 
-import java.util.Collections;
-import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.TimeUnit;
 
@@ -27,7 +25,7 @@ public class InMemoryLKVMarketDataSnapshot extends AbstractMarketDataSnapshot {
   
   private final InMemoryLKVMarketDataProvider _provider;
   private Instant _snapshotTime;
-  private Map<ValueRequirement, Object> _snapshot;
+  private PersistentValueMap<ValueRequirement, Object> _snapshot;
   
   public InMemoryLKVMarketDataSnapshot(InMemoryLKVMarketDataProvider provider) {
     _provider = provider;
@@ -67,11 +65,11 @@ public class InMemoryLKVMarketDataSnapshot extends AbstractMarketDataSnapshot {
 
   //-------------------------------------------------------------------------
   public Set<ValueRequirement> getAllValueKeys() {
-    return Collections.unmodifiableSet(getSnapshot().keySet());
+    return getSnapshot().keySet();
   }
   
   //-------------------------------------------------------------------------
-  private Map<ValueRequirement, Object> getSnapshot() {
+  private PersistentValueMap<ValueRequirement, Object> getSnapshot() {
     if (_snapshot == null) {
       throw new IllegalStateException("Snapshot has not been initialised");
     }
@@ -0,0 +1,445 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Immutable map of keys to values based on a hash array mapped trie. Adding or removing a key copies only the nodes on the path to that key,
+ * sharing the remainder of the trie with the original, so successive versions of a large map can be kept without copying all of the entries.
+ * A reference to an instance is therefore a consistent, unchanging view of the map at the version it was produced.
+ * <p>
+ * Null keys and values are not supported.
+ *
+ * @param <K> the key type
+ * @param <V> the value type
+ */
+public final class PersistentValueMap<K, V> {
+
+  private static final int BITS = 5;
+  private static final int MASK = (1 << BITS) - 1;
+
+  private static final PersistentValueMap<Object, Object> EMPTY = new PersistentValueMap<Object, Object>(BitmapNode.EMPTY, 0, 0L);
+
+  private final Node _root;
+  private final int _size;
+  private final long _version;
+
+  private PersistentValueMap(final Node root, final int size, final long version) {
+    _root = root;
+    _size = size;
+    _version = version;
+  }
+
+  /**
+   * Returns the empty map.
+   *
+   * @param <K> the key type
+   * @param <V> the value type
+   * @return the empty map, at version zero, not null
+   */
+  @SuppressWarnings("unchecked")
+  public static <K, V> PersistentValueMap<K, V> empty() {
+    return (PersistentValueMap<K, V>) EMPTY;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the number of modifications made since the empty map to produce this one.
+   *
+   * @return the version
+   */
+  public long getVersion() {
+    return _version;
+  }
+
+  public int size() {
+    return _size;
+  }
+
+  public boolean isEmpty() {
+    return _size == 0;
+  }
+
+  /**
+   * Returns the value associated with a key.
+   *
+   * @param key the key to look up
+   * @return the value, or null if the key is not in the map
+   */
+  @SuppressWarnings("unchecked")
+  public V get(final Object key) {
+    if (key == null) {
+      return null;
+    }
+    return (V) _root.find(0, hash(key), key);
+  }
+
+  public boolean containsKey(final Object key) {
+    return get(key) != null;
+  }
+
+  /**
+   * Returns a map with the key associated with the value. This map is unchanged.
+   *
+   * @param key the key, not null
+   * @param value the value, not null
+   * @return the new map, or this map if the key is already associated with the same value instance, not null
+   */
+  public PersistentValueMap<K, V> with(final K key, final V value) {
+    ArgumentChecker.notNull(key, "key");
+    ArgumentChecker.notNull(value, "value");
+    final boolean[] added = new boolean[1];
+    final Node root = _root.with(0, hash(key), key, value, added);
+    if (root == _root) {
+      return this;
+    }
+    return new PersistentValueMap<K, V>(root, added[0] ? _size + 1 : _size, _version + 1);
+  }
+
+  /**
+   * Returns a map without the key. This map is unchanged.
+   *
+   * @param key the key
+   * @return the new map, or this map if the key is not present, not null
+   */
+  public PersistentValueMap<K, V> without(final Object key) {
+    if (key == null) {
+      return this;
+    }
+    final Node root = _root.without(0, hash(key), key);
+    if (root == _root) {
+      return this;
+    }
+    return new PersistentValueMap<K, V>((root != null) ? root : BitmapNode.EMPTY, _size - 1, _version + 1);
+  }
+
+  /**
+   * Returns the keys of this map. The set is a view onto the trie; no entries are copied.
+   *
+   * @return the unmodifiable key set, not null
+   */
+  public Set<K> keySet() {
+    return new AbstractSet<K>() {
+
+      @Override
+      public Iterator<K> iterator() {
+        return new KeyIterator<K>(_root);
+      }
+
+      @Override
+      public int size() {
+        return _size;
+      }
+
+      @Override
+      public boolean contains(final Object o) {
+        return containsKey(o);
+      }
+
+    };
+  }
+
+  @Override
+  public String toString() {
+    final StringBuilder sb = new StringBuilder("PersistentValueMap[version=").append(_version).append(", size=").append(_size).append(", {");
+    final Iterator<K> itr = keySet().iterator();
+    while (itr.hasNext()) {
+      final K key = itr.next();
+      sb.append(key).append('=').append(get(key));
+      if (itr.hasNext()) {
+        sb.append(", ");
+      }
+    }
+    return sb.append("}]").toString();
+  }
+
+  //-------------------------------------------------------------------------
+  private static int hash(final Object key) {
+    int h = key.hashCode();
+    h ^= (h >>> 20) ^ (h >>> 12);
+    return h ^ (h >>> 7) ^ (h >>> 4);
+  }
+
+  private static int bit(final int hash, final int shift) {
+    return 1 << ((hash >>> shift) & MASK);
+  }
+
+  private static Object[] cloneAndSet(final Object[] array, final int i, final Object a) {
+    final Object[] clone = array.clone();
+    clone[i] = a;
+    return clone;
+  }
+
+  private static Object[] cloneAndSet(final Object[] array, final int i, final Object a, final int j, final Object b) {
+    final Object[] clone = array.clone();
+    clone[i] = a;
+    clone[j] = b;
+    return clone;
+  }
+
+  private static Object[] insertPair(final Object[] array, final int pair, final Object key, final Object value) {
+    final Object[] result = new Object[array.length + 2];
+    System.arraycopy(array, 0, result, 0, pair * 2);
+    result[pair * 2] = key;
+    result[pair * 2 + 1] = value;
+    System.arraycopy(array, pair * 2, result, pair * 2 + 2, array.length - pair * 2);
+    return result;
+  }
+
+  private static Object[] removePair(final Object[] array, final int pair) {
+    final Object[] result = new Object[array.length - 2];
+    System.arraycopy(array, 0, result, 0, pair * 2);
+    System.arraycopy(array, pair * 2 + 2, result, pair * 2, result.length - pair * 2);
+    return result;
+  }
+
+  private static Node createNode(final int shift, final Object key1, final Object value1, final int hash2, final Object key2, final Object value2) {
+    final int hash1 = hash(key1);
+    if (hash1 == hash2) {
+      return new CollisionNode(hash1, new Object[] {key1, value1, key2, value2 });
+    }
+    final boolean[] added = new boolean[1];
+    return BitmapNode.EMPTY.with(shift, hash1, key1, value1, added).with(shift, hash2, key2, value2, added);
+  }
+
+  /**
+   * A node of the trie. The array holds key/value pairs; a null key indicates that the value is a child node.
+   */
+  private abstract static class Node {
+
+    private final Object[] _array;
+
+    protected Node(final Object[] array) {
+      _array = array;
+    }
+
+    protected Object[] getArray() {
+      return _array;
+    }
+
+    public abstract Object find(int shift, int hash, Object key);
+
+    public abstract Node with(int shift, int hash, Object key, Object value, boolean[] added);
+
+    public abstract Node without(int shift, int hash, Object key);
+
+  }
+
+  private static final class BitmapNode extends Node {
+
+    private static final BitmapNode EMPTY = new BitmapNode(0, new Object[0]);
+
+    private final int _bitmap;
+
+    private BitmapNode(final int bitmap, final Object[] array) {
+      super(array);
+      _bitmap = bitmap;
+    }
+
+    private int index(final int bit) {
+      return Integer.bitCount(_bitmap & (bit - 1));
+    }
+
+    @Override
+    public Object find(final int shift, final int hash, final Object key) {
+      final int bit = bit(hash, shift);
+      if ((_bitmap & bit) == 0) {
+        return null;
+      }
+      final int index = index(bit);
+      final Object k = getArray()[index * 2];
+      final Object v = getArray()[index * 2 + 1];
+      if (k == null) {
+        return ((Node) v).find(shift + BITS, hash, key);
+      }
+      return key.equals(k) ? v : null;
+    }
+
+    @Override
+    public Node with(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+      final int bit = bit(hash, shift);
+      final int index = index(bit);
+      if ((_bitmap & bit) == 0) {
+        added[0] = true;
+        return new BitmapNode(_bitmap | bit, insertPair(getArray(), index, key, value));
+      }
+      final Object k = getArray()[index * 2];
+      final Object v = getArray()[index * 2 + 1];
+      if (k == null) {
+        final Node child = ((Node) v).with(shift + BITS, hash, key, value, added);
+        if (child == v) {
+          return this;
+        }
+        return new BitmapNode(_bitmap, cloneAndSet(getArray(), index * 2 + 1, child));
+      }
+      if (key.equals(k)) {
+        if (v == value) {
+          return this;
+        }
+        return new BitmapNode(_bitmap, cloneAndSet(getArray(), index * 2 + 1, value));
+      }
+      added[0] = true;
+      return new BitmapNode(_bitmap, cloneAndSet(getArray(), index * 2, null, index * 2 + 1, createNode(shift + BITS, k, v, hash, key, value)));
+    }
+
+    @Override
+    public Node without(final int shift, final int hash, final Object key) {
+      final int bit = bit(hash, shift);
+      if ((_bitmap & bit) == 0) {
+        return this;
+      }
+      final int index = index(bit);
+      final Object k = getArray()[index * 2];
+      final Object v = getArray()[index * 2 + 1];
+      if (k == null) {
+        final Node child = ((Node) v).without(shift + BITS, hash, key);
+        if (child == v) {
+          return this;
+        }
+        if (child != null) {
+          return new BitmapNode(_bitmap, cloneAndSet(getArray(), index * 2 + 1, child));
+        }
+      } else if (!key.equals(k)) {
+        return this;
+      }
+      if (_bitmap == bit) {
+        return null;
+      }
+      return new BitmapNode(_bitmap ^ bit, removePair(getArray(), index));
+    }
+
+  }
+
+  /**
+   * Holds keys whose hashes are identical.
+   */
+  private static final class CollisionNode extends Node {
+
+    private final int _hash;
+
+    private CollisionNode(final int hash, final Object[] array) {
+      super(array);
+      _hash = hash;
+    }
+
+    private int indexOf(final Object key) {
+      final Object[] array = getArray();
+      for (int i = 0; i < array.length; i += 2) {
+        if (key.equals(array[i])) {
+          return i;
+        }
+      }
+      return -1;
+    }
+
+    @Override
+    public Object find(final int shift, final int hash, final Object key) {
+      if (hash != _hash) {
+        return null;
+      }
+      final int i = indexOf(key);
+      return (i < 0) ? null : getArray()[i + 1];
+    }
+
+    @Override
+    public Node with(final int shift, final int hash, final Object key, final Object value, final boolean[] added) {
+      if (hash != _hash) {
+        return new BitmapNode(bit(_hash, shift), new Object[] {null, this }).with(shift, hash, key, value, added);
+      }
+      final int i = indexOf(key);
+      if (i < 0) {
+        added[0] = true;
+        return new CollisionNode(_hash, insertPair(getArray(), getArray().length / 2, key, value));
+      }
+      if (getArray()[i + 1] == value) {
+        return this;
+      }
+      return new CollisionNode(_hash, cloneAndSet(getArray(), i + 1, value));
+    }
+
+    @Override
+    public Node without(final int shift, final int hash, final Object key) {
+      if (hash != _hash) {
+        return this;
+      }
+      final int i = indexOf(key);
+      if (i < 0) {
+        return this;
+      }
+      if (getArray().length == 2) {
+        return null;
+      }
+      return new CollisionNode(_hash, removePair(getArray(), i / 2));
+    }
+
+  }
+
+  /**
+   * Depth first iteration over the keys of a trie.
+   */
+  private static final class KeyIterator<K> implements Iterator<K> {
+
+    private final Object[][] _arrays = new Object[(32 + BITS - 1) / BITS + 2][];
+    private final int[] _positions = new int[_arrays.length];
+    private int _depth;
+    private Object _next;
+
+    public KeyIterator(final Node root) {
+      _arrays[0] = root.getArray();
+      advance();
+    }
+
+    private void advance() {
+      while (_depth >= 0) {
+        final Object[] array = _arrays[_depth];
+        final int position = _positions[_depth];
+        if (position >= array.length) {
+          _depth--;
+          continue;
+        }
+        _positions[_depth] = position + 2;
+        final Object key = array[position];
+        if (key != null) {
+          _next = key;
+          return;
+        }
+        _depth++;
+        _arrays[_depth] = ((Node) array[position + 1]).getArray();
+        _positions[_depth] = 0;
+      }
+      _next = null;
+    }
+
+    @Override
+    public boolean hasNext() {
+      return _next != null;
+    }
+
+    @SuppressWarnings("unchecked")
+    @Override
+    public K next() {
+      if (_next == null) {
+        throw new NoSuchElementException();
+      }
+      final K key = (K) _next;
+      advance();
+      return key;
+    }
+
+    @Override
+    public void remove() {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+}
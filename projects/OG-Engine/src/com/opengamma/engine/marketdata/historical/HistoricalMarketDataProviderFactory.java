@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.marketdata.historical;
 
+import javax.time.calendar.LocalDate;
+
 import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
 import com.opengamma.core.security.SecuritySource;
 import com.opengamma.engine.marketdata.MarketDataProvider;
@@ -20,6 +22,9 @@ public class HistoricalMarketDataProviderFactory implements MarketDataProviderFa
 
   private final HistoricalTimeSeriesSource _timeSeriesSource;
   private final SecuritySource _securitySource;
+  private boolean _prefetch;
+  private LocalDate _prefetchStartDate;
+  private LocalDate _prefetchEndDate;
 
   public HistoricalMarketDataProviderFactory(final HistoricalTimeSeriesSource timeSeriesSource, SecuritySource securitySource) {
     ArgumentChecker.notNull(timeSeriesSource, "timeSeriesSource");
@@ -28,9 +33,31 @@ public class HistoricalMarketDataProviderFactory implements MarketDataProviderFa
     _securitySource = securitySource;
   }
 
+  /**
+   * Sets whether the providers created load each requirement's time-series once and serve the snapshots for every date
+   * from memory, as a {@link PrefetchingHistoricalMarketDataProvider}. This suits views run over a sequence of dates.
+   * 
+   * @param prefetch  true to prefetch time-series, false to query the source for each value
+   * @param startDate  the earliest date to prefetch, not null if prefetching
+   * @param endDate  the latest date to prefetch, not null if prefetching
+   */
+  public void setPrefetch(final boolean prefetch, final LocalDate startDate, final LocalDate endDate) {
+    if (prefetch) {
+      ArgumentChecker.notNull(startDate, "startDate");
+      ArgumentChecker.notNull(endDate, "endDate");
+    }
+    _prefetch = prefetch;
+    _prefetchStartDate = startDate;
+    _prefetchEndDate = endDate;
+  }
+
   @Override
   public MarketDataProvider create(MarketDataSpecification marketDataSpec) {
     HistoricalMarketDataSpecification historicalMarketDataSpec = (HistoricalMarketDataSpecification) marketDataSpec;
+    if (_prefetch) {
+      return new PrefetchingHistoricalMarketDataProvider(getTimeSeriesSource(), getSecuritySource(), historicalMarketDataSpec.getTimeSeriesResolverKey(),
+          historicalMarketDataSpec.getTimeSeriesFieldResolverKey(), _prefetchStartDate, _prefetchEndDate);
+    }
     return new HistoricalMarketDataProvider(getTimeSeriesSource(), getSecuritySource(), historicalMarketDataSpec.getTimeSeriesResolverKey(), historicalMarketDataSpec.getTimeSeriesFieldResolverKey());
   }
 
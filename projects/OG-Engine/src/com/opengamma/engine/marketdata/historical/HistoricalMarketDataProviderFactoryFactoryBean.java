@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.marketdata.historical;
 
+import javax.time.calendar.LocalDate;
+
 import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
 import com.opengamma.core.security.SecuritySource;
 import com.opengamma.util.ArgumentChecker;
@@ -17,6 +19,9 @@ public class HistoricalMarketDataProviderFactoryFactoryBean extends SingletonFac
 
   private HistoricalTimeSeriesSource _timeSeriesSource;
   private SecuritySource _securitySource;
+  private boolean _prefetch;
+  private LocalDate _prefetchStartDate;
+  private LocalDate _prefetchEndDate;
   
   public HistoricalTimeSeriesSource getTimeSeriesSource() {
     return _timeSeriesSource;
@@ -34,10 +39,40 @@ public class HistoricalMarketDataProviderFactoryFactoryBean extends SingletonFac
     _securitySource = securitySource;
   }
 
+  public boolean isPrefetch() {
+    return _prefetch;
+  }
+
+  public void setPrefetch(boolean prefetch) {
+    _prefetch = prefetch;
+  }
+
+  public LocalDate getPrefetchStartDate() {
+    return _prefetchStartDate;
+  }
+
+  public void setPrefetchStartDate(LocalDate prefetchStartDate) {
+    _prefetchStartDate = prefetchStartDate;
+  }
+
+  public LocalDate getPrefetchEndDate() {
+    return _prefetchEndDate;
+  }
+
+  public void setPrefetchEndDate(LocalDate prefetchEndDate) {
+    _prefetchEndDate = prefetchEndDate;
+  }
+
   @Override
   protected HistoricalMarketDataProviderFactory createObject() {
     ArgumentChecker.notNullInjected(getTimeSeriesSource(), "timeSeriesSource");
-    return new HistoricalMarketDataProviderFactory(getTimeSeriesSource(), getSecuritySource());
+    if (isPrefetch()) {
+      ArgumentChecker.notNullInjected(getPrefetchStartDate(), "prefetchStartDate");
+      ArgumentChecker.notNullInjected(getPrefetchEndDate(), "prefetchEndDate");
+    }
+    final HistoricalMarketDataProviderFactory factory = new HistoricalMarketDataProviderFactory(getTimeSeriesSource(), getSecuritySource());
+    factory.setPrefetch(isPrefetch(), getPrefetchStartDate(), getPrefetchEndDate());
+    return factory;
   }
 
 }
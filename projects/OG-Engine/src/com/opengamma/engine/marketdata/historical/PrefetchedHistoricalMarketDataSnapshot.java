@@ -0,0 +1,58 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata.historical;
+
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * A historical market data snapshot served from the time-series loaded by a {@link PrefetchingHistoricalMarketDataProvider}.
+ * A snapshot for a date outside the range loaded by the provider queries the time-series source directly.
+ */
+public class PrefetchedHistoricalMarketDataSnapshot extends HistoricalMarketDataSnapshot {
+
+  private final LocalDate _snapshotDate;
+  private final PrefetchingHistoricalMarketDataProvider _provider;
+
+  /**
+   * Creates a market data snapshot.
+   *
+   * @param timeSeriesSource  the time-series source, not null
+   * @param snapshotInstant  the snapshot instant to report to the engine, not null
+   * @param snapshotDate  the date of the required value, not null
+   * @param provider  the provider holding the loaded time-series, not null
+   */
+  public PrefetchedHistoricalMarketDataSnapshot(HistoricalTimeSeriesSource timeSeriesSource, Instant snapshotInstant, LocalDate snapshotDate,
+      PrefetchingHistoricalMarketDataProvider provider) {
+    super(timeSeriesSource, snapshotInstant, snapshotDate, provider.getTimeSeriesFieldResolverKey(), provider);
+    _snapshotDate = snapshotDate;
+    _provider = provider;
+  }
+
+  @Override
+  public void init() {
+    if (_provider.isPrefetched(_snapshotDate)) {
+      _provider.loadSubscriptions(_snapshotDate);
+    }
+  }
+
+  @Override
+  public Object query(ValueRequirement requirement) {
+    if (!_provider.isPrefetched(_snapshotDate)) {
+      return super.query(requirement);
+    }
+    final LocalDateDoubleTimeSeries timeSeries = _provider.getTimeSeries(requirement, _snapshotDate);
+    if (timeSeries.isEmpty()) {
+      return null;
+    }
+    return timeSeries.getValue(_snapshotDate);
+  }
+
+}
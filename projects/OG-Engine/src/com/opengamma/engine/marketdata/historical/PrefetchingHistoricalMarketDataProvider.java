@@ -0,0 +1,158 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata.historical;
+
+import java.util.Collections;
+import java.util.Iterator;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+import javax.time.Instant;
+import javax.time.calendar.LocalDate;
+import javax.time.calendar.TimeZone;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeries;
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.spec.FixedHistoricalMarketDataSpecification;
+import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+import com.opengamma.util.timeseries.localdate.LocalDateDoubleTimeSeries;
+
+/**
+ * Historical market data provider for running a view over a sequence of dates.
+ * <p>
+ * Rather than querying the time-series source for each requirement on each date, the series for each requirement is
+ * loaded once, by the first snapshot after the view subscribes to its market data, and the snapshots for every date in
+ * the range of the run are served from memory. The series are held as arrays of primitive dates and values so a lookup
+ * is a binary search.
+ * <p>
+ * Only the range of dates the run covers is loaded, and a provider is created for each view process, so the memory
+ * used is bounded by the run. Snapshots for dates outside the range query the source directly.
+ */
+public class PrefetchingHistoricalMarketDataProvider extends HistoricalMarketDataProvider {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(PrefetchingHistoricalMarketDataProvider.class);
+
+  private static final LocalDateDoubleTimeSeries MISSING = new ArrayLocalDateDoubleTimeSeries();
+
+  private final LocalDate _startDate;
+  private final LocalDate _endDate;
+  private final ConcurrentMap<ValueRequirement, LocalDateDoubleTimeSeries> _timeSeries = new ConcurrentHashMap<ValueRequirement, LocalDateDoubleTimeSeries>();
+  private final Set<ValueRequirement> _pending = Collections.newSetFromMap(new ConcurrentHashMap<ValueRequirement, Boolean>());
+
+  /**
+   * Creates an instance.
+   *
+   * @param historicalTimeSeriesSource  the underlying source of historical data, not null
+   * @param securitySource  the source of securities, not null
+   * @param timeSeriesResolverKey  the source resolver key, or null to use the source default
+   * @param fieldResolverKey  the field name resolver resolution key, or null to use the resolver default
+   * @param startDate  the earliest date to load, not null
+   * @param endDate  the latest date to load, not null
+   */
+  public PrefetchingHistoricalMarketDataProvider(final HistoricalTimeSeriesSource historicalTimeSeriesSource,
+      final SecuritySource securitySource, final String timeSeriesResolverKey, final String fieldResolverKey,
+      final LocalDate startDate, final LocalDate endDate) {
+    super(historicalTimeSeriesSource, securitySource, timeSeriesResolverKey, fieldResolverKey);
+    ArgumentChecker.notNull(startDate, "startDate");
+    ArgumentChecker.notNull(endDate, "endDate");
+    ArgumentChecker.isFalse(startDate.isAfter(endDate), "startDate must not be after endDate");
+    _startDate = startDate;
+    _endDate = endDate;
+  }
+
+  //-------------------------------------------------------------------------
+  @Override
+  public void subscribe(UserPrincipal user, Set<ValueRequirement> valueRequirements) {
+    // The subscriptions are the market data requirements of the whole graph; they are loaded together by the next snapshot
+    _pending.addAll(valueRequirements);
+    super.subscribe(user, valueRequirements);
+  }
+
+  @Override
+  public MarketDataSnapshot snapshot(MarketDataSpecification marketDataSpec) {
+    FixedHistoricalMarketDataSpecification historicalSpec = (FixedHistoricalMarketDataSpecification) marketDataSpec;
+    Instant snapshotInstant = historicalSpec.getSnapshotDate().atTime(16, 0).atZone(TimeZone.UTC).toInstant();
+    return new PrefetchedHistoricalMarketDataSnapshot(getTimeSeriesSource(), snapshotInstant, historicalSpec.getSnapshotDate(), this);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Tests whether the values for a date are served from the loaded time-series.
+   *
+   * @param date  the snapshot date, not null
+   * @return true if the date is within the range loaded, false if the source must be queried
+   */
+  /*package*/ boolean isPrefetched(final LocalDate date) {
+    return !date.isBefore(_startDate) && !date.isAfter(_endDate);
+  }
+
+  /**
+   * Loads the time-series for any requirements subscribed to since the previous call.
+   *
+   * @param snapshotDate  the date of the snapshot loading the series, used to resolve the identifiers, not null
+   */
+  /*package*/ void loadSubscriptions(final LocalDate snapshotDate) {
+    if (_pending.isEmpty()) {
+      return;
+    }
+    final OperationTimer timer = new OperationTimer(s_logger, "Loading time-series for {} requirements", _pending.size());
+    final Iterator<ValueRequirement> itr = _pending.iterator();
+    while (itr.hasNext()) {
+      final ValueRequirement requirement = itr.next();
+      itr.remove();
+      getTimeSeries(requirement, snapshotDate);
+    }
+    timer.finished();
+  }
+
+  /**
+   * Gets the loaded time-series for a requirement, loading it if this has not already been done.
+   *
+   * @param requirement  the requirement, not null
+   * @param snapshotDate  the date of the snapshot requiring the series, used to resolve the identifiers if it is loaded, not null
+   * @return the time-series, empty if there is none
+   */
+  /*package*/ LocalDateDoubleTimeSeries getTimeSeries(final ValueRequirement requirement, final LocalDate snapshotDate) {
+    LocalDateDoubleTimeSeries timeSeries = _timeSeries.get(requirement);
+    if (timeSeries == null) {
+      timeSeries = loadTimeSeries(requirement, snapshotDate);
+      final LocalDateDoubleTimeSeries existing = _timeSeries.putIfAbsent(requirement, timeSeries);
+      if (existing != null) {
+        timeSeries = existing;
+      }
+    }
+    return timeSeries;
+  }
+
+  private LocalDateDoubleTimeSeries loadTimeSeries(final ValueRequirement requirement, final LocalDate snapshotDate) {
+    final ExternalIdBundle identifiers = getExternalIdBundle(requirement);
+    if (identifiers == null) {
+      s_logger.warn("Unable to resolve requirement {} to an external ID bundle", requirement);
+      return MISSING;
+    }
+    final HistoricalTimeSeries hts = getTimeSeriesSource().getHistoricalTimeSeries(requirement.getValueName(), identifiers, snapshotDate,
+        getTimeSeriesFieldResolverKey(), _startDate, true, _endDate, true);
+    if (hts == null || hts.getTimeSeries().isEmpty()) {
+      s_logger.info("No time-series for {}, {}", identifiers, requirement.getValueName());
+      return MISSING;
+    }
+    // Copy into the compact primitive form regardless of the representation used by the source
+    return new ArrayLocalDateDoubleTimeSeries(hts.getTimeSeries());
+  }
+
+}
@@ -0,0 +1,143 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata.live;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Table of the latest values received for live market data. Each value requirement is assigned an integer slot when it is first subscribed to,
+ * and ticks are written into the slot as primitive values without creating any objects. Slots written since the table was last drained are
+ * marked in a dirty bitset; repeated ticks to the same slot between drains only overwrite the value.
+ * <p>
+ * Values are held as their raw bits in {@link AtomicLongArray} pages so that they are written atomically and are visible to the draining thread
+ * without locking. Pages are never moved once allocated, so slots can be assigned concurrently with ticks being written.
+ */
+/* package */final class LiveDataSlotTable {
+
+  private static final int PAGE_BITS = 10;
+  private static final int PAGE_SIZE = 1 << PAGE_BITS;
+  private static final int PAGE_MASK = PAGE_SIZE - 1;
+
+  /**
+   * A block of slots.
+   */
+  private static final class Page {
+
+    private final AtomicLongArray _values = new AtomicLongArray(PAGE_SIZE);
+    private final AtomicLongArray _dirty = new AtomicLongArray(PAGE_SIZE >> 6);
+    private final ValueRequirement[] _requirements = new ValueRequirement[PAGE_SIZE];
+
+  }
+
+  private final Object2IntOpenHashMap<ValueRequirement> _slots = new Object2IntOpenHashMap<ValueRequirement>();
+  private volatile Page[] _pages = new Page[0];
+  private int _slotCount;
+
+  public LiveDataSlotTable() {
+    _slots.defaultReturnValue(-1);
+  }
+
+  /**
+   * Returns the slot for a value requirement, assigning a new one if it has not been seen before.
+   *
+   * @param requirement the value requirement, not null
+   * @return the slot
+   */
+  public synchronized int getSlot(final ValueRequirement requirement) {
+    ArgumentChecker.notNull(requirement, "requirement");
+    int slot = _slots.getInt(requirement);
+    if (slot < 0) {
+      slot = _slotCount++;
+      Page[] pages = _pages;
+      final int page = slot >> PAGE_BITS;
+      if (page >= pages.length) {
+        pages = Arrays.copyOf(pages, page + 1);
+        pages[page] = new Page();
+        _pages = pages;
+      }
+      pages[page]._requirements[slot & PAGE_MASK] = requirement;
+      _slots.put(requirement, slot);
+    }
+    return slot;
+  }
+
+  /**
+   * Returns the number of slots that have been assigned.
+   *
+   * @return the slot count
+   */
+  public synchronized int getSlotCount() {
+    return _slotCount;
+  }
+
+  /**
+   * Writes a value into a slot, marking it as dirty.
+   *
+   * @param slot the slot, as returned by {@link #getSlot}
+   * @param value the value
+   * @return true if the slot was clean, false if it had already been written since the table was last drained
+   */
+  public boolean put(final int slot, final double value) {
+    final Page page = _pages[slot >> PAGE_BITS];
+    page._values.set(slot & PAGE_MASK, Double.doubleToRawLongBits(value));
+    final int word = (slot & PAGE_MASK) >> 6;
+    final long bit = 1L << slot;
+    long dirty = page._dirty.get(word);
+    while ((dirty & bit) == 0) {
+      if (page._dirty.compareAndSet(word, dirty, dirty | bit)) {
+        return true;
+      }
+      dirty = page._dirty.get(word);
+    }
+    return false;
+  }
+
+  /**
+   * Returns the value last written into a slot.
+   *
+   * @param slot the slot, as returned by {@link #getSlot}
+   * @return the value, or zero if the slot has never been written
+   */
+  public double get(final int slot) {
+    return Double.longBitsToDouble(_pages[slot >> PAGE_BITS]._values.get(slot & PAGE_MASK));
+  }
+
+  /**
+   * Clears the dirty bitset, returning the values of the slots that were dirty. A value written concurrently is either included in the result
+   * or leaves its slot dirty for the next drain.
+   *
+   * @return the values written since the last drain, or null if there were none
+   */
+  public Map<ValueRequirement, Object> drainChanges() {
+    Map<ValueRequirement, Object> changes = null;
+    for (Page page : _pages) {
+      for (int word = 0; word < (PAGE_SIZE >> 6); word++) {
+        if (page._dirty.get(word) == 0) {
+          continue;
+        }
+        long dirty = page._dirty.getAndSet(word, 0);
+        if (changes == null) {
+          changes = new HashMap<ValueRequirement, Object>();
+        }
+        while (dirty != 0) {
+          final int index = (word << 6) + Long.numberOfTrailingZeros(dirty);
+          dirty &= dirty - 1;
+          changes.put(page._requirements[index], Double.longBitsToDouble(page._values.get(index)));
+        }
+      }
+    }
+    return changes;
+  }
+
+}
@@ -5,14 +5,18 @@
  */
 package com.opengamma.engine.marketdata.live;
 
+import java.util.ArrayList;
+import java.util.Collection;
 import java.util.Collections;
 import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArraySet;
 
 import org.fudgemsg.FudgeContext;
+import org.fudgemsg.FudgeField;
 import org.fudgemsg.FudgeMsg;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -36,14 +40,21 @@ import com.opengamma.livedata.msg.LiveDataSubscriptionResponse;
 import com.opengamma.livedata.msg.LiveDataSubscriptionResult;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.fudgemsg.OpenGammaFudgeContext;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.StripedRate;
 
 /**
  * A {@link MarketDataProvider} for live data.
+ * <p>
+ * Ticks are written as primitive values into a {@link LiveDataSlotTable}, using slots assigned to each value requirement when its subscription
+ * succeeds. The values are read from the fields of the decoded Fudge message, which are already boxed; only the table holds them unboxed. Listeners are only notified of a value change when its slot was clean, so a busy ticker produces one notification per cycle rather
+ * than one per tick. The dirty slots are drained into the underlying LKV provider when a snapshot is initialized.
  */
 public class LiveMarketDataProvider extends AbstractMarketDataProvider implements LiveDataListener {
 
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(LiveMarketDataProvider.class);
+  private static final StripedRate s_ticks = MetricRegistry.getDefault().rate("engine.marketdata.ticks");
 
   // Injected Inputs:
   private final LiveDataClient _liveDataClient;
@@ -57,6 +68,30 @@ public class LiveMarketDataProvider extends AbstractMarketDataProvider implement
   private final Map<LiveDataSpecification, Set<ValueRequirement>> _liveDataSpec2ValueRequirements =
     new ConcurrentHashMap<LiveDataSpecification, Set<ValueRequirement>>();
   private final Set<ValueRequirement> _failedRequirements = new CopyOnWriteArraySet<ValueRequirement>();
+  private final LiveDataSlotTable _valueTable = new LiveDataSlotTable();
+  private final Map<LiveDataSpecification, SpecificationSlots> _liveDataSpec2Slots = new ConcurrentHashMap<LiveDataSpecification, SpecificationSlots>();
+
+  /**
+   * The slots written by ticks for a live data specification.
+   */
+  private static final class SpecificationSlots {
+
+    private final String[] _fieldNames;
+    private final int[] _slots;
+    private final Collection<ValueRequirement> _requirements;
+
+    private SpecificationSlots(final Collection<ValueRequirement> requirements, final LiveDataSlotTable valueTable) {
+      _fieldNames = new String[requirements.size()];
+      _slots = new int[requirements.size()];
+      int i = 0;
+      for (ValueRequirement requirement : requirements) {
+        _fieldNames[i] = requirement.getValueName();
+        _slots[i++] = valueTable.getSlot(requirement);
+      }
+      _requirements = Collections.unmodifiableCollection(requirements);
+    }
+
+  }
 
   public LiveMarketDataProvider(LiveDataClient liveDataClient, SecuritySource securitySource, MarketDataAvailabilityProvider availabilityProvider) {
     this(liveDataClient, securitySource, availabilityProvider, OpenGammaFudgeContext.getInstance(), new LiveMarketDataPermissionProvider(liveDataClient, securitySource));
@@ -169,6 +204,18 @@ public class LiveMarketDataProvider extends AbstractMarketDataProvider implement
   public MarketDataSnapshot snapshot(MarketDataSpecification marketDataSpec) {
     return new LiveMarketDataSnapshot(getUnderlyingProvider().snapshot(marketDataSpec), this);
   }
+
+  /**
+   * Writes the values ticked since the last flush into the underlying provider. This is called when a snapshot is initialized; values ticked
+   * since the last flush are not visible through {@link #getUnderlyingProvider()} until then.
+   */
+  public synchronized void flush() {
+    final Map<ValueRequirement, Object> changes = _valueTable.drainChanges();
+    if (changes != null) {
+      s_logger.debug("Flushing {} changed values", changes.size());
+      getUnderlyingProvider().addValues(changes);
+    }
+  }
   
   //-------------------------------------------------------------------------
   @Override
@@ -181,6 +228,7 @@ public class LiveMarketDataProvider extends AbstractMarketDataProvider implement
     }
     if (subscriptionResult.getSubscriptionResult() == LiveDataSubscriptionResult.SUCCESS) {
       _liveDataSpec2ValueRequirements.put(subscriptionResult.getFullyQualifiedSpecification(), valueRequirements);
+      registerSlots(subscriptionResult.getFullyQualifiedSpecification(), valueRequirements);
       _failedRequirements.removeAll(valueRequirements); //We expect a valueUpdate call for this later
       s_logger.debug("Subscription made to {} resulted in fully qualified {}", subscriptionResult.getRequestedSpecification(), subscriptionResult.getFullyQualifiedSpecification());
       
@@ -211,31 +259,69 @@ public class LiveMarketDataProvider extends AbstractMarketDataProvider implement
     s_logger.warn("Subscription stopped " + fullyQualifiedSpecification);
   }
 
+  private SpecificationSlots registerSlots(final LiveDataSpecification liveDataSpec, final Collection<ValueRequirement> valueRequirements) {
+    synchronized (_liveDataSpec2Slots) {
+      final SpecificationSlots existing = _liveDataSpec2Slots.get(liveDataSpec);
+      final List<ValueRequirement> requirements = new ArrayList<ValueRequirement>(valueRequirements);
+      if (existing != null) {
+        if (existing._requirements.containsAll(valueRequirements)) {
+          return existing;
+        }
+        for (ValueRequirement requirement : existing._requirements) {
+          if (!valueRequirements.contains(requirement)) {
+            requirements.add(requirement);
+          }
+        }
+      }
+      final SpecificationSlots slots = new SpecificationSlots(requirements, _valueTable);
+      _liveDataSpec2Slots.put(liveDataSpec, slots);
+      return slots;
+    }
+  }
+
   @Override
   public void valueUpdate(LiveDataValueUpdate valueUpdate) {
     s_logger.debug("Update received {}", valueUpdate);
+    s_ticks.hit();
     
-    Set<ValueRequirement> valueRequirements = _liveDataSpec2ValueRequirements.get(valueUpdate.getSpecification());
-    if (valueRequirements == null) {
-      s_logger.warn("Received value update for which no corresponding set of value requirements was found: {}", valueUpdate.getSpecification());
-      return;            
+    SpecificationSlots slots = _liveDataSpec2Slots.get(valueUpdate.getSpecification());
+    if (slots == null) {
+      final Set<ValueRequirement> valueRequirements = _liveDataSpec2ValueRequirements.get(valueUpdate.getSpecification());
+      if (valueRequirements == null) {
+        s_logger.warn("Received value update for which no corresponding set of value requirements was found: {}", valueUpdate.getSpecification());
+        return;
+      }
+      slots = registerSlots(valueUpdate.getSpecification(), valueRequirements);
     }
     
-    s_logger.debug("Corresponding value requirements are {}", valueRequirements);
+    s_logger.debug("Corresponding value requirements are {}", slots._requirements);
     FudgeMsg msg = valueUpdate.getFields();
     
-    for (ValueRequirement valueRequirement : valueRequirements) {
-      // We assume all market data can be represented as a Double. The request for the field as a Double also ensures
-      // that we consistently provide a Double downstream, even if the value has been represented as a more efficient
-      // type in the message.
-      Double value = msg.getDouble(valueRequirement.getValueName());
-      if (value == null) {
+    boolean changed = false;
+    for (int i = 0; i < slots._slots.length; i++) {
+      // We assume all market data can be represented as a double. The message has already been decoded, so a numeric
+      // field's value is the Number Fudge created for it; it is stored as a primitive, so no further Double is created or
+      // retained for each tick. The Double presented downstream is created when the table is drained.
+      final FudgeField field = msg.getByName(slots._fieldNames[i]);
+      if (field == null) {
         continue;
       }
-      getUnderlyingProvider().addValue(valueRequirement, value);
+      final double value;
+      if (field.getValue() instanceof Number) {
+        value = ((Number) field.getValue()).doubleValue();
+      } else {
+        final Double converted = msg.getDouble(slots._fieldNames[i]);
+        if (converted == null) {
+          continue;
+        }
+        value = converted;
+      }
+      changed |= _valueTable.put(slots._slots[i], value);
     }
     
-    super.valuesChanged(valueRequirements);
+    if (changed) {
+      super.valuesChanged(slots._requirements);
+    }
   }
 
 }
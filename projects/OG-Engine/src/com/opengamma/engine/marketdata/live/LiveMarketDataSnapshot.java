@@ -52,6 +52,7 @@ public class LiveMarketDataSnapshot extends AbstractMarketDataSnapshot {
 
   @Override
   public void init() {
+    _liveMarketDataProvider.flush();
     _underlyingSnapshot.init();
   }
 
@@ -86,6 +87,7 @@ public class LiveMarketDataSnapshot extends AbstractMarketDataSnapshot {
       };
       getProvider().addListener(listener);
       try {
+        _liveMarketDataProvider.flush();
         _underlyingSnapshot.init(); // TODO We need something to query, but snapshotting twice is a bit overkill
         for (ValueRequirement requirement : valuesRequired) {
           if (_underlyingSnapshot.query(requirement) != null) {
@@ -110,6 +112,7 @@ public class LiveMarketDataSnapshot extends AbstractMarketDataSnapshot {
         getProvider().removeListener(listener);
       }
     }
+    _liveMarketDataProvider.flush();
     _underlyingSnapshot.init(valuesRequired, timeout, unit);
   }
 
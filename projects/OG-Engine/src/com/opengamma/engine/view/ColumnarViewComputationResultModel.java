@@ -0,0 +1,406 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import it.unimi.dsi.fastutil.objects.Object2IntOpenHashMap;
+
+import java.io.Serializable;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * A {@link ViewComputationResultModel} that holds the values in columns rather than as individual {@link ComputedValue} objects. Each
+ * computation target is given a row, and each combination of calculation configuration, value name and value properties is a column. Values
+ * that are doubles are held in a primitive array in the column; other values are held in an object array that is only allocated when the
+ * column first receives one.
+ * <p>
+ * The {@link ViewResultModel} methods present views onto the columns, creating {@code ComputedValue} objects only as they are requested. A
+ * {@code ComputedValue} carrying more than its specification and value, such as an invocation result, is held as it was given.
+ * <p>
+ * This class is not thread-safe for modification.
+ */
+public class ColumnarViewComputationResultModel extends InMemoryViewComputationResultModel {
+
+  private static final long serialVersionUID = 1L;
+
+  private static final int INITIAL_ROWS = 16;
+
+  /**
+   * The values of a single column, indexed by row.
+   */
+  public static final class Column implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    private final String _calcConfigurationName;
+    private final String _valueName;
+    private final ValueProperties _properties;
+    private long[] _present = new long[0];
+    private long[] _detailed;
+    private double[] _doubles = new double[0];
+    private Object[] _objects;
+
+    private Column(final String calcConfigurationName, final String valueName, final ValueProperties properties) {
+      _calcConfigurationName = calcConfigurationName;
+      _valueName = valueName;
+      _properties = properties;
+    }
+
+    public String getCalculationConfigurationName() {
+      return _calcConfigurationName;
+    }
+
+    public String getValueName() {
+      return _valueName;
+    }
+
+    public ValueProperties getProperties() {
+      return _properties;
+    }
+
+    private static boolean isSet(final long[] bits, final int row) {
+      return (bits != null) && ((row >> 6) < bits.length) && ((bits[row >> 6] & (1L << row)) != 0);
+    }
+
+    private void ensureCapacity(final int row) {
+      if (row >= _doubles.length) {
+        final int rows = Math.max(row + 1, Math.max(INITIAL_ROWS, _doubles.length * 2));
+        _doubles = Arrays.copyOf(_doubles, rows);
+        _present = Arrays.copyOf(_present, (rows + 63) >> 6);
+        if (_objects != null) {
+          _objects = Arrays.copyOf(_objects, rows);
+          _detailed = Arrays.copyOf(_detailed, _present.length);
+        }
+      }
+    }
+
+    private void setDouble(final int row, final double value) {
+      ensureCapacity(row);
+      _present[row >> 6] |= 1L << row;
+      _doubles[row] = value;
+      if (_objects != null) {
+        _objects[row] = null;
+        _detailed[row >> 6] &= ~(1L << row);
+      }
+    }
+
+    private void setObject(final int row, final Object value, final boolean detailed) {
+      ensureCapacity(row);
+      if (_objects == null) {
+        _objects = new Object[_doubles.length];
+        _detailed = new long[_present.length];
+      }
+      _present[row >> 6] |= 1L << row;
+      _objects[row] = value;
+      if (detailed) {
+        _detailed[row >> 6] |= 1L << row;
+      } else {
+        _detailed[row >> 6] &= ~(1L << row);
+      }
+    }
+
+    /**
+     * Tests whether the column has a value for a row.
+     *
+     * @param row the row index
+     * @return true if there is a value, false otherwise
+     */
+    public boolean isPresent(final int row) {
+      return isSet(_present, row);
+    }
+
+    /**
+     * Tests whether the value for a row is held as a primitive double.
+     *
+     * @param row the row index
+     * @return true if the value is present and held as a double, false otherwise
+     */
+    public boolean isDouble(final int row) {
+      return isPresent(row) && ((_objects == null) || (_objects[row] == null));
+    }
+
+    /**
+     * Tests whether the value for a row is held as the original {@link ComputedValue}.
+     *
+     * @param row the row index
+     * @return true if {@link #getObject} returns the original computed value, false otherwise
+     */
+    public boolean isDetailed(final int row) {
+      return isSet(_detailed, row);
+    }
+
+    /**
+     * Returns the primitive value for a row.
+     *
+     * @param row the row index, {@link #isDouble} must be true
+     * @return the value
+     */
+    public double getDouble(final int row) {
+      return _doubles[row];
+    }
+
+    /**
+     * Returns the object value for a row.
+     *
+     * @param row the row index
+     * @return the value, the original {@link ComputedValue} if {@link #isDetailed} is true, or null if the value is absent or a double
+     */
+    public Object getObject(final int row) {
+      return ((_objects != null) && (row < _objects.length)) ? _objects[row] : null;
+    }
+
+    private ComputedValue getComputedValue(final ComputationTargetSpecification target, final int row) {
+      if (!isPresent(row)) {
+        return null;
+      }
+      final Object value = getObject(row);
+      if (value == null) {
+        return new ComputedValue(new ValueSpecification(_valueName, target, _properties), _doubles[row]);
+      } else if (isDetailed(row)) {
+        return (ComputedValue) value;
+      } else {
+        return new ComputedValue(new ValueSpecification(_valueName, target, _properties), value);
+      }
+    }
+
+  }
+
+  private final Object2IntOpenHashMap<ComputationTargetSpecification> _rowsByTarget = new Object2IntOpenHashMap<ComputationTargetSpecification>();
+  private final List<ComputationTargetSpecification> _targets = new ArrayList<ComputationTargetSpecification>();
+  private final Map<String, Map<Pair<String, ValueProperties>, Column>> _columnsByConfiguration = new LinkedHashMap<String, Map<Pair<String, ValueProperties>, Column>>();
+  private int _valueCountHint;
+
+  public ColumnarViewComputationResultModel() {
+    _rowsByTarget.defaultReturnValue(-1);
+  }
+
+  //-------------------------------------------------------------------------
+  private int getOrCreateRow(final ComputationTargetSpecification target) {
+    int row = _rowsByTarget.getInt(target);
+    if (row < 0) {
+      row = _targets.size();
+      _targets.add(target);
+      _rowsByTarget.put(target, row);
+    }
+    return row;
+  }
+
+  private Column getOrCreateColumn(final String calcConfigurationName, final String valueName, final ValueProperties properties) {
+    Map<Pair<String, ValueProperties>, Column> columns = _columnsByConfiguration.get(calcConfigurationName);
+    if (columns == null) {
+      columns = new LinkedHashMap<Pair<String, ValueProperties>, Column>();
+      _columnsByConfiguration.put(calcConfigurationName, columns);
+    }
+    final Pair<String, ValueProperties> key = Pair.of(valueName, properties);
+    Column column = columns.get(key);
+    if (column == null) {
+      column = new Column(calcConfigurationName, valueName, properties);
+      columns.put(key, column);
+    }
+    return column;
+  }
+
+  private static boolean isDetailed(final ComputedValue value) {
+    return (value.getValue() == null) || (value.getInvocationResult() != null) || (value.getExceptionClass() != null) || (value.getExceptionMsg() != null)
+        || (value.getStackTrace() != null) || (value.getMissingInputs() != null) || (value.getRequirements() != null) || (value.getComputeNodeId() != null);
+  }
+
+  @Override
+  public void addValue(final String calcConfigurationName, final ComputedValue value) {
+    ArgumentChecker.notNull(calcConfigurationName, "calcConfigurationName");
+    ArgumentChecker.notNull(value, "value");
+    final ValueSpecification specification = value.getSpecification();
+    final Column column = getOrCreateColumn(calcConfigurationName, specification.getValueName(), specification.getProperties());
+    final int row = getOrCreateRow(specification.getTargetSpecification());
+    if (isDetailed(value)) {
+      column.setObject(row, value, true);
+    } else if (value.getValue() instanceof Double) {
+      column.setDouble(row, (Double) value.getValue());
+    } else {
+      column.setObject(row, value.getValue(), false);
+    }
+    _valueCountHint++;
+  }
+
+  /**
+   * Adds a double value without creating a {@link ComputedValue}.
+   *
+   * @param calcConfigurationName the calculation configuration name, not null
+   * @param target the computation target, not null
+   * @param valueName the value name, not null
+   * @param properties the value properties, not null
+   * @param value the value
+   */
+  public void addValue(final String calcConfigurationName, final ComputationTargetSpecification target, final String valueName, final ValueProperties properties,
+      final double value) {
+    ArgumentChecker.notNull(calcConfigurationName, "calcConfigurationName");
+    ArgumentChecker.notNull(target, "target");
+    ArgumentChecker.notNull(valueName, "valueName");
+    ArgumentChecker.notNull(properties, "properties");
+    getOrCreateColumn(calcConfigurationName, valueName, properties).setDouble(getOrCreateRow(target), value);
+    _valueCountHint++;
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Returns the computation targets, in row order.
+   *
+   * @return the targets, not null
+   */
+  public List<ComputationTargetSpecification> getTargetRows() {
+    return Collections.unmodifiableList(_targets);
+  }
+
+  /**
+   * Returns all of the columns.
+   *
+   * @return the columns, not null
+   */
+  public Collection<Column> getColumns() {
+    final List<Column> columns = new ArrayList<Column>();
+    for (Map<Pair<String, ValueProperties>, Column> configurationColumns : _columnsByConfiguration.values()) {
+      columns.addAll(configurationColumns.values());
+    }
+    return columns;
+  }
+
+  private Map<Pair<String, ValueProperties>, ComputedValue> getValues(final Collection<Column> columns, final ComputationTargetSpecification target) {
+    final int row = _rowsByTarget.getInt(target);
+    if (row < 0) {
+      return null;
+    }
+    Map<Pair<String, ValueProperties>, ComputedValue> values = null;
+    for (Column column : columns) {
+      final ComputedValue value = column.getComputedValue(target, row);
+      if (value != null) {
+        if (values == null) {
+          values = new HashMap<Pair<String, ValueProperties>, ComputedValue>();
+        }
+        values.put(Pair.of(column.getValueName(), column.getProperties()), value);
+      }
+    }
+    return values;
+  }
+
+  @Override
+  public Set<ComputationTargetSpecification> getAllTargets() {
+    return Collections.unmodifiableSet(_rowsByTarget.keySet());
+  }
+
+  @Override
+  public Collection<String> getCalculationConfigurationNames() {
+    return Collections.unmodifiableSet(_columnsByConfiguration.keySet());
+  }
+
+  @Override
+  public ViewCalculationResultModel getCalculationResult(final String calcConfigurationName) {
+    final Map<Pair<String, ValueProperties>, Column> columns = _columnsByConfiguration.get(calcConfigurationName);
+    if (columns == null) {
+      return null;
+    }
+    return new ViewCalculationResultModel() {
+
+      @Override
+      public Collection<ComputationTargetSpecification> getAllTargets() {
+        final Set<ComputationTargetSpecification> targets = new HashSet<ComputationTargetSpecification>();
+        for (int row = 0; row < _targets.size(); row++) {
+          for (Column column : columns.values()) {
+            if (column.isPresent(row)) {
+              targets.add(_targets.get(row));
+              break;
+            }
+          }
+        }
+        return targets;
+      }
+
+      @Override
+      public Map<Pair<String, ValueProperties>, ComputedValue> getValues(final ComputationTargetSpecification target) {
+        final Map<Pair<String, ValueProperties>, ComputedValue> values = ColumnarViewComputationResultModel.this.getValues(columns.values(), target);
+        return (values != null) ? Collections.unmodifiableMap(values) : null;
+      }
+
+      @Override
+      public Collection<ComputedValue> getAllValues(final ComputationTargetSpecification target) {
+        final Map<Pair<String, ValueProperties>, ComputedValue> values = ColumnarViewComputationResultModel.this.getValues(columns.values(), target);
+        return (values != null) ? Collections.unmodifiableCollection(values.values()) : null;
+      }
+
+    };
+  }
+
+  @Override
+  public ViewTargetResultModel getTargetResult(final ComputationTargetSpecification targetSpecification) {
+    if (_rowsByTarget.getInt(targetSpecification) < 0) {
+      return null;
+    }
+    return new ViewTargetResultModel() {
+
+      @Override
+      public Collection<String> getCalculationConfigurationNames() {
+        final List<String> names = new ArrayList<String>();
+        for (Map.Entry<String, Map<Pair<String, ValueProperties>, Column>> configuration : _columnsByConfiguration.entrySet()) {
+          if (ColumnarViewComputationResultModel.this.getValues(configuration.getValue().values(), targetSpecification) != null) {
+            names.add(configuration.getKey());
+          }
+        }
+        return names;
+      }
+
+      @Override
+      public Collection<ComputedValue> getAllValues(final String calcConfigurationName) {
+        final Map<Pair<String, ValueProperties>, Column> columns = _columnsByConfiguration.get(calcConfigurationName);
+        if (columns == null) {
+          return null;
+        }
+        final Map<Pair<String, ValueProperties>, ComputedValue> values = ColumnarViewComputationResultModel.this.getValues(columns.values(), targetSpecification);
+        return (values != null) ? Collections.unmodifiableCollection(values.values()) : null;
+      }
+
+    };
+  }
+
+  @Override
+  public List<ViewResultEntry> getAllResults() {
+    final List<ViewResultEntry> results = new ArrayList<ViewResultEntry>(_valueCountHint);
+    for (Column column : getColumns()) {
+      for (int row = 0; row < _targets.size(); row++) {
+        final ComputedValue value = column.getComputedValue(_targets.get(row), row);
+        if (value != null) {
+          results.add(new ViewResultEntry(column.getCalculationConfigurationName(), value));
+        }
+      }
+    }
+    return Collections.unmodifiableList(results);
+  }
+
+  @Override
+  public Set<String> getAllOutputValueNames() {
+    final Set<String> outputValueNames = new HashSet<String>();
+    for (Map<Pair<String, ValueProperties>, Column> columns : _columnsByConfiguration.values()) {
+      for (Column column : columns.values()) {
+        outputValueNames.add(column.getValueName());
+      }
+    }
+    return outputValueNames;
+  }
+
+}
@@ -5,6 +5,8 @@
  */
 package com.opengamma.engine.view;
 
+import java.io.Serializable;
+
 import com.opengamma.engine.ComputationTargetResolver;
 import com.opengamma.engine.depgraph.DependencyGraphBuilderFactory;
 import com.opengamma.engine.function.CompiledFunctionService;
@@ -17,6 +19,7 @@ import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolver;
 import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolverWithOverride;
 import com.opengamma.engine.view.cache.ViewComputationCacheSource;
 import com.opengamma.engine.view.calc.DependencyGraphExecutorFactory;
+import com.opengamma.engine.view.calc.SharedComputationResults;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGathererProvider;
 import com.opengamma.engine.view.calcnode.JobDispatcher;
 import com.opengamma.engine.view.calcnode.ViewProcessorQueryReceiver;
@@ -43,6 +46,10 @@ public class ViewProcessContext {
   private final MarketDataInjector _liveDataOverrideInjector;
   private final MarketDataProviderResolver _marketDataProviderResolver;
   private final OverrideOperationCompiler _overrideOperationCompiler;
+  private final SharedComputationResults _sharedComputationResults;
+  private final boolean _columnarResults;
+  private final int _maxConcurrentBatchCycles;
+  private final int _cycleTraceInterval;
 
   public ViewProcessContext(
       ViewDefinitionRepository viewDefinitionRepository,
@@ -57,7 +64,11 @@ public class ViewProcessContext {
       DependencyGraphBuilderFactory dependencyGraphBuilderFactory,
       DependencyGraphExecutorFactory<?> dependencyGraphExecutorFactory,
       GraphExecutorStatisticsGathererProvider graphExecutorStatisticsProvider,
-      OverrideOperationCompiler overrideOperationCompiler) {
+      OverrideOperationCompiler overrideOperationCompiler,
+      SharedComputationResults sharedComputationResults,
+      boolean columnarResults,
+      int maxConcurrentBatchCycles,
+      int cycleTraceInterval) {
     ArgumentChecker.notNull(viewDefinitionRepository, "viewDefinitionRepository");
     ArgumentChecker.notNull(viewPermissionProvider, "viewPermissionProvider");
     ArgumentChecker.notNull(marketDataProviderResolver, "marketDataSnapshotProviderResolver");
@@ -85,6 +96,10 @@ public class ViewProcessContext {
     _dependencyGraphExecutorFactory = dependencyGraphExecutorFactory;
     _graphExecutorStatisticsGathererProvider = graphExecutorStatisticsProvider;
     _overrideOperationCompiler = overrideOperationCompiler;
+    _sharedComputationResults = sharedComputationResults;
+    _columnarResults = columnarResults;
+    _maxConcurrentBatchCycles = maxConcurrentBatchCycles;
+    _cycleTraceInterval = cycleTraceInterval;
   }
 
   // -------------------------------------------------------------------------
@@ -200,6 +215,44 @@ public class ViewProcessContext {
     return _overrideOperationCompiler;
   }
 
+  /**
+   * Gets the values published by the cycles of all view processes in the view processor for other processes to reuse.
+   * 
+   * @return the shared computation results, or null if values are not shared between processes
+   */
+  public SharedComputationResults getSharedComputationResults() {
+    return _sharedComputationResults;
+  }
+
+  /**
+   * Indicates whether cycles should hold their full results in a {@link ColumnarViewComputationResultModel}.
+   * 
+   * @return true for columnar results, false otherwise
+   */
+  public boolean isColumnarResults() {
+    return _columnarResults;
+  }
+
+  /**
+   * Gets the maximum number of cycles of a batch view process which may execute at the same time. The results of
+   * concurrent cycles are still delivered in the order of the execution sequence.
+   * 
+   * @return the maximum number of concurrent cycles, 1 to execute batch cycles one at a time
+   */
+  public int getMaxConcurrentBatchCycles() {
+    return _maxConcurrentBatchCycles;
+  }
+
+  /**
+   * Gets the interval at which the cycles of a view process are traced. The first cycle of each view process and every
+   * cycle at this interval after it records a {@link com.opengamma.engine.view.calcnode.stats.CycleTrace}.
+   * 
+   * @return the number of cycles between traced cycles, 0 to not trace any cycles
+   */
+  public int getCycleTraceInterval() {
+    return _cycleTraceInterval;
+  }
+
   // -------------------------------------------------------------------------
   /**
    * Uses this context to form a {@code ViewCompliationServices} instance.
@@ -208,7 +261,18 @@ public class ViewProcessContext {
    * @return the services, not null
    */
   public ViewCompilationServices asCompilationServices(MarketDataAvailabilityProvider marketDataAvailabilityProvider) {
-    return new ViewCompilationServices(marketDataAvailabilityProvider, getFunctionResolver(), getFunctionCompilationService().getFunctionCompilationContext(), getComputationTargetResolver(),
+    return asCompilationServices(marketDataAvailabilityProvider, null);
+  }
+
+  /**
+   * Uses this context to form a {@code ViewCompliationServices} instance.
+   * 
+   * @param marketDataAvailabilityProvider  the availability provider corresponding to the desired source of market data, not null
+   * @param marketDataAvailabilityVersion  the version of the market data availability, for example the market data specification, null if none
+   * @return the services, not null
+   */
+  public ViewCompilationServices asCompilationServices(MarketDataAvailabilityProvider marketDataAvailabilityProvider, Serializable marketDataAvailabilityVersion) {
+    return new ViewCompilationServices(marketDataAvailabilityProvider, marketDataAvailabilityVersion, getFunctionResolver(), getFunctionCompilationService().getFunctionCompilationContext(), getComputationTargetResolver(),
         getFunctionCompilationService().getExecutorService(), getDependencyGraphBuilderFactory());
   }
 
@@ -317,7 +317,11 @@ public class ViewProcessImpl implements ViewProcessInternal, Lifecycle {
     ViewComputationResultModel previousResult = _latestResult.get();
     _latestResult.set(result);
 
-    ViewDeltaResultModel deltaResult = ViewDeltaResultCalculator.computeDeltaModel(cycle.getCompiledViewDefinition().getViewDefinition(), previousResult, result);
+    // The cycle produces the delta as it populates its result if it executed against the previous cycle's result
+    ViewDeltaResultModel deltaResult = (cycle instanceof SingleComputationCycle) ? ((SingleComputationCycle) cycle).getDeltaResultModel(previousResult) : null;
+    if (deltaResult == null) {
+      deltaResult = ViewDeltaResultCalculator.computeDeltaModel(cycle.getCompiledViewDefinition().getViewDefinition(), previousResult, result);
+    }
     for (ViewResultListener listener : _listeners) {
       try {
         listener.cycleCompleted(result, deltaResult);
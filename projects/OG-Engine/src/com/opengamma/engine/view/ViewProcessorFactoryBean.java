@@ -19,6 +19,7 @@ import com.opengamma.engine.marketdata.OverrideOperationCompiler;
 import com.opengamma.engine.marketdata.resolver.MarketDataProviderResolver;
 import com.opengamma.engine.view.cache.ViewComputationCacheSource;
 import com.opengamma.engine.view.calc.DependencyGraphExecutorFactory;
+import com.opengamma.engine.view.calc.SharedComputationResults;
 import com.opengamma.engine.view.calc.ViewResultListenerFactory;
 import com.opengamma.engine.view.calc.stats.DiscardingGraphStatisticsGathererProvider;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGathererProvider;
@@ -51,6 +52,12 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
   private ViewPermissionProvider _viewPermissionProvider;
   private OverrideOperationCompiler _overrideOperationCompiler = new DummyOverrideOperationCompiler();
   private ViewResultListenerFactory _batchViewClientFactory;
+  private boolean _sharedComputation;
+  private int _maxSharedComputationResults = SharedComputationResults.DEFAULT_MAX_PUBLISHED;
+  private long _sharedValuationTimeToleranceMillis = SharedComputationResults.DEFAULT_VALUATION_TIME_TOLERANCE_MILLIS;
+  private boolean _columnarResults;
+  private int _maxConcurrentBatchCycles = 1;
+  private int _cycleTraceInterval;
 
   //-------------------------------------------------------------------------
   public String getName() {
@@ -173,6 +180,85 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
     _overrideOperationCompiler = overrideOperationCompiler;
   }
 
+  public boolean isSharedComputation() {
+    return _sharedComputation;
+  }
+
+  /**
+   * Sets whether view processes executing with {@link com.opengamma.engine.view.execution.ViewExecutionFlags#SHARE_RESULTS} share calculated
+   * values with other such processes that have compatible calculation configurations.
+   * 
+   * @param sharedComputation true to share values between processes, false otherwise
+   */
+  public void setSharedComputation(final boolean sharedComputation) {
+    _sharedComputation = sharedComputation;
+  }
+
+  public int getMaxSharedComputationResults() {
+    return _maxSharedComputationResults;
+  }
+
+  /**
+   * Sets the number of cycles whose values are retained for sharing between view processes.
+   * 
+   * @param maxSharedComputationResults the number of cycles to retain
+   */
+  public void setMaxSharedComputationResults(final int maxSharedComputationResults) {
+    _maxSharedComputationResults = maxSharedComputationResults;
+  }
+
+  public long getSharedValuationTimeToleranceMillis() {
+    return _sharedValuationTimeToleranceMillis;
+  }
+
+  /**
+   * Sets the largest difference in valuation times of cycles from different view processes that may share values.
+   * 
+   * @param sharedValuationTimeToleranceMillis the tolerance in milliseconds, zero for exact matches only
+   */
+  public void setSharedValuationTimeToleranceMillis(final long sharedValuationTimeToleranceMillis) {
+    _sharedValuationTimeToleranceMillis = sharedValuationTimeToleranceMillis;
+  }
+
+  public boolean isColumnarResults() {
+    return _columnarResults;
+  }
+
+  /**
+   * Sets whether view cycles hold their full results in columns of primitive values rather than as individual computed values.
+   * 
+   * @param columnarResults true for columnar results, false otherwise
+   */
+  public void setColumnarResults(final boolean columnarResults) {
+    _columnarResults = columnarResults;
+  }
+
+  public int getMaxConcurrentBatchCycles() {
+    return _maxConcurrentBatchCycles;
+  }
+
+  /**
+   * Sets the maximum number of cycles of a batch view process which may execute at the same time.
+   * 
+   * @param maxConcurrentBatchCycles the maximum number of concurrent cycles, 1 to execute batch cycles one at a time
+   */
+  public void setMaxConcurrentBatchCycles(final int maxConcurrentBatchCycles) {
+    _maxConcurrentBatchCycles = maxConcurrentBatchCycles;
+  }
+
+  public int getCycleTraceInterval() {
+    return _cycleTraceInterval;
+  }
+
+  /**
+   * Sets the interval at which view cycles are traced.
+   * 
+   * @param cycleTraceInterval the number of cycles between traced cycles, 1 to trace every cycle, 0 to trace none
+   */
+  public void setCycleTraceInterval(final int cycleTraceInterval) {
+    _cycleTraceInterval = cycleTraceInterval;
+  }
+
   //-------------------------------------------------------------------------
   protected void checkInjectedInputs() {
     s_logger.debug("Checking injected inputs.");
@@ -193,7 +279,7 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
   @Override
   public ViewProcessor createObject() {
     checkInjectedInputs();
-    return new ViewProcessorImpl(
+    final ViewProcessorImpl viewProcessor = new ViewProcessorImpl(
         getName(),
         getViewDefinitionRepository(),
         getNamedMarketDataSpecificationRepository(),
@@ -210,6 +296,13 @@ public class ViewProcessorFactoryBean extends SingletonFactoryBean<ViewProcessor
         getViewPermissionProvider(),
         getOverrideOperationCompiler(),
         getViewResultListenerFactory());
+    if (isSharedComputation()) {
+      viewProcessor.setSharedComputationResults(new SharedComputationResults(getMaxSharedComputationResults(), getSharedValuationTimeToleranceMillis()));
+    }
+    viewProcessor.setColumnarResults(isColumnarResults());
+    viewProcessor.setMaxConcurrentBatchCycles(getMaxConcurrentBatchCycles());
+    viewProcessor.setCycleTraceInterval(getCycleTraceInterval());
+    return viewProcessor;
   }
 
   public void setViewResultListenerFactory(ViewResultListenerFactory viewResultListenerFactory) {
@@ -11,11 +11,12 @@ import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Timer;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicLong;
@@ -38,6 +39,7 @@ import com.opengamma.engine.view.cache.ViewComputationCacheSource;
 import com.opengamma.engine.view.calc.DependencyGraphExecutorFactory;
 import com.opengamma.engine.view.calc.EngineResourceManagerImpl;
 import com.opengamma.engine.view.calc.EngineResourceManagerInternal;
+import com.opengamma.engine.view.calc.SharedComputationResults;
 import com.opengamma.engine.view.calc.SingleComputationCycle;
 import com.opengamma.engine.view.calc.ViewResultListenerFactory;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGathererProvider;
@@ -55,6 +57,7 @@ import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.monitor.OperationTimer;
 import com.opengamma.util.tuple.Pair;
 
@@ -72,7 +75,13 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
   private final AtomicLong _processIdSource = new AtomicLong();
   private final AtomicLong _clientIdSource = new AtomicLong();
   private final ReentrantLock _lifecycleLock = new ReentrantLock();
-  private final Timer _clientResultTimer = new Timer("Shared ViewClient result timer");
+  private final ScheduledExecutorService _clientResultScheduler = Executors.newSingleThreadScheduledExecutor(
+      new NamedThreadPoolFactory("Shared ViewClient result timer", true));
+  /**
+   * Delivers results to clients. Each client has at most one delivery in progress, with later results merged into its
+   * own queue while it is busy, so a thread is only held for as long as a client takes to consume its latest result.
+   */
+  private final ExecutorService _clientResultExecutor = Executors.newCachedThreadPool(new NamedThreadPoolFactory("ViewClient result delivery", true));
 
   private final EngineResourceManagerInternal<SingleComputationCycle> _cycleManager = new EngineResourceManagerImpl<SingleComputationCycle>();
 
@@ -95,6 +104,10 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
   private final ViewPermissionProvider _viewPermissionProvider;
   private final OverrideOperationCompiler _overrideOperationCompiler;
   private final ViewResultListenerFactory _viewResultListenerFactory;
+  private SharedComputationResults _sharedComputationResults;
+  private boolean _columnarResults;
+  private int _maxConcurrentBatchCycles = 1;
+  private int _cycleTraceInterval;
 
   // State
   /**
@@ -167,6 +180,66 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
   public NamedMarketDataSpecificationRepository getNamedMarketDataSpecificationRepository() {
     return _namedMarketDataSpecificationRepository;
   }
+
+  /**
+   * Sets where view processes publish calculated values for reuse by other processes with compatible calculation configurations. This only
+   * affects view processes created after the call.
+   * 
+   * @param sharedComputationResults the shared results, or null to not share values between processes
+   */
+  public void setSharedComputationResults(final SharedComputationResults sharedComputationResults) {
+    _sharedComputationResults = sharedComputationResults;
+  }
+
+  public SharedComputationResults getSharedComputationResults() {
+    return _sharedComputationResults;
+  }
+
+  /**
+   * Sets whether cycles hold their full results in a {@link ColumnarViewComputationResultModel}, which is more compact for large views. This
+   * only affects view processes created after the call.
+   * 
+   * @param columnarResults true for columnar results, false otherwise
+   */
+  public void setColumnarResults(final boolean columnarResults) {
+    _columnarResults = columnarResults;
+  }
+
+  public boolean isColumnarResults() {
+    return _columnarResults;
+  }
+
+  /**
+   * Sets the maximum number of cycles of a batch view process which may execute at the same time, for example to
+   * value a number of historical dates concurrently. This only affects view processes created after the call.
+   * 
+   * @param maxConcurrentBatchCycles the maximum number of concurrent cycles, 1 to execute batch cycles one at a time
+   */
+  public void setMaxConcurrentBatchCycles(final int maxConcurrentBatchCycles) {
+    ArgumentChecker.notNegativeOrZero(maxConcurrentBatchCycles, "maxConcurrentBatchCycles");
+    _maxConcurrentBatchCycles = maxConcurrentBatchCycles;
+  }
+
+  public int getMaxConcurrentBatchCycles() {
+    return _maxConcurrentBatchCycles;
+  }
+
+  /**
+   * Sets the interval at which view cycles are traced. A traced cycle records when each of its jobs was queued and
+   * executed and the time spent in each function invocation, available from
+   * {@link com.opengamma.engine.view.calc.ViewCycle#getExecutionTrace}. Tracing one cycle in a large number adds little
+   * to the average cycle time. This only affects view processes created after the call.
+   * 
+   * @param cycleTraceInterval the number of cycles between traced cycles, 1 to trace every cycle, 0 to trace none
+   */
+  public void setCycleTraceInterval(final int cycleTraceInterval) {
+    ArgumentChecker.notNegative(cycleTraceInterval, "cycleTraceInterval");
+    _cycleTraceInterval = cycleTraceInterval;
+  }
+
+  public int getCycleTraceInterval() {
+    return _cycleTraceInterval;
+  }
   
   //-------------------------------------------------------------------------
   @Override
@@ -377,6 +450,9 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
       viewProcess.shutdown();
       
       _allProcessesById.remove(viewProcess.getUniqueId());
+      if (_sharedComputationResults != null) {
+        _sharedComputationResults.remove(viewProcess.getUniqueId());
+      }
       ViewProcessDescription description = new ViewProcessDescription(viewProcess.getDefinitionId(), viewProcess.getExecutionOptions());
       ViewProcessImpl sharedProc = _sharedProcessesByDescription.get(description);
       if (sharedProc != null && sharedProc == viewProcess) { //PLAT-1287
@@ -463,7 +539,7 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
     ArgumentChecker.notNull(clientUser, "clientUser");
     String idValue = generateIdValue(_clientIdSource);
     UniqueId clientId = UniqueId.of(CLIENT_SCHEME, idValue);
-    ViewClientImpl client = new ViewClientImpl(clientId, this, clientUser, _clientResultTimer);
+    ViewClientImpl client = new ViewClientImpl(clientId, this, clientUser, _clientResultScheduler, _clientResultExecutor);
     _allClientsById.put(clientId, client);
     _viewProcessorEventListenerRegistry.notifyViewClientAdded(clientId);
     return client;
@@ -554,7 +630,11 @@ public class ViewProcessorImpl implements ViewProcessorInternal {
         _dependencyGraphBuilderFactory,
         _dependencyGraphExecutorFactory,
         _graphExecutionStatistics,
-        _overrideOperationCompiler);
+        _overrideOperationCompiler,
+        _sharedComputationResults,
+        _columnarResults,
+        _maxConcurrentBatchCycles,
+        _cycleTraceInterval);
   }
 
   private String generateIdValue(AtomicLong source) {
@@ -21,6 +21,8 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import com.opengamma.util.ehcache.EHCacheUtils;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.StripedCounter;
 
 /**
  * Caches Fudge message objects on top of another Fudge message store. This is an in-memory cache.
@@ -28,6 +30,8 @@ import com.opengamma.util.ehcache.EHCacheUtils;
 public class CachingFudgeMessageStore implements FudgeMessageStore {
 
   private static final Logger s_logger = LoggerFactory.getLogger(CachingFudgeMessageStore.class);
+  private static final StripedCounter s_gets = MetricRegistry.getDefault().counter("engine.cache.gets");
+  private static final StripedCounter s_misses = MetricRegistry.getDefault().counter("engine.cache.misses");
 
   private final FudgeMessageStore _underlying;
   private final CacheManager _cacheManager;
@@ -63,10 +67,12 @@ public class CachingFudgeMessageStore implements FudgeMessageStore {
 
   @Override
   public FudgeMsg get(long identifier) {
+    s_gets.increment();
     final Element cacheElement = getCache().get(identifier);
     if (cacheElement != null) {
       return (FudgeMsg) cacheElement.getObjectValue();
     }
+    s_misses.increment();
     final FudgeMsg data = getUnderlying().get(identifier);
     getCache().put(new Element(identifier, data));
     return data;
@@ -95,9 +101,11 @@ public class CachingFudgeMessageStore implements FudgeMessageStore {
         missing.add(identifier);
       }
     }
+    s_gets.add(identifiers.size());
     if (missing.isEmpty()) {
       return result;
     }
+    s_misses.add(missing.size());
     if (missing.size() == 1) {
       final Long missingIdentifier = missing.get(0);
       final FudgeMsg data = getUnderlying().get(missingIdentifier);
@@ -26,12 +26,18 @@ import com.google.common.collect.MapMaker;
 import com.opengamma.engine.MemoryUtils;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.StripedCounter;
 
 /**
  * Caches value identifiers on top of another identifier source.
  * This class is internally synchronized.
  */
 public class CachingIdentifierMap implements IdentifierMap {
+
+  private static final StripedCounter s_lookups = MetricRegistry.getDefault().counter("engine.identifiers.lookups");
+  private static final StripedCounter s_misses = MetricRegistry.getDefault().counter("engine.identifiers.misses");
+
   private final IdentifierMap _underlying;
   // NOTE kirk 2010-08-06 -- This INTENTIONALLY is not an EHCache instance.
   // Since getting a remote value specification identifier has to be a super-fast operation
@@ -106,10 +112,12 @@ public class CachingIdentifierMap implements IdentifierMap {
 
   @Override
   public long getIdentifier(final ValueSpecification spec) {
+    s_lookups.increment();
     Key value = _specificationToIdentifier.get(spec);
     if (value != null) {
       return value._identifier;
     }
+    s_misses.increment();
     long longValue = getUnderlying().getIdentifier(spec);
     value = new Key(longValue);
     _specificationToIdentifier.put(spec, value);
@@ -132,7 +140,9 @@ public class CachingIdentifierMap implements IdentifierMap {
         cacheMisses.add(MemoryUtils.instance(spec));
       }
     }
+    s_lookups.add(specs.size());
     if (cacheMisses != null) {
+      s_misses.add(cacheMisses.size());
       if (cacheMisses.size() == 1) {
         final ValueSpecification spec = cacheMisses.get(0);
         final long value = getUnderlying().getIdentifier(spec);
@@ -155,12 +165,14 @@ public class CachingIdentifierMap implements IdentifierMap {
 
   @Override
   public ValueSpecification getValueSpecification(final long identifier) {
+    s_lookups.increment();
     final Key key = borrowKey(identifier);
     ValueSpecification spec = _identifierToSpecification.get(key);
     if (spec != null) {
       returnKey(key);
       return spec;
     }
+    s_misses.increment();
     spec = getUnderlying().getValueSpecification(identifier);
     _specificationToIdentifier.put(spec, key);
     _identifierToSpecification.put(key, spec);
@@ -184,7 +196,9 @@ public class CachingIdentifierMap implements IdentifierMap {
         cacheMisses.add(identifier);
       }
     }
+    s_lookups.add(identifiers.size());
     if (cacheMisses != null) {
+      s_misses.add(cacheMisses.size());
       if (cacheMisses.size() == 1) {
         final long identifier = cacheMisses.getLong(0);
         final ValueSpecification specification = getUnderlying().getValueSpecification(identifier);
@@ -182,6 +182,12 @@ public class DefaultViewComputationCacheSource implements ViewComputationCacheSo
     return new DefaultViewComputationCache(identifierMap, privateDataStore, sharedDataStore, fudgeContext);
   }
 
+  @Override
+  public void preallocateIdentifiers(final Collection<ValueSpecification> specifications) {
+    ArgumentChecker.notNull(specifications, "specifications");
+    getIdentifierMap().getIdentifiers(specifications);
+  }
+
   @Override
   public void releaseCaches(UniqueId viewCycleId) {
     ArgumentChecker.notNull(viewCycleId, "viewCycleId");
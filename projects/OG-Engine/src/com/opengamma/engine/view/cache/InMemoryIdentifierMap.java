@@ -1,48 +1,217 @@
 /**
  * Copyright (C) 2009 - present by OpenGamma Inc. and the OpenGamma group of companies
- * 
+ *
  * Please see distribution for license.
  */
 package com.opengamma.engine.view.cache;
 
-import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentMap;
-import java.util.concurrent.atomic.AtomicLong;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.Long2ObjectOpenHashMap;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+import it.unimi.dsi.fastutil.objects.Object2LongOpenHashMap;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicReferenceArray;
 
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.util.ArgumentChecker;
 
 /**
- * An implementation of {@link IdentifierMap} which is backed by an in-memory
- * {@link ConcurrentMap}. This has no facilities for acting as a cache, or for persistence.
- * It should only be used for development and debugging purposes.
+ * An implementation of {@link IdentifierMap} which is held entirely in memory. This has no facilities for acting as a
+ * cache, or for persistence.
+ * <p>
+ * Identifiers are allocated sequentially. The forward mapping is an open-addressing table keyed on the specification's
+ * (cached) hash code and the reverse mapping is a chunked array indexed directly by identifier. Lookups of existing
+ * identifiers, the common case once a view has been compiled, never take a lock. Allocating a new identifier is
+ * serialized so that each specification is only ever given one identifier.
  */
-public class InMemoryIdentifierMap extends AbstractIdentifierMap implements IdentifierMap {
+public class InMemoryIdentifierMap implements IdentifierMap {
+
+  private static final int INITIAL_CAPACITY = 1024;
+
+  private static final int CHUNK_BITS = 12;
+  private static final int CHUNK_SIZE = 1 << CHUNK_BITS;
+  private static final int CHUNK_MASK = CHUNK_SIZE - 1;
+
+  private static final long NOT_FOUND = 0L;
+
+  /**
+   * Immutable table entry.
+   */
+  private static final class Entry {
+
+    private final ValueSpecification _specification;
+    private final int _hashCode;
+    private final long _identifier;
+
+    public Entry(final ValueSpecification specification, final int hashCode, final long identifier) {
+      _specification = specification;
+      _hashCode = hashCode;
+      _identifier = identifier;
+    }
+
+  }
 
-  private final AtomicLong _nextIdentifier = new AtomicLong(1L);
+  /**
+   * Forward table. Slots are written once; the table is replaced, never resized in place.
+   */
+  private volatile AtomicReferenceArray<Entry> _table = new AtomicReferenceArray<Entry>(INITIAL_CAPACITY);
 
-  private final ConcurrentMap<ValueSpecification, Long> _identifiers = new ConcurrentHashMap<ValueSpecification, Long>();
-  private final ConcurrentMap<Long, ValueSpecification> _specifications = new ConcurrentHashMap<Long, ValueSpecification>();
+  /**
+   * Reverse table. Chunks are written once; the directory is replaced when more chunks are needed.
+   */
+  private volatile AtomicReferenceArray<ValueSpecification>[] _specifications = createChunks(1);
+
+  // Only accessed when holding the monitor
+  private int _size;
+  private long _nextIdentifier = 1L;
+
+  @SuppressWarnings("unchecked")
+  private static AtomicReferenceArray<ValueSpecification>[] createChunks(final int count) {
+    return new AtomicReferenceArray[count];
+  }
+
+  private static int spread(final int hashCode) {
+    // Mix the high bits down as the table index only uses the low bits
+    final int h = hashCode ^ (hashCode >>> 16);
+    return h ^ (h >>> 8);
+  }
+
+  private static long find(final AtomicReferenceArray<Entry> table, final ValueSpecification spec, final int hashCode) {
+    final int mask = table.length() - 1;
+    int index = spread(hashCode) & mask;
+    Entry entry = table.get(index);
+    while (entry != null) {
+      if ((entry._hashCode == hashCode) && entry._specification.equals(spec)) {
+        return entry._identifier;
+      }
+      index = (index + 1) & mask;
+      entry = table.get(index);
+    }
+    return NOT_FOUND;
+  }
+
+  private static void insert(final AtomicReferenceArray<Entry> table, final Entry entry) {
+    final int mask = table.length() - 1;
+    int index = spread(entry._hashCode) & mask;
+    while (table.get(index) != null) {
+      index = (index + 1) & mask;
+    }
+    table.set(index, entry);
+  }
+
+  /**
+   * Allocates a new identifier. The caller must hold the monitor and have checked the specification is not already
+   * in the table.
+   */
+  private long allocate(final ValueSpecification spec, final int hashCode) {
+    AtomicReferenceArray<Entry> table = _table;
+    if ((++_size << 1) > table.length()) {
+      // Keep the load factor at or below 0.5 so that probe sequences stay short
+      final AtomicReferenceArray<Entry> newTable = new AtomicReferenceArray<Entry>(table.length() << 1);
+      for (int i = 0; i < table.length(); i++) {
+        final Entry entry = table.get(i);
+        if (entry != null) {
+          insert(newTable, entry);
+        }
+      }
+      table = newTable;
+    }
+    final long identifier = _nextIdentifier++;
+    final int chunk = (int) (identifier >>> CHUNK_BITS);
+    AtomicReferenceArray<ValueSpecification>[] chunks = _specifications;
+    if (chunk >= chunks.length) {
+      final AtomicReferenceArray<ValueSpecification>[] newChunks = createChunks(chunks.length << 1);
+      System.arraycopy(chunks, 0, newChunks, 0, chunks.length);
+      chunks = newChunks;
+    }
+    if (chunks[chunk] == null) {
+      chunks[chunk] = new AtomicReferenceArray<ValueSpecification>(CHUNK_SIZE);
+    }
+    // Publish the reverse mapping before the forward one so that any identifier a reader can obtain resolves
+    chunks[chunk].set((int) identifier & CHUNK_MASK, spec);
+    _specifications = chunks;
+    insert(table, new Entry(spec, hashCode, identifier));
+    _table = table;
+    return identifier;
+  }
+
+  private synchronized long findOrAllocate(final ValueSpecification spec, final int hashCode) {
+    final long identifier = find(_table, spec, hashCode);
+    if (identifier != NOT_FOUND) {
+      return identifier;
+    }
+    return allocate(spec, hashCode);
+  }
 
   @Override
-  public long getIdentifier(ValueSpecification spec) {
+  public long getIdentifier(final ValueSpecification spec) {
     ArgumentChecker.notNull(spec, "Value specification");
-    Long result = _identifiers.get(spec);
-    if (result != null) {
-      return result;
+    final int hashCode = spec.hashCode();
+    final long identifier = find(_table, spec, hashCode);
+    if (identifier != NOT_FOUND) {
+      return identifier;
     }
-    long freshIdentifier = _nextIdentifier.getAndIncrement();
-    result = _identifiers.putIfAbsent(spec, freshIdentifier);
-    if (result == null) {
-      result = freshIdentifier;
-      _specifications.put(freshIdentifier, spec);
+    return findOrAllocate(spec, hashCode);
+  }
+
+  @Override
+  public Object2LongMap<ValueSpecification> getIdentifiers(final Collection<ValueSpecification> specs) {
+    final Object2LongMap<ValueSpecification> identifiers = new Object2LongOpenHashMap<ValueSpecification>(specs.size());
+    final AtomicReferenceArray<Entry> table = _table;
+    List<ValueSpecification> misses = null;
+    for (ValueSpecification spec : specs) {
+      final long identifier = find(table, spec, spec.hashCode());
+      if (identifier != NOT_FOUND) {
+        identifiers.put(spec, identifier);
+      } else {
+        if (misses == null) {
+          misses = new ArrayList<ValueSpecification>();
+        }
+        misses.add(spec);
+      }
+    }
+    if (misses != null) {
+      // Allocate all of the misses under a single acquisition of the monitor
+      synchronized (this) {
+        for (ValueSpecification spec : misses) {
+          ArgumentChecker.notNull(spec, "Value specification");
+          final int hashCode = spec.hashCode();
+          long identifier = find(_table, spec, hashCode);
+          if (identifier == NOT_FOUND) {
+            identifier = allocate(spec, hashCode);
+          }
+          identifiers.put(spec, identifier);
+        }
+      }
     }
-    return result;
+    return identifiers;
   }
 
   @Override
-  public ValueSpecification getValueSpecification(long identifier) {
-    return _specifications.get(identifier);
+  public ValueSpecification getValueSpecification(final long identifier) {
+    final AtomicReferenceArray<ValueSpecification>[] chunks = _specifications;
+    final long chunk = identifier >>> CHUNK_BITS;
+    if ((identifier <= 0) || (chunk >= chunks.length)) {
+      return null;
+    }
+    final AtomicReferenceArray<ValueSpecification> specifications = chunks[(int) chunk];
+    if (specifications == null) {
+      return null;
+    }
+    return specifications.get((int) identifier & CHUNK_MASK);
+  }
+
+  @Override
+  public Long2ObjectMap<ValueSpecification> getValueSpecifications(final LongCollection identifiers) {
+    final Long2ObjectMap<ValueSpecification> specifications = new Long2ObjectOpenHashMap<ValueSpecification>(identifiers.size());
+    for (long identifier : identifiers) {
+      specifications.put(identifier, getValueSpecification(identifier));
+    }
+    return specifications;
   }
 
 }
@@ -0,0 +1,201 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import it.unimi.dsi.fastutil.longs.Long2LongMap;
+import it.unimi.dsi.fastutil.longs.Long2LongOpenHashMap;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReadWriteLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * An implementation of {@link BinaryDataStore} which holds the data outside of the Java heap in slabs obtained from a
+ * {@link SlabBinaryDataStoreFactory}. Each value is appended to the current slab, prefixed by its length, and the
+ * identifier mapped to the slab and offset in a primitive table. Deleting the store hands all of its slabs back to the
+ * factory in one go rather than freeing individual values.
+ * <p>
+ * This class is internally synchronized.
+ */
+public class SlabBinaryDataStore implements BinaryDataStore {
+
+  /**
+   * Number of bytes used to record the length of each value.
+   */
+  public static final int HEADER_SIZE = 4;
+
+  private static final long NOT_FOUND = -1L;
+
+  private final SlabBinaryDataStoreFactory _factory;
+  private final ReadWriteLock _lock = new ReentrantReadWriteLock();
+  private final Long2LongMap _index = new Long2LongOpenHashMap();
+  private final List<ByteBuffer> _slabs = new ArrayList<ByteBuffer>();
+  private ByteBuffer _currentSlab;
+  private boolean _deleted;
+
+  public SlabBinaryDataStore(final SlabBinaryDataStoreFactory factory) {
+    ArgumentChecker.notNull(factory, "factory");
+    _factory = factory;
+    _index.defaultReturnValue(NOT_FOUND);
+  }
+
+  protected SlabBinaryDataStoreFactory getFactory() {
+    return _factory;
+  }
+
+  private static long location(final int slab, final int offset) {
+    return ((long) slab << 32) | (offset & 0xFFFFFFFFL);
+  }
+
+  private static int slab(final long location) {
+    return (int) (location >>> 32);
+  }
+
+  private static int offset(final long location) {
+    return (int) location;
+  }
+
+  /**
+   * Reads a value. The caller must hold the read lock. The buffer is a private duplicate of the slab so that
+   * concurrent readers do not disturb each other's positions.
+   */
+  private static byte[] read(final ByteBuffer buffer, final int offset) {
+    buffer.position(offset);
+    final byte[] data = new byte[buffer.getInt()];
+    buffer.get(data);
+    return data;
+  }
+
+  /**
+   * Appends a value. The caller must hold the write lock.
+   */
+  private void write(final long identifier, final byte[] data) {
+    ArgumentChecker.notNull(data, "data");
+    if (_deleted) {
+      // A late write racing with the cache release; the slabs may already be in use by another store
+      return;
+    }
+    final int size = data.length + HEADER_SIZE;
+    if ((_currentSlab == null) || (_currentSlab.remaining() < size)) {
+      _currentSlab = getFactory().allocateSlab(size);
+      _slabs.add(_currentSlab);
+    }
+    final int offset = _currentSlab.position();
+    _currentSlab.putInt(data.length);
+    _currentSlab.put(data);
+    // Any previous value for the identifier remains in its slab until the store is deleted
+    _index.put(identifier, location(_slabs.size() - 1, offset));
+  }
+
+  /**
+   * Returns the number of slabs currently held by this store.
+   *
+   * @return the number of slabs
+   */
+  public int getSlabCount() {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      return _slabs.size();
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public byte[] get(final long identifier) {
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      final long location = _index.get(identifier);
+      if (location == NOT_FOUND) {
+        return null;
+      }
+      return read(_slabs.get(slab(location)).duplicate(), offset(location));
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public Map<Long, byte[]> get(final Collection<Long> identifiers) {
+    final Map<Long, byte[]> result = new HashMap<Long, byte[]>();
+    final Lock lock = _lock.readLock();
+    lock.lock();
+    try {
+      // Duplicate each slab at most once for the whole request
+      final ByteBuffer[] buffers = new ByteBuffer[_slabs.size()];
+      for (Long identifier : identifiers) {
+        final long location = _index.get(identifier.longValue());
+        if (location != NOT_FOUND) {
+          final int slab = slab(location);
+          ByteBuffer buffer = buffers[slab];
+          if (buffer == null) {
+            buffer = _slabs.get(slab).duplicate();
+            buffers[slab] = buffer;
+          }
+          result.put(identifier, read(buffer, offset(location)));
+        }
+      }
+    } finally {
+      lock.unlock();
+    }
+    return result;
+  }
+
+  @Override
+  public void put(final long identifier, final byte[] data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      write(identifier, data);
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void put(final Map<Long, byte[]> data) {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      for (Map.Entry<Long, byte[]> entry : data.entrySet()) {
+        write(entry.getKey(), entry.getValue());
+      }
+    } finally {
+      lock.unlock();
+    }
+  }
+
+  @Override
+  public void delete() {
+    final Lock lock = _lock.writeLock();
+    lock.lock();
+    try {
+      if (_deleted) {
+        return;
+      }
+      _deleted = true;
+      _index.clear();
+      for (ByteBuffer slab : _slabs) {
+        getFactory().releaseSlab(slab);
+      }
+      _slabs.clear();
+      _currentSlab = null;
+    } finally {
+      lock.unlock();
+    }
+  }
+
+}
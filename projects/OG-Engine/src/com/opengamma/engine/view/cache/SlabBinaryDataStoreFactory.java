@@ -0,0 +1,162 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Creates {@link SlabBinaryDataStore} instances. Values are held outside of the Java heap in fixed size slabs which are
+ * either direct buffers or, if a directory is given, memory mapped regions of temporary files. When a store is deleted
+ * its slabs are returned to this factory and reused by subsequent stores so that steady state cycle execution does not
+ * need to allocate any further memory.
+ */
+public class SlabBinaryDataStoreFactory implements BinaryDataStoreFactory {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(SlabBinaryDataStoreFactory.class);
+
+  /**
+   * Default size of each slab - 1Mb.
+   */
+  public static final int DEFAULT_SLAB_SIZE = 1024 * 1024;
+
+  /**
+   * Default number of released slabs that will be pooled for reuse.
+   */
+  public static final int DEFAULT_MAX_POOLED_SLABS = 256;
+
+  private final int _slabSize;
+  private final int _maxPooledSlabs;
+  private final File _mappedFileDirectory;
+  private final Queue<ByteBuffer> _pool = new ConcurrentLinkedQueue<ByteBuffer>();
+  private final AtomicInteger _pooledSlabs = new AtomicInteger();
+
+  public SlabBinaryDataStoreFactory() {
+    this(DEFAULT_SLAB_SIZE, DEFAULT_MAX_POOLED_SLABS);
+  }
+
+  public SlabBinaryDataStoreFactory(final int slabSize, final int maxPooledSlabs) {
+    this(slabSize, maxPooledSlabs, null);
+  }
+
+  /**
+   * Creates a new factory.
+   *
+   * @param slabSize the size of each slab in bytes
+   * @param maxPooledSlabs the maximum number of released slabs to hold for reuse
+   * @param mappedFileDirectory the directory to create memory mapped slab files in, or null to use direct buffers
+   */
+  public SlabBinaryDataStoreFactory(final int slabSize, final int maxPooledSlabs, final File mappedFileDirectory) {
+    ArgumentChecker.isTrue(slabSize > SlabBinaryDataStore.HEADER_SIZE, "slabSize must be larger than {}", SlabBinaryDataStore.HEADER_SIZE);
+    ArgumentChecker.notNegative(maxPooledSlabs, "maxPooledSlabs");
+    if (mappedFileDirectory != null) {
+      ArgumentChecker.isTrue(mappedFileDirectory.isDirectory(), "{} is not a directory", mappedFileDirectory);
+    }
+    _slabSize = slabSize;
+    _maxPooledSlabs = maxPooledSlabs;
+    _mappedFileDirectory = mappedFileDirectory;
+  }
+
+  public int getSlabSize() {
+    return _slabSize;
+  }
+
+  public int getMaxPooledSlabs() {
+    return _maxPooledSlabs;
+  }
+
+  public File getMappedFileDirectory() {
+    return _mappedFileDirectory;
+  }
+
+  /**
+   * Returns the number of released slabs currently held for reuse.
+   *
+   * @return the number of pooled slabs
+   */
+  public int getPooledSlabCount() {
+    return _pooledSlabs.get();
+  }
+
+  /**
+   * Obtains a slab of at least the requested size. Standard sized slabs come from the pool if one is available.
+   *
+   * @param minimumSize the minimum capacity of the slab
+   * @return the slab, not null
+   */
+  protected ByteBuffer allocateSlab(final int minimumSize) {
+    if (minimumSize <= getSlabSize()) {
+      final ByteBuffer slab = _pool.poll();
+      if (slab != null) {
+        _pooledSlabs.decrementAndGet();
+        slab.clear();
+        return slab;
+      }
+      return createSlab(getSlabSize());
+    } else {
+      // Oversized slabs are used for a single value and never pooled
+      return createSlab(minimumSize);
+    }
+  }
+
+  /**
+   * Returns a slab that is no longer used by a store. Standard sized slabs are pooled, up to the configured limit, and
+   * others left for the garbage collector to reclaim.
+   *
+   * @param slab the slab to release, not null
+   */
+  protected void releaseSlab(final ByteBuffer slab) {
+    if (slab.capacity() != getSlabSize()) {
+      return;
+    }
+    if (_pooledSlabs.incrementAndGet() <= getMaxPooledSlabs()) {
+      _pool.add(slab);
+    } else {
+      _pooledSlabs.decrementAndGet();
+    }
+  }
+
+  protected ByteBuffer createSlab(final int size) {
+    if (getMappedFileDirectory() == null) {
+      return ByteBuffer.allocateDirect(size);
+    }
+    try {
+      final File file = File.createTempFile("slab", ".dat", getMappedFileDirectory());
+      final RandomAccessFile raf = new RandomAccessFile(file, "rw");
+      try {
+        raf.setLength(size);
+        return raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+      } finally {
+        // The mapping remains valid after the channel is closed and the file removed
+        raf.close();
+        if (!file.delete()) {
+          s_logger.warn("Couldn't delete slab file {}", file);
+          file.deleteOnExit();
+        }
+      }
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Couldn't create memory mapped slab in " + getMappedFileDirectory(), e);
+    }
+  }
+
+  @Override
+  public BinaryDataStore createDataStore(final ViewComputationCacheKey cacheKey) {
+    return new SlabBinaryDataStore(this);
+  }
+
+}
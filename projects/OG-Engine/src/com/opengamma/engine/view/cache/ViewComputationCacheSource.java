@@ -5,6 +5,9 @@
  */
 package com.opengamma.engine.view.cache;
 
+import java.util.Collection;
+
+import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.id.UniqueId;
 
 /**
@@ -41,4 +44,14 @@ public interface ViewComputationCacheSource {
    */
   void releaseCaches(UniqueId viewCycleId);
   
+  /**
+   * Ensures identifiers have been allocated for the given value specifications. This is called when a view definition
+   * is compiled so that cycles executing the resulting graphs do not allocate identifiers. Calculation nodes must still
+   * look up the identifiers they have not seen before; a remote node does this in a single request for each job it
+   * receives.
+   * 
+   * @param specifications  the value specifications that will be used with caches from this source, not null
+   */
+  void preallocateIdentifiers(Collection<ValueSpecification> specifications);
+
 }
@@ -86,10 +86,12 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
       private final int[] _inputs;
       private final int[] _outputs;
       private final int[] _tail;
+      private final long _criticalPath;
 
       private FragmentDescriptor(final GraphFragment<?> fragment) {
         _nodes = fragment.getNodes();
         _cacheSelectHint = fragment.getCacheSelectHint();
+        _criticalPath = fragment.getCriticalPath();
         int[] a;
         int i;
         if (fragment.getInputFragments().isEmpty()) {
@@ -131,6 +133,7 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
         _inputs = copyFrom.getInputs();
         _outputs = copyFrom.getOutputs();
         _tail = copyFrom.getTail();
+        _criticalPath = copyFrom.getCriticalPath();
       }
 
       public Collection<DependencyNode> getNodes() {
@@ -153,6 +156,10 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
         return _tail;
       }
 
+      public long getCriticalPath() {
+        return _criticalPath;
+      }
+
     }
 
     private final Map<Integer, FragmentDescriptor> _fragments;
@@ -185,9 +192,10 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
       for (Map.Entry<Integer, FragmentDescriptor> descriptor : _fragments.entrySet()) {
         final GraphFragment fragment = new GraphFragment(context, descriptor.getValue().getNodes());
         fragment.setCacheSelectHint(descriptor.getValue().getCacheSelectHint());
+        fragment.setCriticalPath(descriptor.getValue().getCriticalPath());
         fragments.put(descriptor.getKey(), fragment);
       }
-      final List<GraphFragment> runnables = new LinkedList<GraphFragment>();
+      List<GraphFragment> runnables = new LinkedList<GraphFragment>();
       final GraphFragment.Root root = new GraphFragment.Root(context, statistics);
       for (Map.Entry<Integer, FragmentDescriptor> entry : _fragments.entrySet()) {
         final GraphFragment fragment = fragments.get(entry.getKey());
@@ -217,6 +225,9 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
         }
       }
       root.initBlockCount();
+      if (context.getExecutor().isCriticalPathScheduling()) {
+        runnables = GraphFragment.orderByCriticalPath(runnables);
+      }
       for (GraphFragment runnable : runnables) {
         runnable.execute(context);
       }
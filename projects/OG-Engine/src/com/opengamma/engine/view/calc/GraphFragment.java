@@ -8,6 +8,8 @@ package com.opengamma.engine.view.calc;
 import java.io.PrintStream;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashSet;
 import java.util.LinkedList;
 import java.util.List;
@@ -40,6 +42,8 @@ import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
   private long[] _requiredJobs;
   private int _requiredJobIndex;
   private Collection<F> _tail;
+  private long _criticalPath;
+  private volatile long _pathDuration;
 
   public GraphFragment(final GraphFragmentContext context) {
     _graphFragmentIdentifier = context.nextIdentifier();
@@ -88,6 +92,64 @@ import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
     return _cacheSelectHint;
   }
 
+  /**
+   * Sets the estimated cost of the longest chain of fragments from the start of this one to the completion of the graph. When critical path scheduling is
+   * enabled, fragments with the longest remaining path are dispatched first.
+   * 
+   * @param criticalPath the estimated cost of this fragment and the most expensive chain of its dependents
+   */
+  public void setCriticalPath(final long criticalPath) {
+    _criticalPath = criticalPath;
+  }
+
+  public long getCriticalPath() {
+    return _criticalPath;
+  }
+
+  /**
+   * Returns the reported execution time of the longest chain of jobs ending with this fragment. This is only valid once the fragment has completed.
+   * 
+   * @return the path duration in nanoseconds
+   */
+  public long getPathDuration() {
+    return _pathDuration;
+  }
+
+  /**
+   * Updates the path duration after completion of this fragment's job.
+   * 
+   * @param duration the reported execution time of this fragment's job, in nanoseconds
+   */
+  protected void completePath(final long duration) {
+    long longest = 0;
+    for (GraphFragment<F> input : getInputFragments()) {
+      final long path = input.getPathDuration();
+      if (path > longest) {
+        longest = path;
+      }
+    }
+    _pathDuration = longest + duration;
+  }
+
+  /**
+   * Orders fragments so that those with the longest remaining critical path come first.
+   * 
+   * @param fragments the fragments to order, not null
+   * @return the ordered fragments, not null
+   */
+  public static <F extends GraphFragment<?>> List<F> orderByCriticalPath(final Collection<F> fragments) {
+    final List<F> ordered = new ArrayList<F>(fragments);
+    Collections.sort(ordered, new Comparator<F>() {
+      @Override
+      public int compare(final F o1, final F o2) {
+        final long p1 = o1.getCriticalPath();
+        final long p2 = o2.getCriticalPath();
+        return (p1 > p2) ? -1 : ((p1 < p2) ? 1 : 0);
+      }
+    });
+    return ordered;
+  }
+
   public int getJobItems() {
     return _nodes.size();
   }
@@ -186,7 +248,9 @@ import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
   public void resultReceived(final GraphFragmentContext context, final CalculationJobResult result) {
     // Release tree fragments up the tree
     context.addExecutionTime(result.getDuration());
-    for (GraphFragment<F> dependent : getOutputFragments()) {
+    completePath(result.getDuration());
+    final Collection<F> dependents = context.getExecutor().isCriticalPathScheduling() ? orderByCriticalPath(getOutputFragments()) : getOutputFragments();
+    for (GraphFragment<F> dependent : dependents) {
       dependent.inputCompleted(context);
     }
   }
@@ -212,6 +276,7 @@ import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
 
     @Override
     public void execute(final GraphFragmentContext context) {
+      completePath(0);
       _future.executed();
     }
 
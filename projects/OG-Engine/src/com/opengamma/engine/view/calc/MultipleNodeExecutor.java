@@ -33,6 +33,7 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
 import com.opengamma.engine.view.calcnode.CalculationJob;
 import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
 import com.opengamma.engine.view.calcnode.JobResultReceiver;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.engine.view.calcnode.stats.FunctionCosts;
 import com.opengamma.util.async.Cancelable;
 import com.opengamma.util.monitor.OperationTimer;
@@ -53,9 +54,15 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<DependencyG
   private final int _maxConcurrency;
   private final FunctionCosts _functionCosts;
   private final ExecutionPlanCache _cache;
+  private final boolean _criticalPathScheduling;
 
   protected MultipleNodeExecutor(final SingleComputationCycle cycle, final int minimumJobItems, final int maximumJobItems, final long minimumJobCost, final long maximumJobCost,
       final int maximumConcurrency, final FunctionCosts functionCosts, final ExecutionPlanCache cache) {
+    this(cycle, minimumJobItems, maximumJobItems, minimumJobCost, maximumJobCost, maximumConcurrency, functionCosts, cache, false);
+  }
+
+  protected MultipleNodeExecutor(final SingleComputationCycle cycle, final int minimumJobItems, final int maximumJobItems, final long minimumJobCost, final long maximumJobCost,
+      final int maximumConcurrency, final FunctionCosts functionCosts, final ExecutionPlanCache cache, final boolean criticalPathScheduling) {
     // Don't check for null as the factory does this, plus for testing we don't have a cycle and override the methods that use it
     _cycle = cycle;
     _minJobItems = minimumJobItems;
@@ -65,6 +72,7 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<DependencyG
     _maxConcurrency = maximumConcurrency;
     _functionCosts = functionCosts;
     _cache = cache;
+    _criticalPathScheduling = criticalPathScheduling;
   }
 
   protected long getFunctionInitId() {
@@ -88,9 +96,22 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<DependencyG
   }
 
   protected Cancelable dispatchJob(final CalculationJob job, final JobResultReceiver jobResultReceiver) {
+    final CycleTrace trace = getCycle().getTrace();
+    if (trace != null) {
+      setTrace(job, trace);
+    }
     return getCycle().getViewProcessContext().getComputationJobDispatcher().dispatchJob(job, jobResultReceiver);
   }
 
+  private static void setTrace(final CalculationJob job, final CycleTrace trace) {
+    job.setTrace(trace);
+    if (job.getTail() != null) {
+      for (CalculationJob tail : job.getTail()) {
+        setTrace(tail, trace);
+      }
+    }
+  }
+
   protected void markExecuted(final DependencyNode node) {
     getCycle().markExecuted(node);
   }
@@ -156,6 +177,12 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<DependencyG
       }
     } while (true);
     findTailFragments(allFragments);
+    if (isCriticalPathScheduling()) {
+      logicalRoot.setCriticalPath(1);
+      for (MutableGraphFragment fragment : allFragments) {
+        fragment.calculateCriticalPath();
+      }
+    }
     context.allocateFragmentMap(allFragments.size());
     // Set block counts on non-leaf nodes & leave only the leaves in the set
     logicalRoot.initBlockCount();
@@ -178,7 +205,7 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<DependencyG
         (double) totalInvocationCost / (double) count, (double) totalDataCost / (double) count);
     // printFragment(logicalRoot);
     // Execute anything left (leaf nodes)
-    for (MutableGraphFragment fragment : allFragments) {
+    for (MutableGraphFragment fragment : isCriticalPathScheduling() ? GraphFragment.orderByCriticalPath(allFragments) : allFragments) {
       fragment.execute(context);
     }
     return logicalRoot;
@@ -252,6 +279,17 @@ public class MultipleNodeExecutor implements DependencyGraphExecutor<DependencyG
     return _functionCosts;
   }
 
+  /**
+   * Tests whether fragments are dispatched in order of their remaining critical path. The critical path of a fragment is the estimated cost, from the function
+   * invocation statistics, of the fragment and the most expensive chain of fragments that depend on it. Dispatching the fragments with the longest remaining
+   * path first avoids long chains being started late and serializing the end of the cycle.
+   * 
+   * @return true if critical path scheduling is enabled, false to dispatch fragments as they become runnable
+   */
+  public boolean isCriticalPathScheduling() {
+    return _criticalPathScheduling;
+  }
+
   private Collection<MutableGraphFragment> graphToFragments(final MutableGraphFragmentContext context, final DependencyGraph graph, final Set<MutableGraphFragment> allFragments) {
     final Map<DependencyNode, MutableGraphFragment> node2fragment = new HashMap<DependencyNode, MutableGraphFragment>();
     final Collection<DependencyNode> rootNodes = graph.getRootNodes();
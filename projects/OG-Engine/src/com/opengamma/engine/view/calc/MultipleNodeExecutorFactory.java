@@ -26,6 +26,7 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
   private long _maximumJobCost = Long.MAX_VALUE;
   private int _maximumConcurrency = Integer.MAX_VALUE;
   private FunctionCosts _functionCosts;
+  private boolean _criticalPathScheduling;
   
   protected ExecutionPlanCache getExecutionPlanCache() {
     return _executionPlanCache;
@@ -91,6 +92,20 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
     return _functionCosts;
   }
 
+  /**
+   * Sets whether fragments are dispatched in order of their remaining critical path. See {@link MultipleNodeExecutor#isCriticalPathScheduling}.
+   * 
+   * @param criticalPathScheduling true to dispatch the fragments with the longest remaining path first
+   */
+  public void setCriticalPathScheduling(final boolean criticalPathScheduling) {
+    _criticalPathScheduling = criticalPathScheduling;
+    invalidateExecutionPlanCache();
+  }
+
+  public boolean isCriticalPathScheduling() {
+    return _criticalPathScheduling;
+  }
+
   public void setCacheSize(final int size) {
     _executionPlanCache = new ExecutionPlanCache(EHCacheUtils.createCacheManager(), size);
   }
@@ -98,7 +113,8 @@ public class MultipleNodeExecutorFactory implements DependencyGraphExecutorFacto
   @Override
   public MultipleNodeExecutor createExecutor(final SingleComputationCycle cycle) {
     ArgumentChecker.notNull(cycle, "cycle");
-    return new MultipleNodeExecutor(cycle, getMinimumJobItems(), getMaximumJobItems(), getMinimumJobCost(), getMaximumJobCost(), getMaximumConcurrency(), getFunctionCosts(), _executionPlanCache);
+    return new MultipleNodeExecutor(cycle, getMinimumJobItems(), getMaximumJobItems(), getMinimumJobCost(), getMaximumJobCost(), getMaximumConcurrency(), getFunctionCosts(), _executionPlanCache,
+        isCriticalPathScheduling());
   }
 
   @Override
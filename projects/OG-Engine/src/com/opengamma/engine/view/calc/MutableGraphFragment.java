@@ -110,6 +110,29 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
     return latest;
   }
 
+  /**
+   * Calculates the estimated cost of the longest chain of fragments from the start of this one to the completion of the graph, and the same for each
+   * dependent fragment.
+   * 
+   * @return the critical path cost
+   */
+  public long calculateCriticalPath() {
+    if (getCriticalPath() > 0) {
+      return getCriticalPath();
+    }
+    long longest = 0;
+    for (MutableGraphFragment output : getOutputFragments()) {
+      final long path = output.calculateCriticalPath();
+      if (path > longest) {
+        longest = path;
+      }
+    }
+    // Add one so that a fragment with no cost is still marked as calculated
+    final long criticalPath = longest + getJobCost() + 1;
+    setCriticalPath(criticalPath);
+    return criticalPath;
+  }
+
   public void addTail(final MutableGraphFragment fragment) {
     Collection<MutableGraphFragment> tail = getTail();
     if (tail == null) {
@@ -324,6 +347,7 @@ import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatistics;
         ps.close();
       }
       context.getExecutor().getCache().cachePlan(context.getGraph(), context.getFunctionInitId(), ExecutionPlan.of(this));
+      completePath(0);
       _future.executed();
     }
 
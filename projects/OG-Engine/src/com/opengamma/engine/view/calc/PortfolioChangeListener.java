@@ -0,0 +1,70 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import com.opengamma.core.change.ChangeEvent;
+import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.engine.view.compilation.IncrementalPortfolioCompiler;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Change listener for the portfolio referenced by a view definition which notifies a computation job when the
+ * portfolio, or any of the nodes, positions or trades within it, changes.
+ */
+public class PortfolioChangeListener implements ChangeListener {
+
+  private final ViewComputationJob _computationJob;
+  private final UniqueId _portfolioId;
+  private volatile Set<ObjectId> _targets;
+
+  public PortfolioChangeListener(ViewComputationJob computationJob, UniqueId portfolioId) {
+    _computationJob = computationJob;
+    _portfolioId = portfolioId;
+    _targets = Collections.singleton(portfolioId.getObjectId());
+  }
+
+  /**
+   * Updates the set of objects of interest to the contents of the most recently compiled portfolio structure.
+   * 
+   * @param portfolio the portfolio structure, not null
+   */
+  public void setPortfolio(Portfolio portfolio) {
+    final Set<ObjectId> targets = new HashSet<ObjectId>();
+    targets.add(getPortfolioId().getObjectId());
+    for (UniqueId target : IncrementalPortfolioCompiler.getTargets(portfolio)) {
+      targets.add(target.getObjectId());
+    }
+    _targets = targets;
+  }
+
+  @Override
+  public void entityChanged(ChangeEvent event) {
+    if (getPortfolioId().isVersioned()) {
+      // Locked to a specific version
+      return;
+    }
+    final Set<ObjectId> targets = _targets;
+    if (((event.getBeforeId() != null) && targets.contains(event.getBeforeId().getObjectId()))
+        || ((event.getAfterId() != null) && targets.contains(event.getAfterId().getObjectId()))) {
+      getViewComputationJob().dirtyPortfolio();
+    }
+  }
+
+  private UniqueId getPortfolioId() {
+    return _portfolioId;
+  }
+
+  private ViewComputationJob getViewComputationJob() {
+    return _computationJob;
+  }
+
+}
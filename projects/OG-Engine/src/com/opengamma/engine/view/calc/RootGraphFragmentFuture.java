@@ -36,7 +36,10 @@ import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
     if (!isCancelled()) {
       _done = true;
       notifyAll();
-      _statistics.graphExecuted(getContext().getGraph().getCalculationConfigurationName(), getContext().getGraph().getSize(), getContext().getExecutionTime(), System.nanoTime() - _jobStarted);
+      final long duration = System.nanoTime() - _jobStarted;
+      final String calcConfig = getContext().getGraph().getCalculationConfigurationName();
+      _statistics.graphExecuted(calcConfig, getContext().getGraph().getSize(), getContext().getExecutionTime(), duration);
+      _statistics.graphMakespan(calcConfig, getFragment().getPathDuration(), duration);
     }
   }
 
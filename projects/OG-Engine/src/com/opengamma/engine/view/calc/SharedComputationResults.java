@@ -0,0 +1,286 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.time.Instant;
+
+import org.apache.commons.lang.ObjectUtils;
+
+import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Values calculated by the most recent cycle of each view process that has asked to share its results, made available to the cycles of other such
+ * processes in the same view processor. A cycle executing against the same market data specification as a published cycle, with a valuation time
+ * within a tolerance of it, can take any node whose inputs trace back only to market data with the same values from the published results instead of
+ * executing it. Views over the same portfolio with different columns share most of their graphs, so only the nodes specific to each view are executed.
+ * <p>
+ * Live snapshots taken by different view processes are never identical, so published cycles are found by market data specification rather than
+ * snapshot; the market data values each node depends on are compared individually when the values are taken. The valuation time of a live cycle is
+ * the time of its snapshot, so cycles of different processes are matched if their valuation times differ by no more than the tolerance.
+ * <p>
+ * Only the terminal outputs of each cycle are published. Values are only shared between calculation configurations with the same name, default
+ * properties and resolution rules; the requested outputs may differ. Only the most recent cycles are retained, up to a fixed number; publishing a
+ * further cycle discards the oldest.
+ */
+public class SharedComputationResults {
+
+  /**
+   * The default number of published cycles to retain.
+   */
+  public static final int DEFAULT_MAX_PUBLISHED = 8;
+
+  /**
+   * The default difference in valuation times, in milliseconds, of cycles that may share values.
+   */
+  public static final long DEFAULT_VALUATION_TIME_TOLERANCE_MILLIS = 1000;
+
+  /**
+   * Identifies calculation configurations whose nodes may be shared.
+   */
+  private static final class ConfigurationKey {
+
+    private final ViewCalculationConfiguration _calcConfig;
+
+    private ConfigurationKey(final ViewCalculationConfiguration calcConfig) {
+      _calcConfig = calcConfig;
+    }
+
+    @Override
+    public int hashCode() {
+      return _calcConfig.getName().hashCode() * 31 + _calcConfig.getDefaultProperties().hashCode();
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      if (o == this) {
+        return true;
+      }
+      if (!(o instanceof ConfigurationKey)) {
+        return false;
+      }
+      final ViewCalculationConfiguration other = ((ConfigurationKey) o)._calcConfig;
+      return _calcConfig.getName().equals(other.getName())
+          && _calcConfig.getDefaultProperties().equals(other.getDefaultProperties())
+          && ObjectUtils.equals(_calcConfig.getResolutionRuleTransform(), other.getResolutionRuleTransform());
+    }
+
+  }
+
+  /**
+   * The values published by a single cycle. Instances are immutable once published.
+   */
+  public static final class Published {
+
+    private final UniqueId _viewProcessId;
+    private final MarketDataSpecification _marketDataSpecification;
+    private final Instant _valuationTime;
+    private final Map<ValueRequirement, Object> _marketData;
+    private final Map<ConfigurationKey, Map<ValueSpecification, Object>> _values;
+
+    private Published(final UniqueId viewProcessId, final MarketDataSpecification marketDataSpecification, final Instant valuationTime,
+        final Map<ValueRequirement, Object> marketData, final Map<ConfigurationKey, Map<ValueSpecification, Object>> values) {
+      _viewProcessId = viewProcessId;
+      _marketDataSpecification = marketDataSpecification;
+      _valuationTime = valuationTime;
+      _marketData = marketData;
+      _values = values;
+    }
+
+    public UniqueId getViewProcessId() {
+      return _viewProcessId;
+    }
+
+    public MarketDataSpecification getMarketDataSpecification() {
+      return _marketDataSpecification;
+    }
+
+    public Instant getValuationTime() {
+      return _valuationTime;
+    }
+
+    /**
+     * Returns the market data values the published cycle was executed with.
+     *
+     * @return the market data values, not null
+     */
+    public Map<ValueRequirement, Object> getMarketData() {
+      return _marketData;
+    }
+
+    /**
+     * Returns the terminal output values calculated for a compatible calculation configuration.
+     *
+     * @param calcConfig the calculation configuration of the consuming cycle, not null
+     * @return the values, or null if the published cycle had no compatible configuration
+     */
+    public Map<ValueSpecification, Object> getValues(final ViewCalculationConfiguration calcConfig) {
+      return _values.get(new ConfigurationKey(calcConfig));
+    }
+
+  }
+
+  private final int _maxPublished;
+  private final long _valuationTimeToleranceMillis;
+  private final Map<UniqueId, Published> _publishedByViewProcess = new LinkedHashMap<UniqueId, Published>();
+  private final Map<MarketDataSpecification, Collection<Published>> _publishedByMarketData = new HashMap<MarketDataSpecification, Collection<Published>>();
+  private final AtomicLong _reusedNodes = new AtomicLong();
+
+  public SharedComputationResults() {
+    this(DEFAULT_MAX_PUBLISHED);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxPublished the number of published cycles to retain, at least one
+   */
+  public SharedComputationResults(final int maxPublished) {
+    this(maxPublished, DEFAULT_VALUATION_TIME_TOLERANCE_MILLIS);
+  }
+
+  /**
+   * Creates an instance.
+   *
+   * @param maxPublished the number of published cycles to retain, at least one
+   * @param valuationTimeToleranceMillis the largest difference in valuation times, in milliseconds, of cycles that may share values, zero for exact matches only
+   */
+  public SharedComputationResults(final int maxPublished, final long valuationTimeToleranceMillis) {
+    ArgumentChecker.isTrue(maxPublished > 0, "maxPublished must be positive");
+    ArgumentChecker.isTrue(valuationTimeToleranceMillis >= 0, "valuationTimeToleranceMillis must not be negative");
+    _maxPublished = maxPublished;
+    _valuationTimeToleranceMillis = valuationTimeToleranceMillis;
+  }
+
+  public int getMaxPublished() {
+    return _maxPublished;
+  }
+
+  public long getValuationTimeToleranceMillis() {
+    return _valuationTimeToleranceMillis;
+  }
+
+  /**
+   * Publishes the values calculated by a cycle, replacing any previously published by the same view process.
+   *
+   * @param viewProcessId the view process, not null
+   * @param marketDataSpecification the market data specification the cycle was executed with, not null
+   * @param valuationTime the valuation time of the cycle, not null
+   * @param marketData the market data values the cycle was executed with, not null
+   * @param values the terminal output values calculated by the cycle for each calculation configuration, not null
+   */
+  public void publish(final UniqueId viewProcessId, final MarketDataSpecification marketDataSpecification, final Instant valuationTime,
+      final Map<ValueRequirement, Object> marketData, final Map<ViewCalculationConfiguration, Map<ValueSpecification, Object>> values) {
+    ArgumentChecker.notNull(viewProcessId, "viewProcessId");
+    ArgumentChecker.notNull(marketDataSpecification, "marketDataSpecification");
+    ArgumentChecker.notNull(valuationTime, "valuationTime");
+    ArgumentChecker.notNull(marketData, "marketData");
+    ArgumentChecker.notNull(values, "values");
+    final Map<ConfigurationKey, Map<ValueSpecification, Object>> keyedValues = new HashMap<ConfigurationKey, Map<ValueSpecification, Object>>();
+    for (Map.Entry<ViewCalculationConfiguration, Map<ValueSpecification, Object>> calcConfigValues : values.entrySet()) {
+      keyedValues.put(new ConfigurationKey(calcConfigValues.getKey()), calcConfigValues.getValue());
+    }
+    final Published published = new Published(viewProcessId, marketDataSpecification, valuationTime, marketData, keyedValues);
+    synchronized (this) {
+      removeImpl(viewProcessId);
+      _publishedByViewProcess.put(viewProcessId, published);
+      Collection<Published> marketDataPublished = _publishedByMarketData.get(marketDataSpecification);
+      if (marketDataPublished == null) {
+        marketDataPublished = new ArrayList<Published>(2);
+        _publishedByMarketData.put(marketDataSpecification, marketDataPublished);
+      }
+      marketDataPublished.add(published);
+      if (_publishedByViewProcess.size() > _maxPublished) {
+        // Discard the least recently published
+        removeImpl(_publishedByViewProcess.keySet().iterator().next());
+      }
+    }
+  }
+
+  private void removeImpl(final UniqueId viewProcessId) {
+    final Published published = _publishedByViewProcess.remove(viewProcessId);
+    if (published != null) {
+      final Collection<Published> marketDataPublished = _publishedByMarketData.get(published.getMarketDataSpecification());
+      marketDataPublished.remove(published);
+      if (marketDataPublished.isEmpty()) {
+        _publishedByMarketData.remove(published.getMarketDataSpecification());
+      }
+    }
+  }
+
+  /**
+   * Discards the values published by a view process, for example when it terminates.
+   *
+   * @param viewProcessId the view process, not null
+   */
+  public synchronized void remove(final UniqueId viewProcessId) {
+    removeImpl(viewProcessId);
+  }
+
+  /**
+   * Finds the values published by other view processes for cycles executed with the given market data specification. As functions may depend on
+   * the valuation time, only cycles with a valuation time within the tolerance are returned. The caller must still check that the market data
+   * values each shared node depends on are the same.
+   *
+   * @param marketDataSpecification the market data specification, not null
+   * @param valuationTime the valuation time, not null
+   * @param viewProcessId the view process making the request, whose own values are excluded, not null
+   * @return the published values, not null
+   */
+  public synchronized Collection<Published> find(final MarketDataSpecification marketDataSpecification, final Instant valuationTime, final UniqueId viewProcessId) {
+    final Collection<Published> marketDataPublished = _publishedByMarketData.get(marketDataSpecification);
+    if (marketDataPublished == null) {
+      return Collections.<Published>emptySet();
+    }
+    final long valuationTimeMillis = valuationTime.toEpochMillisLong();
+    Collection<Published> result = null;
+    for (Published published : marketDataPublished) {
+      if ((Math.abs(published.getValuationTime().toEpochMillisLong() - valuationTimeMillis) <= _valuationTimeToleranceMillis)
+          && !published.getViewProcessId().equals(viewProcessId)) {
+        if (result == null) {
+          result = new ArrayList<Published>(marketDataPublished.size());
+        }
+        result.add(published);
+      }
+    }
+    return (result != null) ? result : Collections.<Published>emptySet();
+  }
+
+  /**
+   * Returns the number of view processes with published values.
+   *
+   * @return the count
+   */
+  public synchronized int getPublishedCount() {
+    return _publishedByViewProcess.size();
+  }
+
+  /**
+   * Returns the total number of nodes whose execution has been avoided by taking values from another process.
+   *
+   * @return the count
+   */
+  public long getReusedNodeCount() {
+    return _reusedNodes.get();
+  }
+
+  /* package */void nodesReused(final int count) {
+    _reusedNodes.addAndGet(count);
+  }
+
+}
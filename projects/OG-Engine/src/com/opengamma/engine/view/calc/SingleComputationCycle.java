@@ -10,6 +10,7 @@ import static com.opengamma.util.functional.Functional.submapByKeySet;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
+import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
@@ -32,6 +33,7 @@ import java.util.concurrent.TimeoutException;
 import javax.time.Duration;
 import javax.time.Instant;
 
+import org.apache.commons.lang.ObjectUtils;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -45,12 +47,18 @@ import com.opengamma.engine.function.MarketDataSourcingFunction;
 import com.opengamma.engine.marketdata.MarketDataSnapshot;
 import com.opengamma.engine.marketdata.OverrideOperation;
 import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.DeltaDefinition;
 import com.opengamma.engine.view.InMemoryViewComputationResultModel;
+import com.opengamma.engine.view.InMemoryViewDeltaResultModel;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewCalculationResultModel;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.ViewProcessContext;
 import com.opengamma.engine.view.cache.CacheSelectHint;
 import com.opengamma.engine.view.cache.MissingMarketDataSentinel;
@@ -58,12 +66,15 @@ import com.opengamma.engine.view.cache.ViewComputationCache;
 import com.opengamma.engine.view.calc.stats.GraphExecutorStatisticsGatherer;
 import com.opengamma.engine.view.calcnode.CalculationJobResultItem;
 import com.opengamma.engine.view.calcnode.MissingInput;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.listener.ComputationResultListener;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.TimingHistogram;
 import com.opengamma.util.tuple.Pair;
 
 /**
@@ -73,6 +84,9 @@ import com.opengamma.util.tuple.Pair;
  */
 public class SingleComputationCycle implements ViewCycle, EngineResource {
   private static final Logger s_logger = LoggerFactory.getLogger(SingleComputationCycle.class);
+  private static final TimingHistogram s_prepareTime = MetricRegistry.getDefault().histogram("engine.cycle.prepare");
+  private static final TimingHistogram s_executeTime = MetricRegistry.getDefault().histogram("engine.cycle.execute");
+  private static final TimingHistogram s_resultsTime = MetricRegistry.getDefault().histogram("engine.cycle.results");
 
   // Injected inputs
   private final UniqueId _cycleId;
@@ -90,13 +104,70 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
 
   private volatile Instant _startTime;
   private volatile Instant _endTime;
+  private volatile CycleTrace _trace;
 
   private final Set<DependencyNode> _executedNodes = Collections.newSetFromMap(new ConcurrentHashMap<DependencyNode, Boolean>());
   private final Set<DependencyNode> _failedNodes = Collections.newSetFromMap(new ConcurrentHashMap<DependencyNode, Boolean>());
   private final Map<String, ViewComputationCache> _cachesByCalculationConfiguration = new HashMap<String, ViewComputationCache>();
 
+  // Incremental execution
+  private boolean _incrementalExecution;
+  private Map<ValueRequirement, Object> _marketDataValues;
+  private boolean _shareResults;
+  private Map<String, Set<DependencyNode>> _dirtyNodesByCalculationConfiguration;
+  private RetainedValues _retainedValues;
+
   // Output
   private final InMemoryViewComputationResultModel _resultModel;
+  private ViewComputationResultModel _previousResultModel;
+  private Map<String, Set<ValueSpecification>> _unchangedSpecificationsByCalculationConfiguration;
+  private InMemoryViewDeltaResultModel _deltaResultModel;
+
+  /**
+   * Values retained between incrementally executed cycles. Each cycle takes ownership from the one before so the
+   * values are updated by at most one cycle, and only once its execution has completed.
+   */
+  private static final class RetainedValues {
+
+    private final CompiledViewDefinitionWithGraphsImpl _compiledViewDefinition;
+    private final Map<String, Map<ValueSpecification, Object>> _values = new HashMap<String, Map<ValueSpecification, Object>>();
+    private final Map<String, Set<ValueSpecification>> _resultSpecifications = new HashMap<String, Set<ValueSpecification>>();
+    private Map<ValueRequirement, Object> _marketData = Collections.emptyMap();
+
+    public RetainedValues(final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition) {
+      _compiledViewDefinition = compiledViewDefinition;
+    }
+
+    public CompiledViewDefinitionWithGraphsImpl getCompiledViewDefinition() {
+      return _compiledViewDefinition;
+    }
+
+    public Map<ValueSpecification, Object> getValues(final String calcConfigurationName) {
+      Map<ValueSpecification, Object> values = _values.get(calcConfigurationName);
+      if (values == null) {
+        values = new HashMap<ValueSpecification, Object>();
+        _values.put(calcConfigurationName, values);
+      }
+      return values;
+    }
+
+    public Set<ValueSpecification> getResultSpecifications(final String calcConfigurationName) {
+      return _resultSpecifications.get(calcConfigurationName);
+    }
+
+    public void setResultSpecifications(final String calcConfigurationName, final Set<ValueSpecification> resultSpecifications) {
+      _resultSpecifications.put(calcConfigurationName, resultSpecifications);
+    }
+
+    public Map<ValueRequirement, Object> getMarketData() {
+      return _marketData;
+    }
+
+    public void setMarketData(final Map<ValueRequirement, Object> marketData) {
+      _marketData = marketData;
+    }
+
+  }
 
   public SingleComputationCycle(UniqueId cycleId, UniqueId viewProcessId,
       ComputationResultListener cycleFragmentResultListener, ViewProcessContext viewProcessContext,
@@ -121,14 +192,17 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     _executionOptions = executionOptions;
     _versionCorrection = versionCorrection;
 
-    _resultModel = constructTemplateResultModel();
+    _resultModel = initTemplateResultModel(getViewProcessContext().isColumnarResults() ? new ColumnarViewComputationResultModel() : new InMemoryViewComputationResultModel());
 
     _dependencyGraphExecutor = getViewProcessContext().getDependencyGraphExecutorFactory().createExecutor(this);
     _statisticsGatherer = getViewProcessContext().getGraphExecutorStatisticsGathererProvider().getStatisticsGatherer(getViewProcessId());
   }
 
   private InMemoryViewComputationResultModel constructTemplateResultModel() {
-    InMemoryViewComputationResultModel result = new InMemoryViewComputationResultModel();
+    return initTemplateResultModel(new InMemoryViewComputationResultModel());
+  }
+
+  private InMemoryViewComputationResultModel initTemplateResultModel(final InMemoryViewComputationResultModel result) {
     result.setViewCycleId(getCycleId());
     result.setViewProcessId(getViewProcessId());
     result.setValuationTime(getExecutionOptions().getValuationTime());
@@ -186,10 +260,62 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     return Collections.unmodifiableMap(_cachesByCalculationConfiguration);
   }
 
+  /**
+   * Gets the trace recording the execution of the cycle.
+   * 
+   * @return the trace, null if the cycle is not being traced
+   */
+  public CycleTrace getTrace() {
+    return _trace;
+  }
+
+  /**
+   * Sets the trace to record the execution of the cycle in. This must be set before the cycle executes.
+   * 
+   * @param trace the trace, null to not trace the cycle
+   */
+  public void setTrace(final CycleTrace trace) {
+    _trace = trace;
+  }
+
   public ViewProcessContext getViewProcessContext() {
     return _viewProcessContext;
   }
 
+  /**
+   * Sets whether the cycle executes incrementally. An incremental cycle retains the values it calculates so that a delta cycle following it only
+   * needs to schedule the nodes affected by changed market data. Unaffected values are not copied between the computation caches and the result
+   * model is built by applying the recalculated values to those retained.
+   * 
+   * @param incrementalExecution true to execute incrementally, false to copy unaffected values from the previous cycle's caches
+   */
+  public void setIncrementalExecution(final boolean incrementalExecution) {
+    _incrementalExecution = incrementalExecution;
+  }
+
+  public boolean isIncrementalExecution() {
+    return _incrementalExecution;
+  }
+
+  /**
+   * Sets whether the cycle shares its results with other view processes. A sharing cycle publishes the values it calculates, and takes the
+   * values of any nodes already calculated by other sharing processes with the same market data. This has no effect if the view processor
+   * does not share results between processes.
+   * 
+   * @param shareResults true to share results with other view processes, false otherwise
+   */
+  public void setShareResults(final boolean shareResults) {
+    _shareResults = shareResults;
+  }
+
+  public boolean isShareResults() {
+    return _shareResults;
+  }
+
+  private SharedComputationResults getSharedComputationResults() {
+    return isShareResults() ? getViewProcessContext().getSharedComputationResults() : null;
+  }
+
   public Set<String> getAllCalculationConfigurationNames() {
     return new HashSet<String>(getCompiledViewDefinition().getViewDefinition().getAllCalculationConfigurationNames());
   }
@@ -242,6 +368,20 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     return _resultModel;
   }
 
+  /**
+   * Gets the delta between the result of this cycle and that of the previous cycle. The delta is produced as the result model is populated,
+   * comparing only the values recalculated by this cycle; values carried over from the previous cycle are unchanged by definition.
+   * 
+   * @param previousResult the result the delta is required against, null if there is none
+   * @return the delta, or null if this cycle has not produced one against the given result
+   */
+  public ViewDeltaResultModel getDeltaResultModel(final ViewComputationResultModel previousResult) {
+    if ((previousResult == null) || (previousResult != _previousResultModel)) {
+      return null;
+    }
+    return _deltaResultModel;
+  }
+
   @Override
   public ComputationCacheResponse queryComputationCaches(ComputationCacheQuery query) {
     ArgumentChecker.notNull(query, "query");
@@ -261,6 +401,24 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     return response;
   }
 
+  @Override
+  public String getExecutionTrace() {
+    final CycleTrace trace = getTrace();
+    if (trace == null) {
+      return null;
+    }
+    return trace.toChromeTrace();
+  }
+
+  private void traceCycle(final String name, final TimingHistogram histogram, final long startNanos, final Object detail) {
+    final long endNanos = System.nanoTime();
+    histogram.record(endNanos - startNanos);
+    final CycleTrace trace = getTrace();
+    if (trace != null) {
+      trace.record(CycleTrace.CATEGORY_CYCLE, name, "cycle", startNanos, endNanos, detail);
+    }
+  }
+
   //--------------------------------------------------------------------------  
   // REVIEW jonathan 2011-03-18 -- The following comment should be given some sort of 'listed' status for preservation :-)
   // REVIEW kirk 2009-11-03 -- This is a database kernel. Act accordingly.
@@ -280,13 +438,26 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     }
     _startTime = Instant.now();
     _state = ViewCycleState.EXECUTING;
+    long traceStart = System.nanoTime();
 
     createAllCaches();
     prepareInputs(marketDataSnapshot);
 
     if (previousCycle != null) {
-      computeDelta(previousCycle);
+      _previousResultModel = previousCycle.getResultModel();
+      // The previous cycle's delta has already been delivered; don't let the results of earlier cycles chain through it
+      previousCycle._previousResultModel = null;
+      previousCycle._deltaResultModel = null;
+      if (!isIncrementalExecution() || !computeIncrementalDelta(previousCycle)) {
+        if (previousCycle.getCompiledViewDefinition() == getCompiledViewDefinition()) {
+          _unchangedSpecificationsByCalculationConfiguration = new HashMap<String, Set<ValueSpecification>>();
+        }
+        computeDelta(previousCycle);
+      }
     }
+    reuseSharedResults();
+    traceCycle("prepare", s_prepareTime, traceStart, null);
+    traceStart = System.nanoTime();
 
     final BlockingQueue<ExecutionResult> calcJobResultQueue = new LinkedBlockingQueue<ExecutionResult>();
     CalculationJobResultStreamConsumer calculationJobResultStreamConsumer = new CalculationJobResultStreamConsumer(calcJobResultQueue, this);
@@ -331,6 +502,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       }
 
       _endTime = Instant.now();
+      traceCycle("execute", s_executeTime, traceStart, null);
     } finally {
       calculationJobResultStreamConsumer.terminate();
     }
@@ -344,7 +516,10 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       Thread.currentThread().interrupt();
     }
 
+    traceStart = System.nanoTime();
     populateResultModel();
+    publishSharedResults();
+    traceCycle("results", s_resultsTime, traceStart, null);
     _state = ViewCycleState.EXECUTED;
   }
 
@@ -384,6 +559,9 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     Map<ViewComputationCache, OverrideOperation> cacheMarketDataOperation = getCacheMarketDataOperation();
     InMemoryViewComputationResultModel marketDataResultFragment = constructTemplateResultModel();
     final Map<ValueRequirement, Object> marketDataValues = snapshot.query(marketDataRequirements.keySet());
+    if (isIncrementalExecution() || (getSharedComputationResults() != null)) {
+      _marketDataValues = marketDataValues;
+    }
     for (Map.Entry<ValueRequirement, ValueSpecification> marketDataRequirement : marketDataRequirements.entrySet()) {
       // REVIEW 2010-10-22 Andrew
       // If we're asking the snapshot for a "requirement" then it should give back a more detailed "specification" with the data (i.e. a
@@ -483,7 +661,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       s_logger.info("Computed delta for calculation configuration '{}'. {} nodes out of {} require recomputation.",
           new Object[] {calcConfigurationName, deltaCalculator.getChangedNodes().size(), depGraph.getSize() });
 
-      Collection<ValueSpecification> specsToCopy = new HashSet<ValueSpecification>();
+      Set<ValueSpecification> specsToCopy = new HashSet<ValueSpecification>();
 
       for (DependencyNode unchangedNode : deltaCalculator.getUnchangedNodes()) {
         if (previousCycle.isExecuted(unchangedNode)) {
@@ -495,6 +673,9 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
           }
         }
       }
+      if (_unchangedSpecificationsByCalculationConfiguration != null) {
+        _unchangedSpecificationsByCalculationConfiguration.put(calcConfigurationName, specsToCopy);
+      }
       if (!specsToCopy.isEmpty()) {
         Set<ComputedValue> valuesCopied = copyValues(cache, previousCache, specsToCopy);
         for (ComputedValue value : valuesCopied) {
@@ -509,6 +690,256 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
     }
   }
 
+  /**
+   * Determines which nodes are affected by market data that has changed since the previous cycle and copies the values of the unaffected nodes into
+   * the caches, so that they can be consumed by the recalculated nodes and queried from this cycle. The market data comparison and the values copied
+   * come from the values retained by the previous cycle, so the unaffected part of the graph is neither walked nor read from the previous cycle's
+   * caches.
+   * 
+   * @param previousCycle the previous iteration, not null
+   * @return true if the delta was computed, false if nothing was retained for this cycle's graphs and {@link #computeDelta} must be used
+   */
+  private boolean computeIncrementalDelta(SingleComputationCycle previousCycle) {
+    if (previousCycle.getState() != ViewCycleState.EXECUTED) {
+      throw new IllegalArgumentException("State of previous cycle must be " + ViewCycleState.EXECUTED);
+    }
+    final RetainedValues retainedValues = previousCycle._retainedValues;
+    if ((retainedValues == null) || (retainedValues.getCompiledViewDefinition() != getCompiledViewDefinition())) {
+      return false;
+    }
+    previousCycle._retainedValues = null;
+    _retainedValues = retainedValues;
+    final Collection<ValueSpecification> marketDataSpecifications = getCompiledViewDefinition().getMarketDataRequirements().values();
+    final Set<ValueSpecification> changedMarketData = new HashSet<ValueSpecification>();
+    for (Map.Entry<ValueRequirement, ValueSpecification> marketDataRequirement : getCompiledViewDefinition().getMarketDataRequirements().entrySet()) {
+      if (!ObjectUtils.equals(retainedValues.getMarketData().get(marketDataRequirement.getKey()), _marketDataValues.get(marketDataRequirement.getKey()))) {
+        changedMarketData.add(marketDataRequirement.getValue());
+      }
+    }
+    _dirtyNodesByCalculationConfiguration = new HashMap<String, Set<DependencyNode>>();
+    for (String calcConfigurationName : getAllCalculationConfigurationNames()) {
+      final DependencyGraph depGraph = getDependencyGraph(calcConfigurationName);
+      final Set<DependencyNode> dirtyNodes = getDirtyNodes(depGraph, changedMarketData);
+      s_logger.info("Computed incremental delta for calculation configuration '{}'. {} nodes out of {} require recomputation.",
+          new Object[] {calcConfigurationName, dirtyNodes.size(), depGraph.getSize() });
+      _dirtyNodesByCalculationConfiguration.put(calcConfigurationName, dirtyNodes);
+      copyUnaffectedValues(getComputationCache(calcConfigurationName), retainedValues.getValues(calcConfigurationName), dirtyNodes, marketDataSpecifications);
+    }
+    return true;
+  }
+
+  /**
+   * Finds the nodes which produce the changed market data and all nodes that depend on them.
+   * 
+   * @param depGraph the dependency graph, not null
+   * @param changedMarketData the market data that has changed, not null
+   * @return the nodes that must be recalculated, not null
+   */
+  private static Set<DependencyNode> getDirtyNodes(final DependencyGraph depGraph, final Set<ValueSpecification> changedMarketData) {
+    final Set<DependencyNode> dirtyNodes = new HashSet<DependencyNode>();
+    final LinkedList<DependencyNode> pending = new LinkedList<DependencyNode>();
+    for (ValueSpecification marketData : changedMarketData) {
+      final DependencyNode node = depGraph.getNodeProducing(marketData);
+      if ((node != null) && dirtyNodes.add(node)) {
+        pending.add(node);
+      }
+    }
+    while (!pending.isEmpty()) {
+      for (DependencyNode dependent : pending.removeFirst().getDependentNodes()) {
+        if (dirtyNodes.add(dependent)) {
+          pending.add(dependent);
+        }
+      }
+    }
+    return dirtyNodes;
+  }
+
+  /**
+   * Writes the retained values produced by unaffected nodes into the cache. Market data has already been written by {@link #prepareInputs}, and the
+   * outputs of the nodes to be recalculated are written when they execute.
+   */
+  private static void copyUnaffectedValues(final ViewComputationCache cache, final Map<ValueSpecification, Object> retainedValues,
+      final Set<DependencyNode> dirtyNodes, final Collection<ValueSpecification> marketData) {
+    final Set<ValueSpecification> excluded = new HashSet<ValueSpecification>(marketData);
+    for (DependencyNode node : dirtyNodes) {
+      excluded.addAll(node.getOutputValues());
+    }
+    final Collection<ComputedValue> unaffectedValues = new ArrayList<ComputedValue>(retainedValues.size());
+    for (Map.Entry<ValueSpecification, Object> retainedValue : retainedValues.entrySet()) {
+      if (!excluded.contains(retainedValue.getKey())) {
+        unaffectedValues.add(new ComputedValue(retainedValue.getKey(), retainedValue.getValue()));
+      }
+    }
+    if (!unaffectedValues.isEmpty()) {
+      cache.putSharedValues(unaffectedValues);
+    }
+  }
+
+  /**
+   * Takes the values of nodes that other view processes have already calculated with the same market data from the shared results, marking
+   * those nodes as executed so that only the remainder of each graph is submitted for execution. Only terminal outputs are published, so the
+   * nodes upstream of a reused node that feed nothing else are not executed either.
+   */
+  private void reuseSharedResults() {
+    final SharedComputationResults sharedResults = getSharedComputationResults();
+    if ((sharedResults == null) || (_marketDataValues == null)) {
+      return;
+    }
+    final Collection<SharedComputationResults.Published> publishedResults = sharedResults.find(getViewCycleExecutionOptions().getMarketDataSpecification(),
+        getValuationTime(), getViewProcessId());
+    if (publishedResults.isEmpty()) {
+      return;
+    }
+    final InMemoryViewComputationResultModel sharedResultFragment = constructTemplateResultModel();
+    int reusedNodes = 0;
+    for (SharedComputationResults.Published published : publishedResults) {
+      final Set<ValueSpecification> sameMarketData = new HashSet<ValueSpecification>();
+      for (Map.Entry<ValueRequirement, ValueSpecification> marketDataRequirement : getCompiledViewDefinition().getMarketDataRequirements().entrySet()) {
+        final Object value = _marketDataValues.get(marketDataRequirement.getKey());
+        if ((value != null) && value.equals(published.getMarketData().get(marketDataRequirement.getKey()))) {
+          sameMarketData.add(marketDataRequirement.getValue());
+        }
+      }
+      for (ViewCalculationConfiguration calcConfig : getViewDefinition().getAllCalculationConfigurations()) {
+        final Map<ValueSpecification, Object> publishedValues = published.getValues(calcConfig);
+        if (publishedValues == null) {
+          continue;
+        }
+        final DependencyGraph depGraph = getDependencyGraph(calcConfig.getName());
+        final Map<DependencyNode, Boolean> sameInputs = new HashMap<DependencyNode, Boolean>();
+        final LinkedList<DependencyNode> unneeded = new LinkedList<DependencyNode>();
+        final Collection<ComputedValue> reusedValues = new ArrayList<ComputedValue>();
+        for (DependencyNode node : depGraph.getDependencyNodes()) {
+          if (isExecuted(node) || (node.getFunction().getFunction() instanceof MarketDataSourcingFunction)
+              || !publishedValues.keySet().containsAll(node.getOutputValues()) || !hasSameInputs(node, sameMarketData, sameInputs)) {
+            continue;
+          }
+          markExecuted(node);
+          reusedNodes++;
+          unneeded.addAll(node.getInputNodes());
+          for (ValueSpecification output : node.getOutputValues()) {
+            final ComputedValue value = new ComputedValue(output, publishedValues.get(output));
+            reusedValues.add(value);
+            if (depGraph.getTerminalOutputSpecifications().contains(output) && !(value.getValue() instanceof MissingMarketDataSentinel)) {
+              sharedResultFragment.addValue(calcConfig.getName(), value);
+            }
+          }
+        }
+        skipUnneededNodes(depGraph, unneeded);
+        if (!reusedValues.isEmpty()) {
+          getComputationCache(calcConfig.getName()).putSharedValues(reusedValues);
+        }
+      }
+    }
+    if (reusedNodes > 0) {
+      s_logger.info("Reused {} nodes calculated by other view processes", reusedNodes);
+      sharedResults.nodesReused(reusedNodes);
+    }
+    if (!sharedResultFragment.getAllResults().isEmpty()) {
+      notifyFragmentCompleted(sharedResultFragment);
+    }
+  }
+
+  /**
+   * Tests whether a node's inputs trace back only to market data with the same values as the publishing cycle had, in which case its
+   * published values are the ones this cycle would calculate. The graph is walked with an explicit stack as it may be deeper than the
+   * thread's stack allows.
+   */
+  private static boolean hasSameInputs(final DependencyNode root, final Set<ValueSpecification> sameMarketData, final Map<DependencyNode, Boolean> sameInputs) {
+    final Boolean rootResult = sameInputs.get(root);
+    if (rootResult != null) {
+      return rootResult;
+    }
+    final LinkedList<DependencyNode> stack = new LinkedList<DependencyNode>();
+    stack.push(root);
+    while (!stack.isEmpty()) {
+      final DependencyNode node = stack.peek();
+      if (sameInputs.containsKey(node)) {
+        stack.pop();
+        continue;
+      }
+      if (node.getFunction().getFunction() instanceof MarketDataSourcingFunction) {
+        sameInputs.put(node, sameMarketData.containsAll(node.getOutputValues()));
+        stack.pop();
+        continue;
+      }
+      boolean inputsSame = true;
+      boolean inputsPending = false;
+      for (DependencyNode inputNode : node.getInputNodes()) {
+        final Boolean inputResult = sameInputs.get(inputNode);
+        if (inputResult == null) {
+          inputsPending = true;
+        } else if (!inputResult) {
+          inputsSame = false;
+          break;
+        }
+      }
+      if (!inputsSame) {
+        sameInputs.put(node, Boolean.FALSE);
+        stack.pop();
+      } else if (inputsPending) {
+        // Decide the inputs first; the node is revisited once they have been
+        for (DependencyNode inputNode : node.getInputNodes()) {
+          if (!sameInputs.containsKey(inputNode)) {
+            stack.push(inputNode);
+          }
+        }
+      } else {
+        sameInputs.put(node, Boolean.TRUE);
+        stack.pop();
+      }
+    }
+    return sameInputs.get(root);
+  }
+
+  /**
+   * Marks as executed the nodes upstream of reused nodes whose outputs are no longer needed: those with no terminal outputs whose
+   * dependent nodes have all been reused or skipped.
+   */
+  private void skipUnneededNodes(final DependencyGraph depGraph, final LinkedList<DependencyNode> candidates) {
+    while (!candidates.isEmpty()) {
+      final DependencyNode node = candidates.removeFirst();
+      if (isExecuted(node) || (node.getFunction().getFunction() instanceof MarketDataSourcingFunction)
+          || !Collections.disjoint(node.getOutputValues(), depGraph.getTerminalOutputSpecifications())) {
+        continue;
+      }
+      boolean needed = false;
+      for (DependencyNode dependent : node.getDependentNodes()) {
+        if (depGraph.containsNode(dependent) && !isExecuted(dependent)) {
+          needed = true;
+          break;
+        }
+      }
+      if (!needed) {
+        markExecuted(node);
+        candidates.addAll(node.getInputNodes());
+      }
+    }
+  }
+
+  /**
+   * Publishes the terminal output values calculated by this cycle for reuse by other view processes.
+   */
+  private void publishSharedResults() {
+    final SharedComputationResults sharedResults = getSharedComputationResults();
+    if ((sharedResults == null) || (_marketDataValues == null)) {
+      return;
+    }
+    final Map<ViewCalculationConfiguration, Map<ValueSpecification, Object>> values = new HashMap<ViewCalculationConfiguration, Map<ValueSpecification, Object>>();
+    for (ViewCalculationConfiguration calcConfig : getViewDefinition().getAllCalculationConfigurations()) {
+      final DependencyGraph depGraph = getDependencyGraph(calcConfig.getName());
+      final Map<ValueSpecification, Object> calcConfigValues = new HashMap<ValueSpecification, Object>();
+      for (Pair<ValueSpecification, Object> value : getComputationCache(calcConfig.getName()).getValues(depGraph.getTerminalOutputSpecifications(),
+          CacheSelectHint.allShared())) {
+        if (value.getSecond() != null) {
+          calcConfigValues.put(value.getFirst(), value.getSecond());
+        }
+      }
+      values.put(calcConfig, calcConfigValues);
+    }
+    sharedResults.publish(getViewProcessId(), getViewCycleExecutionOptions().getMarketDataSpecification(), getValuationTime(), _marketDataValues, values);
+  }
+
   private Set<ComputedValue> copyValues(ViewComputationCache cache, ViewComputationCache previousCache, Collection<ValueSpecification> specsToCopy) {
     Collection<Pair<ValueSpecification, Object>> valuesToCopy = previousCache.getValues(specsToCopy);
 
@@ -526,15 +957,103 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
   private void populateResultModel() {
     getResultModel().setCalculationTime(Instant.now());
     getResultModel().setCalculationDuration(getDuration());
+    if (_previousResultModel != null) {
+      _deltaResultModel = new InMemoryViewDeltaResultModel();
+      _deltaResultModel.setViewCycleId(getCycleId());
+      _deltaResultModel.setViewProcessId(getViewProcessId());
+      _deltaResultModel.setValuationTime(getResultModel().getValuationTime());
+      _deltaResultModel.setVersionCorrection(getVersionCorrection());
+      _deltaResultModel.setCalculationTime(getResultModel().getCalculationTime());
+      _deltaResultModel.setCalculationDuration(getResultModel().getCalculationDuration());
+      _deltaResultModel.setPreviousCalculationTime(_previousResultModel.getCalculationTime());
+    }
     for (String calcConfigurationName : getAllCalculationConfigurationNames()) {
       DependencyGraph depGraph = getCompiledViewDefinition().getDependencyGraph(calcConfigurationName);
-      populateResultModel(calcConfigurationName, depGraph);
+      if (isIncrementalExecution()) {
+        populateResultModelIncremental(calcConfigurationName, depGraph);
+      } else {
+        populateResultModel(calcConfigurationName, depGraph);
+      }
+    }
+    if (_retainedValues != null) {
+      _retainedValues.setMarketData(_marketDataValues);
+    }
+    _unchangedSpecificationsByCalculationConfiguration = null;
+  }
+
+  /**
+   * Adds a value to the delta result model if it differs from the value in the previous result under the configuration's delta definition.
+   */
+  private void addDeltaValue(final String calcConfigurationName, final DeltaDefinition deltaDefinition, final ViewCalculationResultModel previousResult,
+      final ComputedValue value) {
+    ComputedValue previousValue = null;
+    if (previousResult != null) {
+      final ValueSpecification specification = value.getSpecification();
+      final Map<Pair<String, ValueProperties>, ComputedValue> previousValues = previousResult.getValues(specification.getTargetSpecification());
+      if (previousValues != null) {
+        previousValue = previousValues.get(Pair.of(specification.getValueName(), specification.getProperties()));
+      }
+    }
+    if (deltaDefinition.isDelta(previousValue, value)) {
+      _deltaResultModel.addValue(calcConfigurationName, value);
+    }
+  }
+
+  /**
+   * Updates the retained values with those recalculated by this cycle and populates the result model from them. After a full cycle all values are
+   * read from the cache; after an incremental delta only the outputs of the recalculated nodes are.
+   */
+  private void populateResultModelIncremental(String calcConfigurationName, DependencyGraph depGraph) {
+    if (_retainedValues == null) {
+      _retainedValues = new RetainedValues(getCompiledViewDefinition());
+    }
+    final Map<ValueSpecification, Object> retainedValues = _retainedValues.getValues(calcConfigurationName);
+    final Set<DependencyNode> dirtyNodes = (_dirtyNodesByCalculationConfiguration != null) ? _dirtyNodesByCalculationConfiguration.get(calcConfigurationName) : null;
+    final Collection<ValueSpecification> recalculated;
+    if (dirtyNodes == null) {
+      retainedValues.clear();
+      recalculated = depGraph.getOutputSpecifications();
+    } else {
+      recalculated = new HashSet<ValueSpecification>();
+      for (DependencyNode node : dirtyNodes) {
+        recalculated.addAll(node.getOutputValues());
+      }
+    }
+    if (!recalculated.isEmpty()) {
+      for (Pair<ValueSpecification, Object> value : getComputationCache(calcConfigurationName).getValues(recalculated)) {
+        if (value.getValue() == null) {
+          retainedValues.remove(value.getFirst());
+        } else {
+          retainedValues.put(value.getFirst(), value.getSecond());
+        }
+      }
+    }
+    Set<ValueSpecification> resultSpecifications = _retainedValues.getResultSpecifications(calcConfigurationName);
+    if (resultSpecifications == null) {
+      resultSpecifications = getOutputSpecificationsForResultModel(depGraph);
+      _retainedValues.setResultSpecifications(calcConfigurationName, resultSpecifications);
+    }
+    final DeltaDefinition deltaDefinition = getViewDefinition().getCalculationConfiguration(calcConfigurationName).getDeltaDefinition();
+    final ViewCalculationResultModel previousResult = (_deltaResultModel != null) ? _previousResultModel.getCalculationResult(calcConfigurationName) : null;
+    for (ValueSpecification resultSpecification : resultSpecifications) {
+      final Object value = retainedValues.get(resultSpecification);
+      if ((value == null) || (value instanceof MissingMarketDataSentinel)) {
+        continue;
+      }
+      final ComputedValue computedValue = new ComputedValue(resultSpecification, value);
+      getResultModel().addValue(calcConfigurationName, computedValue);
+      if ((_deltaResultModel != null) && ((dirtyNodes == null) || recalculated.contains(resultSpecification))) {
+        addDeltaValue(calcConfigurationName, deltaDefinition, previousResult, computedValue);
+      }
     }
   }
 
   private void populateResultModel(String calcConfigurationName, DependencyGraph depGraph) {
     ViewComputationCache computationCache = getComputationCache(calcConfigurationName);
-
+    final DeltaDefinition deltaDefinition = getViewDefinition().getCalculationConfiguration(calcConfigurationName).getDeltaDefinition();
+    final ViewCalculationResultModel previousResult = (_deltaResultModel != null) ? _previousResultModel.getCalculationResult(calcConfigurationName) : null;
+    final Set<ValueSpecification> unchanged = (_unchangedSpecificationsByCalculationConfiguration != null)
+        ? _unchangedSpecificationsByCalculationConfiguration.get(calcConfigurationName) : null;
     for (Pair<ValueSpecification, Object> value : computationCache.getValues(getOutputSpecificationsForResultModel(depGraph), CacheSelectHint.allShared())) {
       if (value.getValue() == null) {
         continue;
@@ -542,7 +1061,11 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       if (value.getValue() instanceof MissingMarketDataSentinel) {
         continue;
       }
-      getResultModel().addValue(calcConfigurationName, new ComputedValue(value.getFirst(), value.getSecond()));
+      final ComputedValue computedValue = new ComputedValue(value.getFirst(), value.getSecond());
+      getResultModel().addValue(calcConfigurationName, computedValue);
+      if ((_deltaResultModel != null) && ((unchanged == null) || !unchanged.contains(value.getFirst()))) {
+        addDeltaValue(calcConfigurationName, deltaDefinition, previousResult, computedValue);
+      }
     }
   }
 
@@ -634,6 +1157,19 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
    */
   protected DependencyGraph getExecutableDependencyGraph(String calcConfName) {
     DependencyGraph originalDepGraph = getDependencyGraph(calcConfName);
+    final Set<DependencyNode> dirtyNodes = (_dirtyNodesByCalculationConfiguration != null) ? _dirtyNodesByCalculationConfiguration.get(calcConfName) : null;
+    if (dirtyNodes != null) {
+      // Incremental delta; only the nodes affected by changed market data are considered
+      final Collection<DependencyNode> executableNodes = new ArrayList<DependencyNode>(dirtyNodes.size());
+      for (DependencyNode node : dirtyNodes) {
+        if (node.getFunction().getFunction() instanceof MarketDataSourcingFunction) {
+          markExecuted(node);
+        } else if (!isExecuted(node)) {
+          executableNodes.add(node);
+        }
+      }
+      return originalDepGraph.subGraph(executableNodes);
+    }
     return originalDepGraph.subGraph(new DependencyNodeFilter() {
       public boolean accept(DependencyNode node) {
         // Market data functions must not be executed
@@ -655,6 +1191,7 @@ public class SingleComputationCycle implements ViewCycle, EngineResource {
       dumpComputationCachesToDisk();
     }
     getViewProcessContext().getComputationCacheSource().releaseCaches(getUniqueId());
+    _retainedValues = null;
     _state = ViewCycleState.DESTROYED;
   }
 
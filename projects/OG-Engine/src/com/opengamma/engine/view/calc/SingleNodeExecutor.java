@@ -110,8 +110,9 @@ public class SingleNodeExecutor implements DependencyGraphExecutor<ExecutionResu
     AtomicExecutorFuture future = new AtomicExecutorFuture(runnable, order.toArray(new DependencyNode[order.size()]), statistics);
     _executingSpecifications.put(jobSpec, future);
     _cycle.getViewProcessContext().getViewProcessorQueryReceiver().addJob(jobSpec, graph);
-    Cancelable cancel = _cycle.getViewProcessContext().getComputationJobDispatcher()
-        .dispatchJob(new CalculationJob(jobSpec, _cycle.getFunctionInitId(), null, items, cacheHint), this);
+    final CalculationJob job = new CalculationJob(jobSpec, _cycle.getFunctionInitId(), null, items, cacheHint);
+    job.setTrace(_cycle.getTrace());
+    Cancelable cancel = _cycle.getViewProcessContext().getComputationJobDispatcher().dispatchJob(job, this);
     future.setCancel(cancel);
 
     return future;
@@ -145,7 +146,9 @@ public class SingleNodeExecutor implements DependencyGraphExecutor<ExecutionResu
       future._callable._exception = e;
       future.run();
     }
-    future._statistics.graphExecuted(result.getSpecification().getCalcConfigName(), future._nodes.length, result.getDuration(), System.nanoTime() - future._startTime);
+    final long duration = System.nanoTime() - future._startTime;
+    future._statistics.graphExecuted(result.getSpecification().getCalcConfigName(), future._nodes.length, result.getDuration(), duration);
+    future._statistics.graphMakespan(result.getSpecification().getCalcConfigName(), result.getDuration(), duration);
   }
 
   private class AtomicExecutorFuture extends FutureTask<ExecutionResult> {
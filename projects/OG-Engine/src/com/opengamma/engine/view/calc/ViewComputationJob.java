@@ -11,11 +11,17 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
 import java.util.Map;
+import java.util.Queue;
 import java.util.Set;
+import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
 import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 
@@ -29,6 +35,7 @@ import com.google.common.collect.Sets;
 import com.opengamma.DataNotFoundException;
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.position.PositionSource;
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.depgraph.DependencyGraph;
 import com.opengamma.engine.marketdata.MarketDataListener;
@@ -51,6 +58,7 @@ import com.opengamma.engine.view.calc.trigger.ViewCycleEligibility;
 import com.opengamma.engine.view.calc.trigger.ViewCycleTrigger;
 import com.opengamma.engine.view.calc.trigger.ViewCycleTriggerResult;
 import com.opengamma.engine.view.calc.trigger.ViewCycleType;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
 import com.opengamma.engine.view.compilation.ViewCompilationServices;
 import com.opengamma.engine.view.compilation.ViewDefinitionCompiler;
@@ -61,6 +69,7 @@ import com.opengamma.engine.view.listener.ComputationResultListener;
 import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 import com.opengamma.util.TerminatableJob;
 import com.opengamma.util.monitor.OperationTimer;
 
@@ -80,8 +89,10 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
   private final ViewCycleTrigger _masterCycleTrigger;
   private final FixedTimeTrigger _compilationExpiryCycleTrigger;
   private final boolean _executeCycles;
+  private final int _maxConcurrentCycles;
 
   private int _cycleCount;
+  private int _createdCycleCount;
   private EngineResourceReference<SingleComputationCycle> _previousCycleReference;
 
   private ViewDefinition _viewDefinition;
@@ -91,12 +102,15 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
   private CountDownLatch _pendingSubscriptionLatch;
 
   private ChangeListener _viewDefinitionChangeListener;
+  private PortfolioChangeListener _portfolioChangeListener;
+  private UniqueId _subscribedPortfolioId;
 
   private volatile boolean _wakeOnMarketDataChanged;
   private volatile boolean _marketDataChanged = true;
   private volatile boolean _forceTriggerCycle;
   private volatile boolean _viewDefinitionDirty = true;
   private volatile boolean _compilationDirty;
+  private volatile boolean _portfolioDirty;
   private volatile Future<CompiledViewDefinitionWithGraphsImpl> _compilationTask;
 
   /**
@@ -105,6 +119,13 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
   private double _totalTimeNanos;
 
   private MarketDataProvider _marketDataProvider;
+  private MarketDataSpecification _marketDataSpecification;
+
+  /**
+   * Cycles executing concurrently, in the order of the execution sequence. Only used by the job thread.
+   */
+  private final LinkedList<ConcurrentCycle> _concurrentCycles = new LinkedList<ConcurrentCycle>();
+  private ExecutorService _concurrentCycleExecutor;
 
   public ViewComputationJob(ViewProcessImpl viewProcess, ViewExecutionOptions executionOptions,
       ViewProcessContext processContext, EngineResourceManagerInternal<SingleComputationCycle> cycleManager) {
@@ -120,10 +141,22 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     _compilationExpiryCycleTrigger = new FixedTimeTrigger();
     _masterCycleTrigger = createViewCycleTrigger(executionOptions);
     _executeCycles = !getExecutionOptions().getFlags().contains(ViewExecutionFlags.COMPILE_ONLY);
+    _maxConcurrentCycles = isConcurrentBatch(executionOptions) ? processContext.getMaxConcurrentBatchCycles() : 1;
     updateViewDefinitionIfRequired();
     subscribeToViewDefinition();
   }
 
+  /**
+   * Batch cycles running as fast as possible are independent of one another so may be executed concurrently; for
+   * example a batch over a number of historical dates where each cycle has its own market data snapshot.
+   */
+  private boolean isConcurrentBatch(ViewExecutionOptions executionOptions) {
+    return _executeCycles
+        && executionOptions.getFlags().contains(ViewExecutionFlags.BATCH)
+        && executionOptions.getFlags().contains(ViewExecutionFlags.RUN_AS_FAST_AS_POSSIBLE)
+        && !executionOptions.getFlags().contains(ViewExecutionFlags.INCREMENTAL_CYCLES);
+  }
+
   private ViewCycleTrigger createViewCycleTrigger(ViewExecutionOptions executionOptions) {
     CombinedViewCycleTrigger trigger = new CombinedViewCycleTrigger();
     trigger.addTrigger(_compilationExpiryCycleTrigger);
@@ -185,6 +218,11 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
       return;
     }
 
+    if (_maxConcurrentCycles > 1) {
+      runConcurrentCycles();
+      return;
+    }
+
     ViewCycleExecutionOptions executionOptions = null;
     try {
       if (!getExecutionOptions().getExecutionSequence().isEmpty()) {
@@ -281,30 +319,7 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
 
     if (_executeCycles) {
       try {
-        final SingleComputationCycle singleComputationCycle = cycleReference.get();
-        final Set<String> configurationNames = singleComputationCycle.getAllCalculationConfigurationNames();
-
-        final HashMap<String, Collection<ComputationTargetSpecification>> configToComputationTargets = new HashMap<String, Collection<ComputationTargetSpecification>>();
-        for (String configName : configurationNames) {
-          final DependencyGraph dependencyGraph = singleComputationCycle.getExecutableDependencyGraph(configName);
-          configToComputationTargets.put(configName, dependencyGraph.getAllComputationTargets());
-        }
-
-        final HashMap<String, Map<ValueSpecification, Set<ValueRequirement>>> configToTerminalOutputs = new HashMap<String, Map<ValueSpecification, Set<ValueRequirement>>>();
-        for (String configName : configurationNames) {
-          DependencyGraph dependencyGraph = singleComputationCycle.getExecutableDependencyGraph(configName);
-          configToTerminalOutputs.put(configName, dependencyGraph.getTerminalOutputs());
-        }
-
-        cycleStarted(new DefaultViewCycleMetadata(
-            cycleReference.get().getUniqueId(),
-            marketDataSnapshot.getUniqueId(),
-            compiledViewDefinition.getViewDefinition().getUniqueId(),
-            versionCorrection,
-            executionOptions.getValuationTime(),
-            configurationNames,
-            configToComputationTargets,
-            configToTerminalOutputs));
+        cycleStarted(createCycleMetadata(cycleReference.get(), marketDataSnapshot, compiledViewDefinition, versionCorrection, executionOptions));
         executeViewCycle(cycleType, cycleReference, marketDataSnapshot, getViewProcess().getCalcJobResultExecutorService());
       } catch (InterruptedException e) {
         // Execution interrupted - don't propagate as failure
@@ -343,6 +358,188 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     }
   }
 
+  //-------------------------------------------------------------------------
+  /**
+   * A cycle executing concurrently with others. Its results are held until the cycles before it in the execution
+   * sequence have been delivered, so listeners such as the batch writer see each cycle's results in order.
+   */
+  private static final class ConcurrentCycle {
+
+    private final ViewCycleExecutionOptions _executionOptions;
+    private final Queue<ViewComputationResultModel> _fragments = new ConcurrentLinkedQueue<ViewComputationResultModel>();
+    private Exception _failure;
+    private EngineResourceReference<SingleComputationCycle> _cycleReference;
+    private ViewCycleMetadata _cycleMetadata;
+    private Future<?> _execution;
+
+    private ConcurrentCycle(final ViewCycleExecutionOptions executionOptions) {
+      _executionOptions = executionOptions;
+    }
+
+    private void release() {
+      if (_execution != null) {
+        _execution.cancel(true);
+        _execution = null;
+      }
+      if (_cycleReference != null) {
+        _cycleReference.release();
+        _cycleReference = null;
+      }
+    }
+
+  }
+
+  /**
+   * Starts cycles from the execution sequence until the concurrency limit is reached, then waits for the earliest to
+   * complete and delivers its results.
+   */
+  private void runConcurrentCycles() {
+    while ((_concurrentCycles.size() < _maxConcurrentCycles) && !isTerminated()) {
+      final ViewCycleExecutionOptions executionOptions;
+      try {
+        if (getExecutionOptions().getExecutionSequence().isEmpty()) {
+          break;
+        }
+        executionOptions = getExecutionOptions().getExecutionSequence().getNext(getExecutionOptions().getDefaultExecutionOptions());
+        s_logger.debug("Next cycle execution options: {}", executionOptions);
+      } catch (Exception e) {
+        s_logger.error("Error obtaining next view cycle execution options from sequence for view process " + getViewProcess(), e);
+        return;
+      }
+      if (executionOptions == null) {
+        break;
+      }
+      _concurrentCycles.add(startConcurrentCycle(executionOptions));
+    }
+    if (_concurrentCycles.isEmpty()) {
+      s_logger.info("No more view cycle execution options");
+      processCompleted();
+      return;
+    }
+    final ConcurrentCycle concurrentCycle = _concurrentCycles.removeFirst();
+    try {
+      completeConcurrentCycle(concurrentCycle);
+    } finally {
+      // Releases the cycle unless its reference was kept as the previous cycle
+      concurrentCycle.release();
+    }
+    if (isTerminated()) {
+      return;
+    }
+    if (_concurrentCycles.isEmpty() && getExecutionOptions().getExecutionSequence().isEmpty()) {
+      processCompleted();
+    }
+  }
+
+  /**
+   * Prepares a cycle on the job thread, sharing the market data provider and compiled view definition with the other
+   * cycles, and submits it for execution with its own market data snapshot and computation caches.
+   */
+  private ConcurrentCycle startConcurrentCycle(final ViewCycleExecutionOptions executionOptions) {
+    final ConcurrentCycle concurrentCycle = new ConcurrentCycle(executionOptions);
+    if (executionOptions.getMarketDataSpecification() == null) {
+      s_logger.error("No market data specification for cycle");
+      concurrentCycle._failure = new OpenGammaRuntimeException("No market data specification for cycle");
+      return concurrentCycle;
+    }
+    final MarketDataSnapshot marketDataSnapshot;
+    final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition;
+    final VersionCorrection versionCorrection = getResolvedVersionCorrection();
+    try {
+      if (getMarketDataProvider() == null || !getMarketDataProvider().isCompatible(executionOptions.getMarketDataSpecification())) {
+        replaceMarketDataProvider(executionOptions.getMarketDataSpecification());
+      }
+      marketDataSnapshot = getMarketDataProvider().snapshot(executionOptions.getMarketDataSpecification());
+      Instant compilationValuationTime = executionOptions.getValuationTime();
+      if (compilationValuationTime == null) {
+        compilationValuationTime = marketDataSnapshot.getSnapshotTimeIndication();
+        if (compilationValuationTime == null) {
+          throw new OpenGammaRuntimeException("Market data snapshot " + marketDataSnapshot + " produced a null indication of snapshot time");
+        }
+      }
+      compiledViewDefinition = getCompiledViewDefinition(compilationValuationTime, versionCorrection);
+      if (compiledViewDefinition == null) {
+        throw new OpenGammaRuntimeException("View process terminated during compilation");
+      }
+      if (getExecutionOptions().getFlags().contains(ViewExecutionFlags.AWAIT_MARKET_DATA)) {
+        marketDataSnapshot.init(compiledViewDefinition.getMarketDataRequirements().keySet(), MARKET_DATA_TIMEOUT_MILLIS, TimeUnit.MILLISECONDS);
+      } else {
+        marketDataSnapshot.init();
+      }
+      if (executionOptions.getValuationTime() == null) {
+        executionOptions.setValuationTime(marketDataSnapshot.getSnapshotTime());
+      }
+      concurrentCycle._cycleReference = createCycle(executionOptions, compiledViewDefinition, versionCorrection, new ComputationResultListener() {
+        @Override
+        public void resultAvailable(ViewComputationResultModel result) {
+          concurrentCycle._fragments.add(result);
+        }
+      });
+    } catch (Exception e) {
+      s_logger.error("Error preparing view cycle for view process " + getViewProcess(), e);
+      concurrentCycle._failure = e;
+      return concurrentCycle;
+    }
+    final SingleComputationCycle cycle = concurrentCycle._cycleReference.get();
+    concurrentCycle._cycleMetadata = createCycleMetadata(cycle, marketDataSnapshot, compiledViewDefinition, versionCorrection, executionOptions);
+    concurrentCycle._execution = getConcurrentCycleExecutor().submit(new Callable<Void>() {
+      @Override
+      public Void call() throws Exception {
+        s_logger.info("Performing full computation for {}", executionOptions.getValuationTime());
+        cycle.execute(null, marketDataSnapshot, getViewProcess().getCalcJobResultExecutorService());
+        return null;
+      }
+    });
+    return concurrentCycle;
+  }
+
+  /**
+   * Waits for a concurrent cycle to complete and delivers its notifications as if it had been executed sequentially. If the cycle completes, its
+   * reference is taken as the previous cycle's; the caller must release the concurrent cycle afterwards in case it does not.
+   */
+  private void completeConcurrentCycle(final ConcurrentCycle concurrentCycle) {
+    if (concurrentCycle._failure != null) {
+      cycleExecutionFailed(concurrentCycle._executionOptions, concurrentCycle._failure);
+      return;
+    }
+    try {
+      concurrentCycle._execution.get();
+    } catch (InterruptedException e) {
+      s_logger.info("Interrupted while waiting for a computation cycle. No results will be output from this cycle.");
+      return;
+    } catch (ExecutionException e) {
+      s_logger.error("View cycle execution failed for view process " + getViewProcess(), e.getCause());
+      cycleStarted(concurrentCycle._cycleMetadata);
+      cycleExecutionFailed(concurrentCycle._executionOptions, (e.getCause() instanceof Exception) ? (Exception) e.getCause() : e);
+      return;
+    }
+    if (isTerminated()) {
+      return;
+    }
+    final SingleComputationCycle cycle = concurrentCycle._cycleReference.get();
+    cycleStarted(concurrentCycle._cycleMetadata);
+    for (ViewComputationResultModel fragment : concurrentCycle._fragments) {
+      cycleFragmentCompleted(fragment);
+    }
+    cycleCompleted(cycle);
+    long durationNanos = cycle.getDuration().toNanosLong();
+    _totalTimeNanos += durationNanos;
+    _cycleCount += 1;
+    s_logger.info("Last latency was {} ms, Average latency is {} ms", durationNanos / NANOS_PER_MILLISECOND, (_totalTimeNanos / _cycleCount) / NANOS_PER_MILLISECOND);
+    if (_previousCycleReference != null) {
+      _previousCycleReference.release();
+    }
+    _previousCycleReference = concurrentCycle._cycleReference;
+    concurrentCycle._cycleReference = null;
+  }
+
+  private ExecutorService getConcurrentCycleExecutor() {
+    if (_concurrentCycleExecutor == null) {
+      _concurrentCycleExecutor = Executors.newFixedThreadPool(_maxConcurrentCycles, new NamedThreadPoolFactory("Cycles-" + getViewProcess().getUniqueId().getValue()));
+    }
+    return _concurrentCycleExecutor;
+  }
+
   private void cycleCompleted(ViewCycle cycle) {
     try {
       getViewProcess().cycleCompleted(cycle);
@@ -351,6 +548,33 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     }
   }
 
+  private ViewCycleMetadata createCycleMetadata(SingleComputationCycle cycle, MarketDataSnapshot marketDataSnapshot,
+      CompiledViewDefinitionWithGraphsImpl compiledViewDefinition, VersionCorrection versionCorrection, ViewCycleExecutionOptions executionOptions) {
+    final Set<String> configurationNames = cycle.getAllCalculationConfigurationNames();
+
+    final HashMap<String, Collection<ComputationTargetSpecification>> configToComputationTargets = new HashMap<String, Collection<ComputationTargetSpecification>>();
+    for (String configName : configurationNames) {
+      final DependencyGraph dependencyGraph = cycle.getExecutableDependencyGraph(configName);
+      configToComputationTargets.put(configName, dependencyGraph.getAllComputationTargets());
+    }
+
+    final HashMap<String, Map<ValueSpecification, Set<ValueRequirement>>> configToTerminalOutputs = new HashMap<String, Map<ValueSpecification, Set<ValueRequirement>>>();
+    for (String configName : configurationNames) {
+      DependencyGraph dependencyGraph = cycle.getExecutableDependencyGraph(configName);
+      configToTerminalOutputs.put(configName, dependencyGraph.getTerminalOutputs());
+    }
+
+    return new DefaultViewCycleMetadata(
+        cycle.getUniqueId(),
+        marketDataSnapshot.getUniqueId(),
+        compiledViewDefinition.getViewDefinition().getUniqueId(),
+        versionCorrection,
+        executionOptions.getValuationTime(),
+        configurationNames,
+        configToComputationTargets,
+        configToTerminalOutputs);
+  }
+
   private void cycleStarted(ViewCycleMetadata cycleMetadata) {
     try {
       getViewProcess().cycleStarted(cycleMetadata);
@@ -489,7 +713,16 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     if (_previousCycleReference != null) {
       _previousCycleReference.release();
     }
+    for (ConcurrentCycle concurrentCycle : _concurrentCycles) {
+      concurrentCycle.release();
+    }
+    _concurrentCycles.clear();
+    if (_concurrentCycleExecutor != null) {
+      _concurrentCycleExecutor.shutdownNow();
+      _concurrentCycleExecutor = null;
+    }
     unsubscribeFromViewDefinition();
+    unsubscribeFromPortfolio();
     removeMarketDataProvider();
     invalidateCachedCompiledViewDefinition();
   }
@@ -530,6 +763,16 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     _compilationDirty = true;
   }
 
+  /**
+   * Indicates that the portfolio referenced by the view definition has changed. The view definition will be recompiled, reusing the parts of the
+   * dependency graphs which are not affected by the change, at the earliest opportunity.
+   */
+  public void dirtyPortfolio() {
+    s_logger.info("Marking portfolio as dirty for view process {}", getViewProcess());
+    _portfolioDirty = true;
+    triggerCycle();
+  }
+
   public synchronized void triggerCycle() {
     s_logger.debug("Cycle triggered manually");
     _forceTriggerCycle = true;
@@ -553,21 +796,31 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
   //-------------------------------------------------------------------------
   private EngineResourceReference<SingleComputationCycle> createCycle(ViewCycleExecutionOptions executionOptions,
       CompiledViewDefinitionWithGraphsImpl compiledViewDefinition, VersionCorrection versionCorrection) {
+    return createCycle(executionOptions, compiledViewDefinition, versionCorrection, new ComputationResultListener() {
+      @Override
+      public void resultAvailable(ViewComputationResultModel result) {
+        cycleFragmentCompleted(result);
+      }
+    });
+  }
+
+  private EngineResourceReference<SingleComputationCycle> createCycle(ViewCycleExecutionOptions executionOptions,
+      CompiledViewDefinitionWithGraphsImpl compiledViewDefinition, VersionCorrection versionCorrection, ComputationResultListener streamingResultListener) {
     // View definition was compiled based on compilation options, which might have only included an indicative
     // valuation time. A further check ensures that the compiled view definition is still valid.
     if (!compiledViewDefinition.isValidFor(executionOptions.getValuationTime())) {
       throw new OpenGammaRuntimeException("Compiled view definition " + compiledViewDefinition + " not valid for execution options " + executionOptions);
     }
     UniqueId cycleId = getViewProcess().generateCycleId();
-
-    ComputationResultListener streamingResultListener = new ComputationResultListener() {
-      @Override
-      public void resultAvailable(ViewComputationResultModel result) {
-        cycleFragmentCompleted(result);
-      }
-    };
     SingleComputationCycle cycle = new SingleComputationCycle(cycleId, getViewProcess().getUniqueId(),
         streamingResultListener, getProcessContext(), compiledViewDefinition, executionOptions, versionCorrection);
+    cycle.setIncrementalExecution(getExecutionOptions().getFlags().contains(ViewExecutionFlags.INCREMENTAL_CYCLES));
+    cycle.setShareResults(getExecutionOptions().getFlags().contains(ViewExecutionFlags.SHARE_RESULTS));
+    final int traceInterval = getProcessContext().getCycleTraceInterval();
+    if ((traceInterval > 0) && ((_createdCycleCount % traceInterval) == 0)) {
+      cycle.setTrace(new CycleTrace(cycleId.toString()));
+    }
+    _createdCycleCount++;
     return getCycleManager().manage(cycle);
   }
 
@@ -590,15 +843,26 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     } else {
       compiledViewDefinition = getCachedCompiledViewDefinition();
     }
+    CompiledViewDefinitionWithGraphsImpl previousCompilation = null;
     if (compiledViewDefinition != null && compiledViewDefinition.isValidFor(valuationTime) && functionInitId == compiledViewDefinition.getFunctionInitId()) {
-      // Existing cached model is valid (an optimisation for the common case of similar, increasing valuation times)
-      return compiledViewDefinition;
+      if (!_portfolioDirty) {
+        // Existing cached model is valid (an optimisation for the common case of similar, increasing valuation times)
+        return compiledViewDefinition;
+      }
+      // Only the portfolio has changed so the unaffected parts of the existing graphs can be reused
+      previousCompilation = compiledViewDefinition;
     }
+    _portfolioDirty = false;
 
     try {
       MarketDataAvailabilityProvider availabilityProvider = getMarketDataProvider().getAvailabilityProvider();
-      ViewCompilationServices compilationServices = getProcessContext().asCompilationServices(availabilityProvider);
-      _compilationTask = ViewDefinitionCompiler.compileTask(_viewDefinition, compilationServices, valuationTime, versionCorrection);
+      // The market data specification identifies the availability to the dependency graph builder's resolution cache
+      ViewCompilationServices compilationServices = getProcessContext().asCompilationServices(availabilityProvider, _marketDataSpecification);
+      if (previousCompilation != null) {
+        _compilationTask = ViewDefinitionCompiler.incrementalCompileTask(_viewDefinition, compilationServices, valuationTime, versionCorrection, previousCompilation);
+      } else {
+        _compilationTask = ViewDefinitionCompiler.compileTask(_viewDefinition, compilationServices, valuationTime, versionCorrection);
+      }
       try {
         if (!isTerminated()) {
           compiledViewDefinition = _compilationTask.get();
@@ -614,6 +878,8 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
       throw new OpenGammaRuntimeException(message, e);
     }
     setCachedCompiledViewDefinition(compiledViewDefinition);
+    preallocateIdentifiers(compiledViewDefinition);
+    subscribeToPortfolio(compiledViewDefinition);
     // [PLAT-984]
     // Assume that valuation times are increasing in real-time towards the expiry of the view definition, so that we
     // can predict the time to expiry. If this assumption is wrong then the worst we do is trigger an unnecessary
@@ -637,6 +903,22 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     return compiledViewDefinition;
   }
 
+  /**
+   * Allocates cache identifiers for every value the compiled graphs can produce or consume so that none are allocated
+   * while a cycle executes.
+   * 
+   * @param compiledViewDefinition the compiled view definition, not null
+   */
+  private void preallocateIdentifiers(final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition) {
+    final OperationTimer timer = new OperationTimer(s_logger, "Allocating identifiers for {}", getViewProcess().getDefinitionId());
+    final Set<ValueSpecification> specifications = new HashSet<ValueSpecification>();
+    for (DependencyGraph graph : compiledViewDefinition.getAllDependencyGraphs()) {
+      specifications.addAll(graph.getOutputSpecifications());
+    }
+    getProcessContext().getComputationCacheSource().preallocateIdentifiers(specifications);
+    timer.finished();
+  }
+
   /**
    * Gets the cached compiled view definition which may be re-used in subsequent computation cycles.
    * <p>
@@ -699,6 +981,38 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     _viewDefinitionChangeListener = null;
   }
 
+  private void subscribeToPortfolio(final CompiledViewDefinitionWithGraphsImpl compiledViewDefinition) {
+    final UniqueId portfolioId = (compiledViewDefinition.getPortfolio() != null) ? _viewDefinition.getPortfolioId() : null;
+    if ((portfolioId == null) || !portfolioId.equals(_subscribedPortfolioId)) {
+      unsubscribeFromPortfolio();
+    }
+    if (portfolioId == null) {
+      return;
+    }
+    final PositionSource positionSource = getProcessContext().getComputationTargetResolver().getPositionSource();
+    if (positionSource == null) {
+      return;
+    }
+    if (_portfolioChangeListener == null) {
+      _portfolioChangeListener = new PortfolioChangeListener(this, portfolioId);
+      _subscribedPortfolioId = portfolioId;
+      positionSource.changeManager().addChangeListener(_portfolioChangeListener);
+    }
+    _portfolioChangeListener.setPortfolio(compiledViewDefinition.getPortfolio());
+  }
+
+  private void unsubscribeFromPortfolio() {
+    if (_portfolioChangeListener == null) {
+      return;
+    }
+    final PositionSource positionSource = getProcessContext().getComputationTargetResolver().getPositionSource();
+    if (positionSource != null) {
+      positionSource.changeManager().removeChangeListener(_portfolioChangeListener);
+    }
+    _portfolioChangeListener = null;
+    _subscribedPortfolioId = null;
+  }
+
   //-------------------------------------------------------------------------
   private void replaceMarketDataProvider(MarketDataSpecification marketDataSpec) {
     removeMarketDataProvider();
@@ -714,6 +1028,7 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
     removeMarketDataSubscriptions();
     _marketDataProvider.removeListener(this);
     _marketDataProvider = null;
+    _marketDataSpecification = null;
   }
 
   private MarketDataProvider getMarketDataProvider() {
@@ -722,6 +1037,7 @@ public class ViewComputationJob extends TerminatableJob implements MarketDataLis
 
   private void setMarketDataProvider(MarketDataSpecification marketDataSpec) {
     _marketDataProvider = getProcessContext().getMarketDataProviderResolver().resolve(marketDataSpec);
+    _marketDataSpecification = marketDataSpec;
     if (_marketDataProvider == null) {
       s_logger.error("Couldn't resolve {}", marketDataSpec);
     } else {
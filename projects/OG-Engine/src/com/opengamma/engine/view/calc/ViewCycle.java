@@ -74,5 +74,14 @@ public interface ViewCycle extends UniqueIdentifiable {
    * @return  the result of performing the query against the computation caches, not null
    */
   ComputationCacheResponse queryComputationCaches(ComputationCacheQuery computationCacheQuery);
+
+  /**
+   * Gets the trace of the cycle's execution, showing when each job was queued and executed and the time spent in each
+   * function invocation and value cache operation. The trace is in the Chrome trace event format, so can be viewed as
+   * a timeline or flame graph. Only a sample of cycles are traced, as configured on the view processor.
+   * 
+   * @return the trace of the cycle's execution as JSON, or null if the cycle was not traced
+   */
+  String getExecutionTrace();
   
 }
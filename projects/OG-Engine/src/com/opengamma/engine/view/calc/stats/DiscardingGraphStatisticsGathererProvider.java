@@ -23,6 +23,11 @@ public class DiscardingGraphStatisticsGathererProvider implements GraphExecutorS
       // No action
     }
 
+    @Override
+    public void graphMakespan(String calcConfig, long idealTime, long makespan) {
+      // No action
+    }
+
     @Override
     public void graphProcessed(String calcConfig, int totalJobs, double meanJobSize, double meanJobCycleCost, double meanJobIOCost) {
       // No action
@@ -28,6 +28,11 @@ public class GraphExecutionStatistics {
   private final AtomicLong _processedJobSize = new AtomicLong();
   private final AtomicLong _processedJobCycleCost = new AtomicLong();
   private final AtomicLong _processedJobDataCost = new AtomicLong();
+  private final AtomicLong _makespanGraphs = new AtomicLong();
+  private final AtomicLong _idealTime = new AtomicLong();
+  private final AtomicLong _makespan = new AtomicLong();
+  private volatile long _lastIdealTime;
+  private volatile long _lastMakespan;
   private volatile Instant _lastProcessedTime;
   private volatile Instant _lastExecutedTime;
 
@@ -80,6 +85,26 @@ public class GraphExecutionStatistics {
     return _processedJobDataCost.get();
   }
 
+  public long getMakespanGraphs() {
+    return _makespanGraphs.get();
+  }
+
+  public long getIdealTime() {
+    return _idealTime.get();
+  }
+
+  public long getMakespan() {
+    return _makespan.get();
+  }
+
+  public long getLastIdealTime() {
+    return _lastIdealTime;
+  }
+
+  public long getLastMakespan() {
+    return _lastMakespan;
+  }
+
   public Instant getLastProcessedTime() {
     return _lastProcessedTime;
   }
@@ -115,6 +140,39 @@ public class GraphExecutionStatistics {
     }
   }
 
+  public double getAverageIdealTime() {
+    final long executions = getMakespanGraphs();
+    if (executions > 0) {
+      return (double) getIdealTime() / (double) executions / 1e9;
+    } else {
+      return 0;
+    }
+  }
+
+  public double getAverageMakespan() {
+    final long executions = getMakespanGraphs();
+    if (executions > 0) {
+      return (double) getMakespan() / (double) executions / 1e9;
+    } else {
+      return 0;
+    }
+  }
+
+  /**
+   * Returns the ratio of the ideal execution time to the actual makespan. A value close to 1 means the graphs are completing as quickly as their longest
+   * chains of dependent jobs allow.
+   * 
+   * @return the efficiency, or 0 if there are no observations
+   */
+  public double getMakespanEfficiency() {
+    final long makespan = getMakespan();
+    if (makespan > 0) {
+      return (double) getIdealTime() / (double) makespan;
+    } else {
+      return 0;
+    }
+  }
+
   public double getAverageJobSize() {
     final long executions = getProcessedGraphs();
     if (executions > 0) {
@@ -150,6 +208,14 @@ public class GraphExecutionStatistics {
     _lastExecutedTime = Instant.now();
   }
 
+  public void recordMakespan(final long idealTime, final long makespan) {
+    _makespanGraphs.incrementAndGet();
+    _idealTime.addAndGet(idealTime);
+    _makespan.addAndGet(makespan);
+    _lastIdealTime = idealTime;
+    _lastMakespan = makespan;
+  }
+
   public void recordProcessing(final int totalJobs, final double meanJobSize, double meanJobCycleCost, double meanJobIOCost) {
     if (Double.isNaN(meanJobCycleCost)) {
       meanJobCycleCost = getAverageJobCycleCost();
@@ -175,6 +241,9 @@ public class GraphExecutionStatistics {
     _processedJobSize.set(0);
     _processedJobCycleCost.set(0);
     _processedJobDataCost.set(0);
+    _makespanGraphs.set(0);
+    _idealTime.set(0);
+    _makespan.set(0);
   }
 
   private static void decay(final AtomicLong value, final double factor) {
@@ -191,6 +260,9 @@ public class GraphExecutionStatistics {
     decay(_processedJobSize, factor);
     decay(_processedJobCycleCost, factor);
     decay(_processedJobDataCost, factor);
+    decay(_makespanGraphs, factor);
+    decay(_idealTime, factor);
+    decay(_makespan, factor);
   }
 
   public GraphExecutionStatistics snapshot() {
@@ -209,6 +281,11 @@ public class GraphExecutionStatistics {
     _processedJobSize.set(other.getProcessedJobSize());
     _processedJobCycleCost.set(other.getProcessedJobCycleCost());
     _processedJobDataCost.set(other.getProcessedJobDataCost());
+    _makespanGraphs.set(other.getMakespanGraphs());
+    _idealTime.set(other.getIdealTime());
+    _makespan.set(other.getMakespan());
+    _lastIdealTime = other.getLastIdealTime();
+    _lastMakespan = other.getLastMakespan();
   }
 
   public void delta(final GraphExecutionStatistics future) {
@@ -221,5 +298,10 @@ public class GraphExecutionStatistics {
     _processedJobSize.set(future.getProcessedJobSize() - getProcessedJobSize());
     _processedJobCycleCost.set(future.getProcessedJobCycleCost() - getProcessedJobCycleCost());
     _processedJobDataCost.set(future.getProcessedJobDataCost() - getProcessedJobDataCost());
+    _makespanGraphs.set(future.getMakespanGraphs() - getMakespanGraphs());
+    _idealTime.set(future.getIdealTime() - getIdealTime());
+    _makespan.set(future.getMakespan() - getMakespan());
+    _lastIdealTime = future.getLastIdealTime();
+    _lastMakespan = future.getLastMakespan();
   }
 }
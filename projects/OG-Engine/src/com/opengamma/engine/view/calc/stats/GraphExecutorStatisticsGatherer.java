@@ -35,4 +35,14 @@ public interface GraphExecutorStatisticsGatherer {
    */
   void graphExecuted(String calcConfig, int nodeCount, long executionTime, long duration);
 
+  /**
+   * Reports the makespan of a graph executed by a {@link JobDispatcher} against the ideal. The ideal is the longest chain of dependent jobs, using their
+   * reported execution times, which is how long the graph would take with unlimited calculation nodes and no dispatch overhead.
+   * 
+   * @param calcConfig Calculation configuration name.
+   * @param idealTime Total reported execution time of the longest chain of dependent jobs, in nanoseconds.
+   * @param makespan Time from first starting graph processing to completion, in nanoseconds.
+   */
+  void graphMakespan(String calcConfig, long idealTime, long makespan);
+
 }
@@ -18,6 +18,7 @@ import java.util.Set;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.cache.CacheSelectHint;
 import com.opengamma.engine.view.cache.IdentifierEncodedValueSpecifications;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.util.ArgumentChecker;
 
 /**
@@ -44,6 +45,12 @@ public class CalculationJob implements IdentifierEncodedValueSpecifications {
    */
   private boolean _cancelled;
 
+  /**
+   * The trace of the cycle the job is part of, if the cycle is being traced. It is not serialized so is only available to
+   * the dispatcher and local nodes.
+   */
+  private CycleTrace _trace;
+
   public CalculationJob(CalculationJobSpecification specification, long functionInitializationIdentifier, long[] requiredJobIds, List<CalculationJobItem> jobItems,
       final CacheSelectHint cacheSelect) {
     ArgumentChecker.notNull(specification, "specification");
@@ -98,6 +105,24 @@ public class CalculationJob implements IdentifierEncodedValueSpecifications {
     _cancelled = true;
   }
 
+  /**
+   * Gets the trace to record the execution of the job in.
+   *
+   * @return the trace, null if the job is not being traced
+   */
+  public CycleTrace getTrace() {
+    return _trace;
+  }
+
+  /**
+   * Sets the trace to record the execution of the job in.
+   *
+   * @param trace the trace, null if the job is not being traced
+   */
+  public void setTrace(final CycleTrace trace) {
+    _trace = trace;
+  }
+
   @Override
   public void convertIdentifiers(final Long2ObjectMap<ValueSpecification> identifiers) {
     _cacheSelect.convertIdentifiers(identifiers);
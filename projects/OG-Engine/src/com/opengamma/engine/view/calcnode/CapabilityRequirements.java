@@ -49,4 +49,20 @@ public class CapabilityRequirements {
     return true;
   }
 
+  @Override
+  public int hashCode() {
+    return _requiredCapabilities.hashCode();
+  }
+
+  @Override
+  public boolean equals(final Object o) {
+    if (o == this) {
+      return true;
+    }
+    if (!(o instanceof CapabilityRequirements)) {
+      return false;
+    }
+    return _requiredCapabilities.equals(((CapabilityRequirements) o)._requiredCapabilities);
+  }
+
 }
@@ -7,6 +7,8 @@ package com.opengamma.engine.view.calcnode;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Iterator;
@@ -22,6 +24,8 @@ import java.util.concurrent.RunnableScheduledFuture;
 import java.util.concurrent.ScheduledThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
@@ -29,12 +33,21 @@ import org.slf4j.LoggerFactory;
 
 import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.engine.view.calcnode.stats.CalculationNodeStatisticsGatherer;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.engine.view.calcnode.stats.DiscardingNodeStatisticsGatherer;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.async.Cancelable;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.TimingHistogram;
 
 /**
  * Manages a set of JobInvokers and dispatches jobs to them for execution.
+ * <p>
+ * By default a job is passed to the first capable invoker, cycling through them in turn. With adaptive dispatch enabled
+ * the dispatcher tracks the latency of each invoker and the number of jobs outstanding with it, and sends each job to
+ * the invoker expected to return it soonest. A job still outstanding after the speculation percentile of latencies
+ * seen for its capability requirements is speculatively dispatched to an idle invoker as well, the first result
+ * received being used. This stops a single slow or paused node from holding up the whole cycle.
  */
 public class JobDispatcher implements JobInvokerRegister {
 
@@ -42,6 +55,13 @@ public class JobDispatcher implements JobInvokerRegister {
   /* package */static final int DEFAULT_MAX_JOB_ATTEMPTS = 3;
   /* package */static final long DEFAULT_MAX_JOB_EXECUTION_QUERY_TIMEOUT = 5000;
   /* package */static final String DEFAULT_JOB_FAILURE_NODE_ID = "NOT EXECUTED";
+  /* package */static final double DEFAULT_SPECULATION_PERCENTILE = 0.99;
+  /* package */static final int DEFAULT_MIN_SPECULATION_SAMPLES = 20;
+  /**
+   * Number of samples after which the latency histograms are decayed so that they follow changes in node behavior.
+   */
+  private static final int LATENCY_DECAY_INTERVAL = 1000;
+  private static final TimingHistogram s_dispatchWait = MetricRegistry.getDefault().histogram("engine.dispatch.wait");
 
   private static List<CalculationJob> getAllJobs(CalculationJob job, List<CalculationJob> jobs) {
     if (jobs == null) {
@@ -117,6 +137,92 @@ public class JobDispatcher implements JobInvokerRegister {
 
   }
 
+  /**
+   * Statistics maintained for each invoker when adaptive dispatch is enabled.
+   */
+  private static final class InvokerState {
+
+    private final TimingHistogram _latency = new TimingHistogram(LATENCY_DECAY_INTERVAL);
+    private final AtomicInteger _outstanding = new AtomicInteger();
+
+    /**
+     * Returns an estimate of the time to complete a further job, in nanoseconds, from the median latency and the
+     * number of jobs already outstanding. An invoker with no latency samples yet is ranked on its queue depth alone.
+     */
+    private long getExpectedWait() {
+      final long median = Math.max((long) _latency.getPercentile(0.5), 1L);
+      return (_outstanding.get() + 1) * median;
+    }
+
+  }
+
+  private final class SpeculationCheck implements Runnable {
+
+    private final DispatchJob _dispatchJob;
+
+    private SpeculationCheck(final DispatchJob dispatchJob) {
+      _dispatchJob = dispatchJob;
+    }
+
+    @Override
+    public void run() {
+      synchronized (JobDispatcher.this) {
+        _dispatchJob.speculate();
+      }
+    }
+
+  }
+
+  /**
+   * Receives the results of a speculative copy of a job. Results are passed to the original job; a failure just
+   * releases the invoker as the original dispatch remains responsible for the job.
+   */
+  private static final class SpeculativeReceiver implements JobInvocationReceiver {
+
+    private final DispatchJob _dispatchJob;
+    private final JobInvoker _jobInvoker;
+    private final long _invokeTime = System.nanoTime();
+
+    private SpeculativeReceiver(final DispatchJob dispatchJob, final JobInvoker jobInvoker) {
+      _dispatchJob = dispatchJob;
+      _jobInvoker = jobInvoker;
+    }
+
+    @Override
+    public void jobCompleted(final CalculationJobResult result) {
+      _dispatchJob.jobCompleted(result, _jobInvoker, _invokeTime);
+    }
+
+    @Override
+    public void jobFailed(final JobInvoker jobInvoker, final String computeNodeId, final Exception exception) {
+      s_logger.info("Speculative copy of job {} failed on node {}", _dispatchJob.getJob().getSpecification().getJobId(), computeNodeId);
+      _dispatchJob.release(_jobInvoker);
+    }
+
+  }
+
+  /**
+   * Description of a job invocation in a cycle trace. Only the values shown are kept so that the trace does not hold on to the job's results.
+   */
+  private static final class InvocationTraceDetail {
+
+    private final long _jobId;
+    private final int _itemCount;
+    private final long _durationNanos;
+
+    private InvocationTraceDetail(final CalculationJobResult result) {
+      _jobId = result.getSpecification().getJobId();
+      _itemCount = result.getResultItems().size();
+      _durationNanos = result.getDuration();
+    }
+
+    @Override
+    public String toString() {
+      return "Job " + _jobId + ", " + _itemCount + " items, executed in " + (_durationNanos / 1000) + "us";
+    }
+
+  }
+
   private final class DispatchJob implements JobInvocationReceiver, Cancelable {
 
     private final CalculationJob _rootJob;
@@ -127,6 +233,10 @@ public class JobDispatcher implements JobInvokerRegister {
     private final AtomicReference<Timeout> _timeout = new AtomicReference<Timeout>();
     private Set<JobInvoker> _excludeJobInvoker;
     private int _rescheduled;
+    private volatile JobInvoker _jobInvoker;
+    private volatile long _invokeTime;
+    private volatile JobInvoker _speculativeInvoker;
+    private final Set<JobInvoker> _outstanding = new HashSet<JobInvoker>();
 
     private DispatchJob(final CalculationJob job, final JobResultReceiver resultReceiver) {
       _rootJob = job;
@@ -149,6 +259,10 @@ public class JobDispatcher implements JobInvokerRegister {
 
     @Override
     public void jobCompleted(final CalculationJobResult result) {
+      jobCompleted(result, _jobInvoker, _invokeTime);
+    }
+
+    private void jobCompleted(final CalculationJobResult result, final JobInvoker jobInvoker, final long invokeTime) {
       final JobResultReceiver resultReceiver = _resultReceivers.remove(result.getSpecification());
       if (resultReceiver == null) {
         s_logger.warn("Job {} completed on node {} but is not currently pending", result.getSpecification().getJobId(), result.getComputeNodeId());
@@ -156,10 +270,18 @@ public class JobDispatcher implements JobInvokerRegister {
         extendTimeout(getMaxJobExecutionTime(), true);
         return;
       }
+      if ((jobInvoker != null) && result.getSpecification().equals(getJob().getSpecification())) {
+        recordLatency(jobInvoker, getRequirements(), System.nanoTime() - invokeTime);
+      }
+      final CycleTrace trace = getJob().getTrace();
+      if ((trace != null) && (jobInvoker != null)) {
+        trace.record(CycleTrace.CATEGORY_DISPATCH, "invoke", jobInvoker.getInvokerId(), invokeTime, System.nanoTime(), new InvocationTraceDetail(result));
+      }
       if (_resultReceivers.isEmpty()) {
         // This is the last one to complete. Note that if the last few jobs complete concurrently, both may execute this code.
         _completed.set(true);
         cancelTimeout(Timeout.FINISHED);
+        releaseAll(jobInvoker);
       } else {
         // Others are still running, but we can extend the timeout period
         extendTimeout(getMaxJobExecutionTime(), true);
@@ -177,6 +299,15 @@ public class JobDispatcher implements JobInvokerRegister {
     @Override
     public void jobFailed(final JobInvoker jobInvoker, final String computeNodeId, final Exception exception) {
       s_logger.warn("Job {} failed, {}", getJob().getSpecification().getJobId(), (exception != null) ? exception.getMessage() : "no exception passed");
+      release(jobInvoker);
+      final JobInvoker speculativeInvoker = _speculativeInvoker;
+      if ((speculativeInvoker != null) && (speculativeInvoker != jobInvoker) && isOutstanding(speculativeInvoker)) {
+        s_logger.info("Speculative copy of job {} still running on {}", getJob().getSpecification().getJobId(), speculativeInvoker.getInvokerId());
+        if (cancelTimeout(null) != null) {
+          setTimeout(speculativeInvoker);
+        }
+        return;
+      }
       if (_completed.getAndSet(true) == false) {
         cancelTimeout(null);
         if ((_excludeJobInvoker != null) && _excludeJobInvoker.contains(jobInvoker)) {
@@ -230,6 +361,7 @@ public class JobDispatcher implements JobInvokerRegister {
       s_logger.error("Aborted job {} after {} attempts", getJob().getSpecification().getJobId(), _rescheduled);
       if (_completed.getAndSet(true) == false) {
         cancelTimeout(Timeout.FINISHED);
+        releaseAll(null);
         if (exception == null) {
           s_logger.error("Aborted job {} with {}", getJob().getSpecification().getJobId(), alternativeError);
           exception = new OpenGammaRuntimeException(alternativeError);
@@ -338,14 +470,133 @@ public class JobDispatcher implements JobInvokerRegister {
           invoker.cancel(_resultReceivers.keySet());
         }
       }
+      final JobInvoker speculativeInvoker = _speculativeInvoker;
+      if ((speculativeInvoker != null) && isOutstanding(speculativeInvoker)) {
+        speculativeInvoker.cancel(_resultReceivers.keySet());
+      }
+      releaseAll(null);
       return true;
     }
 
+    /**
+     * Notes that the job is about to be passed to an invoker. This must be called before the invocation as the
+     * invoker may complete the job before returning.
+     */
+    private void invoking(final JobInvoker jobInvoker) {
+      _jobInvoker = jobInvoker;
+      _invokeTime = System.nanoTime();
+      acquire(jobInvoker);
+    }
+
+    /**
+     * Notes that an invoker has accepted the job, recording the time spent waiting for one.
+     */
+    private void invoked() {
+      s_dispatchWait.record(_invokeTime - getJobCreationTime());
+      final CycleTrace trace = getJob().getTrace();
+      if (trace != null) {
+        trace.record(CycleTrace.CATEGORY_DISPATCH, "queued", "dispatcher", getJobCreationTime(), _invokeTime, getJob().getSpecification());
+      }
+    }
+
+    private void acquire(final JobInvoker jobInvoker) {
+      synchronized (_outstanding) {
+        if (_outstanding.add(jobInvoker)) {
+          getInvokerState(jobInvoker)._outstanding.incrementAndGet();
+        }
+      }
+    }
+
+    private void release(final JobInvoker jobInvoker) {
+      synchronized (_outstanding) {
+        if (_outstanding.remove(jobInvoker)) {
+          getInvokerState(jobInvoker)._outstanding.decrementAndGet();
+        }
+      }
+    }
+
+    private boolean isOutstanding(final JobInvoker jobInvoker) {
+      synchronized (_outstanding) {
+        return _outstanding.contains(jobInvoker);
+      }
+    }
+
+    /**
+     * Releases all invokers the job is outstanding with, cancelling the duplicate execution on any other than the one
+     * that completed it.
+     */
+    private void releaseAll(final JobInvoker completedBy) {
+      final List<JobInvoker> others;
+      synchronized (_outstanding) {
+        if (_outstanding.isEmpty()) {
+          return;
+        }
+        others = new ArrayList<JobInvoker>(_outstanding.size());
+        for (JobInvoker jobInvoker : _outstanding) {
+          getInvokerState(jobInvoker)._outstanding.decrementAndGet();
+          if ((completedBy != null) && (jobInvoker != completedBy)) {
+            others.add(jobInvoker);
+          }
+        }
+        _outstanding.clear();
+      }
+      if (!others.isEmpty()) {
+        final List<CalculationJobSpecification> jobs = new ArrayList<CalculationJobSpecification>();
+        for (CalculationJob job : getAllJobs(getJob(), null)) {
+          jobs.add(job.getSpecification());
+        }
+        for (JobInvoker jobInvoker : others) {
+          s_logger.debug("Cancelling duplicate execution of job {} on {}", getJob().getSpecification().getJobId(), jobInvoker.getInvokerId());
+          jobInvoker.cancel(jobs);
+        }
+      }
+    }
+
+    private void scheduleSpeculation() {
+      final ScheduledThreadPoolExecutor executor = getJobTimeoutExecutor();
+      if ((executor == null) || (_speculativeInvoker != null)) {
+        return;
+      }
+      final TimingHistogram latency = _requirementLatency.get(getRequirements());
+      if ((latency == null) || (latency.getCount() < getMinSpeculationSamples())) {
+        return;
+      }
+      executor.schedule(new SpeculationCheck(this), (long) latency.getPercentile(getSpeculationPercentile()), TimeUnit.NANOSECONDS);
+    }
+
+    // caller must already own monitor
+    private void speculate() {
+      if (_completed.get() || (_speculativeInvoker != null)) {
+        return;
+      }
+      final JobInvoker current = _jobInvoker;
+      for (JobInvoker jobInvoker : getInvokers()) {
+        if ((jobInvoker == current) || !canRunOn(jobInvoker) || (getInvokerState(jobInvoker)._outstanding.get() > 0)) {
+          continue;
+        }
+        _speculativeInvoker = jobInvoker;
+        acquire(jobInvoker);
+        if (jobInvoker.invoke(getJob(), new SpeculativeReceiver(this, jobInvoker))) {
+          s_logger.info("Job {} exceeded expected latency on {}; speculatively dispatched to {}",
+              new Object[] {getJob().getSpecification().getJobId(), current.getInvokerId(), jobInvoker.getInvokerId() });
+          _speculativeDispatchCount.incrementAndGet();
+          return;
+        }
+        release(jobInvoker);
+        _speculativeInvoker = null;
+      }
+      s_logger.debug("No idle invoker for speculative copy of job {}", getJob().getSpecification().getJobId());
+    }
+
   }
 
   private final Queue<DispatchJob> _pending = new LinkedList<DispatchJob>();
   private final Queue<JobInvoker> _invokers = new ConcurrentLinkedQueue<JobInvoker>();
   private final Map<JobInvoker, Collection<Capability>> _capabilityCache = new ConcurrentHashMap<JobInvoker, Collection<Capability>>();
+  private final ConcurrentMap<JobInvoker, InvokerState> _invokerState = new ConcurrentHashMap<JobInvoker, InvokerState>();
+  private final ConcurrentMap<CapabilityRequirements, TimingHistogram> _requirementLatency = new ConcurrentHashMap<CapabilityRequirements, TimingHistogram>();
+  private final TimingHistogram _latency = new TimingHistogram(LATENCY_DECAY_INTERVAL);
+  private final AtomicLong _speculativeDispatchCount = new AtomicLong();
 
   private int _maxJobAttempts = DEFAULT_MAX_JOB_ATTEMPTS;
   private String _jobFailureNodeId = DEFAULT_JOB_FAILURE_NODE_ID;
@@ -360,6 +611,9 @@ public class JobDispatcher implements JobInvokerRegister {
   private long _maxJobExecutionTimeQuery = DEFAULT_MAX_JOB_EXECUTION_QUERY_TIMEOUT;
   private ScheduledThreadPoolExecutor _jobTimeoutExecutor;
   private CalculationNodeStatisticsGatherer _statisticsGatherer = new DiscardingNodeStatisticsGatherer();
+  private volatile boolean _adaptiveDispatch;
+  private double _speculationPercentile = DEFAULT_SPECULATION_PERCENTILE;
+  private int _minSpeculationSamples = DEFAULT_MIN_SPECULATION_SAMPLES;
 
   public JobDispatcher() {
   }
@@ -408,10 +662,15 @@ public class JobDispatcher implements JobInvokerRegister {
   public synchronized void setMaxJobExecutionTime(final long maxJobExecutionTime) {
     _maxJobExecutionTime = maxJobExecutionTime;
     if (maxJobExecutionTime > 0) {
-      if (_jobTimeoutExecutor == null) {
-        _jobTimeoutExecutor = new ScheduledThreadPoolExecutor(1);
-        _jobTimeoutExecutor.setMaximumPoolSize(1);
-      }
+      createJobTimeoutExecutor();
+    }
+  }
+
+  // caller must already own monitor
+  private void createJobTimeoutExecutor() {
+    if (_jobTimeoutExecutor == null) {
+      _jobTimeoutExecutor = new ScheduledThreadPoolExecutor(1);
+      _jobTimeoutExecutor.setMaximumPoolSize(1);
     }
   }
 
@@ -443,10 +702,142 @@ public class JobDispatcher implements JobInvokerRegister {
     return _capabilityRequirementsProvider;
   }
 
+  /**
+   * Enables or disables adaptive dispatch. When enabled, jobs are sent to the invoker with the shortest expected wait
+   * and stragglers are speculatively dispatched to idle invokers. This doesn't affect jobs already launched.
+   * 
+   * @param adaptiveDispatch true to enable adaptive dispatch, false to dispatch in round-robin order
+   */
+  public synchronized void setAdaptiveDispatch(final boolean adaptiveDispatch) {
+    _adaptiveDispatch = adaptiveDispatch;
+    if (adaptiveDispatch) {
+      createJobTimeoutExecutor();
+    }
+  }
+
+  public boolean isAdaptiveDispatch() {
+    return _adaptiveDispatch;
+  }
+
+  /**
+   * Sets the percentile of the latencies seen for jobs with the same capability requirements after which a job is
+   * speculatively dispatched to a second invoker.
+   * 
+   * @param speculationPercentile the percentile, greater than 0 and at most 1
+   */
+  public void setSpeculationPercentile(final double speculationPercentile) {
+    ArgumentChecker.isTrue((speculationPercentile > 0) && (speculationPercentile <= 1), "speculationPercentile must be greater than 0 and at most 1");
+    _speculationPercentile = speculationPercentile;
+  }
+
+  public double getSpeculationPercentile() {
+    return _speculationPercentile;
+  }
+
+  /**
+   * Sets the number of latency samples that must be gathered for a set of capability requirements before jobs with
+   * those requirements are considered for speculative dispatch.
+   * 
+   * @param minSpeculationSamples the number of samples
+   */
+  public void setMinSpeculationSamples(final int minSpeculationSamples) {
+    ArgumentChecker.notNegative(minSpeculationSamples, "minSpeculationSamples");
+    _minSpeculationSamples = minSpeculationSamples;
+  }
+
+  public int getMinSpeculationSamples() {
+    return _minSpeculationSamples;
+  }
+
+  /**
+   * Returns the number of jobs that have been speculatively dispatched to a second invoker.
+   * 
+   * @return the count
+   */
+  public long getSpeculativeDispatchCount() {
+    return _speculativeDispatchCount.get();
+  }
+
+  /**
+   * Returns the latency of all jobs completed while adaptive dispatch was enabled.
+   * 
+   * @return the latency histogram, not null
+   */
+  public TimingHistogram getLatency() {
+    return _latency;
+  }
+
+  /**
+   * Returns the latency of jobs completed by each invoker while adaptive dispatch was enabled.
+   * 
+   * @return map of invoker identifier to latency histogram
+   */
+  public Map<String, TimingHistogram> getInvokerLatency() {
+    final Map<String, TimingHistogram> result = new HashMap<String, TimingHistogram>();
+    for (Map.Entry<JobInvoker, InvokerState> state : _invokerState.entrySet()) {
+      final String identifier = state.getKey().getInvokerId();
+      if (identifier != null) {
+        result.put(identifier, state.getValue()._latency);
+      }
+    }
+    return result;
+  }
+
+  /**
+   * Returns the number of jobs outstanding with each invoker while adaptive dispatch is enabled.
+   * 
+   * @return map of invoker identifier to number of jobs
+   */
+  public Map<String, Integer> getInvokerQueueDepth() {
+    final Map<String, Integer> result = new HashMap<String, Integer>();
+    for (Map.Entry<JobInvoker, InvokerState> state : _invokerState.entrySet()) {
+      final String identifier = state.getKey().getInvokerId();
+      if (identifier != null) {
+        result.put(identifier, state.getValue()._outstanding.get());
+      }
+    }
+    return result;
+  }
+
+  private InvokerState getInvokerState(final JobInvoker jobInvoker) {
+    InvokerState state = _invokerState.get(jobInvoker);
+    if (state == null) {
+      state = new InvokerState();
+      final InvokerState existing = _invokerState.putIfAbsent(jobInvoker, state);
+      if (existing != null) {
+        state = existing;
+      }
+    }
+    return state;
+  }
+
+  private void recordLatency(final JobInvoker jobInvoker, final CapabilityRequirements requirements, final long nanos) {
+    getInvokerState(jobInvoker)._latency.record(nanos);
+    TimingHistogram latency = _requirementLatency.get(requirements);
+    if (latency == null) {
+      latency = new TimingHistogram(LATENCY_DECAY_INTERVAL);
+      final TimingHistogram existing = _requirementLatency.putIfAbsent(requirements, latency);
+      if (existing != null) {
+        latency = existing;
+      }
+    }
+    latency.record(nanos);
+    _latency.record(nanos);
+  }
+
   protected Queue<DispatchJob> getPending() {
     return _pending;
   }
 
+  /**
+   * Returns the number of jobs waiting for an invoker to become available.
+   * 
+   * @return the number of pending jobs
+   */
+  public synchronized int getPendingJobCount() {
+    return getPending().size();
+  }
+
   protected Queue<JobInvoker> getInvokers() {
     return _invokers;
   }
@@ -498,6 +889,9 @@ public class JobDispatcher implements JobInvokerRegister {
       s_logger.info("Job {} cancelled", job.getJob().getSpecification().getJobId());
       return true;
     }
+    if (isAdaptiveDispatch()) {
+      return invokeAdaptive(job);
+    }
     Collection<JobInvoker> retry = null;
     do {
       final Iterator<JobInvoker> iterator = getInvokers().iterator();
@@ -536,6 +930,53 @@ public class JobDispatcher implements JobInvokerRegister {
     return false;
   }
 
+  // caller must already own monitor
+  private boolean invokeAdaptive(final DispatchJob job) {
+    do {
+      final List<JobInvoker> candidates = new ArrayList<JobInvoker>();
+      final Map<JobInvoker, Long> expectedWait = new HashMap<JobInvoker, Long>();
+      for (JobInvoker jobInvoker : getInvokers()) {
+        if (job.canRunOn(jobInvoker)) {
+          candidates.add(jobInvoker);
+          expectedWait.put(jobInvoker, getInvokerState(jobInvoker).getExpectedWait());
+        }
+      }
+      // Stable sort, so invokers with equal expected waits stay in round-robin order
+      Collections.sort(candidates, new Comparator<JobInvoker>() {
+        @Override
+        public int compare(final JobInvoker o1, final JobInvoker o2) {
+          return expectedWait.get(o1).compareTo(expectedWait.get(o2));
+        }
+      });
+      boolean retry = false;
+      for (JobInvoker jobInvoker : candidates) {
+        job.invoking(jobInvoker);
+        if (jobInvoker.invoke(job.getJob(), job)) {
+          s_logger.debug("Invoker {} accepted job {}", jobInvoker, job.getJob().getSpecification().getJobId());
+          job.invoked();
+          job.setTimeout(jobInvoker);
+          job.scheduleSpeculation();
+          getInvokers().remove(jobInvoker);
+          getInvokers().add(jobInvoker);
+          return true;
+        }
+        s_logger.debug("Invoker {} refused to execute job {}", jobInvoker, job.getJob().getSpecification().getJobId());
+        job.release(jobInvoker);
+        getInvokers().remove(jobInvoker);
+        if (jobInvoker.notifyWhenAvailable(this)) {
+          s_logger.info("Invoker {} requested immediate retry", jobInvoker);
+          getInvokers().add(jobInvoker);
+          retry = true;
+        }
+      }
+      if (!retry) {
+        break;
+      }
+    } while (true);
+    s_logger.debug("No invokers available for job {}", job.getJob().getSpecification().getJobId());
+    return false;
+  }
+
   private synchronized void dispatchJobImpl(final DispatchJob job) {
     if (!invoke(job)) {
       s_logger.debug("Adding job to pending set");
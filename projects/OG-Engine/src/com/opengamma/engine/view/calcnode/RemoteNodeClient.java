@@ -67,6 +67,8 @@ public class RemoteNodeClient extends SimpleCalculationNodeInvocationContainer i
     protected void visitExecuteMessage(final Execute message) {
       final CalculationJob job = message.getJob();
       getFunctionCompilationService().reinitializeIfNeeded(job.getFunctionInitializationIdentifier());
+      // Resolves every identifier the job uses in one batch; the caching map then holds both directions so that the
+      // result can be encoded without going back to the identifier server
       AbstractIdentifierMap.resolveIdentifiers(getIdentifierMap(), job);
       addJob(job, new ExecutionReceiver() {
 
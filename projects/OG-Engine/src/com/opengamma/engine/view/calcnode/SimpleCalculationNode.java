@@ -39,6 +39,7 @@ import com.opengamma.engine.view.cache.NotCalculatedSentinel;
 import com.opengamma.engine.view.cache.ViewComputationCache;
 import com.opengamma.engine.view.cache.ViewComputationCacheSource;
 import com.opengamma.engine.view.cache.WriteBehindViewComputationCache;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.engine.view.calcnode.stats.FunctionInvocationStatisticsGatherer;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.InetAddressUtils;
@@ -202,6 +203,10 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     final long executionTime = System.nanoTime() - getExecutionStartTime();
     final CalculationJobResult jobResult = new CalculationJobResult(getJob().getSpecification(), executionTime, resultItems, getNodeId());
     s_logger.info("Executed {} in {}ns", getJob(), executionTime);
+    final CycleTrace trace = getJob().getTrace();
+    if (trace != null) {
+      trace.record(CycleTrace.CATEGORY_NODE, "execute", getNodeId(), getExecutionStartTime(), getExecutionStartTime() + executionTime, getJob().getSpecification());
+    }
     try {
       getCache().flush();
     } catch (AsynchronousExecution e) {
@@ -394,11 +399,55 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
       results = newResults;
       itemResult = itemResult.withMissingOutputs(missing);
     }
-    getCache().putValues(results, getJob().getCacheSelectHint(), statistics);
+    final CycleTrace trace = getJob().getTrace();
+    if (trace != null) {
+      final long putStart = System.nanoTime();
+      getCache().putValues(results, getJob().getCacheSelectHint(), statistics);
+      trace.record(CycleTrace.CATEGORY_CACHE, "put", getNodeId(), putStart, System.nanoTime(), results.size());
+    } else {
+      getCache().putValues(results, getJob().getCacheSelectHint(), statistics);
+    }
     return itemResult;
   }
 
+  private void traceInvocation(final CycleTrace trace, final CalculationJobItem jobItem, final long invocationStart) {
+    if (trace != null) {
+      trace.record(CycleTrace.CATEGORY_NODE, jobItem.getFunctionUniqueIdentifier(), getNodeId(), invocationStart, System.nanoTime(), jobItem.getComputationTargetSpecification());
+    }
+  }
+
   private CalculationJobResultItem invoke(final CalculationJobItem jobItem, final DeferredInvocationStatistics statistics) throws AsynchronousExecution {
+    final CycleTrace trace = getJob().getTrace();
+    if (trace == null) {
+      return invoke(jobItem, statistics, null);
+    }
+    final long invocationStart = System.nanoTime();
+    boolean asynchronous = false;
+    try {
+      return invoke(jobItem, statistics, trace);
+    } catch (AsynchronousExecution e) {
+      asynchronous = true;
+      final AsynchronousOperation<CalculationJobResultItem> async = new AsynchronousOperation<CalculationJobResultItem>();
+      e.setResultListener(new ResultListener<CalculationJobResultItem>() {
+        @Override
+        public void operationComplete(final AsynchronousResult<CalculationJobResultItem> result) {
+          traceInvocation(trace, jobItem, invocationStart);
+          try {
+            async.getCallback().setResult(result.getResult());
+          } catch (RuntimeException e) {
+            async.getCallback().setException(e);
+          }
+        }
+      });
+      return async.getResult();
+    } finally {
+      if (!asynchronous) {
+        traceInvocation(trace, jobItem, invocationStart);
+      }
+    }
+  }
+
+  private CalculationJobResultItem invoke(final CalculationJobItem jobItem, final DeferredInvocationStatistics statistics, final CycleTrace trace) throws AsynchronousExecution {
     final String functionUniqueId = jobItem.getFunctionUniqueIdentifier();
     Future<ComputationTarget> targetFuture = null;
     ComputationTarget target = null;
@@ -427,7 +476,12 @@ public class SimpleCalculationNode extends SimpleCalculationNodeState implements
     int inputBytes = 0;
     int inputSamples = 0;
     final DeferredViewComputationCache cache = getCache();
-    for (Pair<ValueSpecification, Object> input : cache.getValues(jobItem.getInputs(), getJob().getCacheSelectHint())) {
+    final long getStart = (trace != null) ? System.nanoTime() : 0;
+    final Collection<Pair<ValueSpecification, Object>> inputValues = cache.getValues(jobItem.getInputs(), getJob().getCacheSelectHint());
+    if (trace != null) {
+      trace.record(CycleTrace.CATEGORY_CACHE, "get", getNodeId(), getStart, System.nanoTime(), inputValues.size());
+    }
+    for (Pair<ValueSpecification, Object> input : inputValues) {
       if ((input.getValue() == null) || (input.getValue() instanceof MissingInput)) {
         missing.add(input.getKey());
       } else {
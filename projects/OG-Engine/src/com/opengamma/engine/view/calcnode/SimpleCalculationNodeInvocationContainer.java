@@ -22,6 +22,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.async.AsynchronousExecution;
 import com.opengamma.util.async.AsynchronousHandle;
@@ -64,11 +65,25 @@ public abstract class SimpleCalculationNodeInvocationContainer {
     private final JobExecution _execution;
     private ExecutionReceiver _receiver;
     private AtomicInteger _blockCount;
+    private final long _queuedTime;
 
     public JobEntry(final CalculationJob job, final JobExecution execution, final ExecutionReceiver receiver) {
       _job = job;
       _execution = execution;
       _receiver = receiver;
+      _queuedTime = (job.getTrace() != null) ? System.nanoTime() : 0;
+    }
+
+    /**
+     * Records the time the job has waited for a node to execute it, if the job is being traced.
+     *
+     * @param node the node about to execute the job
+     */
+    public void traceQueued(final SimpleCalculationNode node) {
+      final CycleTrace trace = _job.getTrace();
+      if (trace != null) {
+        trace.record(CycleTrace.CATEGORY_NODE, "queued", node.getNodeId(), _queuedTime, System.nanoTime(), _job.getSpecification());
+      }
     }
 
     public CalculationJob getJob() {
@@ -581,6 +596,7 @@ public abstract class SimpleCalculationNodeInvocationContainer {
       if (resumeJob == null) {
         s_logger.info("Executing job {} on {}", job.getExecution().getJobId(), node.getNodeId());
         onJobStart(job.getJob());
+        job.traceQueued(node);
       } else {
         job = resumeJob.getEntry();
         s_logger.info("Resuming job {} on {}", job.getExecution().getJobId(), node.getNodeId());
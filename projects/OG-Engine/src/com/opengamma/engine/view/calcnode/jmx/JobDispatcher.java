@@ -0,0 +1,128 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode.jmx;
+
+import java.util.Map;
+import java.util.TreeMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.util.monitor.Gauge;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.TimingHistogram;
+
+/**
+ * JobDispatcherMBean implementation.
+ */
+public final class JobDispatcher implements JobDispatcherMBean {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(JobDispatcher.class);
+
+  private final com.opengamma.engine.view.calcnode.JobDispatcher _underlying;
+
+  private JobDispatcher(final com.opengamma.engine.view.calcnode.JobDispatcher underlying) {
+    _underlying = underlying;
+  }
+
+  private com.opengamma.engine.view.calcnode.JobDispatcher getUnderlying() {
+    return _underlying;
+  }
+
+  /**
+   * Registers the MBean for a dispatcher, and publishes its pending job count in the default {@link MetricRegistry}. This is called once for the
+   * dispatcher of a view processor, replacing any dispatcher registered before.
+   * 
+   * @param dispatcher the dispatcher, not null
+   * @param server the MBean server, not null
+   * @throws JMException if the MBean cannot be registered
+   */
+  public static void registerMBeans(final com.opengamma.engine.view.calcnode.JobDispatcher dispatcher, final MBeanServer server) throws JMException {
+    final ObjectName name = new ObjectName("com.opengamma:type=JobDispatcher,name=" + dispatcher.toString());
+    final JobDispatcher instance = new JobDispatcher(dispatcher);
+    MetricRegistry.getDefault().gauge("engine.dispatch.pending", new Gauge() {
+      @Override
+      public long getValue() {
+        return dispatcher.getPendingJobCount();
+      }
+    });
+    try {
+      server.registerMBean(instance, name);
+    } catch (InstanceAlreadyExistsException e) {
+      s_logger.warn("JMX MBean {} already exists - replacing", name);
+      server.unregisterMBean(name);
+      server.registerMBean(instance, name);
+    }
+  }
+
+  @Override
+  public void setAdaptiveDispatch(final boolean adaptiveDispatch) {
+    getUnderlying().setAdaptiveDispatch(adaptiveDispatch);
+  }
+
+  @Override
+  public boolean isAdaptiveDispatch() {
+    return getUnderlying().isAdaptiveDispatch();
+  }
+
+  @Override
+  public void setSpeculationPercentile(final double speculationPercentile) {
+    getUnderlying().setSpeculationPercentile(speculationPercentile);
+  }
+
+  @Override
+  public double getSpeculationPercentile() {
+    return getUnderlying().getSpeculationPercentile();
+  }
+
+  @Override
+  public void setMinSpeculationSamples(final int minSpeculationSamples) {
+    getUnderlying().setMinSpeculationSamples(minSpeculationSamples);
+  }
+
+  @Override
+  public int getMinSpeculationSamples() {
+    return getUnderlying().getMinSpeculationSamples();
+  }
+
+  @Override
+  public long getSpeculativeDispatchCount() {
+    return getUnderlying().getSpeculativeDispatchCount();
+  }
+
+  @Override
+  public int getPendingJobCount() {
+    return getUnderlying().getPendingJobCount();
+  }
+
+  @Override
+  public double getMedianLatencyMillis() {
+    return getUnderlying().getLatency().getMedianMillis();
+  }
+
+  @Override
+  public double getP99LatencyMillis() {
+    return getUnderlying().getLatency().get99thPercentileMillis();
+  }
+
+  @Override
+  public String[] getInvokerStatistics() {
+    final Map<String, TimingHistogram> latency = new TreeMap<String, TimingHistogram>(getUnderlying().getInvokerLatency());
+    final Map<String, Integer> queueDepth = getUnderlying().getInvokerQueueDepth();
+    final String[] result = new String[latency.size()];
+    int i = 0;
+    for (Map.Entry<String, TimingHistogram> invoker : latency.entrySet()) {
+      result[i++] = invoker.getKey() + ": outstanding=" + queueDepth.get(invoker.getKey()) + ", " + invoker.getValue();
+    }
+    return result;
+  }
+
+}
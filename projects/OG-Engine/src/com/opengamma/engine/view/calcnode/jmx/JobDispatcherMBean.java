@@ -0,0 +1,35 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ * 
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode.jmx;
+
+/**
+ * JMX exposure of the job dispatcher's adaptive dispatch parameters and latency statistics.
+ */
+public interface JobDispatcherMBean {
+
+  void setAdaptiveDispatch(boolean adaptiveDispatch);
+
+  boolean isAdaptiveDispatch();
+
+  void setSpeculationPercentile(double speculationPercentile);
+
+  double getSpeculationPercentile();
+
+  void setMinSpeculationSamples(int minSpeculationSamples);
+
+  int getMinSpeculationSamples();
+
+  long getSpeculativeDispatchCount();
+
+  int getPendingJobCount();
+
+  double getMedianLatencyMillis();
+
+  double getP99LatencyMillis();
+
+  String[] getInvokerStatistics();
+
+}
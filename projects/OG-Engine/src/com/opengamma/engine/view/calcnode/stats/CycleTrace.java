@@ -0,0 +1,228 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode.stats;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Timeline of the work done for a single view cycle, recording when each job was queued, dispatched and executed and
+ * where the time within each job went. Unlike the aggregate statistics, a trace shows where the time in one particular
+ * cycle was spent. It can be exported in the Chrome trace event format for viewing as a timeline or flame graph, for
+ * example with {@code chrome://tracing}.
+ * <p>
+ * Recording an event is a single allocation and queue insertion, and any descriptions are only converted to strings
+ * when the trace is exported, so tracing may be left enabled for a sample of production cycles. Events are only
+ * recorded by components in the same process as the cycle; jobs executed on remote nodes appear as their dispatch to
+ * the remote node. The number of events is limited to bound the memory used by a trace of a very large cycle.
+ */
+public class CycleTrace {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(CycleTrace.class);
+
+  /**
+   * Default maximum number of events recorded.
+   */
+  public static final int DEFAULT_MAX_EVENTS = 1000000;
+
+  /**
+   * Category of events recorded by the cycle.
+   */
+  public static final String CATEGORY_CYCLE = "cycle";
+  /**
+   * Category of events recorded by the job dispatcher.
+   */
+  public static final String CATEGORY_DISPATCH = "dispatch";
+  /**
+   * Category of events recorded by a calculation node.
+   */
+  public static final String CATEGORY_NODE = "node";
+  /**
+   * Category of value cache events recorded by a calculation node.
+   */
+  public static final String CATEGORY_CACHE = "cache";
+
+  private static final class Event {
+
+    private final String _category;
+    private final String _name;
+    private final String _track;
+    private final long _startNanos;
+    private final long _endNanos;
+    private final Object _detail;
+
+    private Event(final String category, final String name, final String track, final long startNanos, final long endNanos, final Object detail) {
+      _category = category;
+      _name = name;
+      _track = track;
+      _startNanos = startNanos;
+      _endNanos = endNanos;
+      _detail = detail;
+    }
+
+  }
+
+  private final String _name;
+  private final long _originNanos;
+  private final int _maxEvents;
+  private final Queue<Event> _events = new ConcurrentLinkedQueue<Event>();
+  private final AtomicInteger _eventCount = new AtomicInteger();
+
+  /**
+   * Creates a new trace.
+   *
+   * @param name the name of the traced cycle, not null
+   */
+  public CycleTrace(final String name) {
+    this(name, DEFAULT_MAX_EVENTS);
+  }
+
+  /**
+   * Creates a new trace.
+   *
+   * @param name the name of the traced cycle, not null
+   * @param maxEvents the maximum number of events to record, further events are discarded
+   */
+  public CycleTrace(final String name, final int maxEvents) {
+    ArgumentChecker.notNull(name, "name");
+    ArgumentChecker.notNegativeOrZero(maxEvents, "maxEvents");
+    _name = name;
+    _originNanos = System.nanoTime();
+    _maxEvents = maxEvents;
+  }
+
+  public String getName() {
+    return _name;
+  }
+
+  /**
+   * Records an event. The times must be from {@link System#nanoTime}.
+   *
+   * @param category the category of the event, for example {@link #CATEGORY_NODE}, not null
+   * @param name the name of the event, not null
+   * @param track the name of the thread, node or invoker the event happened on, not null
+   * @param startNanos the start of the event
+   * @param endNanos the end of the event
+   * @param detail additional description of the event converted to a string when the trace is exported, null for none
+   */
+  public void record(final String category, final String name, final String track, final long startNanos, final long endNanos, final Object detail) {
+    final int count = _eventCount.incrementAndGet();
+    if (count > _maxEvents) {
+      if (count == _maxEvents + 1) {
+        s_logger.warn("Trace of {} exceeded {} events, discarding further events", _name, _maxEvents);
+      }
+      return;
+    }
+    _events.add(new Event(category, name, track, startNanos, endNanos, detail));
+  }
+
+  /**
+   * Returns the number of events recorded, including any that were discarded.
+   *
+   * @return the number of events
+   */
+  public int getEventCount() {
+    return _eventCount.get();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes the trace in the Chrome trace event format. Each event is written as a complete event with times in
+   * microseconds from the creation of the trace.
+   *
+   * @param out the destination to write to, not null
+   * @throws IOException if the destination cannot be written to
+   */
+  public void writeChromeTrace(final Appendable out) throws IOException {
+    out.append("{\"traceEvents\":[");
+    boolean first = true;
+    for (Event event : _events) {
+      if (first) {
+        first = false;
+      } else {
+        out.append(',');
+      }
+      out.append("\n{\"ph\":\"X\",\"pid\":");
+      appendString(out, _name);
+      out.append(",\"tid\":");
+      appendString(out, event._track);
+      out.append(",\"cat\":");
+      appendString(out, event._category);
+      out.append(",\"name\":");
+      appendString(out, event._name);
+      out.append(",\"ts\":").append(Double.toString((event._startNanos - _originNanos) / 1000d));
+      out.append(",\"dur\":").append(Double.toString(Math.max(event._endNanos - event._startNanos, 0) / 1000d));
+      if (event._detail != null) {
+        out.append(",\"args\":{\"detail\":");
+        appendString(out, event._detail.toString());
+        out.append('}');
+      }
+      out.append('}');
+    }
+    out.append("\n],\"displayTimeUnit\":\"ms\"}");
+  }
+
+  /**
+   * Returns the trace in the Chrome trace event format.
+   *
+   * @return the JSON representation of the trace, not null
+   */
+  public String toChromeTrace() {
+    final StringBuilder sb = new StringBuilder();
+    try {
+      writeChromeTrace(sb);
+    } catch (IOException e) {
+      throw new OpenGammaRuntimeException("Unexpected exception writing to a string", e);
+    }
+    return sb.toString();
+  }
+
+  private static void appendString(final Appendable out, final String str) throws IOException {
+    out.append('"');
+    for (int i = 0; i < str.length(); i++) {
+      final char c = str.charAt(i);
+      switch (c) {
+        case '"':
+          out.append("\\\"");
+          break;
+        case '\\':
+          out.append("\\\\");
+          break;
+        case '\n':
+          out.append("\\n");
+          break;
+        case '\r':
+          out.append("\\r");
+          break;
+        case '\t':
+          out.append("\\t");
+          break;
+        default:
+          if (c < ' ') {
+            out.append(String.format("\\u%04x", (int) c));
+          } else {
+            out.append(c);
+          }
+          break;
+      }
+    }
+    out.append('"');
+  }
+
+  @Override
+  public String toString() {
+    return "CycleTrace[" + _name + ", " + getEventCount() + " events]";
+  }
+
+}
@@ -5,8 +5,9 @@
  */
 package com.opengamma.engine.view.client;
 
-import java.util.Timer;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.atomic.AtomicBoolean;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.ReentrantLock;
@@ -25,6 +26,8 @@ import com.opengamma.engine.view.calc.ViewCycleMetadata;
 import com.opengamma.engine.view.calc.EngineResourceReference;
 import com.opengamma.engine.view.calc.EngineResourceRetainer;
 import com.opengamma.engine.view.calc.ViewCycle;
+import com.opengamma.engine.view.client.merging.BackPressurePolicy;
+import com.opengamma.engine.view.client.merging.MergingViewProcessListener;
 import com.opengamma.engine.view.client.merging.RateLimitingMergingViewProcessListener;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
@@ -35,6 +38,8 @@ import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.TimingHistogram;
 
 /**
  * Default implementation of {@link ViewClient}.
@@ -42,6 +47,11 @@ import com.opengamma.util.ArgumentChecker;
 public class ViewClientImpl implements ViewClient {
 
   private static final Logger s_logger = LoggerFactory.getLogger(ViewClientImpl.class);
+  /**
+   * The time from a result being calculated to it reaching the client, including any time queued for delivery. The
+   * time spent queued alone is reported as engine.viewclient.delivery.lag.
+   */
+  private static final TimingHistogram s_resultAge = MetricRegistry.getDefault().histogram("engine.viewclient.result.age");
 
   private final ReentrantLock _clientLock = new ReentrantLock();
 
@@ -80,13 +90,15 @@ public class ViewClientImpl implements ViewClient {
    * @param id  the unique identifier assigned to this view client
    * @param viewProcessor  the parent view processor to which this client belongs
    * @param user  the user who owns this client
-   * @param timer  the timer to use for scheduled tasks
+   * @param scheduler  the scheduler to use for releasing rate-limited results, shared between clients
+   * @param deliveryExecutor  the executor on which results are delivered to the client's listener, shared between clients
    */
-  public ViewClientImpl(UniqueId id, ViewProcessorImpl viewProcessor, UserPrincipal user, Timer timer) {
+  public ViewClientImpl(UniqueId id, ViewProcessorImpl viewProcessor, UserPrincipal user, ScheduledExecutorService scheduler, Executor deliveryExecutor) {
     ArgumentChecker.notNull(id, "id");
     ArgumentChecker.notNull(viewProcessor, "viewProcessor");
     ArgumentChecker.notNull(user, "user");
-    ArgumentChecker.notNull(timer, "timer");
+    ArgumentChecker.notNull(scheduler, "scheduler");
+    ArgumentChecker.notNull(deliveryExecutor, "deliveryExecutor");
 
     _id = id;
     _viewProcessor = viewProcessor;
@@ -130,6 +142,9 @@ public class ViewClientImpl implements ViewClient {
 
       @Override
       public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+        if (fullResult.getCalculationTime() != null) {
+          s_resultAge.record((System.currentTimeMillis() - fullResult.getCalculationTime().toEpochMillisLong()) * 1000000L);
+        }
         boolean isFirstResult = updateLatestResult(fullResult);
         ViewResultListener listener = _userResultListener.get();
         if (listener != null) {
@@ -207,7 +222,7 @@ public class ViewClientImpl implements ViewClient {
 
     };
 
-    _mergingViewProcessListener = new RateLimitingMergingViewProcessListener(_mergedViewProcessListener, getViewProcessor().getViewCycleManager(), timer);
+    _mergingViewProcessListener = new RateLimitingMergingViewProcessListener(_mergedViewProcessListener, getViewProcessor().getViewCycleManager(), scheduler, deliveryExecutor);
     _mergingViewProcessListener.setPaused(true);
   }
 
@@ -320,6 +335,25 @@ public class ViewClientImpl implements ViewClient {
     _mergingViewProcessListener.setMinimumUpdatePeriodMillis(periodMillis);
   }
 
+  /**
+   * Sets how results are held while this client is behind in consuming them.
+   * 
+   * @param backPressurePolicy  the policy, not null
+   */
+  public void setBackPressurePolicy(BackPressurePolicy backPressurePolicy) {
+    _mergingViewProcessListener.setBackPressurePolicy(backPressurePolicy);
+  }
+
+  /**
+   * Gets the listener through which results are delivered to this client, from which its delivery lag and the results
+   * merged or dropped while it was behind can be monitored.
+   * 
+   * @return the merging listener, not null
+   */
+  public MergingViewProcessListener getResultDeliveryListener() {
+    return _mergingViewProcessListener;
+  }
+
   @Override
   public ViewResultMode getResultMode() {
     return _resultMode.get();
@@ -0,0 +1,36 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.client.merging;
+
+/**
+ * Enumerates the ways in which a {@link MergingViewProcessListener} holds results that arrive while earlier ones are
+ * still waiting to be delivered to a client. Whichever policy is used, at most one cycle completed call and one cycle
+ * fragment completed call are queued for a client, so the queue is bounded however far behind the client falls.
+ */
+public enum BackPressurePolicy {
+
+  /**
+   * Results are merged: the latest full result is kept and the delta results are merged so that a client receiving
+   * only deltas sees every change.
+   */
+  MERGE_DELTAS,
+
+  /**
+   * Results are conflated to the latest: the full and delta fragments of the latest cycle replace those already queued,
+   * and the full result of the latest cycle replaces the one queued. The delta results of completed cycles are still
+   * merged, so a client receiving only deltas sees every change, but changes reported only by the fragments replaced
+   * are not seen until the cycle completes.
+   */
+  CONFLATE,
+
+  /**
+   * Results are merged as with {@link #MERGE_DELTAS}, but fragments are dropped while a client is behind: fragments
+   * arriving while a delivery to the client is still in progress are discarded, as are queued fragments once the
+   * cycle completed result superseding them arrives.
+   */
+  DROP_FRAGMENTS
+
+}
@@ -5,13 +5,20 @@
  */
 package com.opengamma.engine.view.client.merging;
 
+import java.util.ArrayList;
 import java.util.LinkedList;
 import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
 import javax.time.Instant;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.base.Function;
 import com.opengamma.engine.view.ViewComputationResultModel;
 import com.opengamma.engine.view.ViewDeltaResultModel;
@@ -31,18 +38,45 @@ import com.opengamma.engine.view.listener.ViewDefinitionCompiledCall;
 import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.livedata.UserPrincipal;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.MetricRegistry;
+import com.opengamma.util.monitor.StripedCounter;
+import com.opengamma.util.monitor.TimingHistogram;
 
 /**
  * Collects and merges view process updates, releasing them only when {@code drain()} is called.
  * Also ensures that different update types are passed to the underlying listener
  * in the correct order when drained.
+ * <p>
+ * Updates are always delivered to the underlying listener by a task on the delivery executor, never on the thread
+ * supplying them, and without holding the lock under which they are merged. So a slow listener never blocks the view
+ * process. At most one delivery task runs for each listener, so the calls are delivered in order; calls arriving while
+ * one is in progress wait in this listener's queue, merged according to the {@link BackPressurePolicy} so that the queue
+ * holds at most the latest result, and are delivered once the listener has caught up.
+ * <p>
+ * The delivery lag and duration, and the numbers of results merged and fragments dropped, are published to the default
+ * {@link MetricRegistry} for all listeners together. The values for a single listener are available from its getters.
  */
 public class MergingViewProcessListener implements ViewResultListener {
   
+  private static final Logger s_logger = LoggerFactory.getLogger(MergingViewProcessListener.class);
+
+  private static final TimingHistogram s_deliveryLag = MetricRegistry.getDefault().histogram("engine.viewclient.delivery.lag");
+  private static final TimingHistogram s_deliveryDuration = MetricRegistry.getDefault().histogram("engine.viewclient.delivery.duration");
+  private static final StripedCounter s_mergedResults = MetricRegistry.getDefault().counter("engine.viewclient.delivery.merged");
+  private static final StripedCounter s_droppedFragments = MetricRegistry.getDefault().counter("engine.viewclient.delivery.droppedFragments");
+
   private final ReentrantLock _mergerLock = new ReentrantLock();
   private final ViewResultListener _underlying;
+  private final Executor _deliveryExecutor;
+  private final Runnable _deliveryTask = new Runnable() {
+    @Override
+    public void run() {
+      deliver();
+    }
+  };
   
   private boolean _isPassThrough = true;
+  private BackPressurePolicy _backPressurePolicy = BackPressurePolicy.MERGE_DELTAS;
   private boolean _isLatestResultCycleRetained;
   private EngineResourceRetainer _cycleRetainer;
   
@@ -57,11 +91,30 @@ public class MergingViewProcessListener implements ViewResultListener {
   private int _latestCycleStartedIndex = -1;
   private int _cycleCompletedIndex = -1;
   private int _cycleFragmentCompletedIndex = -1;
+
+  // Delivery state and statistics, guarded by the merger lock
+  private boolean _isDelivering;
+  private long _pendingSinceMillis;
+  private long _deliveringSinceMillis;
+  private long _lastDeliveryDurationMillis;
+  private long _mergedResultCount;
+  private long _droppedFragmentCount;
   
-  public MergingViewProcessListener(ViewResultListener underlying, EngineResourceManagerInternal<?> cycleManager) {
+  /**
+   * Creates an instance.
+   * 
+   * @param underlying  the listener to deliver the updates to, not null
+   * @param cycleManager  the cycle manager, for retaining the cycle of the latest result
+   * @param deliveryExecutor  the executor on which updates are delivered to the underlying listener, not null. This may be
+   *                          shared between listeners, but should not have a fixed number of threads as a slow listener
+   *                          occupies one until it has caught up
+   */
+  public MergingViewProcessListener(ViewResultListener underlying, EngineResourceManagerInternal<?> cycleManager, Executor deliveryExecutor) {
     ArgumentChecker.notNull(underlying, "underlying");
+    ArgumentChecker.notNull(deliveryExecutor, "deliveryExecutor");
     _underlying = underlying;
     _cycleRetainer = new EngineResourceRetainer(cycleManager);
+    _deliveryExecutor = deliveryExecutor;
   }
   
   //-------------------------------------------------------------------------
@@ -92,13 +145,13 @@ public class MergingViewProcessListener implements ViewResultListener {
     _mergerLock.lock();
     try {
       _isPassThrough = passThrough;
-      if (passThrough) {
-        // Release anything that's been merged while it hasn't been passing updates straight through
-        drain();
-      }
     } finally {
       _mergerLock.unlock();
     }
+    if (passThrough) {
+      // Release anything that's been merged while it hasn't been passing updates straight through
+      drain();
+    }
   }
   
   /**
@@ -110,6 +163,107 @@ public class MergingViewProcessListener implements ViewResultListener {
     return _lastUpdateMillis.get();
   }
   
+  //-------------------------------------------------------------------------
+  public BackPressurePolicy getBackPressurePolicy() {
+    _mergerLock.lock();
+    try {
+      return _backPressurePolicy;
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
+  /**
+   * Sets how results arriving while earlier ones are waiting to be delivered are held.
+   * 
+   * @param backPressurePolicy  the policy, not null
+   */
+  public void setBackPressurePolicy(BackPressurePolicy backPressurePolicy) {
+    ArgumentChecker.notNull(backPressurePolicy, "backPressurePolicy");
+    _mergerLock.lock();
+    try {
+      _backPressurePolicy = backPressurePolicy;
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Gets the number of calls waiting to be delivered to the underlying listener, excluding any being delivered.
+   * 
+   * @return the number of calls queued
+   */
+  public int getPendingCallCount() {
+    _mergerLock.lock();
+    try {
+      return _callQueue.size();
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
+  /**
+   * Gets how far the underlying listener is behind: the time since the oldest update not yet delivered to it was
+   * received, including any update being delivered.
+   * 
+   * @return the lag, in milliseconds, or 0 if the listener is up to date
+   */
+  public long getDeliveryLagMillis() {
+    _mergerLock.lock();
+    try {
+      long since = _deliveringSinceMillis;
+      if ((since == 0) || ((_pendingSinceMillis != 0) && (_pendingSinceMillis < since))) {
+        since = _pendingSinceMillis;
+      }
+      return (since == 0) ? 0 : Math.max(0, System.currentTimeMillis() - since);
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the time taken by the underlying listener to consume the last batch of updates delivered to it.
+   * 
+   * @return the duration of the last delivery, in milliseconds
+   */
+  public long getLastDeliveryDurationMillis() {
+    _mergerLock.lock();
+    try {
+      return _lastDeliveryDurationMillis;
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of results merged into, or conflated with, a result already waiting to be delivered.
+   * 
+   * @return the number of results merged
+   */
+  public long getMergedResultCount() {
+    _mergerLock.lock();
+    try {
+      return _mergedResultCount;
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
+  /**
+   * Gets the number of fragments dropped under {@link BackPressurePolicy#DROP_FRAGMENTS}.
+   * 
+   * @return the number of fragments dropped
+   */
+  public long getDroppedFragmentCount() {
+    _mergerLock.lock();
+    try {
+      return _droppedFragmentCount;
+    } finally {
+      _mergerLock.unlock();
+    }
+  }
+
   //-------------------------------------------------------------------------
   public boolean isLatestResultCycleRetained() {
     return _isLatestResultCycleRetained;
@@ -135,154 +289,186 @@ public class MergingViewProcessListener implements ViewResultListener {
 
   @Override
   public void viewDefinitionCompiled(CompiledViewDefinition compiledViewDefinition, boolean hasMarketDataPermissions) {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().viewDefinitionCompiled(compiledViewDefinition, hasMarketDataPermissions);
-      } else {
-        _callQueue.add(new ViewDefinitionCompiledCall(compiledViewDefinition, hasMarketDataPermissions));
-      }
+      queueCall(new ViewDefinitionCompiledCall(compiledViewDefinition, hasMarketDataPermissions));
       _lastUpdateMillis.set(System.currentTimeMillis());
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
   
   @Override
   public void viewDefinitionCompilationFailed(Instant valuationTime, Exception exception) {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().viewDefinitionCompilationFailed(valuationTime, exception);
-      } else {
-        _callQueue.add(new ViewDefinitionCompilationFailedCall(valuationTime, exception));
-      }
+      queueCall(new ViewDefinitionCompilationFailedCall(valuationTime, exception));
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
   
   @Override
   public void cycleStarted(ViewCycleMetadata cycleMetadata) {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().cycleStarted(cycleMetadata);
-      } else {
-        _previousCycleStartedIndex = _latestCycleStartedIndex;
-        _latestCycleStartedIndex = _callQueue.size();
-        _callQueue.add(new CycleStartedCall(cycleMetadata));
-      }
+      _previousCycleStartedIndex = _latestCycleStartedIndex;
+      _latestCycleStartedIndex = _callQueue.size();
+      queueCall(new CycleStartedCall(cycleMetadata));
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
 
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+    boolean deliver;
     _mergerLock.lock();
     try {
       if (isLatestResultCycleRetained() && fullResult != null) {
         getCycleRetainer().replaceRetainedCycle(fullResult.getViewCycleId());
       }
-      if (isPassThrough()) {
-        getUnderlying().cycleCompleted(fullResult, deltaResult);
-      } else {
-        
-        // Result merging is the most complicated. It is based on the following rules:
-        //  - only one result call in the queue, kept up-to-date by merging new result calls into it 
-        //  - the updated result call is repositioned to the end of the queue
-        
-        // Result collapsing
-        if (_cycleCompletedIndex != -1) {
-          // There's an old cycle completed call in the queue - find it and move to end
-          CycleCompletedCall cycleCompletedCall = pullCallToEnd(_cycleCompletedIndex);
-          // Merge new cycle completed call into old one
-          cycleCompletedCall.update(fullResult, deltaResult);
-        } else {
-          // No existing cycle completed call - add new one
-          CycleCompletedCall cycleCompletedCall = new CycleCompletedCall(fullResult, deltaResult);
-          _cycleCompletedIndex = _callQueue.size();
-          _callQueue.add(cycleCompletedCall);
-        }
         
-        // Only keep the cycle started call for the latest complete result
-        if (_previousCycleStartedIndex != -1) {
-          removeCall(_previousCycleStartedIndex);
-        }
+      // Result merging is the most complicated. It is based on the following rules:
+      //  - only one result call in the queue, kept up-to-date by merging new result calls into it 
+      //  - the updated result call is repositioned to the end of the queue
+      
+      // Result collapsing
+      if (_cycleCompletedIndex != -1) {
+        // There's an old cycle completed call in the queue - find it and move to end
+        pullCallToEnd(_cycleCompletedIndex);
+        // Merge new cycle completed call into old one; whatever the policy, the deltas are merged so that a delta client misses no changes
+        CycleCompletedCall cycleCompletedCall = (CycleCompletedCall) _callQueue.get(_cycleCompletedIndex);
+        cycleCompletedCall.update(fullResult, deltaResult);
+        _mergedResultCount++;
+        s_mergedResults.increment();
+      } else {
+        // No existing cycle completed call - add new one
+        CycleCompletedCall cycleCompletedCall = new CycleCompletedCall(fullResult, deltaResult);
+        _cycleCompletedIndex = _callQueue.size();
+        queueCall(cycleCompletedCall);
+      }
+      
+      // Only keep the cycle started call for the latest complete result
+      if (_previousCycleStartedIndex != -1) {
+        removeCall(_previousCycleStartedIndex);
+      }
+
+      // The full result supersedes any fragments still waiting
+      if ((_backPressurePolicy == BackPressurePolicy.DROP_FRAGMENTS) && (_cycleFragmentCompletedIndex != -1)) {
+        removeCall(_cycleFragmentCompletedIndex);
+        _droppedFragmentCount++;
+        s_droppedFragments.increment();
       }
       _lastUpdateMillis.set(System.currentTimeMillis());
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
   
   @Override
   public void cycleFragmentCompleted(ViewComputationResultModel fullFragment, ViewDeltaResultModel deltaFragment) {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().cycleFragmentCompleted(fullFragment, deltaFragment);
-      } else {
-        if (_cycleFragmentCompletedIndex != -1) {
-          // There's an old fragment completed call in the queue - find it and move to end
-          CycleFragmentCompletedCall cycleFragmentCompletedCall = pullCallToEnd(_cycleFragmentCompletedIndex);
+      if ((_backPressurePolicy == BackPressurePolicy.DROP_FRAGMENTS) && _isDelivering) {
+        // The listener is still consuming earlier updates
+        _droppedFragmentCount++;
+        s_droppedFragments.increment();
+        return;
+      }
+      if (_cycleFragmentCompletedIndex != -1) {
+        // There's an old fragment completed call in the queue - find it and move to end
+        pullCallToEnd(_cycleFragmentCompletedIndex);
+        if (_backPressurePolicy == BackPressurePolicy.CONFLATE) {
+          // Replace the old fragment completed call
+          _callQueue.set(_cycleFragmentCompletedIndex, new CycleFragmentCompletedCall(fullFragment, deltaFragment));
+        } else {
           // Merge new fragment completed call into old one
+          CycleFragmentCompletedCall cycleFragmentCompletedCall = (CycleFragmentCompletedCall) _callQueue.get(_cycleFragmentCompletedIndex);
           cycleFragmentCompletedCall.update(fullFragment, deltaFragment);
-        } else {
-          // No existing fragment completed call - add new one
-          CycleFragmentCompletedCall cycleFragmentCompletedCall = new CycleFragmentCompletedCall(fullFragment, deltaFragment);
-          _cycleFragmentCompletedIndex = _callQueue.size();
-          _callQueue.add(cycleFragmentCompletedCall);
         }
+        _mergedResultCount++;
+        s_mergedResults.increment();
+      } else {
+        // No existing fragment completed call - add new one
+        CycleFragmentCompletedCall cycleFragmentCompletedCall = new CycleFragmentCompletedCall(fullFragment, deltaFragment);
+        _cycleFragmentCompletedIndex = _callQueue.size();
+        queueCall(cycleFragmentCompletedCall);
       }
       _lastUpdateMillis.set(System.currentTimeMillis());
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
 
   @Override
   public void cycleExecutionFailed(ViewCycleExecutionOptions executionOptions, Exception exception) {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().cycleExecutionFailed(executionOptions, exception);
-      } else {
-        _callQueue.add(new CycleExecutionFailedCall(executionOptions, exception));
-      }
+      queueCall(new CycleExecutionFailedCall(executionOptions, exception));
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
 
   @Override
   public void processCompleted() {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().processCompleted();
-      } else {
-        _callQueue.add(new ProcessCompletedCall());
-      }
+      queueCall(new ProcessCompletedCall());
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
 
   @Override
   public void processTerminated(boolean executionInterrupted) {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      if (isPassThrough()) {
-        getUnderlying().processTerminated(executionInterrupted);
-      } else {
-        _callQueue.add(new ProcessTerminatedCall(executionInterrupted));
-      }
+      queueCall(new ProcessTerminatedCall(executionInterrupted));
       getCycleRetainer().replaceRetainedCycle(null);
+      deliver = beginPassThroughDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
   
   @Override
@@ -291,20 +477,22 @@ public class MergingViewProcessListener implements ViewResultListener {
   }
   
   //-------------------------------------------------------------------------
+  /**
+   * Releases the merged updates for delivery to the underlying listener. If a delivery is already in progress then
+   * this does nothing; the updates are delivered by a later drain, or once the delivery in progress has finished if
+   * updates are passing straight through.
+   */
   public void drain() {
+    boolean deliver;
     _mergerLock.lock();
     try {
-      for (Function<ViewResultListener, ?> call : _callQueue) {
-        call.apply(getUnderlying());
-      }
-      _callQueue.clear();
-      _previousCycleStartedIndex = -1;
-      _latestCycleStartedIndex = -1;
-      _cycleCompletedIndex = -1;
-      _cycleFragmentCompletedIndex = -1;
+      deliver = beginDelivery();
     } finally {
       _mergerLock.unlock();
     }
+    if (deliver) {
+      submitDelivery();
+    }
   }
   
   /**
@@ -318,6 +506,7 @@ public class MergingViewProcessListener implements ViewResultListener {
       _latestCycleStartedIndex = -1;
       _cycleCompletedIndex = -1;
       _cycleFragmentCompletedIndex = -1;
+      _pendingSinceMillis = 0;
       getCycleRetainer().replaceRetainedCycle(null);
     } finally {
       _mergerLock.unlock();
@@ -325,23 +514,122 @@ public class MergingViewProcessListener implements ViewResultListener {
   }
   
   //-------------------------------------------------------------------------
-  @SuppressWarnings("unchecked")
-  private <T extends Function<ViewResultListener, ?>> T pullCallToEnd(int fromIndex) {
+  /**
+   * Marks a delivery as in progress if there are calls to deliver and no delivery is already in progress. The caller
+   * must hold the merger lock, and must submit the delivery task if this returns true.
+   */
+  private boolean beginDelivery() {
+    if (_isDelivering || _callQueue.isEmpty()) {
+      return false;
+    }
+    _isDelivering = true;
+    return true;
+  }
+
+  /**
+   * As {@link #beginDelivery}, but only if updates are passing straight through.
+   */
+  private boolean beginPassThroughDelivery() {
+    return _isPassThrough && beginDelivery();
+  }
+
+  private void submitDelivery() {
+    try {
+      _deliveryExecutor.execute(_deliveryTask);
+    } catch (RejectedExecutionException e) {
+      s_logger.error("Couldn't deliver updates to " + getUnderlying(), e);
+      _mergerLock.lock();
+      try {
+        _isDelivering = false;
+      } finally {
+        _mergerLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Delivers the queued calls to the underlying listener, followed by any queued while doing so if updates are passing
+   * straight through. This is the delivery task, which is only submitted once a delivery has been marked in progress.
+   */
+  private void deliver() {
+    while (true) {
+      final List<Function<ViewResultListener, ?>> calls;
+      _mergerLock.lock();
+      try {
+        if (_callQueue.isEmpty()) {
+          // Reset since the delivery was submitted
+          _isDelivering = false;
+          return;
+        }
+        calls = takeCalls();
+      } finally {
+        _mergerLock.unlock();
+      }
+      final long startNanos = System.nanoTime();
+      for (Function<ViewResultListener, ?> call : calls) {
+        try {
+          call.apply(getUnderlying());
+        } catch (RuntimeException e) {
+          s_logger.error("Error delivering update to " + getUnderlying(), e);
+        }
+      }
+      s_deliveryDuration.recordSince(startNanos);
+      _mergerLock.lock();
+      try {
+        _lastDeliveryDurationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startNanos);
+        _deliveringSinceMillis = 0;
+        if (!_isPassThrough || _callQueue.isEmpty()) {
+          _isDelivering = false;
+          return;
+        }
+      } finally {
+        _mergerLock.unlock();
+      }
+    }
+  }
+
+  /**
+   * Removes all calls from the queue for delivery, noting when the oldest of them was received. The caller must hold
+   * the merger lock.
+   */
+  private List<Function<ViewResultListener, ?>> takeCalls() {
+    final List<Function<ViewResultListener, ?>> calls = new ArrayList<Function<ViewResultListener, ?>>(_callQueue);
+    _callQueue.clear();
+    _previousCycleStartedIndex = -1;
+    _latestCycleStartedIndex = -1;
+    _cycleCompletedIndex = -1;
+    _cycleFragmentCompletedIndex = -1;
+    final long now = System.currentTimeMillis();
+    _deliveringSinceMillis = (_pendingSinceMillis != 0) ? _pendingSinceMillis : now;
+    _pendingSinceMillis = 0;
+    s_deliveryLag.record(TimeUnit.MILLISECONDS.toNanos(now - _deliveringSinceMillis));
+    return calls;
+  }
+  private void queueCall(Function<ViewResultListener, ?> call) {
+    if (_callQueue.isEmpty()) {
+      _pendingSinceMillis = System.currentTimeMillis();
+    }
+    _callQueue.add(call);
+  }
+
+  private void pullCallToEnd(int fromIndex) {
     int lastIndex = _callQueue.size() - 1;
     if (fromIndex == lastIndex) {
       // Call is already at end of queue
-      return (T) _callQueue.get(lastIndex);
+      return;
     }
     // Call is elsewhere in queue - pull to end and update indices
-    T call = (T) _callQueue.remove(fromIndex);
+    Function<ViewResultListener, ?> call = _callQueue.remove(fromIndex);
     _callQueue.add(call);
     adjustIndices(fromIndex, lastIndex);
-    return call;
   }
   
   private void removeCall(int fromIndex) {
     _callQueue.remove(fromIndex);
     adjustIndices(fromIndex, -1);
+    if (_callQueue.isEmpty()) {
+      _pendingSinceMillis = 0;
+    }
   }
   
   private void adjustIndices(int fromIndex, int newIndex) {
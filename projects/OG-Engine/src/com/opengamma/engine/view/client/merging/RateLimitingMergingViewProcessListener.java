@@ -5,8 +5,10 @@
  */
 package com.opengamma.engine.view.client.merging;
 
-import java.util.Timer;
-import java.util.TimerTask;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.locks.ReentrantLock;
 
@@ -17,14 +19,18 @@ import com.opengamma.util.ArgumentChecker;
 /**
  * Merges view process results to satisfy a specified maximum downstream update rate (given in terms of a minimum
  * period between updates). This maximum rate can be adjusted on-the-fly.
+ * <p>
+ * Updates are released by a task on a scheduler shared between listeners. The task only hands the merged updates to
+ * the delivery executor, so a slow listener holds up neither the scheduler nor the other listeners. A listener still
+ * consuming its previous update when the task next runs is skipped, its updates continuing to merge.
  */
 public class RateLimitingMergingViewProcessListener extends MergingViewProcessListener {
 
   private static final long MIN_PERIOD = 50;
   
-  private final Timer _timer;
+  private final ScheduledExecutorService _scheduler;
   private ReentrantLock _taskSetupLock = new ReentrantLock();
-  private TimerTask _asyncUpdateCheckerTask;
+  private ScheduledFuture<?> _asyncUpdateCheckerTask;
   
   private boolean _isPaused;
   
@@ -35,10 +41,19 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
    */
   private AtomicLong _lastUpdateTimeMillis = new AtomicLong();
   
-  public RateLimitingMergingViewProcessListener(ViewResultListener underlying, EngineResourceManagerInternal<?> cycleManager, Timer timer) {
-    super(underlying, cycleManager);
-    ArgumentChecker.notNull(timer, "timer");
-    _timer = timer;
+  /**
+   * Creates an instance.
+   * 
+   * @param underlying  the listener to deliver the updates to, not null
+   * @param cycleManager  the cycle manager, for retaining the cycle of the latest result
+   * @param scheduler  the scheduler on which updates are released at the update rate, not null
+   * @param deliveryExecutor  the executor on which updates are delivered to the underlying listener, not null
+   */
+  public RateLimitingMergingViewProcessListener(ViewResultListener underlying, EngineResourceManagerInternal<?> cycleManager, ScheduledExecutorService scheduler,
+      Executor deliveryExecutor) {
+    super(underlying, cycleManager, deliveryExecutor);
+    ArgumentChecker.notNull(scheduler, "scheduler");
+    _scheduler = scheduler;
   }
   
   public void terminate() {
@@ -93,7 +108,7 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
    * 
    * @param minimumUpdatePeriodMillis  the minimum period which must have elapsed since the last update before an
    *                                   update is triggered, in milliseconds. If 0, updates will be passed to listeners
-   *                                   immediately and synchronously (unless paused).
+   *                                   immediately (unless paused).
    */
   public void setMinimumUpdatePeriodMillis(long minimumUpdatePeriodMillis) {
     _taskSetupLock.lock();
@@ -142,19 +157,18 @@ public class RateLimitingMergingViewProcessListener extends MergingViewProcessLi
     cancelTimerTask();
     setPassThrough(minimumUpdatePeriodMillis == 0 && !isPaused());
     if (!isPaused() && !isPassThrough()) {
-      _asyncUpdateCheckerTask = new TimerTask() {
+      _asyncUpdateCheckerTask = _scheduler.scheduleWithFixedDelay(new Runnable() {
         @Override
         public void run() {
           drainIfRequired();
         }
-      };
-      _timer.schedule(_asyncUpdateCheckerTask, minimumUpdatePeriodMillis, minimumUpdatePeriodMillis);
+      }, minimumUpdatePeriodMillis, minimumUpdatePeriodMillis, TimeUnit.MILLISECONDS);
     } 
   }
 
   private void cancelTimerTask() {
     if (_asyncUpdateCheckerTask != null) {
-      _asyncUpdateCheckerTask.cancel();
+      _asyncUpdateCheckerTask.cancel(false);
       _asyncUpdateCheckerTask = null;
     }
   }
@@ -0,0 +1,209 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.Trade;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Supports recompilation of a view after a change to its portfolio by reusing the parts of the previously compiled
+ * dependency graphs that are unaffected by the change.
+ * <p>
+ * A portfolio target is considered changed if it no longer exists in the new portfolio structure. A portfolio node is
+ * also considered changed if its immediate children differ, or any of its descendants have changed, as aggregate values
+ * at the node will be affected. Any node in a previous graph for a changed target, and any node that consumes a value
+ * from such a node, is discarded. The remainder of the graph is copied and used to initialize the graph builder.
+ */
+public final class IncrementalPortfolioCompiler {
+
+  private IncrementalPortfolioCompiler() {
+  }
+
+  /**
+   * Gathers the identifiers of all nodes, positions and trades in a portfolio.
+   *
+   * @param portfolio the portfolio, not null
+   * @return the target identifiers, not null
+   */
+  public static Set<UniqueId> getTargets(final Portfolio portfolio) {
+    ArgumentChecker.notNull(portfolio, "portfolio");
+    final Set<UniqueId> targets = new HashSet<UniqueId>();
+    gatherTargets(portfolio.getRootNode(), targets);
+    return targets;
+  }
+
+  private static void gatherTargets(final PortfolioNode node, final Set<UniqueId> targets) {
+    targets.add(node.getUniqueId());
+    for (Position position : node.getPositions()) {
+      targets.add(position.getUniqueId());
+      for (Trade trade : position.getTrades()) {
+        targets.add(trade.getUniqueId());
+      }
+    }
+    for (PortfolioNode child : node.getChildNodes()) {
+      gatherTargets(child, targets);
+    }
+  }
+
+  private static void gatherNodes(final PortfolioNode node, final Map<UniqueId, PortfolioNode> nodes) {
+    nodes.put(node.getUniqueId(), node);
+    for (PortfolioNode child : node.getChildNodes()) {
+      gatherNodes(child, nodes);
+    }
+  }
+
+  private static Set<UniqueId> getPositionIdentifiers(final PortfolioNode node) {
+    final Set<UniqueId> identifiers = new HashSet<UniqueId>();
+    for (Position position : node.getPositions()) {
+      identifiers.add(position.getUniqueId());
+    }
+    return identifiers;
+  }
+
+  private static Set<UniqueId> getChildNodeIdentifiers(final PortfolioNode node) {
+    final Set<UniqueId> identifiers = new HashSet<UniqueId>();
+    for (PortfolioNode child : node.getChildNodes()) {
+      identifiers.add(child.getUniqueId());
+    }
+    return identifiers;
+  }
+
+  private static boolean findChangedTargets(final PortfolioNode previousNode, final Map<UniqueId, PortfolioNode> currentNodes, final Set<UniqueId> currentTargets,
+      final Set<UniqueId> changed) {
+    boolean nodeChanged = false;
+    for (PortfolioNode child : previousNode.getChildNodes()) {
+      // Visit every child, rather than stopping at the first change, so that all changed descendants are found
+      nodeChanged |= findChangedTargets(child, currentNodes, currentTargets, changed);
+    }
+    for (Position position : previousNode.getPositions()) {
+      if (!currentTargets.contains(position.getUniqueId())) {
+        changed.add(position.getUniqueId());
+        nodeChanged = true;
+      }
+      for (Trade trade : position.getTrades()) {
+        if (!currentTargets.contains(trade.getUniqueId())) {
+          changed.add(trade.getUniqueId());
+          nodeChanged = true;
+        }
+      }
+    }
+    if (!nodeChanged) {
+      final PortfolioNode currentNode = currentNodes.get(previousNode.getUniqueId());
+      nodeChanged = (currentNode == null)
+          || !getChildNodeIdentifiers(previousNode).equals(getChildNodeIdentifiers(currentNode))
+          || !getPositionIdentifiers(previousNode).equals(getPositionIdentifiers(currentNode));
+    }
+    if (nodeChanged) {
+      changed.add(previousNode.getUniqueId());
+    }
+    return nodeChanged;
+  }
+
+  /**
+   * Identifies the targets from a previous portfolio structure that are not valid for the current structure. Any
+   * dependency graph nodes for these targets must be rebuilt.
+   *
+   * @param previous the portfolio structure used for the previous compilation, not null
+   * @param current the current portfolio structure, not null
+   * @return the identifiers of the changed targets, not null
+   */
+  public static Set<UniqueId> getChangedTargets(final Portfolio previous, final Portfolio current) {
+    ArgumentChecker.notNull(previous, "previous");
+    ArgumentChecker.notNull(current, "current");
+    final Map<UniqueId, PortfolioNode> currentNodes = new HashMap<UniqueId, PortfolioNode>();
+    gatherNodes(current.getRootNode(), currentNodes);
+    final Set<UniqueId> changed = new HashSet<UniqueId>();
+    findChangedTargets(previous.getRootNode(), currentNodes, getTargets(current), changed);
+    return changed;
+  }
+
+  /**
+   * Creates a copy of a graph without the nodes for changed targets or any nodes that depend on them. Terminal outputs
+   * are preserved for the requirements on unchanged targets. The original graph is not modified.
+   *
+   * @param previous the previously compiled graph, not null
+   * @param changedTargets the targets which are no longer valid, not null
+   * @return the pruned copy of the graph, not null
+   */
+  public static DependencyGraph prune(final DependencyGraph previous, final Set<UniqueId> changedTargets) {
+    ArgumentChecker.notNull(previous, "previous");
+    ArgumentChecker.notNull(changedTargets, "changedTargets");
+    final Set<DependencyNode> invalid = new HashSet<DependencyNode>();
+    final Queue<DependencyNode> pending = new LinkedList<DependencyNode>();
+    for (DependencyNode node : previous.getDependencyNodes()) {
+      if (changedTargets.contains(node.getComputationTarget().getUniqueId())) {
+        pending.add(node);
+      }
+    }
+    DependencyNode node = pending.poll();
+    while (node != null) {
+      if (invalid.add(node)) {
+        for (DependencyNode dependent : node.getDependentNodes()) {
+          if (previous.containsNode(dependent)) {
+            pending.add(dependent);
+          }
+        }
+      }
+      node = pending.poll();
+    }
+    final Map<DependencyNode, DependencyNode> copies = new HashMap<DependencyNode, DependencyNode>();
+    for (DependencyNode original : previous.getDependencyNodes()) {
+      if (!invalid.contains(original)) {
+        final DependencyNode copy = new DependencyNode(original.getComputationTarget());
+        copy.setFunction(original.getFunction());
+        copy.addOutputValues(original.getOutputValues());
+        for (ValueSpecification input : original.getInputValues()) {
+          copy.addInputValue(input);
+        }
+        copies.put(original, copy);
+      }
+    }
+    final DependencyGraph graph = new DependencyGraph(previous.getCalculationConfigurationName());
+    for (Map.Entry<DependencyNode, DependencyNode> copy : copies.entrySet()) {
+      for (DependencyNode input : copy.getKey().getInputNodes()) {
+        // Inputs of a surviving node must have survived
+        copy.getValue().addInputNode(copies.get(input));
+      }
+    }
+    for (DependencyNode copy : copies.values()) {
+      graph.addDependencyNode(copy);
+    }
+    final Map<ValueSpecification, Set<ValueRequirement>> terminalOutputs = new HashMap<ValueSpecification, Set<ValueRequirement>>();
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> terminalOutput : previous.getTerminalOutputs().entrySet()) {
+      if ((terminalOutput.getValue() == null) || (graph.getNodeProducing(terminalOutput.getKey()) == null)) {
+        continue;
+      }
+      final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
+      for (ValueRequirement requirement : terminalOutput.getValue()) {
+        if (!changedTargets.contains(requirement.getTargetSpecification().getUniqueId())) {
+          requirements.add(requirement);
+        }
+      }
+      if (!requirements.isEmpty()) {
+        terminalOutputs.put(terminalOutput.getKey(), requirements);
+      }
+    }
+    graph.addTerminalOutputs(terminalOutputs);
+    graph.removeUnnecessaryValues();
+    return graph;
+  }
+
+}
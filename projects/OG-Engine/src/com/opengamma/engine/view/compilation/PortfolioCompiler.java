@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.view.compilation;
 
+import java.util.Set;
 import java.util.concurrent.ExecutorService;
 
 import com.opengamma.DataNotFoundException;
@@ -66,23 +67,44 @@ public final class PortfolioCompiler {
         portfolio = getPortfolio(compilationContext, versionCorrection);
       }
       
-      // Add portfolio requirements to the dependency graph
-      final DependencyGraphBuilder builder = compilationContext.getBuilder(calcConfig.getName());
-      final PortfolioCompilerTraversalCallback traversalCallback = new PortfolioCompilerTraversalCallback(calcConfig, builder);
-      PortfolioNodeTraverser.parallel(traversalCallback, compilationContext.getServices().getExecutorService()).traverse(portfolio.getRootNode());
-
-      // TODO: Use a heuristic to decide whether to let the graph builds run in parallel, or sequentially. We will force sequential builds for the time being.
-      try {
-        builder.waitForDependencyGraphBuild();
-      } catch (InterruptedException e) {
-        throw new OpenGammaRuntimeException("Interrupted", e);
-      }
-
+      addPortfolioRequirements(compilationContext, calcConfig, portfolio, null);
     }
     
     return portfolio;
   }
 
+  /**
+   * Adds portfolio targets to dependency graphs that have been initialized with the surviving parts of a previous
+   * compilation. Requirements are only added for targets which are not in the unchanged set.
+   * 
+   * @param compilationContext  the context of the view definition compilation
+   * @param portfolio  the fully-resolved portfolio structure, not null
+   * @param unchangedTargets  the portfolio targets whose requirements are already satisfied, not null
+   */
+  protected static void executeIncremental(ViewCompilationContext compilationContext, Portfolio portfolio, Set<UniqueId> unchangedTargets) {
+    for (ViewCalculationConfiguration calcConfig : compilationContext.getViewDefinition().getAllCalculationConfigurations()) {
+      if (calcConfig.getAllPortfolioRequirements().size() == 0) {
+        continue;
+      }
+      addPortfolioRequirements(compilationContext, calcConfig, portfolio, unchangedTargets);
+    }
+  }
+
+  private static void addPortfolioRequirements(ViewCompilationContext compilationContext, ViewCalculationConfiguration calcConfig, Portfolio portfolio,
+      Set<UniqueId> unchangedTargets) {
+    // Add portfolio requirements to the dependency graph
+    final DependencyGraphBuilder builder = compilationContext.getBuilder(calcConfig.getName());
+    final PortfolioCompilerTraversalCallback traversalCallback = new PortfolioCompilerTraversalCallback(calcConfig, builder, unchangedTargets);
+    PortfolioNodeTraverser.parallel(traversalCallback, compilationContext.getServices().getExecutorService()).traverse(portfolio.getRootNode());
+
+    // TODO: Use a heuristic to decide whether to let the graph builds run in parallel, or sequentially. We will force sequential builds for the time being.
+    try {
+      builder.waitForDependencyGraphBuild();
+    } catch (InterruptedException e) {
+      throw new OpenGammaRuntimeException("Interrupted", e);
+    }
+  }
+
   /**
    * Tests whether the view has portfolio outputs enabled.
    * 
@@ -102,7 +124,7 @@ public final class PortfolioCompiler {
    * @param compilationContext  the compilation context containing the view being compiled, not null
    * @param versionCorrection  the version-correction at which the portfolio is required, not null
    */
-  private static Portfolio getPortfolio(ViewCompilationContext compilationContext, VersionCorrection versionCorrection) {
+  /* package */static Portfolio getPortfolio(ViewCompilationContext compilationContext, VersionCorrection versionCorrection) {
     UniqueId portfolioId = compilationContext.getViewDefinition().getPortfolioId();
     if (portfolioId == null) {
       throw new OpenGammaRuntimeException("The view definition '" + compilationContext.getViewDefinition().getName() + "' contains required portfolio outputs, but it does not reference a portfolio.");
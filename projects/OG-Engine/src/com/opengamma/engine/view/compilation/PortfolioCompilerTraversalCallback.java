@@ -36,14 +36,30 @@ import com.opengamma.util.tuple.Pair;
   private final ResultModelDefinition _resultModelDefinition;
   private final ConcurrentMap<UniqueId, Set<Pair<String, ValueProperties>>> _nodeRequirements = new ConcurrentHashMap<UniqueId, Set<Pair<String, ValueProperties>>>();
   private final DependencyGraphBuilder _builder;
+  private final Set<UniqueId> _unchangedTargets;
 
   public PortfolioCompilerTraversalCallback(final ViewCalculationConfiguration calculationConfiguration, final DependencyGraphBuilder builder) {
+    this(calculationConfiguration, builder, null);
+  }
+
+  /**
+   * Creates a callback which only adds requirements for targets that have changed since a previous compilation.
+   * 
+   * @param calculationConfiguration the calculation configuration, not null
+   * @param builder the builder to add requirements to, not null
+   * @param unchangedTargets the targets already satisfied by the graph being built, null to add requirements for all targets
+   */
+  public PortfolioCompilerTraversalCallback(final ViewCalculationConfiguration calculationConfiguration, final DependencyGraphBuilder builder, final Set<UniqueId> unchangedTargets) {
     _calculationConfiguration = calculationConfiguration;
     _resultModelDefinition = calculationConfiguration.getViewDefinition().getResultModelDefinition();
     _builder = builder;
+    _unchangedTargets = unchangedTargets;
   }
 
   protected void addValueRequirement(final ValueRequirement valueRequirement) {
+    if ((_unchangedTargets != null) && _unchangedTargets.contains(valueRequirement.getTargetSpecification().getUniqueId())) {
+      return;
+    }
     _builder.addTarget(valueRequirement);
   }
 
@@ -39,6 +39,7 @@ public class ViewCompilationContext {
       final DependencyGraphBuilder builder = compilationServices.getDependencyGraphBuilder().newInstance();
       builder.setCalculationConfigurationName(configName);
       builder.setMarketDataAvailabilityProvider(compilationServices.getMarketDataAvailabilityProvider());
+      builder.setMarketDataAvailabilityVersion(compilationServices.getMarketDataAvailabilityVersion());
       final FunctionCompilationContext compilationContext = compilationServices.getFunctionCompilationContext().clone();
       final ViewCalculationConfiguration calcConfig = viewDefinition.getCalculationConfiguration(configName);
       compilationContext.setViewCalculationConfiguration(calcConfig);
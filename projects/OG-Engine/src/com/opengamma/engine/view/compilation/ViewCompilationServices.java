@@ -5,6 +5,7 @@
  */
 package com.opengamma.engine.view.compilation;
 
+import java.io.Serializable;
 import java.util.concurrent.ExecutorService;
 
 import com.opengamma.engine.ComputationTargetResolver;
@@ -28,6 +29,7 @@ public class ViewCompilationServices {
   private final FunctionCompilationContext _compilationContext;
   private final ComputationTargetResolver _computationTargetResolver;
   private final DependencyGraphBuilderFactory _dependencyGraphBuilder;
+  private final Serializable _marketDataAvailabilityVersion;
 
   /**
    * Constructs an instance
@@ -46,6 +48,28 @@ public class ViewCompilationServices {
       ComputationTargetResolver computationTargetResolver,
       ExecutorService executorService,
       DependencyGraphBuilderFactory dependencyGraphBuilder) {
+    this(marketDataAvailabilityProvider, null, functionResolver, compilationContext, computationTargetResolver, executorService, dependencyGraphBuilder);
+  }
+
+  /**
+   * Constructs an instance
+   * 
+   * @param marketDataAvailabilityProvider the market data availability provider
+   * @param marketDataAvailabilityVersion the version of the market data availability, null if none
+   * @param functionResolver the function resolver
+   * @param compilationContext the function compilation context
+   * @param computationTargetResolver the computation target resolver
+   * @param executorService the executor service
+   * @param dependencyGraphBuilder the graph building implementation
+   */
+  public ViewCompilationServices(
+      MarketDataAvailabilityProvider marketDataAvailabilityProvider,
+      Serializable marketDataAvailabilityVersion,
+      FunctionResolver functionResolver,
+      FunctionCompilationContext compilationContext,
+      ComputationTargetResolver computationTargetResolver,
+      ExecutorService executorService,
+      DependencyGraphBuilderFactory dependencyGraphBuilder) {
     ArgumentChecker.notNull(marketDataAvailabilityProvider, "marketDataAvailabilityProvider");
     ArgumentChecker.notNull(functionResolver, "functionResolver");
     ArgumentChecker.notNull(compilationContext, "compilationContext");
@@ -58,6 +82,7 @@ public class ViewCompilationServices {
     _executorService = executorService;
     _computationTargetResolver = computationTargetResolver;
     _dependencyGraphBuilder = dependencyGraphBuilder;
+    _marketDataAvailabilityVersion = marketDataAvailabilityVersion;
   }
 
   //-------------------------------------------------------------------------
@@ -70,6 +95,16 @@ public class ViewCompilationServices {
     return _marketDataAvailabilityProvider;
   }
 
+  /**
+   * Gets the version of the market data availability, identifying the availability to the dependency graph builder's
+   * resolution cache.
+   * 
+   * @return the version, null if there isn't one
+   */
+  public Serializable getMarketDataAvailabilityVersion() {
+    return _marketDataAvailabilityVersion;
+  }
+
   /**
    * Gets the function resolver.
    * 
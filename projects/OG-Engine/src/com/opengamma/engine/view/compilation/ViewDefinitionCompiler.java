@@ -9,6 +9,7 @@ import java.util.Collection;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
@@ -35,9 +36,12 @@ import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.ViewCalculationConfiguration;
 import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.id.UniqueId;
 import com.opengamma.id.VersionCorrection;
 import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.monitor.MetricRegistry;
 import com.opengamma.util.monitor.OperationTimer;
+import com.opengamma.util.monitor.TimingHistogram;
 import com.opengamma.util.tuple.Pair;
 
 /**
@@ -52,6 +56,7 @@ public final class ViewDefinitionCompiler {
   private static final boolean OUTPUT_DEPENDENCY_GRAPHS = false;
   private static final boolean OUTPUT_LIVE_DATA_REQUIREMENTS = false;
   private static final boolean OUTPUT_FAILURE_REPORTS = false;
+  private static final TimingHistogram s_graphBuildTime = MetricRegistry.getDefault().histogram("engine.graph.build");
 
   private ViewDefinitionCompiler() {
   }
@@ -115,9 +120,36 @@ public final class ViewDefinitionCompiler {
   //-------------------------------------------------------------------------
   public static Future<CompiledViewDefinitionWithGraphsImpl> compileTask(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices, final Instant valuationTime,
       final VersionCorrection versionCorrection) {
+    return compileTask(viewDefinition, compilationServices, valuationTime, versionCorrection, null);
+  }
+
+  /**
+   * Recompiles a view definition following a change to its portfolio. The parts of the previously compiled dependency graphs which are not affected by the
+   * portfolio change are reused, and only requirements on new or changed portfolio targets are resolved. If the previous compilation did not include a
+   * portfolio, a full compilation is performed.
+   * 
+   * @param viewDefinition the view definition, not null
+   * @param compilationServices the compilation services, not null
+   * @param valuationTime the valuation time
+   * @param versionCorrection the version-correction to resolve the portfolio at
+   * @param previousCompilation the previous compilation of the view definition, not null
+   * @return the compilation task, not null
+   */
+  public static Future<CompiledViewDefinitionWithGraphsImpl> incrementalCompileTask(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices,
+      final Instant valuationTime, final VersionCorrection versionCorrection, final CompiledViewDefinitionWithGraphsImpl previousCompilation) {
+    ArgumentChecker.notNull(previousCompilation, "previousCompilation");
+    if (previousCompilation.getPortfolio() == null) {
+      return compileTask(viewDefinition, compilationServices, valuationTime, versionCorrection, null);
+    }
+    return compileTask(viewDefinition, compilationServices, valuationTime, versionCorrection, previousCompilation);
+  }
+
+  private static Future<CompiledViewDefinitionWithGraphsImpl> compileTask(final ViewDefinition viewDefinition, final ViewCompilationServices compilationServices, final Instant valuationTime,
+      final VersionCorrection versionCorrection, final CompiledViewDefinitionWithGraphsImpl previousCompilation) {
     ArgumentChecker.notNull(viewDefinition, "viewDefinition");
     ArgumentChecker.notNull(compilationServices, "compilationServices");
     s_logger.debug("Compiling {} for use with {}", viewDefinition.getName(), valuationTime);
+    final long startNanos = System.nanoTime();
     final OperationTimer timer = new OperationTimer(s_logger, "Compiling ViewDefinition: {}", viewDefinition.getName());
     final ViewCompilationContext viewCompilationContext = new ViewCompilationContext(viewDefinition, compilationServices, valuationTime);
     if (s_logger.isDebugEnabled()) {
@@ -163,18 +195,41 @@ public final class ViewDefinitionCompiler {
       @Override
       public CompiledViewDefinitionWithGraphsImpl get() throws InterruptedException, ExecutionException {
         long t = -System.nanoTime();
+        Portfolio portfolio = null;
+        Set<UniqueId> unchangedTargets = null;
+        if (previousCompilation != null) {
+          portfolio = PortfolioCompiler.getPortfolio(viewCompilationContext, versionCorrection);
+          final Set<UniqueId> changedTargets = IncrementalPortfolioCompiler.getChangedTargets(previousCompilation.getPortfolio(), portfolio);
+          unchangedTargets = IncrementalPortfolioCompiler.getTargets(previousCompilation.getPortfolio());
+          unchangedTargets.removeAll(changedTargets);
+          s_logger.info("Reusing graphs for {} of {} portfolio targets", unchangedTargets.size(), unchangedTargets.size() + changedTargets.size());
+          for (DependencyGraphBuilder builder : viewCompilationContext.getBuilders()) {
+            final DependencyGraph previousGraph = previousCompilation.getDependencyGraph(builder.getCalculationConfigurationName());
+            if (previousGraph != null) {
+              builder.addExistingGraph(IncrementalPortfolioCompiler.prune(previousGraph, changedTargets));
+            }
+          }
+          t += System.nanoTime();
+          s_logger.info("Pruned previous dependency graphs after {}ms", (double) t / 1e6);
+          t -= System.nanoTime();
+        }
         EnumSet<ComputationTargetType> specificTargetTypes = SpecificRequirementsCompiler.execute(viewCompilationContext);
         t += System.nanoTime();
         s_logger.info("Added specific requirements after {}ms", (double) t / 1e6);
         t -= System.nanoTime();
-        boolean requirePortfolioResolution = specificTargetTypes.contains(ComputationTargetType.PORTFOLIO_NODE) || specificTargetTypes.contains(ComputationTargetType.POSITION);
-        Portfolio portfolio = PortfolioCompiler.execute(viewCompilationContext, versionCorrection, requirePortfolioResolution);
+        if (portfolio != null) {
+          PortfolioCompiler.executeIncremental(viewCompilationContext, portfolio, unchangedTargets);
+        } else {
+          boolean requirePortfolioResolution = specificTargetTypes.contains(ComputationTargetType.PORTFOLIO_NODE) || specificTargetTypes.contains(ComputationTargetType.POSITION);
+          portfolio = PortfolioCompiler.execute(viewCompilationContext, versionCorrection, requirePortfolioResolution);
+        }
         t += System.nanoTime();
         s_logger.info("Added portfolio requirements after {}ms", (double) t / 1e6);
         t -= System.nanoTime();
         Map<String, DependencyGraph> graphsByConfiguration = processDependencyGraphs(viewCompilationContext);
         t += System.nanoTime();
         s_logger.info("Processed dependency graphs after {}ms", (double) t / 1e6);
+        s_graphBuildTime.recordSince(startNanos);
         timer.finished();
         _result = new CompiledViewDefinitionWithGraphsImpl(viewDefinition, graphsByConfiguration, portfolio, compilationServices.getFunctionCompilationContext().getFunctionInitId());
         if (OUTPUT_DEPENDENCY_GRAPHS) {
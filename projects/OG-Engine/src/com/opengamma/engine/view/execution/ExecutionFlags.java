@@ -97,6 +97,26 @@ public final class ExecutionFlags {
     return this;
   }
 
+  /**
+   * Adds {@link ViewExecutionFlags#INCREMENTAL_CYCLES}
+   * 
+   * @return this
+   */
+  public ExecutionFlags incrementalCycles() {
+    _flags.add(ViewExecutionFlags.INCREMENTAL_CYCLES);
+    return this;
+  }
+
+  /**
+   * Adds {@link ViewExecutionFlags#SHARE_RESULTS}
+   * 
+   * @return this
+   */
+  public ExecutionFlags shareResults() {
+    _flags.add(ViewExecutionFlags.SHARE_RESULTS);
+    return this;
+  }
+
   //-------------------------------------------------------------------------
   
   /**
@@ -52,6 +52,21 @@ public enum ViewExecutionFlags {
   /**
    * Indicates that the results should be stored in batch database.
    */
-  BATCH
+  BATCH,
+
+  /**
+   * Indicates that delta cycles should be executed incrementally. Values calculated by earlier cycles are retained by
+   * the view process so that only the nodes affected by changed market data are scheduled, unaffected values are not
+   * copied between computation caches, and the result model is built by applying the recalculated values to those
+   * retained. This trades memory for the time of the full graph walk.
+   */
+  INCREMENTAL_CYCLES,
+
+  /**
+   * Indicates that the values calculated by each cycle should be shared with other view processes which also have this flag. A cycle takes
+   * the values of nodes already calculated by another such process with the same market data snapshot and valuation time instead of
+   * executing them. This only has an effect if the view processor has been configured to share results.
+   */
+  SHARE_RESULTS
     
 }
@@ -0,0 +1,188 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.io.Serializable;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.function.ParameterizedFunction;
+import com.opengamma.engine.function.resolver.CompiledFunctionResolver;
+import com.opengamma.engine.function.resolver.ResolutionRule;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.util.tuple.Pair;
+import com.opengamma.util.tuple.Triple;
+
+/**
+ * Tests the dependency graph builder's use of a {@link ResolutionCache}.
+ */
+@Test
+public class DepGraphResolutionCacheTest extends AbstractDependencyGraphBuilderTest {
+
+  private static final Serializable AVAILABILITY = "Test";
+
+  /**
+   * Function resolver counting the searches made.
+   */
+  private static final class CountingResolver implements CompiledFunctionResolver {
+
+    private final CompiledFunctionResolver _underlying;
+    private final AtomicInteger _searches = new AtomicInteger();
+
+    public CountingResolver(final CompiledFunctionResolver underlying) {
+      _underlying = underlying;
+    }
+
+    @Override
+    public Iterator<Triple<ParameterizedFunction, ValueSpecification, Collection<ValueSpecification>>> resolveFunction(final ValueRequirement requirement, final ComputationTarget target) {
+      _searches.incrementAndGet();
+      return _underlying.resolveFunction(requirement, target);
+    }
+
+    @Override
+    public Collection<ResolutionRule> getAllResolutionRules() {
+      return _underlying.getAllResolutionRules();
+    }
+
+    public int getSearches() {
+      return _searches.get();
+    }
+
+  }
+
+  private static DependencyGraphBuilder createBuilder(final DepGraphTestHelper helper, final CompiledFunctionResolver resolver, final ResolutionCache cache,
+      final Serializable availabilityVersion) {
+    final DependencyGraphBuilder template = helper.getBuilder(null);
+    final DependencyGraphBuilder builder = new DependencyGraphBuilder();
+    builder.setMarketDataAvailabilityProvider(template.getMarketDataAvailabilityProvider());
+    builder.setCompilationContext(template.getCompilationContext());
+    builder.setFunctionResolver(resolver);
+    builder.setCalculationConfigurationName(template.getCalculationConfigurationName());
+    builder.setResolutionCache(cache);
+    builder.setMarketDataAvailabilityVersion(availabilityVersion);
+    return builder;
+  }
+
+  private static String buildSingleNode(final DependencyGraphBuilder builder, final ValueRequirement requirement) {
+    builder.addTarget(Sets.newHashSet(requirement));
+    final DependencyGraph graph = builder.getDependencyGraph();
+    assertNotNull(graph);
+    graph.removeUnnecessaryValues();
+    assertEquals(1, graph.getDependencyNodes().size());
+    return graph.getDependencyNodes().iterator().next().getFunction().getFunction().getFunctionDefinition().getUniqueId();
+  }
+
+  private static String buildSingleNode(final DepGraphTestHelper helper, final ResolutionCache cache, final Serializable availabilityVersion) {
+    return buildSingleNode(createBuilder(helper, helper.getBuilder(null).getFunctionResolver(), cache, availabilityVersion), helper.getRequirement2Foo());
+  }
+
+  private static long getFunctionInitId(final DepGraphTestHelper helper) {
+    return helper.getBuilder(null).getCompilationContext().getFunctionInitId();
+  }
+
+  public void firstCandidateRecorded() {
+    final DepGraphTestHelper helper = helper();
+    helper.addFunctionProducing(helper.getValue2Foo());
+    helper.addFunctionProducing(helper.getValue2Foo());
+    final String normal = buildSingleNode(helper, null, null);
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache();
+    assertEquals(normal, buildSingleNode(helper, cache, AVAILABILITY));
+    assertEquals(1, cache.getSize());
+  }
+
+  public void warmCacheSkipsSearch() {
+    final DepGraphTestHelper helper = helper();
+    helper.addFunctionProducing(helper.getValue2Foo());
+    helper.addFunctionProducing(helper.getValue2Foo());
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache();
+    CountingResolver resolver = new CountingResolver(helper.getBuilder(null).getFunctionResolver());
+    final String cold = buildSingleNode(createBuilder(helper, resolver, cache, AVAILABILITY), helper.getRequirement2Foo());
+    assertEquals(1, resolver.getSearches());
+    resolver = new CountingResolver(helper.getBuilder(null).getFunctionResolver());
+    final String warm = buildSingleNode(createBuilder(helper, resolver, cache, AVAILABILITY), helper.getRequirement2Foo());
+    assertEquals(0, resolver.getSearches());
+    assertEquals(cold, warm);
+  }
+
+  public void warmCacheSameGraphWhenFirstCandidateFails() {
+    final DepGraphTestHelper helper = helper();
+    // Whichever of these is first in priority order, the one requiring the unresolvable value will be rejected
+    helper.addFunctionRequiringProducing(helper.getRequirement1(), helper.getValue2Foo());
+    helper.addFunctionProducing(helper.getValue2Foo());
+    helper.addFunctionProducing(helper.getValue2Foo());
+    final String normal = buildSingleNode(helper, null, null);
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache();
+    assertEquals(normal, buildSingleNode(helper, cache, AVAILABILITY));
+    assertEquals(normal, buildSingleNode(helper, cache, AVAILABILITY));
+  }
+
+  public void otherVersionNotUsed() {
+    final DepGraphTestHelper helper = helper();
+    final String first = helper.addFunctionProducing(helper.getValue2Foo()).getUniqueId();
+    final String second = helper.addFunctionProducing(helper.getValue2Foo()).getUniqueId();
+    final String normal = buildSingleNode(helper, null, null);
+    final String other = normal.equals(first) ? second : first;
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache();
+    final CountingResolver resolver = new CountingResolver(helper.getBuilder(null).getFunctionResolver());
+    final DependencyGraphBuilder builder = createBuilder(helper, resolver, cache, AVAILABILITY);
+    // Entries naming the other function, but for a different availability version or function initialization, must not be used
+    cache.putResolution(getFunctionInitId(helper), "Other", helper.getRequirement2Foo(), other, helper.getSpec2Foo());
+    assertEquals(normal, buildSingleNode(builder, helper.getRequirement2Foo()));
+    assertEquals(1, resolver.getSearches());
+  }
+
+  public void invalidCachedResolutionIgnored() {
+    final DepGraphTestHelper helper = helper();
+    final String function = helper.addFunctionProducing(helper.getValue2Foo()).getUniqueId();
+    final AtomicBoolean poison = new AtomicBoolean();
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache() {
+      @Override
+      protected Pair<String, ValueSpecification> get(final Key key) {
+        final Pair<String, ValueSpecification> entry = super.get(key);
+        if (poison.get() && (entry != null)) {
+          return Pair.of("Missing", entry.getSecond());
+        }
+        return entry;
+      }
+    };
+    assertEquals(function, buildSingleNode(helper, cache, AVAILABILITY));
+    assertEquals(1, cache.getSize());
+    poison.set(true);
+    assertEquals(function, buildSingleNode(helper, cache, AVAILABILITY));
+  }
+
+  public void noAvailabilityVersionNoCache() {
+    final DepGraphTestHelper helper = helper();
+    helper.addFunctionProducing(helper.getValue2Foo());
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache();
+    buildSingleNode(helper, cache, null);
+    assertEquals(0, cache.getSize());
+  }
+
+  public void reinitializationDiscards() {
+    final DepGraphTestHelper helper = helper();
+    final InMemoryResolutionCache cache = new InMemoryResolutionCache();
+    cache.putResolution(1L, AVAILABILITY, helper.getRequirement2Foo(), "Function", helper.getSpec2Foo());
+    assertNotNull(cache.getResolution(1L, AVAILABILITY, helper.getRequirement2Foo()));
+    assertNull(cache.getResolution(1L, "Other", helper.getRequirement2Foo()));
+    assertNull(cache.getResolution(2L, AVAILABILITY, helper.getRequirement2Foo()));
+    assertEquals(0, cache.getSize());
+    // Going back to the earlier identifier doesn't resurrect anything
+    assertNull(cache.getResolution(1L, AVAILABILITY, helper.getRequirement2Foo()));
+  }
+
+}
@@ -0,0 +1,187 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.depgraph;
+
+import static org.mockito.Mockito.mock;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNotNull;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Set;
+
+import javax.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.MapComputationTargetResolver;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.marketdata.availability.FixedMarketDataAvailabilityProvider;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+import com.opengamma.util.monitor.OperationTimer;
+
+/**
+ * Tests graph construction with the work-stealing run queue and lock-free completion, and benchmarks how construction of a large graph scales with the
+ * number of threads.
+ */
+@Test
+public class DepGraphThreadScalingTest extends AbstractDependencyGraphBuilderTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DepGraphThreadScalingTest.class);
+
+  /**
+   * Function producing one value on any primitive target, optionally requiring another value on the same target.
+   */
+  private static final class ChainFunction extends TestFunction {
+
+    private final String _input;
+    private final String _output;
+
+    public ChainFunction(final String input, final String output) {
+      _input = input;
+      _output = output;
+      setUniqueId(output);
+    }
+
+    @Override
+    public String getShortName() {
+      return _output;
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      if (_input == null) {
+        return Collections.emptySet();
+      }
+      return Collections.singleton(new ValueRequirement(_input, target.toSpecification()));
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification(_output, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      return null;
+    }
+
+  }
+
+  private static DependencyGraphBuilder createBuilder(final RunQueueFactory runQueue, final int threads, final boolean lockFreeCompletion,
+      final Set<ValueRequirement> requirements, final int targets) {
+    final DependencyGraphBuilder builder = new DependencyGraphBuilder(DependencyGraphBuilderFactory.getDefaultExecutor(), runQueue);
+    builder.setMarketDataAvailabilityProvider(new FixedMarketDataAvailabilityProvider());
+    final FunctionCompilationContext context = new FunctionCompilationContext();
+    final MapComputationTargetResolver targetResolver = new MapComputationTargetResolver();
+    context.setComputationTargetResolver(targetResolver);
+    builder.setCompilationContext(context);
+    final InMemoryFunctionRepository functions = new InMemoryFunctionRepository();
+    functions.addFunction(new ChainFunction(null, "A"));
+    functions.addFunction(new ChainFunction("A", "B"));
+    functions.addFunction(new ChainFunction("B", "C"));
+    final CompiledFunctionService compilationService = new CompiledFunctionService(functions, new CachingFunctionRepositoryCompiler(), context);
+    compilationService.initialize();
+    builder.setFunctionResolver(new DefaultFunctionResolver(compilationService).compile(Instant.now()));
+    builder.setCalculationConfigurationName("testCalcConf");
+    builder.setMaxAdditionalThreads(threads);
+    builder.setLockFreeCompletion(lockFreeCompletion);
+    for (int i = 0; i < targets; i++) {
+      final ComputationTarget target = new ComputationTarget(UniqueId.of("Target", Integer.toString(i)));
+      targetResolver.addTarget(target);
+      requirements.add(new ValueRequirement("C", target.toSpecification()));
+    }
+    return builder;
+  }
+
+  private static int build(final RunQueueFactory runQueue, final int threads, final boolean lockFreeCompletion, final int targets) {
+    final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
+    final DependencyGraphBuilder builder = createBuilder(runQueue, threads, lockFreeCompletion, requirements, targets);
+    builder.addTarget(requirements);
+    final DependencyGraph graph = builder.getDependencyGraph();
+    assertNotNull(graph);
+    assertEquals(targets, graph.getTerminalOutputSpecifications().size());
+    return graph.getSize();
+  }
+
+  public void workStealingLockFree() {
+    assertEquals(300, build(RunQueueFactory.getWorkStealing(), 4, true, 100));
+  }
+
+  public void workStealingLockFreeNoBackgroundThreads() {
+    assertEquals(300, build(RunQueueFactory.getWorkStealing(), 0, true, 100));
+  }
+
+  public void workStealingLocked() {
+    assertEquals(300, build(RunQueueFactory.getWorkStealing(), 4, false, 100));
+  }
+
+  public void concurrentLinkedQueueLockFree() {
+    assertEquals(300, build(RunQueueFactory.getConcurrentLinkedQueue(), 4, true, 100));
+  }
+
+  public void workStealingDetachedWithTasks() throws InterruptedException {
+    final RunQueue queue = RunQueueFactory.getWorkStealing().createRunQueue();
+    final ContextRunnable task = mock(ContextRunnable.class);
+    final Thread thread = new Thread() {
+      @Override
+      public void run() {
+        queue.add(task);
+        queue.detach();
+      }
+    };
+    thread.start();
+    thread.join();
+    // The detached thread's task is still available to steal
+    assertFalse(queue.isEmpty());
+    assertSame(task, queue.take());
+    assertTrue(queue.isEmpty());
+    assertNull(queue.take());
+    queue.detach();
+    assertTrue(queue.isEmpty());
+  }
+
+  private void benchmark(final String name, final RunQueueFactory runQueue, final boolean lockFreeCompletion) {
+    final int targets = 100000;
+    for (int threads : new int[] {0, 1, 3, 7, 15, 31 }) {
+      // Warm up before timing
+      build(runQueue, threads, lockFreeCompletion, targets / 10);
+      final OperationTimer timer = new OperationTimer(s_logger, "{} with {} threads", name, threads + 1);
+      build(runQueue, threads, lockFreeCompletion, targets);
+      final long time = timer.finished();
+      s_logger.info("{}, {} threads, {}ms", new Object[] {name, threads + 1, time });
+    }
+  }
+
+  /**
+   * Builds graphs for 100,000 requirements with increasing numbers of threads. This takes too long to run with the unit tests.
+   */
+  @Test(enabled = false)
+  public void benchmark() {
+    benchmark("ConcurrentLinkedQueue", RunQueueFactory.getConcurrentLinkedQueue(), false);
+    benchmark("ConcurrentStack", RunQueueFactory.getConcurrentStack(), false);
+    benchmark("WorkStealing", RunQueueFactory.getWorkStealing(), false);
+    benchmark("WorkStealing/LockFree", RunQueueFactory.getWorkStealing(), true);
+  }
+
+}
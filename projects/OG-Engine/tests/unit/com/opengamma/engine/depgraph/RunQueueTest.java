@@ -7,10 +7,12 @@ package com.opengamma.engine.depgraph;
 
 import static org.testng.Assert.assertEquals;
 import static org.testng.Assert.assertFalse;
+import static org.testng.Assert.assertNull;
 import static org.testng.Assert.assertSame;
 import static org.testng.Assert.assertTrue;
 
 import java.util.concurrent.BrokenBarrierException;
+import java.util.concurrent.Callable;
 import java.util.concurrent.CyclicBarrier;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
@@ -173,4 +175,31 @@ public class RunQueueTest {
     testLIFO(RunQueueFactory.getOrdered());
   }
 
+  public void testWorkStealingRunQueue() {
+    testSpeed(RunQueueFactory.getWorkStealing());
+    testLIFO(RunQueueFactory.getWorkStealing());
+  }
+
+  public void testWorkStealing() throws Exception {
+    final RunQueue queue = RunQueueFactory.getWorkStealing().createRunQueue();
+    final ContextRunnable r1 = runnable();
+    final ContextRunnable r2 = runnable();
+    final ContextRunnable r3 = runnable();
+    queue.add(r1);
+    queue.add(r2);
+    queue.add(r3);
+    // Another thread steals the oldest task from this thread's deque
+    assertSame(_executor.submit(new Callable<ContextRunnable>() {
+      @Override
+      public ContextRunnable call() {
+        return queue.take();
+      }
+    }).get(), r1);
+    assertEquals(queue.size(), 2);
+    assertSame(queue.take(), r3);
+    assertSame(queue.take(), r2);
+    assertTrue(queue.isEmpty());
+    assertNull(queue.take());
+  }
+
 }
@@ -0,0 +1,83 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.fudgemsg;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ColumnarViewComputationResultModel;
+import com.opengamma.engine.view.InMemoryViewComputationResultModel;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.calcnode.InvocationResult;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.util.test.AbstractFudgeBuilderTestCase;
+import com.opengamma.util.tuple.Pair;
+
+/**
+ * Tests the {@link ViewComputationResultModelFudgeBuilder} class.
+ */
+@Test
+public class ViewComputationResultModelBuilderTest extends AbstractFudgeBuilderTestCase {
+
+  private static final ValueProperties PROPERTIES = ValueProperties.with(ValuePropertyNames.FUNCTION, "Test").get();
+
+  private static ComputedValue value(final String valueName, final int target, final Object value) {
+    return new ComputedValue(new ValueSpecification(valueName, new ComputationTargetSpecification(ComputationTargetType.POSITION, UniqueId.of("Test",
+        Integer.toString(target))), PROPERTIES), value);
+  }
+
+  private static void populate(final InMemoryViewComputationResultModel model) {
+    model.setViewProcessId(UniqueId.of("Process", "1"));
+    model.setViewCycleId(UniqueId.of("Cycle", "1"));
+    model.setValuationTime(Instant.ofEpochMillis(400));
+    model.setCalculationTime(Instant.ofEpochMillis(500));
+    model.setVersionCorrection(VersionCorrection.LATEST);
+    for (int i = 0; i < 10; i++) {
+      model.addValue("Default", value("PV", i, (double) i));
+      model.addValue("Default", value("Name", i, "Foo" + i));
+    }
+    final ComputedValue failed = value("Delta", 3, 3d);
+    failed.setInvocationResult(InvocationResult.FUNCTION_THREW_EXCEPTION);
+    model.addValue("Default", failed);
+  }
+
+  private static void assertResults(final ViewComputationResultModel expected, final ViewComputationResultModel actual) {
+    assertEquals(expected.getViewCycleId(), actual.getViewCycleId());
+    assertEquals(expected.getValuationTime(), actual.getValuationTime());
+    assertEquals(expected.getAllTargets(), actual.getAllTargets());
+    assertEquals(Sets.newHashSet(expected.getAllResults()), Sets.newHashSet(actual.getAllResults()));
+  }
+
+  public void testInMemory() {
+    final InMemoryViewComputationResultModel model = new InMemoryViewComputationResultModel();
+    populate(model);
+    final ViewComputationResultModel cycled = cycleObject(ViewComputationResultModel.class, model);
+    assertResults(model, cycled);
+  }
+
+  public void testColumnar() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    populate(model);
+    final ViewComputationResultModel cycled = cycleObject(ViewComputationResultModel.class, model);
+    assertTrue(cycled instanceof ColumnarViewComputationResultModel);
+    assertResults(model, cycled);
+    final ComputationTargetSpecification target = value("Delta", 3, 3d).getSpecification().getTargetSpecification();
+    assertEquals(InvocationResult.FUNCTION_THREW_EXCEPTION, cycled.getCalculationResult("Default").getValues(target).get(Pair.of("Delta", PROPERTIES)).getInvocationResult());
+  }
+
+}
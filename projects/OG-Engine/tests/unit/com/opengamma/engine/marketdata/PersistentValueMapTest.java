@@ -0,0 +1,127 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Random;
+import java.util.Set;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link PersistentValueMap} class.
+ */
+@Test
+public class PersistentValueMapTest {
+
+  /**
+   * Key with a poor hash to force collisions.
+   */
+  private static final class Key {
+
+    private final int _value;
+
+    private Key(final int value) {
+      _value = value;
+    }
+
+    @Override
+    public int hashCode() {
+      return _value / 4;
+    }
+
+    @Override
+    public boolean equals(final Object o) {
+      return (o instanceof Key) && (((Key) o)._value == _value);
+    }
+
+    @Override
+    public String toString() {
+      return "Key" + _value;
+    }
+
+  }
+
+  public void emptyMap() {
+    final PersistentValueMap<String, String> map = PersistentValueMap.empty();
+    assertEquals(0, map.size());
+    assertEquals(0L, map.getVersion());
+    assertNull(map.get("Foo"));
+    assertFalse(map.keySet().iterator().hasNext());
+    assertSame(map, map.without("Foo"));
+  }
+
+  public void versionsAreUnchanged() {
+    final PersistentValueMap<String, String> v0 = PersistentValueMap.empty();
+    final PersistentValueMap<String, String> v1 = v0.with("Foo", "1");
+    final PersistentValueMap<String, String> v2 = v1.with("Foo", "2").with("Bar", "3");
+    final PersistentValueMap<String, String> v3 = v2.without("Foo");
+    assertEquals(1L, v1.getVersion());
+    assertEquals(3L, v2.getVersion());
+    assertEquals(4L, v3.getVersion());
+    assertEquals("1", v1.get("Foo"));
+    assertEquals(1, v1.size());
+    assertEquals("2", v2.get("Foo"));
+    assertEquals(2, v2.size());
+    assertNull(v3.get("Foo"));
+    assertEquals("3", v3.get("Bar"));
+    assertEquals(1, v3.size());
+    assertSame(v3, v3.with("Bar", v3.get("Bar")));
+  }
+
+  public void collisions() {
+    PersistentValueMap<Key, Integer> map = PersistentValueMap.empty();
+    for (int i = 0; i < 64; i++) {
+      map = map.with(new Key(i), i);
+    }
+    assertEquals(64, map.size());
+    for (int i = 0; i < 64; i++) {
+      assertEquals((Integer) i, map.get(new Key(i)));
+    }
+    for (int i = 0; i < 64; i += 2) {
+      map = map.without(new Key(i));
+    }
+    assertEquals(32, map.size());
+    for (int i = 0; i < 64; i++) {
+      assertEquals(((i & 1) != 0) ? (Integer) i : null, map.get(new Key(i)));
+    }
+    final Set<Key> keys = new HashSet<Key>(map.keySet());
+    assertEquals(32, keys.size());
+    assertTrue(keys.contains(new Key(1)));
+    assertFalse(keys.contains(new Key(2)));
+  }
+
+  public void randomOperations() {
+    final Random random = new Random(1L);
+    final Map<Integer, Integer> expected = new HashMap<Integer, Integer>();
+    PersistentValueMap<Integer, Integer> map = PersistentValueMap.empty();
+    for (int i = 0; i < 50000; i++) {
+      final Integer key = random.nextInt(10000);
+      if (random.nextInt(4) == 0) {
+        expected.remove(key);
+        map = map.without(key);
+      } else {
+        final Integer value = random.nextInt();
+        expected.put(key, value);
+        map = map.with(key, value);
+      }
+    }
+    assertEquals(expected.size(), map.size());
+    assertEquals(expected.keySet(), new HashSet<Integer>(map.keySet()));
+    for (Map.Entry<Integer, Integer> entry : expected.entrySet()) {
+      assertEquals(entry.getValue(), map.get(entry.getKey()));
+    }
+  }
+
+}
@@ -0,0 +1,105 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata.historical;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyBoolean;
+import static org.mockito.Matchers.anyString;
+import static org.mockito.Matchers.eq;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+
+import java.util.Collections;
+
+import javax.time.calendar.LocalDate;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.core.historicaltimeseries.HistoricalTimeSeriesSource;
+import com.opengamma.core.historicaltimeseries.impl.SimpleHistoricalTimeSeries;
+import com.opengamma.core.security.SecuritySource;
+import com.opengamma.core.value.MarketDataRequirementNames;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.marketdata.MarketDataSnapshot;
+import com.opengamma.engine.marketdata.spec.FixedHistoricalMarketDataSpecification;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.id.ExternalIdBundle;
+import com.opengamma.id.UniqueId;
+import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.timeseries.localdate.ArrayLocalDateDoubleTimeSeries;
+
+/**
+ * Tests the {@link PrefetchingHistoricalMarketDataProvider} class.
+ */
+@Test
+public class PrefetchingHistoricalMarketDataProviderTest {
+
+  private static final LocalDate DATE_1 = LocalDate.of(2012, 6, 1);
+  private static final LocalDate DATE_2 = LocalDate.of(2012, 6, 4);
+  private static final LocalDate DATE_3 = LocalDate.of(2012, 6, 5);
+  private static final LocalDate DATE_4 = LocalDate.of(2012, 6, 6);
+  private static final ValueRequirement REQUIREMENT = new ValueRequirement(MarketDataRequirementNames.MARKET_VALUE, ComputationTargetType.PRIMITIVE, UniqueId.of("Test", "A"));
+  private static final ExternalIdBundle IDENTIFIERS = ExternalIdBundle.of("Test", "A");
+
+  private static HistoricalTimeSeriesSource createSource() {
+    final HistoricalTimeSeriesSource source = mock(HistoricalTimeSeriesSource.class);
+    when(source.getHistoricalTimeSeries(eq(MarketDataRequirementNames.MARKET_VALUE), eq(IDENTIFIERS), any(LocalDate.class), anyString(),
+        any(LocalDate.class), anyBoolean(), any(LocalDate.class), anyBoolean())).thenReturn(
+            new SimpleHistoricalTimeSeries(UniqueId.of("Hts", "A"), new ArrayLocalDateDoubleTimeSeries(new LocalDate[] {DATE_1, DATE_2, DATE_4 }, new double[] {1.5, 2.5, 4.5 })));
+    return source;
+  }
+
+  private static Object query(final PrefetchingHistoricalMarketDataProvider provider, final LocalDate date) {
+    final MarketDataSnapshot snapshot = provider.snapshot(new FixedHistoricalMarketDataSpecification(date));
+    snapshot.init();
+    return snapshot.query(REQUIREMENT);
+  }
+
+  public void seriesLoadedOncePerRequirement() {
+    final HistoricalTimeSeriesSource source = createSource();
+    final PrefetchingHistoricalMarketDataProvider provider = new PrefetchingHistoricalMarketDataProvider(source, mock(SecuritySource.class), null, null, DATE_1, DATE_3);
+    provider.subscribe(UserPrincipal.getTestUser(), Collections.singleton(REQUIREMENT));
+    assertEquals(1.5, query(provider, DATE_1));
+    assertEquals(2.5, query(provider, DATE_2));
+    assertNull(query(provider, DATE_3));
+    // Loaded by the first snapshot, resolving the identifiers on its date, for only the range of the run
+    verify(source, times(1)).getHistoricalTimeSeries(eq(MarketDataRequirementNames.MARKET_VALUE), eq(IDENTIFIERS), any(LocalDate.class), anyString(),
+        any(LocalDate.class), anyBoolean(), any(LocalDate.class), anyBoolean());
+    verify(source).getHistoricalTimeSeries(eq(MarketDataRequirementNames.MARKET_VALUE), eq(IDENTIFIERS), eq(DATE_1), anyString(),
+        eq(DATE_1), eq(true), eq(DATE_3), eq(true));
+  }
+
+  public void outsideRangeQueriesSource() {
+    final HistoricalTimeSeriesSource source = createSource();
+    final PrefetchingHistoricalMarketDataProvider provider = new PrefetchingHistoricalMarketDataProvider(source, mock(SecuritySource.class), null, null, DATE_1, DATE_3);
+    provider.subscribe(UserPrincipal.getTestUser(), Collections.singleton(REQUIREMENT));
+    assertEquals(4.5, query(provider, DATE_4));
+    verify(source, times(1)).getHistoricalTimeSeries(eq(MarketDataRequirementNames.MARKET_VALUE), eq(IDENTIFIERS), eq(DATE_4), anyString(),
+        eq(DATE_4), eq(true), eq(DATE_4), eq(true));
+    // Nothing was prefetched for the out of range snapshot
+    verify(source, times(1)).getHistoricalTimeSeries(eq(MarketDataRequirementNames.MARKET_VALUE), eq(IDENTIFIERS), any(LocalDate.class), anyString(),
+        any(LocalDate.class), anyBoolean(), any(LocalDate.class), anyBoolean());
+  }
+
+  public void missingSeries() {
+    final HistoricalTimeSeriesSource source = mock(HistoricalTimeSeriesSource.class);
+    final ValueRequirement requirement = new ValueRequirement(MarketDataRequirementNames.MARKET_VALUE, ComputationTargetType.PRIMITIVE, UniqueId.of("Test", "B"));
+    final PrefetchingHistoricalMarketDataProvider provider = new PrefetchingHistoricalMarketDataProvider(source, mock(SecuritySource.class), null, null, DATE_1, DATE_3);
+    final MarketDataSnapshot snapshot = provider.snapshot(new FixedHistoricalMarketDataSpecification(DATE_1));
+    snapshot.init();
+    assertNull(snapshot.query(requirement));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void rangeRequired() {
+    new PrefetchingHistoricalMarketDataProvider(mock(HistoricalTimeSeriesSource.class), mock(SecuritySource.class), null, null, DATE_1, null);
+  }
+
+}
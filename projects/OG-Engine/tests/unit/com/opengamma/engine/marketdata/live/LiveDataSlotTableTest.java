@@ -0,0 +1,69 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.marketdata.live;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Map;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.core.value.MarketDataRequirementNames;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Tests the {@link LiveDataSlotTable} class.
+ */
+@Test
+public class LiveDataSlotTableTest {
+
+  private static ValueRequirement requirement(final int ticker) {
+    return new ValueRequirement(MarketDataRequirementNames.MARKET_VALUE, ComputationTargetType.PRIMITIVE, UniqueId.of("Test", Integer.toString(ticker)));
+  }
+
+  public void slotsAreStable() {
+    final LiveDataSlotTable table = new LiveDataSlotTable();
+    final int slot1 = table.getSlot(requirement(1));
+    final int slot2 = table.getSlot(requirement(2));
+    assertEquals(slot1, table.getSlot(requirement(1)));
+    assertFalse(slot1 == slot2);
+    assertEquals(2, table.getSlotCount());
+  }
+
+  public void ticksCoalesce() {
+    final LiveDataSlotTable table = new LiveDataSlotTable();
+    final int slot = table.getSlot(requirement(1));
+    assertNull(table.drainChanges());
+    assertTrue(table.put(slot, 1.5));
+    assertFalse(table.put(slot, 2.5));
+    assertEquals(2.5, table.get(slot), 0d);
+    Map<ValueRequirement, Object> changes = table.drainChanges();
+    assertEquals(1, changes.size());
+    assertEquals(2.5, changes.get(requirement(1)));
+    assertNull(table.drainChanges());
+    assertTrue(table.put(slot, 3.5));
+    changes = table.drainChanges();
+    assertEquals(3.5, changes.get(requirement(1)));
+  }
+
+  public void manyPages() {
+    final LiveDataSlotTable table = new LiveDataSlotTable();
+    for (int i = 0; i < 5000; i++) {
+      assertTrue(table.put(table.getSlot(requirement(i)), i));
+    }
+    final Map<ValueRequirement, Object> changes = table.drainChanges();
+    assertEquals(5000, changes.size());
+    for (int i = 0; i < 5000; i++) {
+      assertEquals((double) i, changes.get(requirement(i)));
+    }
+  }
+
+}
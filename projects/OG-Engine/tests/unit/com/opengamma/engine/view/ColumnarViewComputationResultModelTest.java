@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collection;
+
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Sets;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.calcnode.InvocationResult;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Tests the {@link ColumnarViewComputationResultModel} class.
+ */
+@Test
+public class ColumnarViewComputationResultModelTest {
+
+  private static final ValueProperties PROPERTIES = ValueProperties.with(ValuePropertyNames.FUNCTION, "Test").get();
+
+  private static ComputationTargetSpecification target(final int i) {
+    return new ComputationTargetSpecification(ComputationTargetType.POSITION, UniqueId.of("Test", Integer.toString(i)));
+  }
+
+  private static ComputedValue value(final String valueName, final int target, final Object value) {
+    return new ComputedValue(new ValueSpecification(valueName, target(target), PROPERTIES), value);
+  }
+
+  public void test() {
+    ViewComputationResultModelImplTest.checkModel(new ColumnarViewComputationResultModel());
+  }
+
+  public void doubleAndObjectValues() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    for (int i = 0; i < 100; i++) {
+      model.addValue("Default", value("PV", i, (double) i));
+    }
+    model.addValue("Default", value("PV", 100, "Foo"));
+    model.addValue("Other", target(1), "Delta", PROPERTIES, 0.5);
+    assertEquals(101, model.getAllTargets().size());
+    assertEquals(Sets.newHashSet("Default", "Other"), Sets.newHashSet(model.getCalculationConfigurationNames()));
+    assertEquals(Sets.newHashSet("PV", "Delta"), model.getAllOutputValueNames());
+    assertEquals(102, model.getAllResults().size());
+    final ColumnarViewComputationResultModel.Column column = model.getColumns().iterator().next();
+    assertTrue(column.isDouble(42));
+    assertEquals(42d, column.getDouble(42), 0d);
+    assertFalse(column.isDouble(100));
+    assertEquals("Foo", column.getObject(100));
+    assertEquals(value("PV", 42, 42d), model.getCalculationResult("Default").getValues(target(42)).values().iterator().next());
+    assertEquals(101, model.getCalculationResult("Default").getAllTargets().size());
+    assertEquals(1, model.getCalculationResult("Other").getAllTargets().size());
+    assertNull(model.getCalculationResult("Other").getValues(target(2)));
+    final ViewTargetResultModel targetResult = model.getTargetResult(target(1));
+    assertEquals(Sets.newHashSet("Default", "Other"), Sets.newHashSet(targetResult.getCalculationConfigurationNames()));
+    final Collection<ComputedValue> other = targetResult.getAllValues("Other");
+    assertEquals(1, other.size());
+    assertEquals(0.5, other.iterator().next().getValue());
+    assertNull(model.getTargetResult(target(101)));
+  }
+
+  public void detailedValueIsRetained() {
+    final ColumnarViewComputationResultModel model = new ColumnarViewComputationResultModel();
+    final ComputedValue value = value("PV", 1, 1d);
+    value.setInvocationResult(InvocationResult.SUCCESS);
+    model.addValue("Default", value);
+    assertSame(value, model.getCalculationResult("Default").getAllValues(target(1)).iterator().next());
+  }
+
+}
@@ -24,6 +24,7 @@ import com.opengamma.engine.marketdata.spec.MarketData;
 import com.opengamma.engine.test.TestViewResultListener;
 import com.opengamma.engine.test.ViewProcessorTestEnvironment;
 import com.opengamma.engine.view.calc.ViewComputationJob;
+import com.opengamma.engine.view.calc.ViewResultListenerFactory;
 import com.opengamma.engine.view.client.ViewClient;
 import com.opengamma.engine.view.client.ViewClientState;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
@@ -33,6 +34,7 @@ import com.opengamma.engine.view.execution.ExecutionFlags;
 import com.opengamma.engine.view.execution.ExecutionOptions;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.execution.ViewExecutionOptions;
+import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.util.test.Timeout;
 
 /**
@@ -243,4 +245,44 @@ public class ViewProcessTest {
     vp.stop();
   }
   
+  public void testConcurrentBatchCyclesDeliveredInOrder() throws InterruptedException {
+    final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+    env.setViewResultListenerFactory(new ViewResultListenerFactory() {
+      @Override
+      public ViewResultListener createViewResultListener() {
+        return new TestViewResultListener();
+      }
+    });
+    env.init();
+    final ViewProcessorImpl vp = env.getViewProcessor();
+    vp.setMaxConcurrentBatchCycles(3);
+    vp.start();
+
+    ViewClient client = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+    TestViewResultListener resultListener = new TestViewResultListener();
+    client.setResultListener(resultListener);
+
+    final Instant time0 = Instant.now();
+    final Instant[] valuationTimes = new Instant[8];
+    for (int i = 0; i < valuationTimes.length; i++) {
+      valuationTimes[i] = time0.plusMillis(10 * i);
+    }
+    ViewCycleExecutionOptions defaultCycleOptions = new ViewCycleExecutionOptions(MarketData.live());
+    final ViewExecutionOptions executionOptions = new ExecutionOptions(ArbitraryViewCycleExecutionSequence.of(valuationTimes),
+        ExecutionFlags.none().batch().runAsFastAsPossible().get(), defaultCycleOptions);
+    client.attachToViewProcess(env.getViewDefinition().getUniqueId(), executionOptions);
+    ViewProcessImpl viewProcess = env.getViewProcess(vp, client.getUniqueId());
+
+    // The graph is compiled once and the cycles, although executed concurrently, are delivered in sequence order
+    resultListener.assertViewDefinitionCompiled(Timeout.standardTimeoutMillis());
+    for (Instant valuationTime : valuationTimes) {
+      assertEquals(valuationTime, resultListener.getCycleCompleted(10 * Timeout.standardTimeoutMillis()).getFullResult().getValuationTime());
+    }
+    resultListener.assertProcessCompleted(Timeout.standardTimeoutMillis());
+    resultListener.assertNoCalls(Timeout.standardTimeoutMillis());
+    assertEquals(ViewProcessState.FINISHED, viewProcess.getState());
+
+    vp.stop();
+  }
+
 }
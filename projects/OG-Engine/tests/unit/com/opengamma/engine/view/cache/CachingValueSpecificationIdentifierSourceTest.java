@@ -6,20 +6,35 @@
 package com.opengamma.engine.view.cache;
 
 import static org.testng.AssertJUnit.assertEquals;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
 import it.unimi.dsi.fastutil.longs.LongArraySet;
+import it.unimi.dsi.fastutil.longs.LongCollection;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
 
 import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.HashSet;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.time.Instant;
 
 import org.testng.AssertJUnit;
 import org.testng.annotations.Test;
 
 import com.opengamma.engine.ComputationTargetSpecification;
 import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.function.EmptyFunctionParameters;
 import com.opengamma.engine.value.ValueRequirement;
 import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.calcnode.CalculationJob;
+import com.opengamma.engine.view.calcnode.CalculationJobItem;
+import com.opengamma.engine.view.calcnode.CalculationJobResult;
+import com.opengamma.engine.view.calcnode.CalculationJobResultItem;
+import com.opengamma.engine.view.calcnode.CalculationJobSpecification;
 import com.opengamma.id.UniqueId;
 
 /**
@@ -95,4 +110,62 @@ public class CachingValueSpecificationIdentifierSourceTest {
     
   }
 
+  @Test
+  public void jobResolvedInOneRequest() {
+    final ComputationTargetSpecification target = new ComputationTargetSpecification(ComputationTargetType.PRIMITIVE, UniqueId.of("scheme", "fibble"));
+    final ValueSpecification[] valueSpec = new ValueSpecification[4];
+    for (int i = 0; i < valueSpec.length; i++) {
+      valueSpec[i] = new ValueSpecification(new ValueRequirement("value" + i, target), "mockFunctionId");
+    }
+    final InMemoryIdentifierMap server = new InMemoryIdentifierMap();
+    final AtomicInteger requests = new AtomicInteger();
+    final IdentifierMap underlying = new IdentifierMap() {
+
+      @Override
+      public long getIdentifier(final ValueSpecification spec) {
+        requests.incrementAndGet();
+        return server.getIdentifier(spec);
+      }
+
+      @Override
+      public Object2LongMap<ValueSpecification> getIdentifiers(final Collection<ValueSpecification> specs) {
+        requests.incrementAndGet();
+        return server.getIdentifiers(specs);
+      }
+
+      @Override
+      public ValueSpecification getValueSpecification(final long identifier) {
+        requests.incrementAndGet();
+        return server.getValueSpecification(identifier);
+      }
+
+      @Override
+      public Long2ObjectMap<ValueSpecification> getValueSpecifications(final LongCollection identifiers) {
+        requests.incrementAndGet();
+        return server.getValueSpecifications(identifiers);
+      }
+
+    };
+    final CalculationJobSpecification jobSpec = new CalculationJobSpecification(UniqueId.of("Test", "ViewCycle"), "config", Instant.now(), 1L);
+    final CalculationJob job = new CalculationJob(jobSpec, 0L, null, Arrays.asList(
+        new CalculationJobItem("Foo", new EmptyFunctionParameters(), target, Collections.singleton(valueSpec[0]), Collections.singleton(valueSpec[1])),
+        new CalculationJobItem("Bar", new EmptyFunctionParameters(), target, Collections.singleton(valueSpec[1]), new HashSet<ValueSpecification>(Arrays.asList(valueSpec[2], valueSpec[3])))),
+        CacheSelectHint.allShared());
+    // Encoded by the job dispatcher, resolved by the remote node on receipt
+    AbstractIdentifierMap.convertIdentifiers(server, job);
+    final CachingIdentifierMap node = new CachingIdentifierMap(underlying);
+    AbstractIdentifierMap.resolveIdentifiers(node, job);
+    assertEquals(1, requests.get());
+    // Values and failures reported in the result are then encoded locally
+    final CalculationJobResult result = new CalculationJobResult(jobSpec, 0L, Arrays.asList(
+        new CalculationJobResultItem(null, null, null, Collections.<ValueSpecification>emptySet(), Collections.<ValueSpecification>emptySet()),
+        new CalculationJobResultItem("Exception", "Test", null, Collections.singleton(valueSpec[1]), Collections.singleton(valueSpec[3]))), "node");
+    AbstractIdentifierMap.convertIdentifiers(node, result);
+    assertEquals(1, requests.get());
+    for (int i = 0; i < valueSpec.length; i++) {
+      assertEquals(server.getIdentifier(valueSpec[i]), node.getIdentifier(valueSpec[i]));
+    }
+    assertEquals(1, requests.get());
+  }
+
 }
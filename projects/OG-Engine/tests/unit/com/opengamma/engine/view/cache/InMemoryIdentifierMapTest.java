@@ -0,0 +1,108 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+import it.unimi.dsi.fastutil.longs.Long2ObjectMap;
+import it.unimi.dsi.fastutil.longs.LongArrayList;
+import it.unimi.dsi.fastutil.longs.LongOpenHashSet;
+import it.unimi.dsi.fastutil.longs.LongSet;
+import it.unimi.dsi.fastutil.objects.Object2LongMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.id.UniqueId;
+
+/**
+ * Tests the {@link InMemoryIdentifierMap} class.
+ */
+@Test
+public class InMemoryIdentifierMapTest {
+
+  private static List<ValueSpecification> createSpecifications(final int count) {
+    final List<ValueSpecification> specifications = new ArrayList<ValueSpecification>(count);
+    for (int i = 0; i < count; i++) {
+      specifications.add(new ValueSpecification(new ValueRequirement("Value", UniqueId.of("Test", Integer.toString(i))), "function ID"));
+    }
+    return specifications;
+  }
+
+  public void testSingleLookup() {
+    final IdentifierMap map = new InMemoryIdentifierMap();
+    final List<ValueSpecification> specifications = createSpecifications(10000);
+    final LongSet identifiers = new LongOpenHashSet();
+    for (ValueSpecification specification : specifications) {
+      assertTrue(identifiers.add(map.getIdentifier(specification)));
+    }
+    for (ValueSpecification specification : specifications) {
+      final long identifier = map.getIdentifier(specification);
+      assertTrue(identifiers.contains(identifier));
+      assertEquals(specification, map.getValueSpecification(identifier));
+    }
+    assertNull(map.getValueSpecification(0L));
+    assertNull(map.getValueSpecification(Long.MAX_VALUE));
+  }
+
+  public void testBulkLookup() {
+    final IdentifierMap map = new InMemoryIdentifierMap();
+    final List<ValueSpecification> specifications = createSpecifications(5000);
+    final long first = map.getIdentifier(specifications.get(0));
+    final Object2LongMap<ValueSpecification> identifiers = map.getIdentifiers(specifications);
+    assertEquals(specifications.size(), identifiers.size());
+    assertEquals(first, identifiers.getLong(specifications.get(0)));
+    final Long2ObjectMap<ValueSpecification> reverse = map.getValueSpecifications(new LongArrayList(identifiers.values()));
+    for (ValueSpecification specification : specifications) {
+      assertEquals(specification, reverse.get(identifiers.getLong(specification)));
+    }
+  }
+
+  public void testConcurrentAllocation() throws Exception {
+    final IdentifierMap map = new InMemoryIdentifierMap();
+    final List<ValueSpecification> specifications = createSpecifications(20000);
+    final ExecutorService executor = Executors.newFixedThreadPool(4);
+    try {
+      final List<Future<long[]>> futures = new ArrayList<Future<long[]>>();
+      for (int t = 0; t < 4; t++) {
+        futures.add(executor.submit(new Callable<long[]>() {
+          @Override
+          public long[] call() {
+            final long[] result = new long[specifications.size()];
+            for (int i = 0; i < result.length; i++) {
+              result[i] = map.getIdentifier(specifications.get(i));
+            }
+            return result;
+          }
+        }));
+      }
+      final long[] expected = futures.get(0).get();
+      for (Future<long[]> future : futures) {
+        final long[] identifiers = future.get();
+        for (int i = 0; i < identifiers.length; i++) {
+          assertEquals(expected[i], identifiers[i]);
+          assertEquals(specifications.get(i), map.getValueSpecification(identifiers[i]));
+        }
+      }
+      final LongSet unique = new LongOpenHashSet(expected);
+      assertFalse(unique.contains(0L));
+      assertEquals(expected.length, unique.size());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -0,0 +1,114 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.cache;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Random;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link SlabBinaryDataStore} class.
+ */
+@Test
+public class SlabBinaryDataStoreTest {
+
+  private static byte[] randomBytes(final Random random, final int size) {
+    final byte[] data = new byte[size];
+    random.nextBytes(data);
+    return data;
+  }
+
+  private void testPutGet(final SlabBinaryDataStoreFactory factory) {
+    final BinaryDataStore store = factory.createDataStore(null);
+    final Random random = new Random(1L);
+    final Map<Long, byte[]> values = new HashMap<Long, byte[]>();
+    for (long i = 0; i < 1000; i++) {
+      final byte[] data = randomBytes(random, random.nextInt(200));
+      values.put(i, data);
+      store.put(i, data);
+    }
+    for (Map.Entry<Long, byte[]> value : values.entrySet()) {
+      assertTrue(Arrays.equals(value.getValue(), store.get(value.getKey())));
+    }
+    assertNull(store.get(1000L));
+    store.delete();
+  }
+
+  public void testDirectPutGet() {
+    testPutGet(new SlabBinaryDataStoreFactory(4096, 4));
+  }
+
+  public void testMappedPutGet() {
+    testPutGet(new SlabBinaryDataStoreFactory(4096, 4, new File(System.getProperty("java.io.tmpdir"))));
+  }
+
+  public void testBulkPutGet() {
+    final BinaryDataStore store = new SlabBinaryDataStoreFactory(1024, 4).createDataStore(null);
+    final Random random = new Random(2L);
+    final Map<Long, byte[]> values = new HashMap<Long, byte[]>();
+    for (long i = 0; i < 100; i++) {
+      values.put(i * 2, randomBytes(random, random.nextInt(100)));
+    }
+    store.put(values);
+    final Map<Long, byte[]> result = store.get(Arrays.asList(0L, 1L, 2L, 198L, 200L));
+    assertEquals(3, result.size());
+    assertTrue(Arrays.equals(values.get(0L), result.get(0L)));
+    assertTrue(Arrays.equals(values.get(2L), result.get(2L)));
+    assertTrue(Arrays.equals(values.get(198L), result.get(198L)));
+    store.delete();
+  }
+
+  public void testOverwrite() {
+    final BinaryDataStore store = new SlabBinaryDataStoreFactory(1024, 4).createDataStore(null);
+    store.put(1L, new byte[] {1, 2, 3 });
+    store.put(1L, new byte[] {4, 5 });
+    assertTrue(Arrays.equals(new byte[] {4, 5 }, store.get(1L)));
+    store.delete();
+  }
+
+  public void testOversizedValue() {
+    final SlabBinaryDataStoreFactory factory = new SlabBinaryDataStoreFactory(64, 4);
+    final SlabBinaryDataStore store = (SlabBinaryDataStore) factory.createDataStore(null);
+    final byte[] small = new byte[] {1, 2, 3 };
+    final byte[] large = randomBytes(new Random(3L), 1000);
+    store.put(1L, small);
+    store.put(2L, large);
+    store.put(3L, small);
+    assertTrue(Arrays.equals(small, store.get(1L)));
+    assertTrue(Arrays.equals(large, store.get(2L)));
+    assertTrue(Arrays.equals(small, store.get(3L)));
+    assertEquals(3, store.getSlabCount());
+    store.delete();
+    // The oversized slab is not pooled
+    assertEquals(2, factory.getPooledSlabCount());
+  }
+
+  public void testSlabReuse() {
+    final SlabBinaryDataStoreFactory factory = new SlabBinaryDataStoreFactory(64, 2);
+    final SlabBinaryDataStore store1 = (SlabBinaryDataStore) factory.createDataStore(null);
+    for (long i = 0; i < 10; i++) {
+      store1.put(i, new byte[40]);
+    }
+    assertEquals(10, store1.getSlabCount());
+    store1.delete();
+    assertNull(store1.get(0L));
+    assertEquals(2, factory.getPooledSlabCount());
+    final SlabBinaryDataStore store2 = (SlabBinaryDataStore) factory.createDataStore(null);
+    store2.put(0L, new byte[] {1 });
+    assertEquals(1, factory.getPooledSlabCount());
+    assertTrue(Arrays.equals(new byte[] {1 }, store2.get(0L)));
+    store2.delete();
+  }
+
+}
@@ -13,6 +13,8 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.Future;
 import java.util.concurrent.LinkedBlockingQueue;
@@ -124,7 +126,13 @@ public class MultipleNodeExecutorTest {
   }
 
   private MultipleNodeExecutor createExecutor(final int minimum, final int maximum, final int concurrency) {
-    return new MultipleNodeExecutor(null, minimum, maximum, 0, Integer.MAX_VALUE, concurrency, new FunctionCosts(), new ExecutionPlanCache(EHCacheUtils.createCacheManager(), 0)) {
+    return createExecutor(minimum, maximum, concurrency, false, new LinkedList<CalculationJob>());
+  }
+
+  private MultipleNodeExecutor createExecutor(final int minimum, final int maximum, final int concurrency, final boolean criticalPathScheduling,
+      final List<CalculationJob> dispatched) {
+    return new MultipleNodeExecutor(null, minimum, maximum, 0, Integer.MAX_VALUE, concurrency, new FunctionCosts(), new ExecutionPlanCache(EHCacheUtils.createCacheManager(), 0),
+        criticalPathScheduling) {
 
       @Override
       protected long getFunctionInitId() {
@@ -144,6 +152,7 @@ public class MultipleNodeExecutorTest {
       @Override
       protected Cancelable dispatchJob(final CalculationJob job, final JobResultReceiver jobResultReceiver) {
         // No action - we're just testing graph construction
+        dispatched.add(job);
         return new Cancelable() {
           @Override
           public boolean cancel(final boolean mayInterrupt) {
@@ -529,4 +538,29 @@ public class MultipleNodeExecutorTest {
     assertEquals(7, mask);
   }
 
+  /**
+   * N2 has the longest remaining path (through N0, N1 and N4) so is dispatched before N3.
+   */
+  public void testCriticalPathScheduling() {
+    final List<CalculationJob> dispatched = new LinkedList<CalculationJob>();
+    final MultipleNodeExecutor executor = createExecutor(1, 1, 0, true, dispatched);
+    final RootGraphFragmentFuture root = execute(executor, _testGraph);
+    long path2 = 0;
+    long path3 = 0;
+    for (GraphFragment<?> fragment : root.getFragment().getInputFragments()) {
+      for (GraphFragment<?> input : fragment.getInputFragments()) {
+        assertTrue(input.getCriticalPath() > fragment.getCriticalPath());
+        if (singletonFragment(input, _testNode[2])) {
+          path2 = input.getCriticalPath();
+        } else if (singletonFragment(input, _testNode[3])) {
+          path3 = input.getCriticalPath();
+        }
+      }
+    }
+    assertTrue(path2 > path3);
+    assertEquals(2, dispatched.size());
+    assertEquals(_testNode[2].getComputationTarget(), dispatched.get(0).getJobItems().get(0).getComputationTargetSpecification());
+    assertEquals(_testNode[3].getComputationTarget(), dispatched.get(1).getJobItems().get(0).getComputationTargetSpecification());
+  }
+
 }
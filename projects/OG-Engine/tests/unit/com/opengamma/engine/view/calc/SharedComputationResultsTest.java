@@ -0,0 +1,298 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calc;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNull;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.function.AbstractFunction;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
+import com.opengamma.engine.marketdata.spec.MarketData;
+import com.opengamma.engine.marketdata.spec.MarketDataSpecification;
+import com.opengamma.engine.test.TestViewResultListener;
+import com.opengamma.engine.test.ViewProcessorTestEnvironment;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueProperties;
+import com.opengamma.engine.value.ValuePropertyNames;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.engine.view.ViewProcessorImpl;
+import com.opengamma.engine.view.client.ViewClient;
+import com.opengamma.engine.view.execution.ExecutionFlags;
+import com.opengamma.engine.view.execution.ExecutionOptions;
+import com.opengamma.engine.view.execution.ViewExecutionOptions;
+import com.opengamma.id.UniqueId;
+import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.test.Timeout;
+
+/**
+ * Tests the {@link SharedComputationResults} class.
+ */
+@Test
+public class SharedComputationResultsTest {
+
+  private static final UniqueId PROCESS_1 = UniqueId.of("ViewProcess", "1");
+  private static final UniqueId PROCESS_2 = UniqueId.of("ViewProcess", "2");
+  private static final UniqueId PROCESS_3 = UniqueId.of("ViewProcess", "3");
+  private static final MarketDataSpecification MARKET_DATA_1 = MarketData.live();
+  private static final MarketDataSpecification MARKET_DATA_2 = MarketData.live("Other");
+  private static final ValueSpecification VALUE = new ValueSpecification(new ValueRequirement("Foo", ComputationTargetType.PRIMITIVE, UniqueId.of("Test", "1")),
+      ValueProperties.with(ValuePropertyNames.FUNCTION, "Test").get());
+
+  private static final String SHARED_VALUE = "Shared";
+
+  private static ViewCalculationConfiguration calcConfig(final String viewName, final String calcConfigName) {
+    final ViewDefinition viewDefinition = new ViewDefinition(viewName, UserPrincipal.getTestUser());
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, calcConfigName);
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    return calcConfig;
+  }
+
+  private static void publish(final SharedComputationResults results, final UniqueId viewProcessId, final MarketDataSpecification marketDataSpec,
+      final Instant valuationTime,
+      final ViewCalculationConfiguration calcConfig) {
+    final Map<ValueSpecification, Object> values = Collections.<ValueSpecification, Object>singletonMap(VALUE, 42d);
+    results.publish(viewProcessId, marketDataSpec, valuationTime, Collections.<ValueRequirement, Object>emptyMap(), Collections.singletonMap(calcConfig, values));
+  }
+
+  public void findByMarketData() {
+    final SharedComputationResults results = new SharedComputationResults(SharedComputationResults.DEFAULT_MAX_PUBLISHED, 0);
+    final Instant now = Instant.now();
+    publish(results, PROCESS_1, MARKET_DATA_1, now, calcConfig("View1", "Default"));
+    assertEquals(1, results.getPublishedCount());
+    assertTrue(results.find(MARKET_DATA_1, now, PROCESS_1).isEmpty());
+    assertTrue(results.find(MARKET_DATA_2, now, PROCESS_2).isEmpty());
+    assertTrue(results.find(MARKET_DATA_1, now.plusSeconds(1), PROCESS_2).isEmpty());
+    final Collection<SharedComputationResults.Published> published = results.find(MarketData.live(), now, PROCESS_2);
+    assertEquals(1, published.size());
+    assertSame(PROCESS_1, published.iterator().next().getViewProcessId());
+  }
+
+  public void valuationTimeTolerance() {
+    final SharedComputationResults results = new SharedComputationResults(SharedComputationResults.DEFAULT_MAX_PUBLISHED, 1000);
+    final Instant now = Instant.now();
+    publish(results, PROCESS_1, MARKET_DATA_1, now, calcConfig("View1", "Default"));
+    assertEquals(1, results.find(MARKET_DATA_1, now.plusMillis(1000), PROCESS_2).size());
+    assertEquals(1, results.find(MARKET_DATA_1, now.minusMillis(1000), PROCESS_2).size());
+    assertTrue(results.find(MARKET_DATA_1, now.plusMillis(1001), PROCESS_2).isEmpty());
+    assertTrue(results.find(MARKET_DATA_1, now.minusMillis(1001), PROCESS_2).isEmpty());
+  }
+
+  public void republishReplaces() {
+    final SharedComputationResults results = new SharedComputationResults();
+    final Instant now = Instant.now();
+    publish(results, PROCESS_1, MARKET_DATA_1, now, calcConfig("View1", "Default"));
+    publish(results, PROCESS_1, MARKET_DATA_2, now, calcConfig("View1", "Default"));
+    assertEquals(1, results.getPublishedCount());
+    assertTrue(results.find(MARKET_DATA_1, now, PROCESS_2).isEmpty());
+    assertEquals(1, results.find(MARKET_DATA_2, now, PROCESS_2).size());
+    results.remove(PROCESS_1);
+    assertEquals(0, results.getPublishedCount());
+    assertTrue(results.find(MARKET_DATA_2, now, PROCESS_2).isEmpty());
+  }
+
+  public void retentionCapped() {
+    final SharedComputationResults results = new SharedComputationResults(2);
+    final Instant now = Instant.now();
+    publish(results, PROCESS_1, MARKET_DATA_1, now, calcConfig("View1", "Default"));
+    publish(results, PROCESS_2, MARKET_DATA_1, now, calcConfig("View2", "Default"));
+    assertEquals(2, results.find(MARKET_DATA_1, now, PROCESS_3).size());
+    publish(results, PROCESS_3, MARKET_DATA_2, now, calcConfig("View3", "Default"));
+    // The oldest is discarded
+    assertEquals(2, results.getPublishedCount());
+    final Collection<SharedComputationResults.Published> published = results.find(MARKET_DATA_1, now, PROCESS_3);
+    assertEquals(1, published.size());
+    assertSame(PROCESS_2, published.iterator().next().getViewProcessId());
+    // Republishing makes a process the most recent
+    publish(results, PROCESS_2, MARKET_DATA_2, now, calcConfig("View2", "Default"));
+    publish(results, PROCESS_1, MARKET_DATA_2, now, calcConfig("View1", "Default"));
+    assertEquals(2, results.find(MARKET_DATA_2, now, PROCESS_3).size());
+  }
+
+  public void compatibleConfigurations() {
+    final SharedComputationResults results = new SharedComputationResults();
+    final Instant now = Instant.now();
+    publish(results, PROCESS_1, MARKET_DATA_1, now, calcConfig("View1", "Default"));
+    final SharedComputationResults.Published published = results.find(MARKET_DATA_1, now, PROCESS_2).iterator().next();
+    // Different view, same configuration
+    assertEquals(42d, published.getValues(calcConfig("View2", "Default")).get(VALUE));
+    // Different configuration name
+    assertNull(published.getValues(calcConfig("View2", "Other")));
+    // Different default properties
+    final ViewCalculationConfiguration shifted = calcConfig("View2", "Default");
+    shifted.setDefaultProperties(ValueProperties.with("MARKET_DATA_SHIFT", "*1.01").get());
+    assertNull(published.getValues(shifted));
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Doubles the first primitive's market data value, counting its invocations.
+   */
+  private static class CountingFunction extends AbstractFunction.NonCompiledInvoker {
+
+    private final AtomicInteger _invocations = new AtomicInteger();
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.PRIMITIVE;
+    }
+
+    @Override
+    public boolean canApplyTo(final FunctionCompilationContext context, final ComputationTarget target) {
+      return target.getUniqueId().equals(ViewProcessorTestEnvironment.getPrimitive1().getTargetSpecification().getUniqueId());
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification(SHARED_VALUE, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      return Collections.singleton(ViewProcessorTestEnvironment.getPrimitive1());
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      _invocations.incrementAndGet();
+      final double input = ((Number) inputs.getValue(ViewProcessorTestEnvironment.getPrimitive1())).doubleValue();
+      return Collections.singleton(new ComputedValue(getResults(null, target).iterator().next(), input * 2));
+    }
+
+    public int getInvocations() {
+      return _invocations.get();
+    }
+
+  }
+
+  private static ViewDefinition viewDefinition(final String name, final ValueRequirement... requirements) {
+    final ViewDefinition viewDefinition = new ViewDefinition(UniqueId.of("Test", name), name, ViewProcessorTestEnvironment.TEST_USER);
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, ViewProcessorTestEnvironment.TEST_CALC_CONFIG_NAME);
+    for (ValueRequirement requirement : requirements) {
+      calcConfig.addSpecificRequirement(requirement);
+    }
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    return viewDefinition;
+  }
+
+  private static ViewComputationResultModel executeCycle(final ViewProcessorImpl viewProcessor, final ViewDefinition viewDefinition,
+      final ViewExecutionOptions executionOptions) throws InterruptedException {
+    final ViewClient client = viewProcessor.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+    final TestViewResultListener resultListener = new TestViewResultListener();
+    client.setResultListener(resultListener);
+    client.attachToViewProcess(viewDefinition.getUniqueId(), executionOptions);
+    // The client is left attached so that its process, and the values it published, are retained
+    return resultListener.getCycleCompleted(Timeout.standardTimeoutMillis()).getFullResult();
+  }
+
+  private static Object getSharedValue(final ViewComputationResultModel result) {
+    final ComputationTargetSpecification target = ViewProcessorTestEnvironment.getPrimitive1().getTargetSpecification();
+    for (ComputedValue value : result.getCalculationResult(ViewProcessorTestEnvironment.TEST_CALC_CONFIG_NAME).getAllValues(target)) {
+      if (SHARED_VALUE.equals(value.getSpecification().getValueName())) {
+        return value.getValue();
+      }
+    }
+    return null;
+  }
+
+  public void sharedBetweenViewProcesses() throws InterruptedException {
+    final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+    final CountingFunction function = new CountingFunction();
+    final InMemoryFunctionRepository functions = new InMemoryFunctionRepository();
+    functions.addFunction(function);
+    env.setFunctionRepository(functions);
+    final InMemoryLKVMarketDataProvider marketData = new InMemoryLKVMarketDataProvider();
+    marketData.addValue(ViewProcessorTestEnvironment.getPrimitive1(), 1d);
+    marketData.addValue(ViewProcessorTestEnvironment.getPrimitive2(), 2d);
+    env.setMarketDataProvider(marketData);
+    final ValueRequirement shared = new ValueRequirement(SHARED_VALUE, ViewProcessorTestEnvironment.getPrimitive1().getTargetSpecification());
+    final ViewDefinition view1 = viewDefinition("View1", shared);
+    final ViewDefinition view2 = viewDefinition("View2", shared, ViewProcessorTestEnvironment.getPrimitive2());
+    env.setViewDefinition(view1);
+    env.init();
+    env.getMockViewDefinitionRepository().addDefinition(view2);
+    final SharedComputationResults sharedResults = new SharedComputationResults();
+    final ViewProcessorImpl vp = env.getViewProcessor();
+    vp.setSharedComputationResults(sharedResults);
+    vp.start();
+    try {
+      final Instant valuationTime = Instant.now();
+      final ViewExecutionOptions executionOptions = ExecutionOptions.singleCycle(valuationTime, MarketData.live(),
+          ExecutionFlags.none().runAsFastAsPossible().awaitMarketData().shareResults().get());
+      final ViewComputationResultModel result1 = executeCycle(vp, view1, executionOptions);
+      assertEquals(2d, getSharedValue(result1));
+      assertEquals(1, function.getInvocations());
+      assertEquals(1, sharedResults.getPublishedCount());
+      // Only the terminal output is published, not the market data it was calculated from
+      final SharedComputationResults.Published published = sharedResults.find(MarketData.live(), valuationTime, PROCESS_3).iterator().next();
+      final Map<ValueSpecification, Object> publishedValues = published.getValues(view1.getCalculationConfiguration(ViewProcessorTestEnvironment.TEST_CALC_CONFIG_NAME));
+      assertEquals(1, publishedValues.size());
+      assertEquals(SHARED_VALUE, publishedValues.keySet().iterator().next().getValueName());
+      // The second view's value is taken from the first view's cycle, although its live snapshot is a different one
+      final ViewComputationResultModel result2 = executeCycle(vp, view2, executionOptions);
+      assertEquals(2d, getSharedValue(result2));
+      assertEquals(1, function.getInvocations());
+      assertEquals(1, sharedResults.getReusedNodeCount());
+      assertEquals(2, sharedResults.getPublishedCount());
+    } finally {
+      vp.stop();
+    }
+  }
+
+  public void notSharedWithoutFlag() throws InterruptedException {
+    final ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+    final CountingFunction function = new CountingFunction();
+    final InMemoryFunctionRepository functions = new InMemoryFunctionRepository();
+    functions.addFunction(function);
+    env.setFunctionRepository(functions);
+    final InMemoryLKVMarketDataProvider marketData = new InMemoryLKVMarketDataProvider();
+    marketData.addValue(ViewProcessorTestEnvironment.getPrimitive1(), 1d);
+    env.setMarketDataProvider(marketData);
+    final ValueRequirement shared = new ValueRequirement(SHARED_VALUE, ViewProcessorTestEnvironment.getPrimitive1().getTargetSpecification());
+    final ViewDefinition view1 = viewDefinition("View1", shared);
+    final ViewDefinition view2 = viewDefinition("View2", shared);
+    env.setViewDefinition(view1);
+    env.init();
+    env.getMockViewDefinitionRepository().addDefinition(view2);
+    final SharedComputationResults sharedResults = new SharedComputationResults();
+    final ViewProcessorImpl vp = env.getViewProcessor();
+    vp.setSharedComputationResults(sharedResults);
+    vp.start();
+    try {
+      final ViewExecutionOptions executionOptions = ExecutionOptions.singleCycle(Instant.now(), MarketData.live());
+      executeCycle(vp, view1, executionOptions);
+      executeCycle(vp, view2, executionOptions);
+      assertEquals(2, function.getInvocations());
+      assertEquals(0, sharedResults.getPublishedCount());
+    } finally {
+      vp.stop();
+    }
+  }
+
+}
@@ -17,6 +17,7 @@ import com.opengamma.engine.test.TestCalculationNode;
 import com.opengamma.engine.value.ComputedValue;
 import com.opengamma.engine.value.ValueSpecification;
 import com.opengamma.engine.view.cache.ViewComputationCache;
+import com.opengamma.engine.view.calcnode.stats.CycleTrace;
 
 /**
  * Tests the {@link SimpleCalculationNode} class. Note the name so that Clover doesn't ignore it.
@@ -40,6 +41,19 @@ public class CalculationNodeTest {
     assertEquals(InvocationResult.MISSING_INPUTS, resultItem.getResult());
   }
 
+  public void mockFunctionInvocationOneInputMissingTraced() throws Exception {
+    MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
+    TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
+    CalculationJob calcJob = CalculationNodeUtils.getCalculationJob(mockFunction);
+    CycleTrace trace = new CycleTrace("Test");
+    calcJob.setTrace(trace);
+    
+    CalculationJobResult jobResult = calcNode.executeJob(calcJob);
+    assertEquals(InvocationResult.MISSING_INPUTS, jobResult.getResultItems().get(0).getResult());
+    // The invocation is recorded even though it returned early
+    assertTrue(trace.toChromeTrace().contains("\"cat\":\"node\",\"name\":\"" + mockFunction.getUniqueId() + "\""));
+  }
+
   public void mockFunctionInvocationOneInputOneOutput() throws Exception {
     MockFunction mockFunction = CalculationNodeUtils.getMockFunction();
     TestCalculationNode calcNode = CalculationNodeUtils.getTestCalcNode(mockFunction);
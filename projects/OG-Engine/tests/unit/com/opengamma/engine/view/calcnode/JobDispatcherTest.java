@@ -430,4 +430,27 @@ public class JobDispatcherTest {
     assertTrue (blockingInvoker.isCancelled ());
   }
 
+  @Test(invocationCount = 3, successPercentage = 25)
+  public void testAdaptiveSpeculativeDispatch() {
+    s_logger.info("testAdaptiveSpeculativeDispatch");
+    final JobDispatcher jobDispatcher = new JobDispatcher();
+    jobDispatcher.setAdaptiveDispatch(true);
+    jobDispatcher.setMinSpeculationSamples(5);
+    final TestJobInvoker fastInvoker = new TestJobInvoker("fast");
+    jobDispatcher.registerJobInvoker(fastInvoker);
+    for (int i = 0; i < 10; i++) {
+      nodeTest("fast", jobDispatcher);
+    }
+    assertEquals(10, jobDispatcher.getLatency().getCount());
+    assertEquals(0, jobDispatcher.getSpeculativeDispatchCount());
+    // The blocking invoker has no latency history so is expected to be quicker; the job must be copied to the fast one
+    final BlockingJobInvoker blockingInvoker = new BlockingJobInvoker(2 * TIMEOUT);
+    jobDispatcher.registerJobInvoker(blockingInvoker);
+    nodeTest("fast", jobDispatcher);
+    assertEquals(1, jobDispatcher.getSpeculativeDispatchCount());
+    assertTrue(blockingInvoker.isCancelled());
+    assertEquals(Integer.valueOf(0), jobDispatcher.getInvokerQueueDepth().get("blocking"));
+    assertEquals(Integer.valueOf(0), jobDispatcher.getInvokerQueueDepth().get("fast"));
+  }
+
 }
@@ -0,0 +1,51 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.calcnode.stats;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link CycleTrace} class.
+ */
+@Test
+public class CycleTraceTest {
+
+  public void testEmpty() {
+    final CycleTrace trace = new CycleTrace("Cycle");
+    assertEquals(0, trace.getEventCount());
+    assertEquals("{\"traceEvents\":[\n],\"displayTimeUnit\":\"ms\"}", trace.toChromeTrace());
+  }
+
+  public void testChromeTrace() {
+    final CycleTrace trace = new CycleTrace("Cycle");
+    final long start = System.nanoTime();
+    trace.record(CycleTrace.CATEGORY_NODE, "Function", "Node \"1\"", start, start + 2500, "Target\n1");
+    trace.record(CycleTrace.CATEGORY_CACHE, "get", "Node \"1\"", start, start + 1000, null);
+    assertEquals(2, trace.getEventCount());
+    final String json = trace.toChromeTrace();
+    assertTrue(json.startsWith("{\"traceEvents\":["));
+    assertTrue(json.contains("\"ph\":\"X\",\"pid\":\"Cycle\",\"tid\":\"Node \\\"1\\\"\",\"cat\":\"node\",\"name\":\"Function\""));
+    assertTrue(json.contains("\"dur\":2.5,\"args\":{\"detail\":\"Target\\n1\"}"));
+    assertTrue(json.contains("\"cat\":\"cache\",\"name\":\"get\""));
+    assertTrue(json.contains("\"dur\":1.0}"));
+  }
+
+  public void testEventLimit() {
+    final CycleTrace trace = new CycleTrace("Cycle", 2);
+    for (int i = 0; i < 5; i++) {
+      trace.record(CycleTrace.CATEGORY_DISPATCH, "Job" + i, "Invoker", 0, 0, null);
+    }
+    assertEquals(5, trace.getEventCount());
+    final String json = trace.toChromeTrace();
+    assertTrue(json.contains("\"Job1\""));
+    assertFalse(json.contains("\"Job2\""));
+  }
+
+}
@@ -48,6 +48,7 @@ import com.opengamma.engine.view.ViewProcessState;
 import com.opengamma.engine.view.ViewProcessorImpl;
 import com.opengamma.engine.view.ViewResultModel;
 import com.opengamma.engine.view.calc.ViewComputationJob;
+import com.opengamma.engine.view.execution.ExecutionFlags;
 import com.opengamma.engine.view.execution.ExecutionOptions;
 import com.opengamma.engine.view.listener.CycleStartedCall;
 import com.opengamma.id.ExternalId;
@@ -250,6 +251,49 @@ public class ViewClientTest {
     assertComputationResult(expected, env.getCalculationResult(result2));
   }
   
+  @Test
+  public void testIncrementalCycleResults() throws InterruptedException {
+    ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
+    SynchronousInMemoryLKVSnapshotProvider marketDataProvider = new SynchronousInMemoryLKVSnapshotProvider();
+    marketDataProvider.addValue(ViewProcessorTestEnvironment.getPrimitive1(), 1);
+    marketDataProvider.addValue(ViewProcessorTestEnvironment.getPrimitive2(), 2);
+    env.setMarketDataProvider(marketDataProvider);
+    env.init();
+    
+    ViewProcessorImpl vp = env.getViewProcessor();
+    vp.start();
+    
+    ViewClient client = vp.createViewClient(ViewProcessorTestEnvironment.TEST_USER);
+    TestViewResultListener resultListener = new TestViewResultListener();
+    client.setResultListener(resultListener);
+    client.attachToViewProcess(env.getViewDefinition().getUniqueId(),
+        ExecutionOptions.infinite(MarketData.live(), ExecutionFlags.triggersEnabled().incrementalCycles().get()));
+    resultListener.assertViewDefinitionCompiled(TIMEOUT);
+    resultListener.assertCycleStarted(TIMEOUT);
+    resultListener.assertCycleFragmentCompleted(TIMEOUT);
+    ViewComputationResultModel result1 = resultListener.getCycleCompleted(TIMEOUT).getFullResult();
+    
+    Map<ValueRequirement, Object> expected = new HashMap<ValueRequirement, Object>();
+    expected.put(ViewProcessorTestEnvironment.getPrimitive1(), (byte) 1);
+    expected.put(ViewProcessorTestEnvironment.getPrimitive2(), (byte) 2);
+    assertComputationResult(expected, env.getCalculationResult(result1));
+    
+    // Only the first value is recalculated; the second must be taken from the values retained by the previous cycle
+    ViewProcessImpl viewProcess = env.getViewProcess(vp, client.getUniqueId());
+    for (int i = 3; i < 6; i++) {
+      client.pause();
+      marketDataProvider.addValue(ViewProcessorTestEnvironment.getPrimitive1(), i);
+      env.getCurrentComputationJob(viewProcess).marketDataChanged();
+      client.resume();
+      resultListener.assertCycleStarted(TIMEOUT);
+      resultListener.assertCycleFragmentCompleted(TIMEOUT);
+      ViewComputationResultModel result = resultListener.getCycleCompleted(TIMEOUT).getFullResult();
+      expected.put(ViewProcessorTestEnvironment.getPrimitive1(), (byte) i);
+      assertComputationResult(expected, env.getCalculationResult(result));
+    }
+    client.shutdown();
+  }
+  
   @Test
   public void testStates() throws InterruptedException {
     ViewProcessorTestEnvironment env = new ViewProcessorTestEnvironment();
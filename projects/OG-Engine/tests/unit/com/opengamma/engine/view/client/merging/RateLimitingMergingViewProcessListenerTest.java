@@ -7,11 +7,16 @@ package com.opengamma.engine.view.client.merging;
 
 import static org.mockito.Mockito.mock;
 import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertNotSame;
 import static org.testng.AssertJUnit.assertTrue;
 
 import java.util.HashSet;
 import java.util.Set;
-import java.util.Timer;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
 
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -28,8 +33,11 @@ import com.opengamma.engine.view.ViewDeltaResultModel;
 import com.opengamma.engine.view.ViewResultEntry;
 import com.opengamma.engine.view.calc.EngineResourceManagerImpl;
 import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphsImpl;
+import com.opengamma.engine.view.listener.AbstractViewResultListener;
 import com.opengamma.engine.view.listener.ViewResultListener;
 import com.opengamma.id.UniqueId;
+import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.monitor.MetricRegistry;
 import com.opengamma.util.test.Timeout;
 import com.opengamma.util.tuple.Pair;
 
@@ -44,42 +52,71 @@ public class RateLimitingMergingViewProcessListenerTest {
   @Test
   public void testPassThrough() {
     TestViewResultListener testListener = new TestViewResultListener();
-    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), new Timer("Custom timer"));
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
 
-    // OK, it doesn't really test the 'synchronous' bit, but it at least checks that no merging has happened.
+    // Results are delivered on another thread; any arriving while it is busy are merged, so the latest is always delivered
     addCompile(mergingListener);
-    addResults(mergingListener, 1000);
-    testListener.assertViewDefinitionCompiled();
-    testListener.assertMultipleCycleCompleted(1000);
+    testListener.assertViewDefinitionCompiled(Timeout.standardTimeoutMillis());
+    assertLatestCycleCompleted(testListener, addResults(mergingListener, 1000));
     testListener.assertNoCalls();
 
     mergingListener.setPaused(true);
     addResults(mergingListener, 1000);
     testListener.assertNoCalls();
     mergingListener.setPaused(false);
-    testListener.assertCycleCompleted();
+    testListener.assertCycleCompleted(Timeout.standardTimeoutMillis());
     testListener.assertNoCalls();
 
     mergingListener.setPaused(false);
-    addResults(mergingListener, 1000);
-    testListener.assertMultipleCycleCompleted(1000);
+    assertLatestCycleCompleted(testListener, addResults(mergingListener, 1000));
 
     mergingListener.processTerminated(false);
-    testListener.assertProcessTerminated();
+    testListener.assertProcessTerminated(Timeout.standardTimeoutMillis());
     testListener.assertNoCalls();
     
     mergingListener.processTerminated(false);
   }
 
+  @Test
+  public void testPassThroughNotOnProducerThread() throws InterruptedException {
+    final CountDownLatch delivered = new CountDownLatch(1);
+    final AtomicReference<Thread> deliveryThread = new AtomicReference<Thread>();
+    ViewResultListener listener = new AbstractViewResultListener() {
+
+      @Override
+      public UserPrincipal getUser() {
+        return UserPrincipal.getTestUser();
+      }
+
+      @Override
+      public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+        deliveryThread.set(Thread.currentThread());
+        delivered.countDown();
+      }
+
+      @Override
+      public void cycleFragmentCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+      }
+
+    };
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(listener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
+    addResults(mergingListener, 1);
+    assertTrue(delivered.await(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS));
+    assertNotSame(Thread.currentThread(), deliveryThread.get());
+  }
+
   @Test
   public void testMergingWhenRateLimiting() throws InterruptedException {
     TestViewResultListener testListener = new TestViewResultListener();
-    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), new Timer("Custom timer"));
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
     mergingListener.setMinimumUpdatePeriodMillis(500);
 
     addResults(mergingListener, 1000);
     Thread.sleep(500);
-    testListener.assertCycleCompleted();
+    testListener.assertCycleCompleted(Timeout.standardTimeoutMillis());
     testListener.assertNoCalls();
 
     mergingListener.terminate();
@@ -88,7 +125,8 @@ public class RateLimitingMergingViewProcessListenerTest {
   @Test
   public void testModifiableUpdatePeriod() throws InterruptedException {
     TestViewResultListener testListener = new TestViewResultListener();
-    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), new Timer("Custom timer"));
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
 
     assertCorrectUpdateRate(mergingListener, testListener, 100);
     assertCorrectUpdateRate(mergingListener, testListener, 400);
@@ -100,7 +138,8 @@ public class RateLimitingMergingViewProcessListenerTest {
   @Test
   public void testCallOrderingAndCollapsing() throws InterruptedException {
     TestViewResultListener testListener = new TestViewResultListener();
-    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), new Timer("Custom timer"));
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
    
     mergingListener.setPaused(true);
     testListener.assertNoCalls();
@@ -141,11 +180,94 @@ public class RateLimitingMergingViewProcessListenerTest {
     assertTrue(results.contains(Pair.of("value2", 2)));
     
     testListener.assertViewDefinitionCompiled(Timeout.standardTimeoutMillis(), postCompilation);
-    testListener.assertProcessCompleted();
-    testListener.assertProcessTerminated();
+    testListener.assertProcessCompleted(Timeout.standardTimeoutMillis());
+    testListener.assertProcessTerminated(Timeout.standardTimeoutMillis());
     testListener.assertNoCalls();
   }
   
+  @Test
+  public void testConflateMergesDeltas() throws InterruptedException {
+    TestViewResultListener testListener = new TestViewResultListener();
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(testListener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
+    mergingListener.setBackPressurePolicy(BackPressurePolicy.CONFLATE);
+    mergingListener.setPaused(true);
+
+    // A client receiving only deltas
+    mergingListener.cycleCompleted(null, getDeltaResult(1));
+    mergingListener.cycleCompleted(null, getDeltaResult(2));
+    mergingListener.cycleCompleted(null, getDeltaResult(3));
+    assertEquals(2, mergingListener.getMergedResultCount());
+    assertEquals(1, mergingListener.getPendingCallCount());
+    mergingListener.setPaused(false);
+
+    ViewDeltaResultModel mergedDelta = testListener.getCycleCompleted(Timeout.standardTimeoutMillis()).getDeltaResult();
+    assertEquals(3, mergedDelta.getAllResults().size());
+    Set<Pair<String, Integer>> results = new HashSet<Pair<String, Integer>>();
+    for (ViewResultEntry deltaItem : mergedDelta.getAllResults()) {
+      results.add(Pair.of(deltaItem.getComputedValue().getSpecification().getValueName(), (Integer) deltaItem.getComputedValue().getValue()));
+    }
+    assertTrue(results.contains(Pair.of("value1", 1)));
+    assertTrue(results.contains(Pair.of("value2", 2)));
+    assertTrue(results.contains(Pair.of("value3", 3)));
+    testListener.assertNoCalls();
+    mergingListener.terminate();
+  }
+
+  @Test
+  public void testSlowListenerDoesNotBlockProducer() throws InterruptedException {
+    final CountDownLatch delivering = new CountDownLatch(1);
+    final CountDownLatch release = new CountDownLatch(1);
+    final AtomicInteger results = new AtomicInteger();
+    ViewResultListener slowListener = new AbstractViewResultListener() {
+
+      @Override
+      public UserPrincipal getUser() {
+        return UserPrincipal.getTestUser();
+      }
+
+      @Override
+      public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+        results.incrementAndGet();
+        delivering.countDown();
+        try {
+          release.await(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException e) {
+          Thread.currentThread().interrupt();
+        }
+      }
+
+      @Override
+      public void cycleFragmentCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
+      }
+
+    };
+    RateLimitingMergingViewProcessListener mergingListener = new RateLimitingMergingViewProcessListener(slowListener, mock(EngineResourceManagerImpl.class), Executors.newSingleThreadScheduledExecutor(),
+        Executors.newCachedThreadPool());
+    mergingListener.setBackPressurePolicy(BackPressurePolicy.DROP_FRAGMENTS);
+    mergingListener.setMinimumUpdatePeriodMillis(50);
+    final long mergedBefore = MetricRegistry.getDefault().counter("engine.viewclient.delivery.merged").getCount();
+    addResults(mergingListener, 1);
+    assertTrue(delivering.await(Timeout.standardTimeoutMillis(), TimeUnit.MILLISECONDS));
+
+    // The listener is blocked; further results must be merged without waiting for it
+    addResults(mergingListener, 100);
+    mergingListener.cycleFragmentCompleted(mock(ViewComputationResultModel.class), null);
+    assertEquals(99, mergingListener.getMergedResultCount());
+    assertEquals(1, mergingListener.getDroppedFragmentCount());
+    assertEquals(1, mergingListener.getPendingCallCount());
+    assertTrue(mergingListener.getDeliveryLagMillis() >= 0);
+    assertTrue(MetricRegistry.getDefault().counter("engine.viewclient.delivery.merged").getCount() - mergedBefore >= 99);
+
+    release.countDown();
+    long timeout = System.currentTimeMillis() + Timeout.standardTimeoutMillis();
+    while ((results.get() < 2) && (System.currentTimeMillis() < timeout)) {
+      Thread.sleep(10);
+    }
+    assertEquals(2, results.get());
+    mergingListener.terminate();
+  }
+
   private ViewDeltaResultModel getDeltaResult(int value) {
     InMemoryViewDeltaResultModel deltaResult = new InMemoryViewDeltaResultModel();
     deltaResult.addValue("DEFAULT", getComputedValue("value" + value, value));
@@ -171,7 +293,7 @@ public class RateLimitingMergingViewProcessListenerTest {
     testListener.assertNoCalls();
     mergingListener.setPaused(false);
     Thread.sleep(2 * period);
-    testListener.assertCycleCompleted();
+    testListener.assertCycleCompleted(Timeout.standardTimeoutMillis());
     testListener.assertNoCalls();
 
     // Once unpaused, everything should be back to normal
@@ -193,10 +315,24 @@ public class RateLimitingMergingViewProcessListenerTest {
     testListener.clear();
   }
 
-  private void addResults(ViewResultListener listener, int count) {
+  private ViewComputationResultModel addResults(ViewResultListener listener, int count) {
+    ViewComputationResultModel result = null;
     for (int i = 0; i < count; i++) {
-      listener.cycleCompleted(mock(ViewComputationResultModel.class), null);
+      result = mock(ViewComputationResultModel.class);
+      listener.cycleCompleted(result, null);
     }
+    return result;
+  }
+
+  private void assertLatestCycleCompleted(TestViewResultListener testListener, ViewComputationResultModel latestResult) {
+    ViewComputationResultModel result;
+    do {
+      try {
+        result = testListener.getCycleCompleted(Timeout.standardTimeoutMillis()).getFullResult();
+      } catch (Exception e) {
+        throw new AssertionError("Expected cycleCompleted call error: " + e.getMessage());
+      }
+    } while (result != latestResult);
   }
   
   private void addCompile(ViewResultListener listener) {
@@ -0,0 +1,398 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.engine.view.compilation;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertFalse;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.math.BigDecimal;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import javax.time.Instant;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.DataNotFoundException;
+import com.opengamma.core.change.ChangeManager;
+import com.opengamma.core.change.DummyChangeManager;
+import com.opengamma.core.position.Portfolio;
+import com.opengamma.core.position.PortfolioNode;
+import com.opengamma.core.position.Position;
+import com.opengamma.core.position.PositionSource;
+import com.opengamma.core.position.Trade;
+import com.opengamma.core.position.impl.SimplePortfolio;
+import com.opengamma.core.position.impl.SimplePortfolioNode;
+import com.opengamma.core.position.impl.SimplePosition;
+import com.opengamma.core.security.impl.SimpleSecurity;
+import com.opengamma.engine.ComputationTarget;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.DefaultComputationTargetResolver;
+import com.opengamma.engine.depgraph.DependencyGraph;
+import com.opengamma.engine.depgraph.DependencyGraphBuilderFactory;
+import com.opengamma.engine.depgraph.DependencyNode;
+import com.opengamma.engine.function.AbstractFunction;
+import com.opengamma.engine.function.CachingFunctionRepositoryCompiler;
+import com.opengamma.engine.function.CompiledFunctionService;
+import com.opengamma.engine.function.FunctionCompilationContext;
+import com.opengamma.engine.function.FunctionExecutionContext;
+import com.opengamma.engine.function.FunctionInputs;
+import com.opengamma.engine.function.InMemoryFunctionRepository;
+import com.opengamma.engine.function.resolver.DefaultFunctionResolver;
+import com.opengamma.engine.marketdata.InMemoryLKVMarketDataProvider;
+import com.opengamma.engine.test.MockSecuritySource;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.ViewCalculationConfiguration;
+import com.opengamma.engine.view.ViewDefinition;
+import com.opengamma.id.ExternalId;
+import com.opengamma.id.ObjectId;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+
+/**
+ * Tests the {@link IncrementalPortfolioCompiler} class.
+ */
+@Test
+public class IncrementalPortfolioCompilerTest {
+
+  private static final String VALUE = "Value";
+  private static final String SECURITY_TYPE = "Test";
+  private static final String CALC_CONFIG = "Default";
+
+  private static SimplePosition position(final String id) {
+    return new SimplePosition(UniqueId.of("Position", id), BigDecimal.ONE, ExternalId.of("Security", id));
+  }
+
+  private static SimplePortfolioNode node(final String id) {
+    return new SimplePortfolioNode(UniqueId.of("Node", id), id);
+  }
+
+  /**
+   * Creates the structure Root(A(P1, P2), B(P3)) with an optional replacement for P3.
+   */
+  private static SimplePortfolio portfolio(final SimplePosition p3) {
+    final SimplePortfolioNode a = node("A");
+    a.addPosition(position("1"));
+    a.addPosition(position("2"));
+    final SimplePortfolioNode b = node("B");
+    b.addPosition(p3);
+    final SimplePortfolioNode root = node("Root");
+    root.addChildNode(a);
+    root.addChildNode(b);
+    return new SimplePortfolio(UniqueId.of("Portfolio", "Test"), "Test", root);
+  }
+
+  public void testTargets() {
+    final Set<UniqueId> targets = IncrementalPortfolioCompiler.getTargets(portfolio(position("3")));
+    assertEquals(6, targets.size());
+    assertTrue(targets.contains(UniqueId.of("Node", "Root")));
+    assertTrue(targets.contains(UniqueId.of("Position", "3")));
+  }
+
+  public void testNoChange() {
+    assertTrue(IncrementalPortfolioCompiler.getChangedTargets(portfolio(position("3")), portfolio(position("3"))).isEmpty());
+  }
+
+  public void testPositionReplaced() {
+    final Set<UniqueId> changed = IncrementalPortfolioCompiler.getChangedTargets(portfolio(position("3")), portfolio(position("4")));
+    // The position and the aggregate nodes above it are invalid; the other branch is untouched
+    assertEquals(new HashSet<UniqueId>(Arrays.asList(UniqueId.of("Position", "3"), UniqueId.of("Node", "B"), UniqueId.of("Node", "Root"))), changed);
+  }
+
+  public void testPositionAdded() {
+    final SimplePortfolio current = portfolio(position("3"));
+    ((SimplePortfolioNode) current.getRootNode().getChildNodes().get(1)).addPosition(position("4"));
+    final Set<UniqueId> changed = IncrementalPortfolioCompiler.getChangedTargets(portfolio(position("3")), current);
+    assertEquals(new HashSet<UniqueId>(Arrays.asList(UniqueId.of("Node", "B"), UniqueId.of("Node", "Root"))), changed);
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Produces the value on any position, with no inputs.
+   */
+  private static class PositionValueFunction extends AbstractFunction.NonCompiledInvoker {
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.POSITION;
+    }
+
+    @Override
+    public boolean canApplyTo(final FunctionCompilationContext context, final ComputationTarget target) {
+      return true;
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification(VALUE, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      return Collections.emptySet();
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+  /**
+   * Produces the value on any node by aggregating the values of its positions and child nodes.
+   */
+  private static class NodeValueFunction extends AbstractFunction.NonCompiledInvoker {
+
+    @Override
+    public ComputationTargetType getTargetType() {
+      return ComputationTargetType.PORTFOLIO_NODE;
+    }
+
+    @Override
+    public boolean canApplyTo(final FunctionCompilationContext context, final ComputationTarget target) {
+      return true;
+    }
+
+    @Override
+    public Set<ValueSpecification> getResults(final FunctionCompilationContext context, final ComputationTarget target) {
+      return Collections.singleton(new ValueSpecification(VALUE, target.toSpecification(), createValueProperties().get()));
+    }
+
+    @Override
+    public Set<ValueRequirement> getRequirements(final FunctionCompilationContext context, final ComputationTarget target, final ValueRequirement desiredValue) {
+      final PortfolioNode node = target.getPortfolioNode();
+      final Set<ValueRequirement> requirements = new HashSet<ValueRequirement>();
+      for (PortfolioNode child : node.getChildNodes()) {
+        requirements.add(new ValueRequirement(VALUE, new ComputationTargetSpecification(ComputationTargetType.PORTFOLIO_NODE, child.getUniqueId())));
+      }
+      for (Position position : node.getPositions()) {
+        requirements.add(new ValueRequirement(VALUE, new ComputationTargetSpecification(ComputationTargetType.POSITION, position.getUniqueId())));
+      }
+      return requirements;
+    }
+
+    @Override
+    public Set<ComputedValue> execute(final FunctionExecutionContext executionContext, final FunctionInputs inputs, final ComputationTarget target,
+        final Set<ValueRequirement> desiredValues) {
+      throw new UnsupportedOperationException();
+    }
+
+  }
+
+  /**
+   * Position source holding a single portfolio which can be replaced, without changing the identifiers of its content.
+   */
+  private static class TestPositionSource implements PositionSource {
+
+    private final Map<ObjectId, PortfolioNode> _nodes = new ConcurrentHashMap<ObjectId, PortfolioNode>();
+    private final Map<ObjectId, Position> _positions = new ConcurrentHashMap<ObjectId, Position>();
+    private volatile Portfolio _portfolio;
+
+    public void setPortfolio(final Portfolio portfolio) {
+      _nodes.clear();
+      _positions.clear();
+      store(portfolio.getRootNode());
+      _portfolio = portfolio;
+    }
+
+    private void store(final PortfolioNode node) {
+      _nodes.put(node.getUniqueId().getObjectId(), node);
+      for (Position position : node.getPositions()) {
+        _positions.put(position.getUniqueId().getObjectId(), position);
+      }
+      for (PortfolioNode child : node.getChildNodes()) {
+        store(child);
+      }
+    }
+
+    private static <T> T found(final T value, final Object id) {
+      if (value == null) {
+        throw new DataNotFoundException("Not found: " + id);
+      }
+      return value;
+    }
+
+    @Override
+    public Portfolio getPortfolio(final UniqueId uniqueId) {
+      return getPortfolio(uniqueId.getObjectId(), VersionCorrection.LATEST);
+    }
+
+    @Override
+    public Portfolio getPortfolio(final ObjectId objectId, final VersionCorrection versionCorrection) {
+      return found(objectId.equals(_portfolio.getUniqueId().getObjectId()) ? _portfolio : null, objectId);
+    }
+
+    @Override
+    public PortfolioNode getPortfolioNode(final UniqueId uniqueId) {
+      return found(_nodes.get(uniqueId.getObjectId()), uniqueId);
+    }
+
+    @Override
+    public Position getPosition(final UniqueId uniqueId) {
+      return found(_positions.get(uniqueId.getObjectId()), uniqueId);
+    }
+
+    @Override
+    public Trade getTrade(final UniqueId uniqueId) {
+      throw new DataNotFoundException("Not found: " + uniqueId);
+    }
+
+    @Override
+    public ChangeManager changeManager() {
+      return DummyChangeManager.INSTANCE;
+    }
+
+  }
+
+  /**
+   * Creates the structure Root(A(P1, P2), B(P4), C(P5)); the edit of the original portfolio replaces P3 and adds a node.
+   */
+  private static SimplePortfolio editedPortfolio() {
+    final SimplePortfolio portfolio = portfolio(position("4"));
+    final SimplePortfolioNode c = node("C");
+    c.addPosition(position("5"));
+    ((SimplePortfolioNode) portfolio.getRootNode()).addChildNode(c);
+    return portfolio;
+  }
+
+  private static ViewCompilationServices compilationServices(final PositionSource positionSource, final ExecutorService executor) {
+    final MockSecuritySource securitySource = new MockSecuritySource();
+    for (int i = 1; i <= 5; i++) {
+      final SimpleSecurity security = new SimpleSecurity(SECURITY_TYPE);
+      security.addExternalId(ExternalId.of("Security", Integer.toString(i)));
+      securitySource.addSecurity(security);
+    }
+    final InMemoryFunctionRepository functionRepo = new InMemoryFunctionRepository();
+    functionRepo.addFunction(new PositionValueFunction());
+    functionRepo.addFunction(new NodeValueFunction());
+    final FunctionCompilationContext functionCompilationContext = new FunctionCompilationContext();
+    functionCompilationContext.setFunctionInitId(123);
+    functionCompilationContext.setSecuritySource(securitySource);
+    final CompiledFunctionService cfs = new CompiledFunctionService(functionRepo, new CachingFunctionRepositoryCompiler(), functionCompilationContext);
+    cfs.initialize();
+    final DefaultComputationTargetResolver computationTargetResolver = new DefaultComputationTargetResolver(securitySource, positionSource);
+    functionCompilationContext.setComputationTargetResolver(computationTargetResolver);
+    return new ViewCompilationServices(new InMemoryLKVMarketDataProvider(), new DefaultFunctionResolver(cfs), functionCompilationContext, computationTargetResolver, executor,
+        new DependencyGraphBuilderFactory());
+  }
+
+  private static ViewDefinition viewDefinition() {
+    final ViewDefinition viewDefinition = new ViewDefinition("Test", UniqueId.of("Portfolio", "Test"), "Test");
+    final ViewCalculationConfiguration calcConfig = new ViewCalculationConfiguration(viewDefinition, CALC_CONFIG);
+    calcConfig.addPortfolioRequirementName(SECURITY_TYPE, VALUE);
+    viewDefinition.addViewCalculationConfiguration(calcConfig);
+    return viewDefinition;
+  }
+
+  /**
+   * Describes the nodes of a graph independently of the node instances.
+   */
+  private static Set<String> describe(final DependencyGraph graph) {
+    final Set<String> nodes = new HashSet<String>();
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      final Set<String> outputs = new TreeSet<String>();
+      for (ValueSpecification output : node.getOutputValues()) {
+        outputs.add(output.toString());
+      }
+      final Set<String> inputs = new TreeSet<String>();
+      for (ValueSpecification input : node.getInputValues()) {
+        inputs.add(input.toString());
+      }
+      nodes.add(node.getComputationTarget() + " " + node.getFunction().getFunction().getFunctionDefinition().getUniqueId() + " " + outputs + " <- " + inputs);
+    }
+    return nodes;
+  }
+
+  private static Set<UniqueId> getTargets(final DependencyGraph graph) {
+    final Set<UniqueId> targets = new HashSet<UniqueId>();
+    for (DependencyNode node : graph.getDependencyNodes()) {
+      targets.add(node.getComputationTarget().getUniqueId());
+    }
+    return targets;
+  }
+
+  public void testPruneRemovesChangedAndDependents() throws Exception {
+    final TestPositionSource positionSource = new TestPositionSource();
+    positionSource.setPortfolio(portfolio(position("3")));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final DependencyGraph graph = ViewDefinitionCompiler.compile(viewDefinition(), compilationServices(positionSource, executor), Instant.now(), VersionCorrection.LATEST)
+          .getDependencyGraph(CALC_CONFIG);
+      assertEquals(6, graph.getDependencyNodes().size());
+      final int terminalOutputs = graph.getTerminalOutputs().size();
+      // Changing P1 invalidates A and Root through their inputs
+      final DependencyGraph pruned = IncrementalPortfolioCompiler.prune(graph, Collections.singleton(UniqueId.of("Position", "1")));
+      assertEquals(new HashSet<UniqueId>(Arrays.asList(UniqueId.of("Position", "2"), UniqueId.of("Position", "3"), UniqueId.of("Node", "B"))), getTargets(pruned));
+      assertEquals(3, pruned.getTerminalOutputs().size());
+      for (Set<ValueRequirement> requirements : pruned.getTerminalOutputs().values()) {
+        for (ValueRequirement requirement : requirements) {
+          assertTrue(getTargets(pruned).contains(requirement.getTargetSpecification().getUniqueId()));
+        }
+      }
+      // The original is not modified
+      assertEquals(6, graph.getDependencyNodes().size());
+      assertEquals(terminalOutputs, graph.getTerminalOutputs().size());
+      for (DependencyNode node : pruned.getDependencyNodes()) {
+        assertFalse(graph.containsNode(node));
+      }
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testPruneNoChange() throws Exception {
+    final TestPositionSource positionSource = new TestPositionSource();
+    positionSource.setPortfolio(portfolio(position("3")));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final DependencyGraph graph = ViewDefinitionCompiler.compile(viewDefinition(), compilationServices(positionSource, executor), Instant.now(), VersionCorrection.LATEST)
+          .getDependencyGraph(CALC_CONFIG);
+      final DependencyGraph pruned = IncrementalPortfolioCompiler.prune(graph, Collections.<UniqueId>emptySet());
+      assertEquals(describe(graph), describe(pruned));
+      assertEquals(graph.getTerminalOutputs(), pruned.getTerminalOutputs());
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+  public void testIncrementalMatchesFullCompilation() throws Exception {
+    final TestPositionSource positionSource = new TestPositionSource();
+    positionSource.setPortfolio(portfolio(position("3")));
+    final ExecutorService executor = Executors.newSingleThreadExecutor();
+    try {
+      final ViewCompilationServices services = compilationServices(positionSource, executor);
+      final ViewDefinition viewDefinition = viewDefinition();
+      final Instant now = Instant.now();
+      final CompiledViewDefinitionWithGraphsImpl previous = ViewDefinitionCompiler.compile(viewDefinition, services, now, VersionCorrection.LATEST);
+      positionSource.setPortfolio(editedPortfolio());
+      final CompiledViewDefinitionWithGraphsImpl incremental = ViewDefinitionCompiler.incrementalCompileTask(viewDefinition, services, now, VersionCorrection.LATEST, previous).get();
+      final CompiledViewDefinitionWithGraphsImpl full = ViewDefinitionCompiler.compile(viewDefinition, services, now, VersionCorrection.LATEST);
+      final DependencyGraph incrementalGraph = incremental.getDependencyGraph(CALC_CONFIG);
+      final DependencyGraph fullGraph = full.getDependencyGraph(CALC_CONFIG);
+      // Root(A(P1, P2), B(P4), C(P5))
+      assertEquals(9, fullGraph.getDependencyNodes().size());
+      assertEquals(describe(fullGraph), describe(incrementalGraph));
+      assertEquals(fullGraph.getTerminalOutputs(), incrementalGraph.getTerminalOutputs());
+      assertEquals(IncrementalPortfolioCompiler.getTargets(full.getPortfolio()), IncrementalPortfolioCompiler.getTargets(incremental.getPortfolio()));
+    } finally {
+      executor.shutdown();
+    }
+  }
+
+}
@@ -8,6 +8,8 @@ package com.opengamma.financial.view.rest;
 import javax.ws.rs.GET;
 import javax.ws.rs.POST;
 import javax.ws.rs.Path;
+import javax.ws.rs.Produces;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.Response;
 
 import com.opengamma.engine.view.calc.ComputationCacheQuery;
@@ -28,6 +30,7 @@ public class DataViewCycleResource extends AbstractDataResource {
   public static final String PATH_COMPILED_VIEW_DEFINITION = "compiledViewDefinition";
   public static final String PATH_RESULT = "result";
   public static final String PATH_QUERY_CACHES = "queryCaches";
+  public static final String PATH_EXECUTION_TRACE = "executionTrace";
   //CSON: just constants
 
   private final ViewCycle _cycle;
@@ -78,4 +81,11 @@ public class DataViewCycleResource extends AbstractDataResource {
     return responseOkFudge(result);
   }
 
+  @GET
+  @Path(PATH_EXECUTION_TRACE)
+  @Produces(MediaType.APPLICATION_JSON)
+  public Response getExecutionTrace() {
+    return responseOk(_cycle.getExecutionTrace());
+  }
+
 }
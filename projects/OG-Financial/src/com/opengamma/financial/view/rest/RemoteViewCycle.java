@@ -8,6 +8,7 @@ package com.opengamma.financial.view.rest;
 import java.net.URI;
 
 import javax.time.Duration;
+import javax.ws.rs.core.MediaType;
 import javax.ws.rs.core.UriBuilder;
 
 import com.opengamma.engine.view.ViewComputationResultModel;
@@ -19,6 +20,7 @@ import com.opengamma.engine.view.compilation.CompiledViewDefinitionWithGraphs;
 import com.opengamma.id.UniqueId;
 import com.opengamma.util.ArgumentChecker;
 import com.opengamma.util.rest.FudgeRestClient;
+import com.opengamma.util.rest.UniformInterfaceException404NotFound;
 
 /**
  * Remote implementation of {@link ViewCycle}.
@@ -76,4 +78,14 @@ public class RemoteViewCycle implements ViewCycle {
     return _client.accessFudge(uri).post(ComputationCacheResponse.class, computationCacheQuery);
   }
 
+  @Override
+  public String getExecutionTrace() {
+    URI uri = UriBuilder.fromUri(_baseUri).path(DataViewCycleResource.PATH_EXECUTION_TRACE).build();
+    try {
+      return _client.access(uri).accept(MediaType.APPLICATION_JSON_TYPE).get(String.class);
+    } catch (UniformInterfaceException404NotFound ex) {
+      return null;
+    }
+  }
+
 }
@@ -0,0 +1,167 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.financial.analytics.model.curve.interestrate;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+import javax.time.calendar.Period;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.analytics.financial.instrument.index.IborIndex;
+import com.opengamma.analytics.financial.interestrate.InstrumentDerivative;
+import com.opengamma.analytics.financial.interestrate.MultipleYieldCurveFinderDataBundle;
+import com.opengamma.analytics.financial.interestrate.MultipleYieldCurveFinderFunction;
+import com.opengamma.analytics.financial.interestrate.MultipleYieldCurveFinderJacobian;
+import com.opengamma.analytics.financial.interestrate.ParRateCalculator;
+import com.opengamma.analytics.financial.interestrate.ParRateCurveSensitivityCalculator;
+import com.opengamma.analytics.financial.interestrate.YieldCurveBundle;
+import com.opengamma.analytics.financial.interestrate.cash.derivative.Cash;
+import com.opengamma.analytics.financial.interestrate.swap.derivative.FixedFloatSwap;
+import com.opengamma.analytics.financial.model.interestrate.curve.YieldCurve;
+import com.opengamma.analytics.math.curve.InterpolatedDoublesCurve;
+import com.opengamma.analytics.math.function.Function1D;
+import com.opengamma.analytics.math.interpolation.CombinedInterpolatorExtrapolatorFactory;
+import com.opengamma.analytics.math.interpolation.Interpolator1D;
+import com.opengamma.analytics.math.interpolation.Interpolator1DFactory;
+import com.opengamma.analytics.math.linearalgebra.DecompositionFactory;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
+import com.opengamma.analytics.math.matrix.DoubleMatrix2D;
+import com.opengamma.analytics.math.rootfinding.newton.BroydenVectorRootFinder;
+import com.opengamma.analytics.math.rootfinding.newton.ModifiedNewtonVectorRootFinder;
+import com.opengamma.analytics.math.rootfinding.newton.NewtonVectorRootFinder;
+import com.opengamma.financial.convention.businessday.BusinessDayConventionFactory;
+import com.opengamma.financial.convention.calendar.MondayToFridayCalendar;
+import com.opengamma.financial.convention.daycount.DayCountFactory;
+import com.opengamma.util.money.Currency;
+
+/**
+ * Fits a funding and a forward curve the way the curve functions in this package do, with both the {@link BroydenVectorRootFinder} they
+ * used to use and the {@link ModifiedNewtonVectorRootFinder} they use now, and checks that the fitted curves agree and that the modified
+ * Newton finder needs no more evaluations of the instruments.
+ */
+public class CurveFittingRootFinderTest {
+  private static final Currency CUR = Currency.USD;
+  private static final IborIndex INDEX = new IborIndex(CUR, Period.ofMonths(3), 2, new MondayToFridayCalendar("A"), DayCountFactory.INSTANCE.getDayCount("Actual/365"),
+      BusinessDayConventionFactory.INSTANCE.getBusinessDayConvention("Following"), true);
+  private static final String FUNDING_CURVE_NAME = "Funding";
+  private static final String FORWARD_CURVE_NAME = "Forward";
+  private static final double[] FUNDING_NODES = new double[] {0.5, 1, 2, 5, 10};
+  private static final double[] FUNDING_YIELDS = new double[] {0.01, 0.015, 0.02, 0.03, 0.035};
+  private static final double[] FORWARD_NODES = new double[] {1, 2, 3, 5, 7, 10};
+  private static final double[] FORWARD_YIELDS = new double[] {0.015, 0.02, 0.025, 0.032, 0.036, 0.038};
+  private static final Interpolator1D INTERPOLATOR = CombinedInterpolatorExtrapolatorFactory.getInterpolator(Interpolator1DFactory.LINEAR,
+      Interpolator1DFactory.FLAT_EXTRAPOLATOR, Interpolator1DFactory.FLAT_EXTRAPOLATOR);
+  private static final double TOLERANCE = 1e-9;
+  private static final int MAX_STEPS = 100;
+  private static final MultipleYieldCurveFinderDataBundle DATA;
+
+  static {
+    final YieldCurveBundle curves = new YieldCurveBundle();
+    curves.setCurve(FUNDING_CURVE_NAME, new YieldCurve(InterpolatedDoublesCurve.from(FUNDING_NODES, FUNDING_YIELDS, INTERPOLATOR)));
+    curves.setCurve(FORWARD_CURVE_NAME, new YieldCurve(InterpolatedDoublesCurve.from(FORWARD_NODES, FORWARD_YIELDS, INTERPOLATOR)));
+    final List<InstrumentDerivative> derivatives = new ArrayList<InstrumentDerivative>();
+    for (final double t : FUNDING_NODES) {
+      derivatives.add(new Cash(CUR, 0, t, 1, 0, t, FUNDING_CURVE_NAME));
+    }
+    for (final double t : FORWARD_NODES) {
+      derivatives.add(makeSwap(t));
+    }
+    final double[] marketRates = new double[derivatives.size()];
+    for (int i = 0; i < marketRates.length; i++) {
+      marketRates[i] = ParRateCalculator.getInstance().visit(derivatives.get(i), curves);
+    }
+    final LinkedHashMap<String, double[]> nodes = new LinkedHashMap<String, double[]>();
+    nodes.put(FUNDING_CURVE_NAME, FUNDING_NODES);
+    nodes.put(FORWARD_CURVE_NAME, FORWARD_NODES);
+    final LinkedHashMap<String, Interpolator1D> interpolators = new LinkedHashMap<String, Interpolator1D>();
+    interpolators.put(FUNDING_CURVE_NAME, INTERPOLATOR);
+    interpolators.put(FORWARD_CURVE_NAME, INTERPOLATOR);
+    DATA = new MultipleYieldCurveFinderDataBundle(derivatives, marketRates, null, nodes, interpolators, false);
+  }
+
+  @Test
+  public void testSameCurvesInNoMoreEvaluations() {
+    final DoubleMatrix1D startPosition = new DoubleMatrix1D(FUNDING_NODES.length + FORWARD_NODES.length, 0.05);
+    final CountingFunction broydenFunction = new CountingFunction(new MultipleYieldCurveFinderFunction(DATA, ParRateCalculator.getInstance()));
+    final CountingJacobian broydenJacobian = new CountingJacobian(new MultipleYieldCurveFinderJacobian(DATA, ParRateCurveSensitivityCalculator.getInstance()));
+    final NewtonVectorRootFinder broyden = new BroydenVectorRootFinder(TOLERANCE, TOLERANCE, MAX_STEPS,
+        DecompositionFactory.getDecomposition(DecompositionFactory.SV_COMMONS_NAME));
+    final double[] broydenYields = broyden.getRoot(broydenFunction, broydenJacobian, startPosition).getData();
+    final CountingFunction newtonFunction = new CountingFunction(new MultipleYieldCurveFinderFunction(DATA, ParRateCalculator.getInstance()));
+    final CountingJacobian newtonJacobian = new CountingJacobian(new MultipleYieldCurveFinderJacobian(DATA, ParRateCurveSensitivityCalculator.getInstance()));
+    final NewtonVectorRootFinder newton = new ModifiedNewtonVectorRootFinder(TOLERANCE, TOLERANCE, MAX_STEPS,
+        DecompositionFactory.getDecomposition(DecompositionFactory.SV_COMMONS_NAME));
+    final double[] newtonYields = newton.getRoot(newtonFunction, newtonJacobian, startPosition).getData();
+    for (int i = 0; i < FUNDING_YIELDS.length; i++) {
+      assertEquals(FUNDING_YIELDS[i], broydenYields[i], 1e-8);
+      assertEquals(FUNDING_YIELDS[i], newtonYields[i], 1e-8);
+    }
+    for (int i = 0; i < FORWARD_YIELDS.length; i++) {
+      assertEquals(FORWARD_YIELDS[i], broydenYields[FUNDING_YIELDS.length + i], 1e-8);
+      assertEquals(FORWARD_YIELDS[i], newtonYields[FUNDING_YIELDS.length + i], 1e-8);
+    }
+    assertTrue(newtonFunction.getCount() <= broydenFunction.getCount());
+    assertTrue(newtonJacobian.getCount() < newtonFunction.getCount());
+  }
+
+  private static FixedFloatSwap makeSwap(final double maturity) {
+    final int nFloat = (int) Math.round(maturity * 4);
+    final double[] floatTimes = new double[nFloat];
+    for (int i = 0; i < nFloat; i++) {
+      floatTimes[i] = 0.25 * (i + 1);
+    }
+    final double[] fixedTimes = new double[nFloat / 2];
+    for (int i = 0; i < fixedTimes.length; i++) {
+      fixedTimes[i] = 0.5 * (i + 1);
+    }
+    return new FixedFloatSwap(CUR, fixedTimes, floatTimes, INDEX, 0, FUNDING_CURVE_NAME, FORWARD_CURVE_NAME, true);
+  }
+
+  private static final class CountingFunction extends Function1D<DoubleMatrix1D, DoubleMatrix1D> {
+    private final Function1D<DoubleMatrix1D, DoubleMatrix1D> _underlying;
+    private int _count;
+
+    private CountingFunction(final Function1D<DoubleMatrix1D, DoubleMatrix1D> underlying) {
+      _underlying = underlying;
+    }
+
+    @Override
+    public DoubleMatrix1D evaluate(final DoubleMatrix1D x) {
+      _count++;
+      return _underlying.evaluate(x);
+    }
+
+    private int getCount() {
+      return _count;
+    }
+  }
+
+  private static final class CountingJacobian extends Function1D<DoubleMatrix1D, DoubleMatrix2D> {
+    private final Function1D<DoubleMatrix1D, DoubleMatrix2D> _underlying;
+    private int _count;
+
+    private CountingJacobian(final Function1D<DoubleMatrix1D, DoubleMatrix2D> underlying) {
+      _underlying = underlying;
+    }
+
+    @Override
+    public DoubleMatrix2D evaluate(final DoubleMatrix1D x) {
+      _count++;
+      return _underlying.evaluate(x);
+    }
+
+    private int getCount() {
+      return _count;
+    }
+  }
+
+}
@@ -15,6 +15,7 @@ import org.slf4j.LoggerFactory;
 import com.google.common.base.Objects;
 import com.google.common.collect.Maps;
 import com.opengamma.DataNotFoundException;
+import com.opengamma.core.change.AggregatingChangeManager;
 import com.opengamma.core.change.ChangeManager;
 import com.opengamma.core.position.Portfolio;
 import com.opengamma.core.position.PortfolioNode;
@@ -66,6 +67,10 @@ public class MasterPositionSource implements PositionSource, VersionedSource {
    * The version-correction locator to search at, null to not override versions.
    */
   private volatile VersionCorrection _versionCorrection;
+  /**
+   * The change manager combining the changes from both masters, created when first requested.
+   */
+  private volatile ChangeManager _changeManager;
 
   /**
    * Creates an instance with underlying masters which does not override versions.
@@ -364,9 +369,22 @@ public class MasterPositionSource implements PositionSource, VersionedSource {
   //-------------------------------------------------------------------------
   @Override
   public ChangeManager changeManager() {
-    // NOTE jonathan 2011-08-03 -- PortfolioMaster does not currently implement ChangeProvider so currently return the
-    // PositionMaster's ChangeManager.
-    return getPositionMaster().changeManager();
+    ChangeManager changeManager = _changeManager;
+    if (changeManager == null) {
+      synchronized (this) {
+        changeManager = _changeManager;
+        if (changeManager == null) {
+          // Portfolio and node changes come from the portfolio master, position and trade changes from the position master
+          // This assumes the source lasts for the lifetime of the engine as we never detach from the underlying change managers
+          final AggregatingChangeManager aggregating = new AggregatingChangeManager();
+          aggregating.addChangeManager(getPortfolioMaster().changeManager());
+          aggregating.addChangeManager(getPositionMaster().changeManager());
+          _changeManager = aggregating;
+          changeManager = aggregating;
+        }
+      }
+    }
+    return changeManager;
   }
 
   //-------------------------------------------------------------------------
@@ -13,11 +13,17 @@ import static org.testng.AssertJUnit.assertEquals;
 import static org.testng.AssertJUnit.assertNotNull;
 
 import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.List;
 
 import javax.time.Instant;
 
 import org.testng.annotations.Test;
 
+import com.opengamma.core.change.BasicChangeManager;
+import com.opengamma.core.change.ChangeEvent;
+import com.opengamma.core.change.ChangeListener;
+import com.opengamma.core.change.ChangeType;
 import com.opengamma.core.position.Portfolio;
 import com.opengamma.core.position.PortfolioNode;
 import com.opengamma.core.position.Position;
@@ -237,6 +243,29 @@ public class MasterPositionSourceTest {
 //    assertEquals(now.toLocalDate(), testResult.getTradeDate());
 //  }
 
+  //-------------------------------------------------------------------------
+  public void test_changeManager_bothMasters() throws Exception {
+    PortfolioMaster mockPortfolio = mock(PortfolioMaster.class);
+    PositionMaster mockPosition = mock(PositionMaster.class);
+    BasicChangeManager portfolioChanges = new BasicChangeManager();
+    BasicChangeManager positionChanges = new BasicChangeManager();
+    when(mockPortfolio.changeManager()).thenReturn(portfolioChanges);
+    when(mockPosition.changeManager()).thenReturn(positionChanges);
+    MasterPositionSource test = new MasterPositionSource(mockPortfolio, mockPosition);
+    final List<UniqueId> changed = new ArrayList<UniqueId>();
+    test.changeManager().addChangeListener(new ChangeListener() {
+      @Override
+      public void entityChanged(ChangeEvent event) {
+        changed.add(event.getAfterId());
+      }
+    });
+    portfolioChanges.entityChanged(ChangeType.UPDATED, UID, UID.withVersion("2"), NOW);
+    positionChanges.entityChanged(ChangeType.UPDATED, UID4, UID4.withVersion("2"), NOW);
+    assertEquals(2, changed.size());
+    assertEquals(UID.withVersion("2"), changed.get(0));
+    assertEquals(UID4.withVersion("2"), changed.get(1));
+  }
+
   //-------------------------------------------------------------------------
   protected ManageablePortfolioNode example(boolean withPosition) {
     ManageablePortfolioNode manNode = new ManageablePortfolioNode("Node");
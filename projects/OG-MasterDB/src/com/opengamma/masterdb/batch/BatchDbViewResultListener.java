@@ -5,9 +5,18 @@
  */
 package com.opengamma.masterdb.batch;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicReference;
+
 import javax.time.Instant;
 
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import com.google.common.collect.Maps;
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.batch.BatchRunWriter;
 import com.opengamma.batch.RunCreationMode;
 import com.opengamma.batch.SnapshotMode;
@@ -18,19 +27,112 @@ import com.opengamma.engine.view.calc.ViewCycleMetadata;
 import com.opengamma.engine.view.compilation.CompiledViewDefinition;
 import com.opengamma.engine.view.execution.ViewCycleExecutionOptions;
 import com.opengamma.engine.view.listener.ViewResultListener;
+import com.opengamma.id.ObjectId;
 import com.opengamma.livedata.UserPrincipal;
+import com.opengamma.util.ArgumentChecker;
+import com.opengamma.util.NamedThreadPoolFactory;
 
 /**
- * 
+ * Writes the results of each cycle to the batch database.
+ * <p>
+ * Fragments may be written synchronously, or pipelined on a writer thread so that the view process can carry on
+ * calculating while earlier fragments are written. Pipelined fragments are written in order, and the run is ended
+ * only once all of its fragments have been written.
+ * <p>
+ * If a pipelined fragment can't be written, the remaining fragments of the run are discarded and the run is left
+ * incomplete, marking it as failed. The failure is rethrown when the cycle ends.
  */
 public class BatchDbViewResultListener implements ViewResultListener {
 
+  private static final Logger s_logger = LoggerFactory.getLogger(BatchDbViewResultListener.class);
+
   private RiskRun _riskRun;
 
   private BatchRunWriter _batchRunWriter;
 
+  private final ExecutorService _writer;
+
+  private final Semaphore _pendingFragments;
+
+  private final int _maxPendingFragments;
+
+  private final AtomicReference<RuntimeException> _writeFailure = new AtomicReference<RuntimeException>();
+
   public BatchDbViewResultListener(BatchRunWriter batchRunWriter) {
+    this(batchRunWriter, 0);
+  }
+
+  /**
+   * Creates an instance.
+   * 
+   * @param batchRunWriter  the writer, not null
+   * @param maxPendingFragments  the number of fragments that may be waiting to be written before the view process is
+   *  held up, zero to write each fragment synchronously
+   */
+  public BatchDbViewResultListener(BatchRunWriter batchRunWriter, int maxPendingFragments) {
+    ArgumentChecker.notNull(batchRunWriter, "batchRunWriter");
+    ArgumentChecker.notNegative(maxPendingFragments, "maxPendingFragments");
     _batchRunWriter = batchRunWriter;
+    _maxPendingFragments = maxPendingFragments;
+    if (maxPendingFragments > 0) {
+      // A daemon, so that a listener discarded without its process completing doesn't keep the JVM alive
+      _writer = Executors.newSingleThreadExecutor(new NamedThreadPoolFactory("BatchDbWriter", true));
+      _pendingFragments = new Semaphore(maxPendingFragments);
+    } else {
+      _writer = null;
+      _pendingFragments = null;
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  private void writeFragment(final ObjectId runId, final ViewComputationResultModel fragment) {
+    if (_writer == null) {
+      _batchRunWriter.addJobResults(runId, fragment);
+      return;
+    }
+    _pendingFragments.acquireUninterruptibly();
+    _writer.execute(new Runnable() {
+      @Override
+      public void run() {
+        try {
+          if (_writeFailure.get() == null) {
+            _batchRunWriter.addJobResults(runId, fragment);
+          }
+        } catch (RuntimeException e) {
+          s_logger.error("Unable to write results for run " + runId, e);
+          _writeFailure.compareAndSet(null, e);
+        } finally {
+          _pendingFragments.release();
+        }
+      }
+    });
+  }
+
+  /**
+   * Waits for all pipelined fragments to be written.
+   */
+  private void awaitFragments() {
+    if (_writer != null) {
+      _pendingFragments.acquireUninterruptibly(_maxPendingFragments);
+      _pendingFragments.release(_maxPendingFragments);
+    }
+  }
+
+  private void endRiskRun() {
+    awaitFragments();
+    final RuntimeException failure = _writeFailure.getAndSet(null);
+    if (failure != null) {
+      // Not ending the run leaves it incomplete
+      throw new OpenGammaRuntimeException("Unable to write results for run " + _riskRun.getObjectId(), failure);
+    }
+    _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+  }
+
+  private void shutdownWriter() {
+    if (_writer != null) {
+      awaitFragments();
+      _writer.shutdown();
+    }
   }
 
   @Override
@@ -56,33 +158,41 @@ public class BatchDbViewResultListener implements ViewResultListener {
 
   @Override
   public void cycleCompleted(ViewComputationResultModel fullResult, ViewDeltaResultModel deltaResult) {
-    _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+    endRiskRun();
   }
 
   @Override
   public void cycleFragmentCompleted(ViewComputationResultModel fullFragment, ViewDeltaResultModel deltaFragment) {
-    _batchRunWriter.addJobResults(_riskRun.getObjectId(), fullFragment);
+    writeFragment(_riskRun.getObjectId(), fullFragment);
   }
 
   @Override
   public void cycleExecutionFailed(ViewCycleExecutionOptions executionOptions, Exception exception) {
-    _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+    endRiskRun();
   }
 
   @Override
   public void processCompleted() {
+    shutdownWriter();
   }
 
   @Override
   public void processTerminated(boolean executionInterrupted) {
     //TODO Shall we add info to the batchrun that it was interrupted?
-    if (executionInterrupted) {
-      _batchRunWriter.endRiskRun(_riskRun.getObjectId());
+    try {
+      if (executionInterrupted) {
+        endRiskRun();
+      }
+    } finally {
+      shutdownWriter();
     }
   }
 
   @Override
   public void clientShutdown(Exception e) {
+    if (_writer != null) {
+      _writer.shutdown();
+    }
   }
   
 }
@@ -13,9 +13,11 @@ public class BatchDbViewResultListenerFactory implements ViewResultListenerFacto
 
   private BatchRunWriter _batchRunWriter;
 
+  private int _maxPendingFragments;
+
   @Override
   public ViewResultListener createViewResultListener() {
-    return new BatchDbViewResultListener(_batchRunWriter);
+    return new BatchDbViewResultListener(_batchRunWriter, _maxPendingFragments);
   }
 
   public BatchRunWriter getBatchRunMaster() {
@@ -25,4 +27,23 @@ public class BatchDbViewResultListenerFactory implements ViewResultListenerFacto
   public void setBatchRunMaster(BatchRunWriter batchRunWriter) {
     this._batchRunWriter = batchRunWriter;
   }
+
+  /**
+   * Gets the number of result fragments that may be waiting to be written before the view process is held up.
+   * 
+   * @return the number of fragments, zero if fragments are written synchronously
+   */
+  public int getMaxPendingFragments() {
+    return _maxPendingFragments;
+  }
+
+  /**
+   * Sets the number of result fragments that may be waiting to be written before the view process is held up. When
+   * positive, fragments are written on a separate thread while the view process carries on calculating.
+   * 
+   * @param maxPendingFragments  the number of fragments, zero to write fragments synchronously
+   */
+  public void setMaxPendingFragments(int maxPendingFragments) {
+    _maxPendingFragments = maxPendingFragments;
+  }
 }
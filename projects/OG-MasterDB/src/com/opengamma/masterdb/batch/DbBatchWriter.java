@@ -11,7 +11,6 @@ import static com.google.common.collect.Maps.newHashMap;
 import static com.google.common.collect.Sets.newHashSet;
 import static com.opengamma.util.db.HibernateDbUtils.eqOrIsNull;
 import static com.opengamma.util.functional.Functional.any;
-import static com.opengamma.util.functional.Functional.map;
 import static com.opengamma.util.functional.Functional.newArray;
 
 import java.io.PrintWriter;
@@ -47,10 +46,13 @@ import org.springframework.transaction.TransactionStatus;
 import org.springframework.transaction.support.TransactionCallback;
 
 import com.google.common.base.Function;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Lists;
 import com.google.common.collect.MapMaker;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.opengamma.DataNotFoundException;
+import com.opengamma.OpenGammaRuntimeException;
 import com.opengamma.batch.RunCreationMode;
 import com.opengamma.batch.SnapshotMode;
 import com.opengamma.batch.domain.CalculationConfiguration;
@@ -117,6 +119,8 @@ public class DbBatchWriter extends AbstractDbMaster {
   public final Map<ValueRequirement, Long> _riskValueRequirements = newConcurrentMap();
   public final Map<ValueSpecification, Long> _riskValueSpecifications = newConcurrentMap();
   public final Map<ComputationTargetSpecification, Long> _computationTargets = newConcurrentMap();
+  public final Map<String, Long> _functionUniqueIds = newConcurrentMap();
+  public final Map<String, Long> _computeNodeIds = newConcurrentMap();
 
   public final Map<Long, RiskRun> _riskRunsByIds = newConcurrentMap();
   public final Map<Long, Map<Pair<Long, Long>, StatusEntry>> _statusCacheByRunId = newConcurrentMap();
@@ -126,10 +130,24 @@ public class DbBatchWriter extends AbstractDbMaster {
   /** Logger. */
   private static final Logger s_logger = LoggerFactory.getLogger(DbBatchWriter.class);
 
+  /**
+   * The maximum number of rows written by a single batch statement.
+   */
+  private static final int BULK_CHUNK_SIZE = 10000;
+  /**
+   * The maximum number of values bound to a single IN clause.
+   */
+  private static final int IN_CLAUSE_CHUNK_SIZE = 1000;
+
   /**
    * The Result converter cache.
    */
   private ResultConverterCache _resultConverterCache;
+  /**
+   * The SQL inserting risk values with their ids taken inline from the sequence, null if not yet built, empty if the
+   * dialect can't express this.
+   */
+  private volatile String _insertRiskSuccessInlineIdSql;
 
   /**
    * Creates an instance.
@@ -343,6 +361,58 @@ public class DbBatchWriter extends AbstractDbMaster {
     return functionUniqueId;
   }
 
+  /**
+   * Resolves the ids of the function unique ids used by a set of results with one query per chunk of names, rather
+   * than one per result, caching them for later fragments.
+   */
+  protected void populateFunctionUniqueIds(Collection<ViewResultEntry> results) {
+    final Set<String> uniqueIds = newHashSet();
+    for (ViewResultEntry result : results) {
+      final String uniqueId = result.getComputedValue().getSpecification().getFunctionUniqueId();
+      if ((uniqueId != null) && !_functionUniqueIds.containsKey(uniqueId)) {
+        uniqueIds.add(uniqueId);
+      }
+    }
+    if (uniqueIds.isEmpty()) {
+      return;
+    }
+    final String selectSql = getElSqlBundle().getSql("SelectFunctionUids");
+    for (List<String> chunk : Iterables.partition(uniqueIds, IN_CLAUSE_CHUNK_SIZE)) {
+      final DbMapSqlParameterSource selectArgs = new DbMapSqlParameterSource().addValue("unique_ids", chunk);
+      for (Map<String, Object> row : getJdbcTemplate().queryForList(selectSql, selectArgs)) {
+        _functionUniqueIds.put((String) row.get("UNIQUE_ID"), ((Number) row.get("ID")).longValue());
+      }
+    }
+    final List<DbMapSqlParameterSource> insertArgsList = newArrayList();
+    for (String uniqueId : uniqueIds) {
+      if (!_functionUniqueIds.containsKey(uniqueId)) {
+        final long id = nextId(RSK_SEQUENCE_NAME);
+        insertArgsList.add(new DbMapSqlParameterSource().addValue("id", id).addValue("unique_id", uniqueId));
+        _functionUniqueIds.put(uniqueId, id);
+      }
+    }
+    getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertFunctionUid"), insertArgsList.toArray(new DbMapSqlParameterSource[insertArgsList.size()]));
+  }
+
+  protected Long getFunctionUniqueId(final String uniqueId) {
+    Long id = _functionUniqueIds.get(uniqueId);
+    if (id == null) {
+      id = getFunctionUniqueIdInTransaction(uniqueId).getId();
+      _functionUniqueIds.put(uniqueId, id);
+    }
+    return id;
+  }
+
+  protected Long getComputeNodeId(final String nodeId) {
+    ArgumentChecker.notNull(nodeId, "nodeId");
+    Long id = _computeNodeIds.get(nodeId);
+    if (id == null) {
+      id = getOrCreateComputeNode(nodeId).getId();
+      _computeNodeIds.put(nodeId, id);
+    }
+    return id;
+  }
+
   //-------------------------------------------------------------------------
 
 
@@ -852,6 +922,9 @@ public class DbBatchWriter extends AbstractDbMaster {
 
     // STAGE 1. Populate error information in the cache.
     Map<ValueSpecification, BatchResultWriterFailure> errorCache = populateErrorCache(computeFailureCache, resultModel.getAllResults());
+    populateFunctionUniqueIds(resultModel.getAllResults());
+    final String insertRiskSuccessInlineIdSql = getInsertRiskSuccessInlineIdSql();
+    final Map<ComputationTargetSpecification, Set<MarketDataValue>> writeThroughValues = Maps.newLinkedHashMap();
 
     for (String calcConfigName : resultModel.getCalculationConfigurationNames()) {
 
@@ -916,15 +989,18 @@ public class DbBatchWriter extends AbstractDbMaster {
       Instant evalInstant = Instant.now();
 
       Long calcConfId = _calculationConfigurations.get(calcConfigName);
+      final Set<ComputationTargetSpecification> notRunningTargets = populateStatusCache(statusCache, calcConfId, successfulTargets);
 
       for (final ComputationTargetSpecification compTargetSpec : viewCalculationResultModel.getAllTargets()) {
 
         if (successfulTargets.contains(compTargetSpec)) {
 
           // make sure the values are not already in db, don't want to insert twice
-          StatusEntry.Status status = getStatus(statusCache, calcConfigName, compTargetSpec);
-          if (status == StatusEntry.Status.SUCCESS) {
-            continue;
+          if (!notRunningTargets.contains(compTargetSpec)) {
+            StatusEntry.Status status = getStatus(statusCache, calcConfigName, compTargetSpec);
+            if (status == StatusEntry.Status.SUCCESS) {
+              continue;
+            }
           }
 
           for (final ComputedValue computedValue : viewCalculationResultModel.getAllValues(compTargetSpec)) {
@@ -943,8 +1019,8 @@ public class DbBatchWriter extends AbstractDbMaster {
               ValueSpecification specification = computedValue.getSpecification();
 
               Long valueSpecificationId = _riskValueSpecifications.get(specification);
-              Long functionUniqueId = getFunctionUniqueIdInTransaction(specification.getFunctionUniqueId()).getId();
-              Long computeNodeId = getOrCreateComputeNode(computedValue.getComputeNodeId()).getId();
+              Long functionUniqueId = getFunctionUniqueId(specification.getFunctionUniqueId());
+              Long computeNodeId = getComputeNodeId(computedValue.getComputeNodeId());
 
               ArgumentChecker.notNull(calcConfId, "calcConfId");
               ArgumentChecker.notNull(valueSpecificationId, "valueSpecificationId");
@@ -954,8 +1030,9 @@ public class DbBatchWriter extends AbstractDbMaster {
               ArgumentChecker.notNull(computeNodeId, "computeNodeId");
 
               final DbMapSqlParameterSource insertArgs = new DbMapSqlParameterSource();
-              final long successId = nextId(RSK_SEQUENCE_NAME);
-              insertArgs.addValue("id", successId);
+              if (insertRiskSuccessInlineIdSql == null) {
+                insertArgs.addValue("id", nextId(RSK_SEQUENCE_NAME));
+              }
               insertArgs.addValue("calculation_configuration_id", calcConfId);
               insertArgs.addValue("name", riskValueName);
               insertArgs.addValue("value_specification_id", valueSpecificationId);
@@ -966,19 +1043,16 @@ public class DbBatchWriter extends AbstractDbMaster {
               insertArgs.addTimestamp("eval_instant", evalInstant);
               insertArgs.addValue("compute_node_id", computeNodeId);
               successes.add(insertArgs);
+            }
 
-
-              // writhe through market data
-              if (run.getSnapshotMode().equals(SnapshotMode.WRITE_THROUGH)) {
-                addValuesToMarketDataInTransaction(run.getMarketData().getObjectId(),
-                  map(new HashSet<MarketDataValue>(), valuesAsDoubles.entrySet(), new Function1<Map.Entry<String, Double>, MarketDataValue>() {
-                    @Override
-                    public MarketDataValue execute(Map.Entry<String, Double> valueEntry) {
-                      return new MarketDataValue(compTargetSpec, valueEntry.getValue(), valueEntry.getKey());
-                    }
-                  })
-                );
+            // write through market data; only the values of the first computed value for a target can be written as the
+            // snapshot entries for a target are written once
+            if (run.getSnapshotMode().equals(SnapshotMode.WRITE_THROUGH) && !writeThroughValues.containsKey(compTargetSpec)) {
+              final Set<MarketDataValue> marketDataValues = new HashSet<MarketDataValue>();
+              for (Map.Entry<String, Double> riskValueEntry : valuesAsDoubles.entrySet()) {
+                marketDataValues.add(new MarketDataValue(compTargetSpec, riskValueEntry.getValue(), riskValueEntry.getKey()));
               }
+              writeThroughValues.put(compTargetSpec, marketDataValues);
             }
           }
 
@@ -993,8 +1067,8 @@ public class DbBatchWriter extends AbstractDbMaster {
             ValueSpecification specification = computedValue.getSpecification();
 
             Long valueSpecificationId = _riskValueSpecifications.get(specification);
-            Long functionUniqueId = getFunctionUniqueIdInTransaction(specification.getFunctionUniqueId()).getId();
-            Long computeNodeId = getOrCreateComputeNode(computedValue.getComputeNodeId()).getId();
+            Long functionUniqueId = getFunctionUniqueId(specification.getFunctionUniqueId());
+            Long computeNodeId = getComputeNodeId(computedValue.getComputeNodeId());
 
             ArgumentChecker.notNull(calcConfId, "calcConfId");
             ArgumentChecker.notNull(valueSpecificationId, "valueSpecificationId");
@@ -1063,17 +1137,87 @@ public class DbBatchWriter extends AbstractDbMaster {
         && successfulTargets.isEmpty()
         && failedTargets.isEmpty()) {
         s_logger.debug("Nothing to write to DB for {}", resultModel);
-        return;
+        break;
       }
 
-      getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertRiskSuccess"), successes.toArray(new DbMapSqlParameterSource[successes.size()]));
-      getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertRiskFailure"), failures.toArray(new DbMapSqlParameterSource[failures.size()]));
-      getJdbcTemplate().batchUpdate(getElSqlBundle().getSql("InsertRiskFailureReason"), failureReasons.toArray(new DbMapSqlParameterSource[failureReasons.size()]));
+      batchUpdate((insertRiskSuccessInlineIdSql != null) ? insertRiskSuccessInlineIdSql : getElSqlBundle().getSql("InsertRiskSuccess"), successes);
+      batchUpdate(getElSqlBundle().getSql("InsertRiskFailure"), failures);
+      batchUpdate(getElSqlBundle().getSql("InsertRiskFailureReason"), failureReasons);
 
       upsertStatusEntries(statusCache, calcConfigName, StatusEntry.Status.SUCCESS, successfulTargets);
       upsertStatusEntries(statusCache, calcConfigName, StatusEntry.Status.FAILURE, failedTargets);
 
     }
+
+    if (!writeThroughValues.isEmpty()) {
+      final Set<MarketDataValue> marketDataValues = new HashSet<MarketDataValue>();
+      for (Set<MarketDataValue> targetValues : writeThroughValues.values()) {
+        marketDataValues.addAll(targetValues);
+      }
+      addValuesToMarketDataInTransaction(run.getMarketData().getObjectId(), marketDataValues);
+    }
+  }
+
+  /**
+   * Executes a batch statement in chunks so that the driver never holds the parameters of an entire fragment at once.
+   */
+  private void batchUpdate(String sql, List<DbMapSqlParameterSource> args) {
+    for (List<DbMapSqlParameterSource> chunk : Lists.partition(args, BULK_CHUNK_SIZE)) {
+      getJdbcTemplate().batchUpdate(sql, chunk.toArray(new DbMapSqlParameterSource[chunk.size()]));
+    }
+  }
+
+  /**
+   * Gets the SQL inserting a risk value with its id taken inline from the sequence, saving a round trip per value.
+   * 
+   * @return the SQL, or null if the dialect can't express it and ids must be queried from the sequence individually
+   */
+  private String getInsertRiskSuccessInlineIdSql() {
+    String sql = _insertRiskSuccessInlineIdSql;
+    if (sql == null) {
+      try {
+        sql = getElSqlBundle().getSql("InsertRiskSuccessInlineId").replace("NEXT_ID", getDialect().sqlNextSequenceValueInline(RSK_SEQUENCE_NAME));
+      } catch (OpenGammaRuntimeException e) {
+        s_logger.info("Inline sequence values not supported by {}; querying ids individually", getDialect().getName());
+        sql = "";
+      }
+      _insertRiskSuccessInlineIdSql = sql;
+    }
+    return sql.isEmpty() ? null : sql;
+  }
+
+  /**
+   * Populates the status cache for a set of targets with a query per chunk of targets, rather than one per target.
+   * 
+   * @return the targets which have no status entry
+   */
+  protected Set<ComputationTargetSpecification> populateStatusCache(
+    Map<Pair<Long, Long>, StatusEntry> statusCache,
+    Long calcConfId,
+    Collection<ComputationTargetSpecification> targets) {
+
+    final Map<Long, ComputationTargetSpecification> targetsById = newHashMap();
+    for (ComputationTargetSpecification target : targets) {
+      final Long computationTargetId = _computationTargets.get(target);
+      if ((computationTargetId != null) && !statusCache.containsKey(Pair.of(calcConfId, computationTargetId))) {
+        targetsById.put(computationTargetId, target);
+      }
+    }
+    final Set<ComputationTargetSpecification> notRunning = newHashSet(targetsById.values());
+    if (targetsById.isEmpty()) {
+      return notRunning;
+    }
+    final String selectSql = getElSqlBundle().getSql("SelectStatusEntries");
+    for (List<Long> chunk : Iterables.partition(targetsById.keySet(), IN_CLAUSE_CHUNK_SIZE)) {
+      final DbMapSqlParameterSource selectArgs = new DbMapSqlParameterSource()
+        .addValue("calculation_configuration_id", calcConfId)
+        .addValue("computation_target_ids", chunk);
+      for (StatusEntry statusEntry : getJdbcTemplate().query(selectSql, StatusEntry.ROW_MAPPER, selectArgs)) {
+        statusCache.put(Pair.of(calcConfId, Long.valueOf(statusEntry.getComputationTargetId())), statusEntry);
+        notRunning.remove(targetsById.get(statusEntry.getComputationTargetId()));
+      }
+    }
+    return notRunning;
   }
 
   /**
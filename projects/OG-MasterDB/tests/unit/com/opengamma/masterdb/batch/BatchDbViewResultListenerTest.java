@@ -0,0 +1,84 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import static org.mockito.Matchers.any;
+import static org.mockito.Matchers.anyMapOf;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.fail;
+
+import org.testng.annotations.Test;
+
+import com.opengamma.OpenGammaRuntimeException;
+import com.opengamma.batch.BatchRunWriter;
+import com.opengamma.batch.RunCreationMode;
+import com.opengamma.batch.SnapshotMode;
+import com.opengamma.batch.domain.RiskRun;
+import com.opengamma.engine.view.ViewComputationResultModel;
+import com.opengamma.engine.view.calc.ViewCycleMetadata;
+import com.opengamma.id.ObjectId;
+
+/**
+ * Tests the {@link BatchDbViewResultListener}.
+ */
+@Test
+public class BatchDbViewResultListenerTest {
+
+  private static final ObjectId RUN_ID = ObjectId.of("Test", "Run");
+
+  private static BatchRunWriter createWriter() {
+    final BatchRunWriter writer = mock(BatchRunWriter.class);
+    final RiskRun run = mock(RiskRun.class);
+    when(run.getObjectId()).thenReturn(RUN_ID);
+    when(writer.startRiskRun(any(ViewCycleMetadata.class), anyMapOf(String.class, String.class), any(RunCreationMode.class), any(SnapshotMode.class))).thenReturn(run);
+    return writer;
+  }
+
+  public void testPipelinedFragmentsWritten() {
+    final BatchRunWriter writer = createWriter();
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer, 2);
+    listener.cycleStarted(mock(ViewCycleMetadata.class));
+    for (int i = 0; i < 5; i++) {
+      listener.cycleFragmentCompleted(mock(ViewComputationResultModel.class), null);
+    }
+    listener.cycleCompleted(null, null);
+    verify(writer, times(5)).addJobResults(any(ObjectId.class), any(ViewComputationResultModel.class));
+    verify(writer).endRiskRun(RUN_ID);
+    listener.processCompleted();
+  }
+
+  public void testPipelinedWriteFailureRethrown() {
+    final BatchRunWriter writer = createWriter();
+    final RuntimeException failure = new IllegalStateException("Test");
+    doThrow(failure).when(writer).addJobResults(any(ObjectId.class), any(ViewComputationResultModel.class));
+    final BatchDbViewResultListener listener = new BatchDbViewResultListener(writer, 2);
+    listener.cycleStarted(mock(ViewCycleMetadata.class));
+    for (int i = 0; i < 5; i++) {
+      listener.cycleFragmentCompleted(mock(ViewComputationResultModel.class), null);
+    }
+    try {
+      listener.cycleCompleted(null, null);
+      fail();
+    } catch (OpenGammaRuntimeException e) {
+      assertSame(failure, e.getCause());
+    }
+    // The remaining fragments are discarded and the run is left incomplete
+    verify(writer, times(1)).addJobResults(any(ObjectId.class), any(ViewComputationResultModel.class));
+    verify(writer, never()).endRiskRun(any(ObjectId.class));
+    // The next cycle starts afresh
+    listener.cycleStarted(mock(ViewCycleMetadata.class));
+    listener.cycleExecutionFailed(null, null);
+    verify(writer).endRiskRun(RUN_ID);
+    listener.processCompleted();
+  }
+
+}
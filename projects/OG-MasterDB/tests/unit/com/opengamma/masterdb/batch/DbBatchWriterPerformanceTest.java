@@ -0,0 +1,171 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.masterdb.batch;
+
+import static com.google.common.collect.Sets.newHashSet;
+
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import javax.time.Instant;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.testng.annotations.AfterMethod;
+import org.testng.annotations.BeforeMethod;
+import org.testng.annotations.Factory;
+import org.testng.annotations.Test;
+
+import com.google.common.collect.Lists;
+import com.google.common.collect.Maps;
+import com.opengamma.batch.RunCreationMode;
+import com.opengamma.batch.SnapshotMode;
+import com.opengamma.batch.domain.RiskRun;
+import com.opengamma.engine.ComputationTargetSpecification;
+import com.opengamma.engine.ComputationTargetType;
+import com.opengamma.engine.value.ComputedValue;
+import com.opengamma.engine.value.ValueRequirement;
+import com.opengamma.engine.value.ValueSpecification;
+import com.opengamma.engine.view.InMemoryViewComputationResultModel;
+import com.opengamma.engine.view.calc.ViewCycleMetadata;
+import com.opengamma.engine.view.calcnode.InvocationResult;
+import com.opengamma.id.UniqueId;
+import com.opengamma.id.VersionCorrection;
+import com.opengamma.masterdb.DbMasterTestUtils;
+import com.opengamma.util.test.DbTest;
+
+/**
+ * A performance test of writing batch results, reporting the number of risk values written per second.
+ */
+@Test(enabled = false)
+public class DbBatchWriterPerformanceTest extends DbTest {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(DbBatchWriterPerformanceTest.class);
+
+  private static final String CALC_CONFIG = "Default";
+  private static final int NUM_TARGETS = 1000;
+  private static final int NUM_VALUES_PER_TARGET = 10;
+  private static final int NUM_FRAGMENTS = 10;
+
+  private DbBatchMaster _batchMaster;
+  private List<ComputationTargetSpecification> _targets;
+  private Map<ValueSpecification, Set<ValueRequirement>> _terminalOutputs;
+
+  @Factory(dataProvider = "databases", dataProviderClass = DbTest.class)
+  public DbBatchWriterPerformanceTest(String databaseType, String databaseVersion) {
+    super(databaseType, databaseVersion);
+    s_logger.info("running testcases for {}", databaseType);
+  }
+
+  @BeforeMethod
+  public void setUp() throws Exception {
+    super.setUp();
+    ConfigurableApplicationContext context = DbMasterTestUtils.getContext(getDatabaseType());
+    _batchMaster = (DbBatchMaster) context.getBean(getDatabaseType() + "DbBatchMaster");
+    _targets = Lists.newArrayListWithCapacity(NUM_TARGETS);
+    _terminalOutputs = Maps.newHashMap();
+    for (int i = 0; i < NUM_TARGETS; i++) {
+      final UniqueId targetId = UniqueId.of("Perf", Integer.toString(i));
+      _targets.add(new ComputationTargetSpecification(targetId));
+      for (int j = 0; j < NUM_VALUES_PER_TARGET; j++) {
+        final ValueRequirement requirement = new ValueRequirement("Value" + j, ComputationTargetType.PRIMITIVE, targetId);
+        _terminalOutputs.put(new ValueSpecification(requirement, "Function" + j), Collections.singleton(requirement));
+      }
+    }
+  }
+
+  @AfterMethod
+  public void tearDown() throws Exception {
+    super.tearDown();
+    _batchMaster = null;
+  }
+
+  //-------------------------------------------------------------------------
+  public void writeLotsOfResults() {
+    _batchMaster.createMarketData(UniqueId.of("snapshot", "snapshot", "snapshot"));
+    long start = System.nanoTime();
+    final RiskRun run = _batchMaster.startRiskRun(createCycleMetadata(), Maps.<String, String>newHashMap(), RunCreationMode.AUTO, SnapshotMode.PREPARED);
+    long end = System.nanoTime();
+    s_logger.info("Started run of {} values in {}ms", _terminalOutputs.size(), (end - start) / 1000000);
+
+    final List<InMemoryViewComputationResultModel> fragments = Lists.newArrayListWithCapacity(NUM_FRAGMENTS);
+    for (int i = 0; i < NUM_FRAGMENTS; i++) {
+      fragments.add(new InMemoryViewComputationResultModel());
+    }
+    int value = 0;
+    for (Map.Entry<ValueSpecification, Set<ValueRequirement>> output : _terminalOutputs.entrySet()) {
+      final ComputedValue computedValue = new ComputedValue(output.getKey(), (double) value);
+      computedValue.setInvocationResult(InvocationResult.SUCCESS);
+      computedValue.setRequirements(newHashSet(output.getValue()));
+      computedValue.setComputeNodeId("node" + (value % 4));
+      // keep all of a target's values in one fragment, as a cycle would
+      fragments.get(Math.abs(output.getKey().getTargetSpecification().hashCode()) % NUM_FRAGMENTS).addValue(CALC_CONFIG, computedValue);
+      value++;
+    }
+
+    start = System.nanoTime();
+    for (InMemoryViewComputationResultModel fragment : fragments) {
+      _batchMaster.addJobResults(run.getObjectId(), fragment);
+    }
+    end = System.nanoTime();
+    _batchMaster.endRiskRun(run.getObjectId());
+    final double seconds = (end - start) / 1e9;
+    s_logger.info("Wrote {} values in {}s ({} values/s)", new Object[] {value, seconds, (long) (value / seconds)});
+  }
+
+  //-------------------------------------------------------------------------
+  private ViewCycleMetadata createCycleMetadata() {
+    final Instant valuationTime = Instant.now();
+    return new ViewCycleMetadata() {
+
+      @Override
+      public UniqueId getViewCycleId() {
+        return UniqueId.of("viewcycle", "viewcycle", "viewcycle");
+      }
+
+      @Override
+      public Collection<String> getAllCalculationConfigurationNames() {
+        return Collections.singleton(CALC_CONFIG);
+      }
+
+      @Override
+      public Collection<ComputationTargetSpecification> getComputationTargets(String calcConfName) {
+        return CALC_CONFIG.equals(calcConfName) ? _targets : Collections.<ComputationTargetSpecification>emptyList();
+      }
+
+      @Override
+      public Map<ValueSpecification, Set<ValueRequirement>> getTerminalOutputs(String calcConfName) {
+        return CALC_CONFIG.equals(calcConfName) ? _terminalOutputs : Collections.<ValueSpecification, Set<ValueRequirement>>emptyMap();
+      }
+
+      @Override
+      public UniqueId getMarketDataSnapshotId() {
+        return UniqueId.of("snapshot", "snapshot", "snapshot");
+      }
+
+      @Override
+      public Instant getValuationTime() {
+        return valuationTime;
+      }
+
+      @Override
+      public VersionCorrection getVersionCorrection() {
+        return VersionCorrection.LATEST;
+      }
+
+      @Override
+      public UniqueId getViewDefinitionId() {
+        return UniqueId.of("viewdef", "viewdef", "viewdef");
+      }
+
+    };
+  }
+
+}
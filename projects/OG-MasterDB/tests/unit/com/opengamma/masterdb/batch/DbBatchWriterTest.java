@@ -34,6 +34,7 @@ import org.testng.annotations.Test;
 import com.google.common.collect.Maps;
 import com.google.common.collect.Sets;
 import com.opengamma.DataNotFoundException;
+import com.opengamma.analytics.math.matrix.DoubleMatrix1D;
 import com.opengamma.batch.RunCreationMode;
 import com.opengamma.batch.SnapshotMode;
 import com.opengamma.batch.domain.FunctionUniqueId;
@@ -551,4 +552,29 @@ public class DbBatchWriterTest extends DbTest {
       }});
     _batchMaster.addJobResults(run.getObjectId(), result);
   }
+
+  @Test
+  public void addJobResultsWriteThrough() {
+    final UniqueId marketDataUid = _cycleMetadataStub.getMarketDataSnapshotId();
+    _batchMaster.createMarketData(marketDataUid);
+    RiskRun run = _batchMaster.startRiskRun(_cycleMetadataStub, Maps.<String, String>newHashMap(), RunCreationMode.AUTO, SnapshotMode.WRITE_THROUGH);
+    InMemoryViewComputationResultModel result = new InMemoryViewComputationResultModel();
+    result.addValue("config_1",
+      new ComputedValue(
+        _specification,
+        new DoubleMatrix1D(new double[] {1.0, 2.0, 3.0})) {{
+        this.setInvocationResult(InvocationResult.SUCCESS);
+        this.setRequirements(newHashSet(_requirement));
+        this.setComputeNodeId("someComputeNode");
+      }});
+    _batchMaster.addJobResults(run.getObjectId(), result);
+    // every value converted from the result is written through, not just the first
+    List<MarketDataValue> marketDataValues = _batchMaster.getMarketDataValues(run.getMarketData().getObjectId(), PagingRequest.ALL).getFirst();
+    assertEquals(3, marketDataValues.size());
+    Set<String> names = new HashSet<String>();
+    for (MarketDataValue marketDataValue : marketDataValues) {
+      names.add(marketDataValue.getName());
+    }
+    assertEquals(newHashSet("FAIR_VALUE[0]", "FAIR_VALUE[1]", "FAIR_VALUE[2]"), names);
+  }
 }
@@ -15,8 +15,12 @@ import java.util.Arrays;
  * the figures will only be approximate.
  * <p>
  * The implementation is thread-safe.   
+ * <p>
+ * A counter can be published with JMX directly, or created through
+ * {@link com.opengamma.util.monitor.MetricRegistry#rate} to be published
+ * with the other metrics of the process.
  */
-public class PerformanceCounter {
+public class PerformanceCounter implements PerformanceCounterMBean {
 
   /**
    * The length of history to keep.
@@ -69,6 +73,7 @@ public class PerformanceCounter {
    * Gets the number of seconds to keep history for,
    * @return the history storage length in seconds
    */
+  @Override
   public int getSecondsOfHistoryToKeep() {
     return _secondsOfHistoryToKeep;
   }
@@ -77,6 +82,7 @@ public class PerformanceCounter {
   /**
    * Resets the counter.
    */
+  @Override
   public void reset() {
     long timestamp = System.currentTimeMillis();
     reset(timestamp);
@@ -159,6 +165,7 @@ public class PerformanceCounter {
    * Gets the count of hits per second.
    * @return the hit-rate
    */
+  @Override
   public double getHitsPerSecond() {
     return getHitsPerSecond(_secondsOfHistoryToKeep);    
   }
@@ -0,0 +1,30 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util;
+
+/**
+ * JMX management interface for a {@link PerformanceCounter}.
+ */
+public interface PerformanceCounterMBean {
+
+  /**
+   * Gets the number of seconds to keep history for,
+   * @return the history storage length in seconds
+   */
+  int getSecondsOfHistoryToKeep();
+
+  /**
+   * Gets the count of hits per second over the history kept.
+   * @return the hit-rate
+   */
+  double getHitsPerSecond();
+
+  /**
+   * Resets the counter.
+   */
+  void reset();
+
+}
@@ -0,0 +1,21 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+/**
+ * A metric whose value is sampled when it is read, such as the length of a queue. This is also the JMX management
+ * interface for the gauge.
+ */
+public interface Gauge {
+
+  /**
+   * Samples the current value.
+   *
+   * @return the value
+   */
+  long getValue();
+
+}
@@ -0,0 +1,232 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import javax.management.StandardMBean;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Named set of counters, rates, timing histograms and gauges. Components look up their metrics once, typically into static
+ * fields from the {@link #getDefault default} registry, and update them directly on their hot paths; the registry is
+ * only involved when the metrics are created or read. The metrics can be written out as plain text and published as
+ * JMX MBeans.
+ * <p>
+ * For example:
+ * <pre>
+ * private static final TimingHistogram s_compileTime = MetricRegistry.getDefault().histogram("engine.graph.compile");
+ *
+ * public void compile() {
+ *   final long start = System.nanoTime();
+ *   // ... timed code
+ *   s_compileTime.recordSince(start);
+ * }
+ * </pre>
+ */
+public class MetricRegistry {
+
+  private static final Logger s_logger = LoggerFactory.getLogger(MetricRegistry.class);
+
+  private static final MetricRegistry s_default = new MetricRegistry();
+
+  /**
+   * The number of seconds of history the rates are calculated over.
+   */
+  public static final int RATE_HISTORY_SECONDS = 60;
+
+  private final ConcurrentMap<String, Object> _metrics = new ConcurrentSkipListMap<String, Object>();
+  private volatile MBeanServer _mbeanServer;
+
+  /**
+   * Returns the registry shared by the components in this process.
+   *
+   * @return the default registry, not null
+   */
+  public static MetricRegistry getDefault() {
+    return s_default;
+  }
+
+  /**
+   * Returns the named counter, creating it if necessary.
+   *
+   * @param name the metric name, not null
+   * @return the counter, not null
+   */
+  public StripedCounter counter(final String name) {
+    return get(name, StripedCounter.class);
+  }
+
+  /**
+   * Returns the named rate, creating it if necessary. The rate reports the number of hits per second over the last
+   * {@link #RATE_HISTORY_SECONDS} seconds. Hits are counted as by a {@link #counter}, the rate only being calculated
+   * when it is read.
+   *
+   * @param name the metric name, not null
+   * @return the rate, not null
+   */
+  public StripedRate rate(final String name) {
+    return get(name, StripedRate.class);
+  }
+
+  /**
+   * Returns the named timing histogram, creating it if necessary.
+   *
+   * @param name the metric name, not null
+   * @return the histogram, not null
+   */
+  public TimingHistogram histogram(final String name) {
+    return get(name, TimingHistogram.class);
+  }
+
+  /**
+   * Registers a gauge, replacing any previous gauge of the same name. A component that is created more than once,
+   * for example in tests, will report the most recent instance.
+   *
+   * @param name the metric name, not null
+   * @param gauge the gauge, not null
+   */
+  public void gauge(final String name, final Gauge gauge) {
+    ArgumentChecker.notNull(name, "name");
+    ArgumentChecker.notNull(gauge, "gauge");
+    final Object previous = _metrics.put(name, gauge);
+    if ((previous != null) && !(previous instanceof Gauge)) {
+      _metrics.put(name, previous);
+      throw new IllegalArgumentException("Metric " + name + " is not a gauge");
+    }
+    register(name, gauge);
+  }
+
+  private <T> T get(final String name, final Class<T> type) {
+    ArgumentChecker.notNull(name, "name");
+    Object metric = _metrics.get(name);
+    if (metric == null) {
+      final Object newMetric = create(type);
+      metric = _metrics.putIfAbsent(name, newMetric);
+      if (metric == null) {
+        register(name, newMetric);
+        return type.cast(newMetric);
+      }
+    }
+    if (!type.isInstance(metric)) {
+      throw new IllegalArgumentException("Metric " + name + " is not a " + type.getSimpleName());
+    }
+    return type.cast(metric);
+  }
+
+  private static Object create(final Class<?> type) {
+    if (type == StripedRate.class) {
+      return new StripedRate(RATE_HISTORY_SECONDS);
+    }
+    try {
+      return type.newInstance();
+    } catch (Exception e) {
+      throw new IllegalStateException(e);
+    }
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Writes the current values, one per line, as the metric name and value separated by a space. Rates and histograms
+   * are written with suffixes on the metric name, histograms as several lines.
+   *
+   * @param out the output, not null
+   * @throws IOException if the output cannot be written
+   */
+  public void writeText(final Appendable out) throws IOException {
+    for (Map.Entry<String, Object> entry : _metrics.entrySet()) {
+      final String name = entry.getKey();
+      final Object metric = entry.getValue();
+      if (metric instanceof StripedCounter) {
+        writeLine(out, name, Long.toString(((StripedCounter) metric).getCount()));
+      } else if (metric instanceof StripedRate) {
+        writeLine(out, name + ".per_sec", Double.toString(((StripedRate) metric).getHitsPerSecond()));
+      } else if (metric instanceof TimingHistogram) {
+        final TimingHistogram histogram = (TimingHistogram) metric;
+        writeLine(out, name + ".count", Long.toString(histogram.getCount()));
+        writeLine(out, name + ".mean_ms", Double.toString(histogram.getMeanMillis()));
+        writeLine(out, name + ".p50_ms", Double.toString(histogram.getMedianMillis()));
+        writeLine(out, name + ".p90_ms", Double.toString(histogram.get90thPercentileMillis()));
+        writeLine(out, name + ".p99_ms", Double.toString(histogram.get99thPercentileMillis()));
+        writeLine(out, name + ".max_ms", Double.toString(histogram.getMaxMillis()));
+      } else {
+        final long value;
+        try {
+          value = ((Gauge) metric).getValue();
+        } catch (RuntimeException e) {
+          s_logger.warn("Couldn't read gauge {}: {}", name, e.getMessage());
+          continue;
+        }
+        writeLine(out, name, Long.toString(value));
+      }
+    }
+  }
+
+  private static void writeLine(final Appendable out, final String name, final String value) throws IOException {
+    out.append(name).append(' ').append(value).append('\n');
+  }
+
+  /**
+   * Returns the current values in the form written by {@link #writeText}.
+   *
+   * @return the values, not null
+   */
+  public String toText() {
+    final StringBuilder sb = new StringBuilder();
+    try {
+      writeText(sb);
+    } catch (IOException e) {
+      // Not possible with a StringBuilder
+      throw new IllegalStateException(e);
+    }
+    return sb.toString();
+  }
+
+  //-------------------------------------------------------------------------
+  /**
+   * Publishes the metrics as MBeans. Metrics created after this call are published as they are created.
+   *
+   * @param server the MBean server, not null
+   */
+  public void registerMBeans(final MBeanServer server) {
+    ArgumentChecker.notNull(server, "server");
+    _mbeanServer = server;
+    for (Map.Entry<String, Object> entry : _metrics.entrySet()) {
+      register(entry.getKey(), entry.getValue());
+    }
+  }
+
+  private void register(final String name, final Object metric) {
+    final MBeanServer server = _mbeanServer;
+    if (server == null) {
+      return;
+    }
+    try {
+      final ObjectName objectName = new ObjectName("com.opengamma:type=Metric,name=" + ObjectName.quote(name));
+      final Object mbean = (metric instanceof Gauge) ? new StandardMBean((Gauge) metric, Gauge.class) : metric;
+      try {
+        server.registerMBean(mbean, objectName);
+      } catch (InstanceAlreadyExistsException e) {
+        server.unregisterMBean(objectName);
+        server.registerMBean(mbean, objectName);
+      }
+    } catch (JMException e) {
+      s_logger.warn("Couldn't register metric {} with JMX: {}", name, e.getMessage());
+    }
+  }
+
+}
@@ -0,0 +1,77 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Counter which may be incremented from many threads at once without them contending on a single value. Each thread
+ * updates one of a number of stripes, spaced apart so that they are on different cache lines, and the stripes are
+ * summed when the count is read. Updating the counter does not allocate.
+ */
+public final class StripedCounter implements StripedCounterMBean {
+
+  /**
+   * Number of longs between stripes, so that each stripe is on its own cache line.
+   */
+  private static final int SPACING = 8;
+
+  private final AtomicLongArray _stripes;
+  private final int _mask;
+
+  /**
+   * Creates a counter with a stripe for each pair of available processors.
+   */
+  public StripedCounter() {
+    int stripes = 1;
+    while (stripes < Runtime.getRuntime().availableProcessors() * 2) {
+      stripes <<= 1;
+    }
+    _stripes = new AtomicLongArray(stripes * SPACING);
+    _mask = stripes - 1;
+  }
+
+  private int stripe() {
+    final long id = Thread.currentThread().getId();
+    return ((int) (id ^ (id >>> 16)) & _mask) * SPACING;
+  }
+
+  /**
+   * Increments the counter by one.
+   */
+  public void increment() {
+    _stripes.incrementAndGet(stripe());
+  }
+
+  /**
+   * Increments the counter.
+   *
+   * @param delta the amount to add
+   */
+  public void add(final long delta) {
+    _stripes.addAndGet(stripe(), delta);
+  }
+
+  /**
+   * Returns the current count. This is not an atomic snapshot if the counter is being updated concurrently.
+   *
+   * @return the count
+   */
+  @Override
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < _stripes.length(); i += SPACING) {
+      count += _stripes.get(i);
+    }
+    return count;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(getCount());
+  }
+
+}
@@ -0,0 +1,20 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+/**
+ * JMX management interface for a {@link StripedCounter}.
+ */
+public interface StripedCounterMBean {
+
+  /**
+   * Returns the current count.
+   *
+   * @return the count
+   */
+  long getCount();
+
+}
@@ -0,0 +1,92 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import java.util.LinkedList;
+import java.util.concurrent.TimeUnit;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Rate of events which may be recorded from many threads at once without them contending. Events are counted with a
+ * {@link StripedCounter}; the rate is only calculated when it is read, from the counts seen by earlier reads, so
+ * recording an event neither locks nor allocates.
+ * <p>
+ * The rate is reported over the period since the latest read at least the history length ago, or since the rate was
+ * created if there has been no such read. If the rate is read regularly, for example by a monitoring tool, this is
+ * the rate over slightly more than the history length.
+ */
+public final class StripedRate implements StripedRateMBean {
+
+  private final StripedCounter _counter = new StripedCounter();
+  private final long _historyNanos;
+  /**
+   * The times, from {@link System#nanoTime}, and counts of earlier reads, oldest first.
+   */
+  private final LinkedList<long[]> _samples = new LinkedList<long[]>();
+
+  /**
+   * Creates a rate.
+   *
+   * @param historySeconds the number of seconds the rate is calculated over, at least one
+   */
+  public StripedRate(final int historySeconds) {
+    ArgumentChecker.isTrue(historySeconds > 0, "historySeconds must be positive");
+    _historyNanos = TimeUnit.SECONDS.toNanos(historySeconds);
+    _samples.add(new long[] {System.nanoTime(), 0 });
+  }
+
+  /**
+   * Records an event.
+   */
+  public void hit() {
+    _counter.increment();
+  }
+
+  /**
+   * Records a number of events.
+   *
+   * @param hits the number of events
+   */
+  public void hit(final long hits) {
+    _counter.add(hits);
+  }
+
+  /**
+   * Returns the total number of events recorded.
+   *
+   * @return the count
+   */
+  @Override
+  public long getCount() {
+    return _counter.getCount();
+  }
+
+  /**
+   * Returns the number of events per second over the history.
+   *
+   * @return the rate
+   */
+  @Override
+  public synchronized double getHitsPerSecond() {
+    final long now = System.nanoTime();
+    final long count = _counter.getCount();
+    // Keep the latest sample from at least the history length ago as the base
+    while ((_samples.size() > 1) && (now - _samples.get(1)[0] >= _historyNanos)) {
+      _samples.removeFirst();
+    }
+    final long[] base = _samples.getFirst();
+    _samples.addLast(new long[] {now, count });
+    final long elapsed = now - base[0];
+    return (elapsed > 0) ? (double) (count - base[1]) * TimeUnit.SECONDS.toNanos(1) / elapsed : 0d;
+  }
+
+  @Override
+  public String toString() {
+    return Long.toString(getCount());
+  }
+
+}
@@ -0,0 +1,27 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+/**
+ * JMX management interface for a {@link StripedRate}.
+ */
+public interface StripedRateMBean {
+
+  /**
+   * Returns the total number of events recorded.
+   *
+   * @return the count
+   */
+  long getCount();
+
+  /**
+   * Returns the number of events per second over the history.
+   *
+   * @return the rate
+   */
+  double getHitsPerSecond();
+
+}
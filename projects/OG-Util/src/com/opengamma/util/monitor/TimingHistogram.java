@@ -0,0 +1,216 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+import com.opengamma.util.ArgumentChecker;
+
+/**
+ * Histogram of durations, in nanoseconds, from which the distribution can be reported. Samples are placed into
+ * logarithmic buckets, each power of two divided into sixteen linear sub-buckets, so any duration from a nanosecond
+ * upwards is held to within about 3% with a fixed amount of memory. Recording a sample is a single atomic increment
+ * and does not allocate, so it is cheap enough for use on the engine's hot paths.
+ * <p>
+ * A histogram may be created with a decay interval, after which number of samples all counts are halved so that the
+ * distribution follows changes in behavior. This suits histograms that are used to make decisions, such as when a
+ * job is taking longer than expected, rather than just reported.
+ * <p>
+ * Samples may be recorded concurrently; the figures reported are approximate while recording is taking place.
+ */
+public final class TimingHistogram implements TimingHistogramMBean {
+
+  private static final int SUB_BUCKET_BITS = 4;
+  private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+  private static final int BUCKETS = (64 - SUB_BUCKET_BITS) * SUB_BUCKETS;
+  private static final double NANOS_PER_MILLI = 1e6;
+
+  private final AtomicLongArray _counts = new AtomicLongArray(BUCKETS);
+  private final AtomicLong _max = new AtomicLong();
+  private final AtomicLong _samples = new AtomicLong();
+  private final int _decayInterval;
+
+  /**
+   * Creates a histogram that keeps every sample until it is reset.
+   */
+  public TimingHistogram() {
+    _decayInterval = 0;
+  }
+
+  /**
+   * Creates a histogram whose counts are halved each time the given number of samples has been recorded.
+   *
+   * @param decayInterval the number of samples after which counts are halved
+   */
+  public TimingHistogram(final int decayInterval) {
+    ArgumentChecker.isTrue(decayInterval > 1, "decayInterval must be greater than one");
+    _decayInterval = decayInterval;
+  }
+
+  /*package*/ static int bucket(final long nanos) {
+    if (nanos < SUB_BUCKETS) {
+      return (nanos <= 0) ? 0 : (int) nanos;
+    }
+    final int magnitude = 63 - Long.numberOfLeadingZeros(nanos);
+    return (magnitude - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + (int) ((nanos >>> (magnitude - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+  }
+
+  /*package*/ static long lowerBound(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return ((long) (SUB_BUCKETS + (bucket % SUB_BUCKETS))) << (magnitude - SUB_BUCKET_BITS);
+  }
+
+  private static double midPoint(final int bucket) {
+    if (bucket < SUB_BUCKETS) {
+      return bucket;
+    }
+    final int magnitude = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+    return lowerBound(bucket) + (double) (1L << (magnitude - SUB_BUCKET_BITS)) / 2;
+  }
+
+  /**
+   * Records a duration.
+   *
+   * @param nanos the duration in nanoseconds
+   */
+  public void record(final long nanos) {
+    _counts.incrementAndGet(bucket(nanos));
+    long max = _max.get();
+    while ((nanos > max) && !_max.compareAndSet(max, nanos)) {
+      max = _max.get();
+    }
+    if ((_decayInterval > 0) && (_samples.incrementAndGet() >= _decayInterval)) {
+      decay();
+    }
+  }
+
+  private synchronized void decay() {
+    if (_samples.get() < _decayInterval) {
+      return;
+    }
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      long value;
+      do {
+        value = _counts.get(i);
+      } while (!_counts.compareAndSet(i, value, value >> 1));
+      count += value >> 1;
+    }
+    _samples.set(count);
+  }
+
+  /**
+   * Records the duration since a start time.
+   *
+   * @param startNanos the start of the duration, from {@link System#nanoTime}
+   */
+  public void recordSince(final long startNanos) {
+    record(System.nanoTime() - startNanos);
+  }
+
+  @Override
+  public long getCount() {
+    long count = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      count += _counts.get(i);
+    }
+    return count;
+  }
+
+  /**
+   * Estimates the mean duration.
+   *
+   * @return the mean in nanoseconds, zero if there are no samples
+   */
+  public double getMean() {
+    long count = 0;
+    double total = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      final long n = _counts.get(i);
+      if (n > 0) {
+        count += n;
+        total += n * midPoint(i);
+      }
+    }
+    return (count > 0) ? total / count : 0;
+  }
+
+  /**
+   * Estimates a percentile of the durations.
+   *
+   * @param percentile the percentile, from 0 to 1
+   * @return the estimate in nanoseconds, zero if there are no samples
+   */
+  public double getPercentile(final double percentile) {
+    ArgumentChecker.isTrue(ArgumentChecker.isInRangeInclusive(0, 1, percentile), "percentile must be between 0 and 1");
+    final long count = getCount();
+    if (count == 0) {
+      return 0;
+    }
+    final long rank = Math.max((long) Math.ceil(count * percentile), 1);
+    long seen = 0;
+    for (int i = 0; i < BUCKETS; i++) {
+      seen += _counts.get(i);
+      if (seen >= rank) {
+        return Math.min(midPoint(i), _max.get());
+      }
+    }
+    return _max.get();
+  }
+
+  /**
+   * Returns the longest duration recorded.
+   *
+   * @return the maximum in nanoseconds, zero if there are no samples
+   */
+  public long getMax() {
+    return _max.get();
+  }
+
+  @Override
+  public double getMeanMillis() {
+    return getMean() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getMedianMillis() {
+    return getPercentile(0.5) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double get90thPercentileMillis() {
+    return getPercentile(0.9) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double get99thPercentileMillis() {
+    return getPercentile(0.99) / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return getMax() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public synchronized void reset() {
+    for (int i = 0; i < BUCKETS; i++) {
+      _counts.set(i, 0);
+    }
+    _max.set(0);
+    _samples.set(0);
+  }
+
+  @Override
+  public String toString() {
+    return "TimingHistogram[count=" + getCount() + ", median=" + getMedianMillis() + "ms, max=" + getMaxMillis() + "ms]";
+  }
+
+}
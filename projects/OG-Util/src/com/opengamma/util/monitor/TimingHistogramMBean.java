@@ -0,0 +1,60 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+/**
+ * JMX management interface for a {@link TimingHistogram}.
+ */
+public interface TimingHistogramMBean {
+
+  /**
+   * Returns the number of durations recorded.
+   *
+   * @return the count
+   */
+  long getCount();
+
+  /**
+   * Returns the mean duration.
+   *
+   * @return the mean in milliseconds
+   */
+  double getMeanMillis();
+
+  /**
+   * Returns the median duration.
+   *
+   * @return the median in milliseconds
+   */
+  double getMedianMillis();
+
+  /**
+   * Returns the 90th percentile duration.
+   *
+   * @return the 90th percentile in milliseconds
+   */
+  double get90thPercentileMillis();
+
+  /**
+   * Returns the 99th percentile duration.
+   *
+   * @return the 99th percentile in milliseconds
+   */
+  double get99thPercentileMillis();
+
+  /**
+   * Returns the longest duration.
+   *
+   * @return the maximum in milliseconds
+   */
+  double getMaxMillis();
+
+  /**
+   * Discards all recorded durations.
+   */
+  void reset();
+
+}
@@ -0,0 +1,142 @@
+/**
+ * Copyright (C) 2012 - present by OpenGamma Inc. and the OpenGamma group of companies
+ *
+ * Please see distribution for license.
+ */
+package com.opengamma.util.monitor;
+
+import static org.testng.AssertJUnit.assertEquals;
+import static org.testng.AssertJUnit.assertSame;
+import static org.testng.AssertJUnit.assertTrue;
+
+import java.lang.management.ManagementFactory;
+
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+
+import org.testng.annotations.Test;
+
+/**
+ * Tests the {@link MetricRegistry} and the metrics it holds.
+ */
+@Test
+public class MetricRegistryTest {
+
+  public void testBuckets() {
+    for (long value = 0; value < 100000; value++) {
+      final int bucket = TimingHistogram.bucket(value);
+      assertTrue(TimingHistogram.lowerBound(bucket) <= value);
+      assertTrue(TimingHistogram.lowerBound(bucket + 1) > value);
+    }
+    final int bucket = TimingHistogram.bucket(Long.MAX_VALUE);
+    assertTrue(TimingHistogram.lowerBound(bucket) <= Long.MAX_VALUE);
+  }
+
+  public void testHistogram() {
+    final TimingHistogram histogram = new TimingHistogram();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0d, histogram.getPercentile(0.5));
+    for (int i = 1; i <= 1000; i++) {
+      histogram.record(i * 1000000L);
+    }
+    assertEquals(1000, histogram.getCount());
+    assertEquals(1000d, histogram.getMaxMillis());
+    assertEquals(500d, histogram.getMedianMillis(), 500d * 0.04);
+    assertEquals(990d, histogram.get99thPercentileMillis(), 990d * 0.04);
+    assertEquals(500.5d, histogram.getMeanMillis(), 500.5d * 0.04);
+    histogram.reset();
+    assertEquals(0, histogram.getCount());
+    assertEquals(0L, histogram.getMax());
+  }
+
+  public void testHistogramDecay() {
+    final TimingHistogram histogram = new TimingHistogram(100);
+    for (int i = 0; i < 99; i++) {
+      histogram.record(1000000L);
+    }
+    assertEquals(99, histogram.getCount());
+    assertEquals(1d, histogram.getMedianMillis(), 0.04);
+    // The 100th sample halves the counts, so later samples come to dominate
+    histogram.record(1000000L);
+    assertEquals(50, histogram.getCount());
+    for (int i = 0; i < 60; i++) {
+      histogram.record(10000000L);
+    }
+    assertEquals(10d, histogram.getMedianMillis(), 0.4);
+  }
+
+  public void testCounter() throws InterruptedException {
+    final StripedCounter counter = new StripedCounter();
+    final Thread[] threads = new Thread[4];
+    for (int i = 0; i < threads.length; i++) {
+      threads[i] = new Thread() {
+        @Override
+        public void run() {
+          for (int j = 0; j < 10000; j++) {
+            counter.increment();
+          }
+        }
+      };
+      threads[i].start();
+    }
+    for (Thread thread : threads) {
+      thread.join();
+    }
+    counter.add(5);
+    assertEquals(40005, counter.getCount());
+  }
+
+  public void testRate() throws InterruptedException {
+    final StripedRate rate = new StripedRate(1);
+    rate.hit();
+    rate.hit(99);
+    assertEquals(100, rate.getCount());
+    Thread.sleep(100);
+    final double hitsPerSecond = rate.getHitsPerSecond();
+    assertTrue(hitsPerSecond > 0d);
+    assertTrue(hitsPerSecond <= 1000d);
+    // Once the history has passed, earlier hits no longer count
+    Thread.sleep(1100);
+    assertEquals(0d, rate.getHitsPerSecond());
+  }
+
+  public void testText() {
+    final MetricRegistry registry = new MetricRegistry();
+    final StripedCounter counter = registry.counter("b.counter");
+    assertSame(counter, registry.counter("b.counter"));
+    counter.add(3);
+    registry.histogram("c.histogram").record(2000000L);
+    registry.gauge("a.gauge", new Gauge() {
+      @Override
+      public long getValue() {
+        return 42;
+      }
+    });
+    final StripedRate rate = registry.rate("d.rate");
+    assertSame(rate, registry.rate("d.rate"));
+    final String text = registry.toText();
+    assertTrue(text.startsWith("a.gauge 42\nb.counter 3\nc.histogram.count 1\n"));
+    assertTrue(text.contains("c.histogram.max_ms 2.0\n"));
+    assertTrue(text.endsWith("d.rate.per_sec 0.0\n"));
+  }
+
+  @Test(expectedExceptions = IllegalArgumentException.class)
+  public void testWrongType() {
+    final MetricRegistry registry = new MetricRegistry();
+    registry.counter("metric");
+    registry.histogram("metric");
+  }
+
+  public void testMBeans() throws Exception {
+    final MetricRegistry registry = new MetricRegistry();
+    registry.counter("test.before").increment();
+    final MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+    registry.registerMBeans(server);
+    registry.histogram("test.after");
+    registry.rate("test.rate");
+    assertEquals(1L, server.getAttribute(new ObjectName("com.opengamma:type=Metric,name=" + ObjectName.quote("test.before")), "Count"));
+    assertEquals(0L, server.getAttribute(new ObjectName("com.opengamma:type=Metric,name=" + ObjectName.quote("test.after")), "Count"));
+    assertEquals(0L, server.getAttribute(new ObjectName("com.opengamma:type=Metric,name=" + ObjectName.quote("test.rate")), "Count"));
+  }
+
+}